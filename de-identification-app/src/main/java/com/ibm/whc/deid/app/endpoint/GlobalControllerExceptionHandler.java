@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import com.ibm.whc.deid.endpoint.exception.BadRequestException;
+import com.ibm.whc.deid.endpoint.exception.NotFoundException;
 import com.ibm.whc.deid.shared.exception.DeidException;
 import com.ibm.whc.deid.shared.exception.InvalidInputException;
 import com.ibm.whc.deid.utils.log.Messages;
@@ -64,4 +65,11 @@ public class GlobalControllerExceptionHandler {
   String handleBadRequest(HttpServletRequest req, Exception ex) {
     return ex.getMessage();
   }
+
+  @ResponseBody
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  @ExceptionHandler(NotFoundException.class)
+  String handleNotFound(HttpServletRequest req, Exception ex) {
+    return ex.getMessage();
+  }
 }
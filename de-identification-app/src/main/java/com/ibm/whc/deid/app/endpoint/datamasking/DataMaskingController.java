@@ -6,28 +6,39 @@
 package com.ibm.whc.deid.app.endpoint.datamasking;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ibm.whc.deid.ObjectMapperFactory;
+import com.ibm.whc.deid.app.endpoint.datamasking.MaskingConfigurationRegistry.RegisteredConfiguration;
 import com.ibm.whc.deid.endpoint.datamasking.AbstractDataMaskingInvoker;
 import com.ibm.whc.deid.endpoint.exception.BadRequestException;
+import com.ibm.whc.deid.endpoint.exception.NotFoundException;
+import com.ibm.whc.deid.masking.ComplexMaskingProviderCache;
 import com.ibm.whc.deid.shared.exception.DeidException;
 import com.ibm.whc.deid.shared.exception.InvalidInputException;
 import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaTypes;
-import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
 import com.ibm.whc.deid.shared.pojo.config.GlobalProcessorConfig;
+import com.ibm.whc.deid.shared.pojo.masking.DataMaskingByReferenceModel;
 import com.ibm.whc.deid.shared.pojo.masking.DataMaskingModel;
 import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
-import com.ibm.whc.deid.shared.util.MaskingConfigUtils;
 import com.ibm.whc.deid.utils.log.LogCodes;
 import com.ibm.whc.deid.utils.log.LogManager;
+import com.ibm.whc.deid.utils.log.Messages;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -45,11 +56,20 @@ public class DataMaskingController extends AbstractDataMaskingInvoker {
 
   private static final LogManager log = LogManager.getInstance();
 
+  // the largest number of documents a streaming request can ask to have masked together
+  private static final int MAXIMUM_STREAM_BATCH_SIZE = 10000;
+
   private final DataMaskingService dataMaskingService;
+  private final MaskingConfigurationRegistry registry;
+  private final int streamBatchSize;
 
   @Autowired
-  DataMaskingController(DataMaskingService dataMaskingService) {
+  DataMaskingController(DataMaskingService dataMaskingService,
+      MaskingConfigurationRegistry registry,
+      @Value("${deid.masking.stream.batch-size:100}") int streamBatchSize) {
     this.dataMaskingService = dataMaskingService;
+    this.registry = registry;
+    this.streamBatchSize = streamBatchSize;
   }
 
   @Operation(summary = "de-identify data",
@@ -71,22 +91,61 @@ public class DataMaskingController extends AbstractDataMaskingInvoker {
   protected ResponseEntity<?> maskJsonMethod(DataMaskingModel maskRequest,
       DataMaskingService service)
       throws InvalidMaskingConfigurationException, DeidException, InvalidInputException {
-    List<String> maskedData;
+    List<JsonNode> maskedData;
     try {
       // String globalConfig = maskRequest.getGlobalConfig();
       String globalConfig = null;
       List<String> data = maskRequest.getData();
       ConfigSchemaTypes schemaType = maskRequest.getSchemaType();
 
-      DeidMaskingConfig maskingConfig = MaskingConfigUtils.validateConfig(maskRequest.getConfig());
+      // configurations submitted repeatedly are validated only once
+      ComplexMaskingProviderCache.Entry maskingConfig =
+          service.getMaskingConfiguration(maskRequest.getConfig(), schemaType);
       GlobalProcessorConfig gpConfig = validateGlobalConfig(globalConfig);
       validateData(data);
       validateSchemaType(schemaType);
 
-      maskedData = service.maskData(maskingConfig, gpConfig, data, schemaType);
+      maskedData = service.maskNodes(maskingConfig, gpConfig, data);
+
+      ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+      String maskedOutput = getNodesString(objectMapper, maskedData);
+
+      return new ResponseEntity<>(maskedOutput, HttpStatus.OK);
+    } catch (IOException e) {
+      log.logError(LogCodes.WPH6000E, e, "Unable to mask data");
+      throw new DeidException(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "de-identify data using a registered configuration",
+      description = "De-identify the given data using the masking configuration registered under the given name and version",
+      tags = {"De-Identification"})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "The protected output as a JSON array.",
+          content = @Content(schema = @Schema(implementation = String.class)))})
+  @PostMapping("/deidentification/byReference")
+  public ResponseEntity<?> maskJsonByReference(
+      @RequestBody DataMaskingByReferenceModel maskRequest)
+      throws BadRequestException, DeidException, InvalidInputException {
+    List<JsonNode> maskedData;
+    try {
+      List<String> data = maskRequest.getData();
+      ConfigSchemaTypes schemaType = maskRequest.getSchemaType();
+
+      RegisteredConfiguration registered =
+          registry.get(maskRequest.getConfigName(), maskRequest.getConfigVersion());
+      if (registered == null) {
+        throw new NotFoundException("masking configuration " + maskRequest.getConfigName() + "/"
+            + maskRequest.getConfigVersion());
+      }
+      validateData(data);
+      validateSchemaType(schemaType);
+
+      maskedData = dataMaskingService.maskNodes(registry.getEntry(registered, schemaType), null,
+          data);
 
       ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
-      String maskedOutput = getString(objectMapper, maskedData);
+      String maskedOutput = getNodesString(objectMapper, maskedData);
 
       return new ResponseEntity<>(maskedOutput, HttpStatus.OK);
     } catch (IOException e) {
@@ -94,4 +153,92 @@ public class DataMaskingController extends AbstractDataMaskingInvoker {
       throw new DeidException(e.getMessage());
     }
   }
+
+  @Operation(summary = "de-identify a stream of data using a registered configuration",
+      description = "De-identify newline-delimited JSON documents, or a JSON array of documents, using the masking configuration registered under the given name and version. Masked documents are written as newline-delimited JSON as soon as each batch is complete. If a document cannot be masked after output has started, the documents already written are kept and the response ends with a JSON object whose only field is error.",
+      tags = {"De-Identification"})
+  @ApiResponses(value = {@ApiResponse(responseCode = "200",
+      description = "The protected output as newline-delimited JSON, ending with an error record if masking failed after output started.",
+      content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+          schema = @Schema(implementation = String.class)))})
+  @PostMapping(value = "/deidentification/stream",
+      consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void maskJsonStream(@RequestParam("configName") String configName,
+      @RequestParam("configVersion") String configVersion,
+      @RequestParam("schemaType") String schemaTypeName,
+      @RequestParam(value = "batchSize", required = false) Integer batchSize,
+      HttpServletRequest request, HttpServletResponse response)
+      throws DeidException, InvalidInputException {
+    // everything is validated before any output is written so that errors can still be reported
+    RegisteredConfiguration registered = registry.get(configName, configVersion);
+    if (registered == null) {
+      throw new NotFoundException("masking configuration " + configName + "/" + configVersion);
+    }
+    ConfigSchemaTypes schemaType;
+    try {
+      schemaType =
+          ObjectMapperFactory.getObjectMapper().convertValue(schemaTypeName, ConfigSchemaTypes.class);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidInputException("schemaType");
+    }
+    validateSchemaType(schemaType);
+    int size = batchSize == null ? streamBatchSize : batchSize.intValue();
+    if (size < 1 || size > MAXIMUM_STREAM_BATCH_SIZE) {
+      throw new InvalidInputException("batchSize");
+    }
+    boolean jsonArray = request.getContentType() != null && MediaType
+        .parseMediaType(request.getContentType()).isCompatibleWith(MediaType.APPLICATION_JSON);
+    ComplexMaskingProviderCache.Entry entry = registry.getEntry(registered, schemaType);
+
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    // each batch is parsed completely before any of it is written, but once a batch has been
+    // written the status can no longer change, so later failures end the output with an error
+    // record instead
+    try {
+      dataMaskingService.maskStream(entry, request.getInputStream(), jsonArray, size,
+          response.getOutputStream());
+    } catch (IOException e) {
+      log.logError(LogCodes.WPH6000E, e, "Unable to mask data stream");
+      if (!response.isCommitted()) {
+        throw new DeidException(e.getMessage());
+      }
+      writeStreamError(response, e.getMessage());
+    } catch (IllegalArgumentException e) {
+      if (!response.isCommitted()) {
+        throw e;
+      }
+      log.logError(LogCodes.WPH6000E, e, "Unable to mask data stream");
+      writeStreamError(response, e.getMessage());
+    } catch (RuntimeException e) {
+      if (!response.isCommitted()) {
+        throw e;
+      }
+      log.logError(LogCodes.WPH6000E, e, "Unable to mask data stream");
+      writeStreamError(response, Messages.getMessage(LogCodes.WPH6001E));
+    }
+  }
+
+  /**
+   * Ends a streaming response whose status has already been sent with a record describing the
+   * failure, so that the client can tell the output is incomplete.
+   *
+   * @param response the response to which masked documents have been written
+   * @param message the description of the failure
+   */
+  private void writeStreamError(HttpServletResponse response, String message) {
+    try {
+      ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+      OutputStream output = response.getOutputStream();
+      output.write(objectMapper.writeValueAsBytes(objectMapper.createObjectNode()
+          .put("error", message)));
+      output.write('\n');
+      output.flush();
+    } catch (IOException e) {
+      // the client is no longer reading the response
+      log.logError(LogCodes.WPH6000E, e, "Unable to write data stream error");
+    }
+  }
 }
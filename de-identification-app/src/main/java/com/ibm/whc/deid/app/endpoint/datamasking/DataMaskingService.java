@@ -5,40 +5,289 @@
  */
 package com.ibm.whc.deid.app.endpoint.datamasking;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.whc.deid.ObjectMapperFactory;
+import com.ibm.whc.deid.masking.ComplexMaskingProviderCache;
 import com.ibm.whc.deid.masking.DataMaskingCore;
+import com.ibm.whc.deid.providers.masking.ComplexMaskingProvider;
+import com.ibm.whc.deid.shared.exception.KeyedIllegalArgumentException;
 import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaTypes;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
 import com.ibm.whc.deid.shared.pojo.config.GlobalProcessorConfig;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
 import com.ibm.whc.deid.shared.pojo.masking.ReferableData;
+import com.ibm.whc.deid.shared.pojo.masking.ReferableNode;
+import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.Messages;
 
 @Service
 public class DataMaskingService {
 
-  private final DataMaskingCore dataMaskingCore = new DataMaskingCore();
+  private final ForkJoinPool executor;
+
+  private final DataMaskingCore dataMaskingCore;
+
+  private final ComplexMaskingProviderCache cache;
+
+  /**
+   * @param cacheMaximumSize the maximum number of masking configurations cached, zero to disable
+   *        the cache
+   * @param cacheExpireAfterSeconds the number of seconds a masking configuration remains cached,
+   *        zero or less for no time limit
+   * @param uncachedProviderTypes comma-separated names of masking provider types for which the
+   *        built masking providers are not reused between requests
+   * @param parallelThreads the number of threads used to mask the documents of a request
+   *        concurrently, zero or less to mask them on the request thread
+   * @param parallelChunkSize the number of documents masked together by each thread
+   */
+  @Autowired
+  public DataMaskingService(
+      @Value("${deid.masking.cache.maximum-size:" + ComplexMaskingProviderCache.DEFAULT_MAXIMUM_SIZE
+          + "}") int cacheMaximumSize,
+      @Value("${deid.masking.cache.expire-after-seconds:3600}") long cacheExpireAfterSeconds,
+      @Value("${deid.masking.cache.uncached-provider-types:}") String uncachedProviderTypes,
+      @Value("${deid.masking.parallel.threads:0}") int parallelThreads,
+      @Value("${deid.masking.parallel.chunk-size:50}") int parallelChunkSize) {
+    if (parallelThreads > 0) {
+      this.executor = new ForkJoinPool(parallelThreads);
+      this.dataMaskingCore = new DataMaskingCore(this.executor, parallelChunkSize);
+    } else {
+      this.executor = null;
+      this.dataMaskingCore = new DataMaskingCore();
+    }
+
+    List<MaskingProviderType> types = new ArrayList<>();
+    if (uncachedProviderTypes != null) {
+      for (String type : uncachedProviderTypes.split(",")) {
+        if (!type.trim().isEmpty()) {
+          types.add(MaskingProviderType.valueOf(type.trim()));
+        }
+      }
+    }
+    this.cache = new ComplexMaskingProviderCache(cacheMaximumSize,
+        cacheExpireAfterSeconds * 1000L, types);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * @return the cache of validated masking configurations and the masking providers built from
+   *         them, which provides the cache statistics
+   */
+  public ComplexMaskingProviderCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Validates the given masking configuration, or retrieves it from the cache if it was already
+   * validated.
+   *
+   * @param configuration masking configuration in serialized JSON (String) form
+   * @param schemaType the format of the documents to process
+   *
+   * @return the validated configuration and its masking providers
+   *
+   * @throws InvalidMaskingConfigurationException if the configuration is not valid
+   */
+  public ComplexMaskingProviderCache.Entry getMaskingConfiguration(String configuration,
+      ConfigSchemaTypes schemaType) throws InvalidMaskingConfigurationException {
+    return cache.getEntry(configuration, schemaType, null);
+  }
 
   /**
    * @param configuration masking configuration
    * @param gpConfig global (document-level) configuration
    * @param list JSON documents to process
-   * 
+   *
    * @return the processed JSON documents in string format
    */
   public final List<String> maskData(final DeidMaskingConfig configuration,
       final GlobalProcessorConfig gpConfig, final List<String> list,
       ConfigSchemaTypes schemaType) {
-    List<String> outputRecords = new ArrayList<>();
+    return toStrings(dataMaskingCore.maskData(configuration, gpConfig, toReferableData(list),
+        schemaType));
+  }
+
+  /**
+   * @param configuration masking configuration obtained from
+   *        {@link #getMaskingConfiguration(String, ConfigSchemaTypes)}
+   * @param gpConfig global (document-level) configuration
+   * @param list JSON documents to process
+   *
+   * @return the processed JSON documents in string format
+   */
+  public final List<String> maskData(final ComplexMaskingProviderCache.Entry configuration,
+      final GlobalProcessorConfig gpConfig, final List<String> list) {
+    ComplexMaskingProvider provider = configuration.getComplexMaskingProvider(gpConfig);
+    try {
+      return toStrings(dataMaskingCore.maskData(provider, toReferableData(list)));
+    } finally {
+      configuration.release(provider);
+    }
+  }
+
+  /**
+   * @param configuration masking configuration obtained from
+   *        {@link #getMaskingConfiguration(String, ConfigSchemaTypes)}
+   * @param gpConfig global (document-level) configuration
+   * @param list JSON documents to process
+   *
+   * @return the processed JSON documents, which are not serialized so that they can be written
+   *         directly into the response
+   */
+  public final List<JsonNode> maskNodes(final ComplexMaskingProviderCache.Entry configuration,
+      final GlobalProcessorConfig gpConfig, final List<String> list) {
+    ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    List<ReferableNode> nodes = new ArrayList<>(list.size());
+    for (String input : list) {
+      nodes.add(new ReferableNode(String.valueOf(nodes.size()), readTree(objectMapper, input,
+          nodes.size())));
+    }
+    ComplexMaskingProvider provider = configuration.getComplexMaskingProvider(gpConfig);
+    try {
+      return toNodes(dataMaskingCore.maskNodes(provider, nodes));
+    } finally {
+      configuration.release(provider);
+    }
+  }
+
+  /**
+   * Masks a stream of JSON documents in batches of limited size, writing each masked document to
+   * the output as soon as its batch is complete so that the whole stream is never held in memory.
+   *
+   * @param configuration masking configuration obtained from
+   *        {@link #getMaskingConfiguration(String, ConfigSchemaTypes)}
+   * @param input either newline-delimited JSON documents or a JSON array of documents, each of
+   *        which can be either a JSON object or a string containing a serialized JSON object
+   * @param jsonArray <i>true</i> if the input is a JSON array, <i>false</i> if it is newline-delimited
+   * @param batchSize the maximum number of documents masked together
+   * @param output the stream to which the masked documents are written as newline-delimited JSON
+   *
+   * @return the number of documents masked
+   *
+   * @throws IOException if the input cannot be read or parsed or the output cannot be written
+   */
+  public final long maskStream(final ComplexMaskingProviderCache.Entry configuration,
+      InputStream input, boolean jsonArray, int batchSize, OutputStream output)
+      throws IOException {
+    ComplexMaskingProvider provider = configuration.getComplexMaskingProvider(null);
+    try {
+      return maskStream(provider, input, jsonArray, batchSize, output);
+    } finally {
+      configuration.release(provider);
+    }
+  }
+
+  private long maskStream(ComplexMaskingProvider provider, InputStream input, boolean jsonArray,
+      int batchSize, OutputStream output) throws IOException {
+    ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    long count = 0;
+    if (jsonArray) {
+      try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+          throw new JsonParseException(parser, "input must be a JSON array");
+        }
+        List<ReferableNode> batch = new ArrayList<>(batchSize);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+          if (token == null) {
+            throw new JsonParseException(parser, "unexpected end of JSON array");
+          }
+          JsonNode node = token == JsonToken.VALUE_STRING
+              ? readTree(objectMapper, parser.getText(), count + batch.size())
+              : parser.readValueAsTree();
+          batch.add(new ReferableNode(String.valueOf(batch.size()), node));
+          if (batch.size() == batchSize) {
+            count += writeBatch(provider, batch, output);
+          }
+        }
+        count += writeBatch(provider, batch, output);
+      }
+    } else {
+      BufferedReader reader =
+          new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+      List<ReferableNode> batch = new ArrayList<>(batchSize);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.trim().isEmpty()) {
+          batch.add(new ReferableNode(String.valueOf(batch.size()),
+              readTree(objectMapper, line, count + batch.size())));
+          if (batch.size() == batchSize) {
+            count += writeBatch(provider, batch, output);
+          }
+        }
+      }
+      count += writeBatch(provider, batch, output);
+    }
+    return count;
+  }
+
+  private int writeBatch(ComplexMaskingProvider provider, List<ReferableNode> batch,
+      OutputStream output) throws IOException {
+    int size = batch.size();
+    if (size > 0) {
+      ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+      for (JsonNode record : toNodes(dataMaskingCore.maskNodes(provider, batch))) {
+        output.write(objectMapper.writeValueAsBytes(record));
+        output.write('\n');
+      }
+      output.flush();
+      batch.clear();
+    }
+    return size;
+  }
+
+  private JsonNode readTree(ObjectMapper objectMapper, String input, long index) {
+    try {
+      return objectMapper.readTree(input);
+    } catch (JsonProcessingException e) {
+      throw new KeyedIllegalArgumentException(LogCodes.WPH1026E,
+          Messages.getMessage(LogCodes.WPH1026E, String.valueOf(index), e.getMessage()), e);
+    }
+  }
+
+  private List<JsonNode> toNodes(List<ReferableNode> list) {
+    return list.stream().map(ReferableNode::getNode).collect(Collectors.toList());
+  }
+
+  private List<ReferableData> toReferableData(List<String> list) {
     AtomicInteger messageOrder = new AtomicInteger();
-    outputRecords
-        .addAll(dataMaskingCore.maskData(configuration, gpConfig, list.stream().map(input -> {
-          return new ReferableData(String.valueOf(messageOrder.getAndIncrement()), input);
-        }).collect(Collectors.toList()), schemaType).stream().map(input -> {
-          return input.getData();
-        }).collect(Collectors.toList()));
+    return list.stream().map(input -> {
+      return new ReferableData(String.valueOf(messageOrder.getAndIncrement()), input);
+    }).collect(Collectors.toList());
+  }
+
+  private List<String> toStrings(List<ReferableData> list) {
+    List<String> outputRecords = new ArrayList<>();
+    outputRecords.addAll(list.stream().map(input -> {
+      return input.getData();
+    }).collect(Collectors.toList()));
     return outputRecords;
   }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,10 +13,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ibm.whc.deid.ObjectMapperFactory;
 import com.ibm.whc.deid.endpoint.exception.BadRequestException;
 import com.ibm.whc.deid.shared.exception.DeidException;
+import com.ibm.whc.deid.util.ManagerFactory;
+import com.ibm.whc.deid.util.ManagerLoadStatistics;
 import com.ibm.whc.deid.utils.log.LogCodes;
 import com.ibm.whc.deid.utils.log.LogManager;
 import io.swagger.v3.oas.annotations.Operation;
@@ -35,23 +38,39 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class HealthController {
 	static final LogManager log = LogManager.getInstance();
 
+	private final ResourceManagerWarmUp warmUp;
+
 	@Autowired
-	HealthController() {
+	HealthController(ResourceManagerWarmUp warmUp) {
+		this.warmUp = warmUp;
 	}
 
     @Operation(summary = "server status", description = "Get the status of the server",
         tags = {"Health"})
 	@ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "A status report in JSON format",
+            content = @Content(schema = @Schema(implementation = String.class))),
+        @ApiResponse(responseCode = "503",
+            description = "The resource managers loaded at startup are not yet available",
             content = @Content(schema = @Schema(implementation = String.class)))})
 	@GetMapping("/health")
 	public ResponseEntity<?> getStatus()
 			throws BadRequestException, DeidException {
 		final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
 		ObjectNode node = objectMapper.createObjectNode();
-		node.put("status", "UP");
+		boolean ready = warmUp.isComplete();
+		node.put("status", ready ? "UP" : "STARTING");
+		ArrayNode managers = node.putArray("resourceManagers");
+		for (ManagerLoadStatistics statistics : ManagerFactory.getInstance().getLoadStatistics()) {
+			ObjectNode manager = managers.addObject();
+			manager.put("resourceType", statistics.getResourceType());
+			manager.put("localizationProperty", statistics.getLocalizationProperty());
+			manager.put("loadTimeMillis", statistics.getLoadTimeMillis());
+			manager.put("allocatedBytes", statistics.getAllocatedBytes());
+		}
 		try {
-			return new ResponseEntity<>(objectMapper.writeValueAsString(node), HttpStatus.OK);
+			return new ResponseEntity<>(objectMapper.writeValueAsString(node),
+					ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
 		} catch (JsonProcessingException e) {
 			log.logError(LogCodes.WPH6000E, e, "Unable to get status");
 			throw new DeidException(e.getMessage());
@@ -0,0 +1,139 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.app.endpoint.datamasking;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ibm.whc.deid.ObjectMapperFactory;
+import com.ibm.whc.deid.app.endpoint.datamasking.MaskingConfigurationRegistry.RegisteredConfiguration;
+import com.ibm.whc.deid.endpoint.exception.BadRequestException;
+import com.ibm.whc.deid.endpoint.exception.NotFoundException;
+import com.ibm.whc.deid.shared.exception.DeidException;
+import com.ibm.whc.deid.shared.exception.InvalidInputException;
+import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.LogManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/*
+ * Masking configuration rest endpoint - registers masking configurations that can be referred to
+ * by name and version in deidentification requests
+ */
+@RestController
+@RequestMapping("/api/v1")
+@Tag(name = "Masking Configuration", description = "Masking configuration registration APIs")
+public class MaskingConfigurationController {
+
+  private static final LogManager log = LogManager.getInstance();
+
+  private final MaskingConfigurationRegistry registry;
+
+  @Autowired
+  MaskingConfigurationController(MaskingConfigurationRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Operation(summary = "register a masking configuration",
+      description = "Validate the given masking configuration and register it under the given name and version",
+      tags = {"Masking Configuration"})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "The configuration was registered.",
+          content = @Content(schema = @Schema(implementation = String.class))),
+      @ApiResponse(responseCode = "200",
+          description = "The configuration replaced the configuration previously registered.",
+          content = @Content(schema = @Schema(implementation = String.class)))})
+  @PutMapping(value = "/configurations/{name}/{version}")
+  public ResponseEntity<?> register(@PathVariable("name") String name,
+      @PathVariable("version") String version, @RequestBody String config)
+      throws BadRequestException, DeidException, InvalidInputException {
+    boolean created;
+    try {
+      created = registry.register(name, version, config);
+    } catch (InvalidMaskingConfigurationException e) {
+      throw new BadRequestException(e.getMessage());
+    }
+    ObjectNode node = ObjectMapperFactory.getObjectMapper().createObjectNode();
+    node.put("name", name);
+    node.put("version", version);
+    return new ResponseEntity<>(toString(node), created ? HttpStatus.CREATED : HttpStatus.OK);
+  }
+
+  @Operation(summary = "list masking configurations",
+      description = "List the names and versions of the registered masking configurations",
+      tags = {"Masking Configuration"})
+  @ApiResponses(value = {@ApiResponse(responseCode = "200",
+      description = "The registered configurations as a JSON array.",
+      content = @Content(schema = @Schema(implementation = String.class)))})
+  @GetMapping("/configurations")
+  public ResponseEntity<?> list() throws DeidException {
+    ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    ArrayNode array = objectMapper.createArrayNode();
+    for (RegisteredConfiguration registered : registry.list()) {
+      ObjectNode node = array.addObject();
+      node.put("name", registered.getName());
+      node.put("version", registered.getVersion());
+    }
+    return new ResponseEntity<>(toString(array), HttpStatus.OK);
+  }
+
+  @Operation(summary = "get a masking configuration",
+      description = "Get the masking configuration registered under the given name and version",
+      tags = {"Masking Configuration"})
+  @ApiResponses(value = {@ApiResponse(responseCode = "200",
+      description = "The registered configuration.",
+      content = @Content(schema = @Schema(implementation = String.class)))})
+  @GetMapping(value = "/configurations/{name}/{version}",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> get(@PathVariable("name") String name,
+      @PathVariable("version") String version) {
+    RegisteredConfiguration registered = registry.get(name, version);
+    if (registered == null) {
+      throw new NotFoundException("masking configuration " + name + "/" + version);
+    }
+    return new ResponseEntity<>(registered.getConfiguration(), HttpStatus.OK);
+  }
+
+  @Operation(summary = "remove a masking configuration",
+      description = "Remove the masking configuration registered under the given name and version",
+      tags = {"Masking Configuration"})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "The configuration was removed.")})
+  @DeleteMapping("/configurations/{name}/{version}")
+  public ResponseEntity<?> remove(@PathVariable("name") String name,
+      @PathVariable("version") String version) throws DeidException {
+    if (!registry.remove(name, version)) {
+      throw new NotFoundException("masking configuration " + name + "/" + version);
+    }
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
+
+  private String toString(Object node) throws DeidException {
+    try {
+      return ObjectMapperFactory.getObjectMapper().writeValueAsString(node);
+    } catch (JsonProcessingException e) {
+      log.logError(LogCodes.WPH6000E, e, "Unable to write response");
+      throw new DeidException(e.getMessage());
+    }
+  }
+}
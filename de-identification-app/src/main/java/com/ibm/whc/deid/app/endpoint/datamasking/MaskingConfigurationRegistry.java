@@ -0,0 +1,270 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.app.endpoint.datamasking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.ibm.whc.deid.masking.ComplexMaskingProviderCache;
+import com.ibm.whc.deid.shared.exception.DeidException;
+import com.ibm.whc.deid.shared.exception.InvalidInputException;
+import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaTypes;
+import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.LogManager;
+
+/**
+ * Masking configurations registered under a name and version so that masking requests can refer to
+ * them rather than including the configuration.
+ *
+ * <p>
+ * Registered configurations are validated once, when they are registered, and the masking providers
+ * built from them are retained for as long as the configuration remains registered. If a directory
+ * is configured, registered configurations are also written to that directory as
+ * <i>name/version.json</i> and are registered again when the service starts.
+ */
+@Service
+public class MaskingConfigurationRegistry {
+
+  private static final LogManager log = LogManager.getInstance();
+
+  private static final Pattern ID_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+  private static final String FILE_SUFFIX = ".json";
+
+  /**
+   * A registered masking configuration.
+   */
+  public static final class RegisteredConfiguration {
+
+    private final String name;
+    private final String version;
+    private final String configuration;
+    private final DeidMaskingConfig maskingConfig;
+    // the masking providers built for each schema type with which the configuration is used
+    private final ConcurrentHashMap<String, ComplexMaskingProviderCache.Entry> entries =
+        new ConcurrentHashMap<>();
+
+    RegisteredConfiguration(String name, String version, String configuration,
+        DeidMaskingConfig maskingConfig) {
+      this.name = name;
+      this.version = version;
+      this.configuration = configuration;
+      this.maskingConfig = maskingConfig;
+    }
+
+    /**
+     * Drops the values cached by the masking providers built for this configuration.
+     */
+    void release() {
+      for (ComplexMaskingProviderCache.Entry entry : entries.values()) {
+        entry.release();
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getVersion() {
+      return version;
+    }
+
+    public String getConfiguration() {
+      return configuration;
+    }
+  }
+
+  private final ComplexMaskingProviderCache cache;
+  private final Path directory;
+  private final ConcurrentHashMap<String, RegisteredConfiguration> configurations =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @param dataMaskingService the service whose cache settings apply to registered configurations
+   * @param directory the directory in which registered configurations are stored, or an empty
+   *        string if registered configurations are held only in memory
+   */
+  @Autowired
+  public MaskingConfigurationRegistry(DataMaskingService dataMaskingService,
+      @Value("${deid.masking.config.registry.directory:}") String directory) {
+    this.cache = dataMaskingService.getCache();
+    this.directory =
+        directory == null || directory.trim().isEmpty() ? null : Paths.get(directory.trim());
+    load();
+  }
+
+  /**
+   * Registers the configurations stored in the configured directory, if any.
+   */
+  private void load() {
+    if (directory == null || !Files.isDirectory(directory)) {
+      return;
+    }
+    try (DirectoryStream<Path> names = Files.newDirectoryStream(directory, Files::isDirectory)) {
+      for (Path namePath : names) {
+        try (DirectoryStream<Path> versions =
+            Files.newDirectoryStream(namePath, "*" + FILE_SUFFIX)) {
+          for (Path versionPath : versions) {
+            String name = namePath.getFileName().toString();
+            String fileName = versionPath.getFileName().toString();
+            String version = fileName.substring(0, fileName.length() - FILE_SUFFIX.length());
+            try {
+              String configuration =
+                  new String(Files.readAllBytes(versionPath), StandardCharsets.UTF_8);
+              checkId(name, version);
+              configurations.put(key(name, version), build(name, version, configuration));
+            } catch (IOException | InvalidInputException
+                | InvalidMaskingConfigurationException e) {
+              log.logError(LogCodes.WPH6000E, e,
+                  "Unable to load masking configuration " + versionPath);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      log.logError(LogCodes.WPH6000E, e, "Unable to load masking configurations from " + directory);
+    }
+  }
+
+  private static String key(String name, String version) {
+    return name + "/" + version;
+  }
+
+  private static void checkId(String name, String version) throws InvalidInputException {
+    if (name == null || !ID_PATTERN.matcher(name).matches()) {
+      throw new InvalidInputException("name");
+    }
+    if (version == null || !ID_PATTERN.matcher(version).matches()) {
+      throw new InvalidInputException("version");
+    }
+  }
+
+  private RegisteredConfiguration build(String name, String version, String configuration)
+      throws InvalidMaskingConfigurationException {
+    ComplexMaskingProviderCache.Entry entry = cache.createEntry(configuration, null, null);
+    RegisteredConfiguration registered =
+        new RegisteredConfiguration(name, version, configuration, entry.getMaskingConfig());
+    // build the masking providers for the schema type named in the configuration in advance
+    if (registered.maskingConfig.getJson() != null
+        && registered.maskingConfig.getJson().getSchemaType() != null) {
+      getEntry(registered, registered.maskingConfig.getJson().getSchemaType())
+          .getComplexMaskingProvider(null);
+    }
+    return registered;
+  }
+
+  /**
+   * Registers a masking configuration, replacing any configuration already registered with the same
+   * name and version.
+   *
+   * @param name the name of the configuration
+   * @param version the version of the configuration
+   * @param configuration the masking configuration in serialized JSON (String) form
+   *
+   * @return <i>true</i> if no configuration was previously registered with this name and version
+   *
+   * @throws InvalidInputException if the name or version is not valid
+   * @throws InvalidMaskingConfigurationException if the configuration is not valid
+   * @throws DeidException if the configuration cannot be stored in the configured directory
+   */
+  public boolean register(String name, String version, String configuration)
+      throws InvalidInputException, InvalidMaskingConfigurationException, DeidException {
+    checkId(name, version);
+    RegisteredConfiguration registered = build(name, version, configuration);
+    if (directory != null) {
+      try {
+        Path namePath = directory.resolve(name);
+        Files.createDirectories(namePath);
+        Files.write(namePath.resolve(version + FILE_SUFFIX),
+            configuration.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        log.logError(LogCodes.WPH6000E, e, "Unable to store masking configuration");
+        throw new DeidException(e.getMessage());
+      }
+    }
+    RegisteredConfiguration replaced = configurations.put(key(name, version), registered);
+    if (replaced != null) {
+      replaced.release();
+    }
+    return replaced == null;
+  }
+
+  /**
+   * @param name the name of the configuration
+   * @param version the version of the configuration
+   *
+   * @return the registered configuration or <i>null</i> if no such configuration is registered
+   */
+  public RegisteredConfiguration get(String name, String version) {
+    return name == null || version == null ? null : configurations.get(key(name, version));
+  }
+
+  /**
+   * @return the registered configurations ordered by name and version
+   */
+  public List<RegisteredConfiguration> list() {
+    List<RegisteredConfiguration> list = new ArrayList<>(configurations.values());
+    list.sort(Comparator.comparing(RegisteredConfiguration::getName)
+        .thenComparing(RegisteredConfiguration::getVersion));
+    return list;
+  }
+
+  /**
+   * Removes a registered masking configuration.
+   *
+   * @param name the name of the configuration
+   * @param version the version of the configuration
+   *
+   * @return <i>true</i> if the configuration was registered
+   *
+   * @throws DeidException if the configuration cannot be removed from the configured directory
+   */
+  public boolean remove(String name, String version) throws DeidException {
+    if (name == null || version == null) {
+      return false;
+    }
+    RegisteredConfiguration removed = configurations.remove(key(name, version));
+    if (removed != null) {
+      removed.release();
+    }
+    if (removed != null && directory != null) {
+      try {
+        Files.deleteIfExists(directory.resolve(name).resolve(version + FILE_SUFFIX));
+      } catch (IOException e) {
+        log.logError(LogCodes.WPH6000E, e, "Unable to remove masking configuration");
+        throw new DeidException(e.getMessage());
+      }
+    }
+    return removed != null;
+  }
+
+  /**
+   * Obtains the validated configuration and masking providers of a registered configuration for
+   * processing documents of the given format.
+   *
+   * @param registered the registered configuration
+   * @param schemaType the format of the documents to process
+   *
+   * @return the non-null masking configuration
+   */
+  public ComplexMaskingProviderCache.Entry getEntry(RegisteredConfiguration registered,
+      ConfigSchemaTypes schemaType) {
+    return registered.entries.computeIfAbsent(schemaType.toString(),
+        k -> cache.createEntry(registered.maskingConfig, schemaType, null));
+  }
+}
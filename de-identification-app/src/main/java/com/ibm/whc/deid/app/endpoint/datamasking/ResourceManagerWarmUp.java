@@ -0,0 +1,115 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.app.endpoint.datamasking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.ibm.whc.deid.shared.localization.Resource;
+import com.ibm.whc.deid.util.ManagerFactory;
+import com.ibm.whc.deid.util.ManagerLoadStatistics;
+import com.ibm.whc.deid.util.localization.LocalizationManager;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.LogManager;
+
+/**
+ * Loads the configured resource managers concurrently when the service starts so that the first
+ * masking requests do not wait for them.
+ *
+ * <p>
+ * The service is not reported as ready by the {@link HealthController} until all the configured
+ * managers are loaded. Managers that fail to load are reported in the log and are loaded again when
+ * they are first used.
+ */
+@Service
+public class ResourceManagerWarmUp {
+
+  private static final LogManager log = LogManager.getInstance();
+
+  private final List<Resource> resources;
+  private final int threads;
+  private ExecutorService executor;
+  private volatile boolean complete;
+
+  /**
+   * @param resourceTypes comma-separated names of the resource types whose managers are loaded,
+   *        for example <i>LAST_NAME,CITY</i>, or an empty string to load managers only when they are
+   *        first used
+   * @param threads the number of threads that load managers, zero or less for one per processor
+   */
+  @Autowired
+  public ResourceManagerWarmUp(@Value("${deid.resources.warm-up.types:}") String resourceTypes,
+      @Value("${deid.resources.warm-up.threads:0}") int threads) {
+    List<Resource> list = new ArrayList<>();
+    if (resourceTypes != null) {
+      for (String type : resourceTypes.split(",")) {
+        if (!type.trim().isEmpty()) {
+          list.add(Resource.valueOf(type.trim()));
+        }
+      }
+    }
+    this.resources = Collections.unmodifiableList(list);
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  @PostConstruct
+  public void start() {
+    if (resources.isEmpty()) {
+      complete = true;
+      return;
+    }
+    executor = Executors.newFixedThreadPool(Math.min(threads, resources.size()));
+    ManagerFactory factory = ManagerFactory.getInstance();
+    CompletableFuture<?>[] loads = new CompletableFuture<?>[resources.size()];
+    for (int i = 0; i < loads.length; i++) {
+      Resource resource = resources.get(i);
+      loads[i] = CompletableFuture.runAsync(() -> {
+        try {
+          factory.getManager(null, resource, null,
+              LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
+        } catch (RuntimeException e) {
+          log.logError(LogCodes.WPH6000E, e, "Unable to load resource manager " + resource);
+        }
+      }, executor);
+    }
+    CompletableFuture.allOf(loads).whenComplete((result, e) -> {
+      for (ManagerLoadStatistics statistics : factory.getLoadStatistics()) {
+        log.logInfo(LogCodes.WPH1000I, "Loaded resource manager " + statistics);
+      }
+      complete = true;
+      executor.shutdown();
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return the resource types whose managers are loaded when the service starts
+   */
+  public List<Resource> getResources() {
+    return resources;
+  }
+
+  /**
+   * @return <i>true</i> if all the configured managers have been loaded or have failed to load
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+}
@@ -7,6 +7,7 @@ package com.ibm.whc.deid.endpoint.datamasking;
 
 import java.io.IOException;
 import java.util.List;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -66,4 +67,14 @@ public abstract class AbstractDataMaskingInvoker {
     maskedNode.set("data", aNode);
     return objectMapper.writeValueAsString(maskedNode);
   }
+
+  // constructs the data masking response from masked documents that have not been serialized
+  protected String getNodesString(ObjectMapper objectMapper, List<JsonNode> maskedData)
+      throws IOException {
+    ArrayNode aNode = objectMapper.createArrayNode();
+    aNode.addAll(maskedData);
+    ObjectNode maskedNode = objectMapper.createObjectNode();
+    maskedNode.set("data", aNode);
+    return objectMapper.writeValueAsString(maskedNode);
+  }
 }
@@ -0,0 +1,19 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.endpoint.exception;
+
+/*
+ * NotFoundException is a RuntimeException which is thrown when a resource named in the request does
+ * not exist
+ */
+public class NotFoundException extends RuntimeException {
+
+  private static final long serialVersionUID = 6254190135816254775L;
+
+  public NotFoundException(String message) {
+    super(message);
+  }
+}
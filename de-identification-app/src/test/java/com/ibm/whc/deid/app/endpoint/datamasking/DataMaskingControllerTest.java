@@ -9,6 +9,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -64,6 +65,9 @@ public class DataMaskingControllerTest {
   @Autowired
   public Filter noCacheHeadersFilter;
 
+  @Autowired
+  private DataMaskingService dataMaskingService;
+
   @Before
   public void setup() {
     this.mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilter(noCacheHeadersFilter).build();
@@ -93,6 +97,35 @@ public class DataMaskingControllerTest {
         .andExpect(jsonPath("$.data[0].patient.display").value(not("Patient Zero")));
   }
 
+  @Test
+  public void testMaskData_cachedConfiguration() throws Exception {
+    String data = new String(Files
+        .readAllBytes(Paths.get(getClass().getResource("/masking/data/simple_fhir.json").toURI())));
+
+    String config = new String(Files.readAllBytes(
+        Paths.get(getClass().getResource("/config/fhir/masking_config.json").toURI())));
+
+    List<String> inputList = new ArrayList<>();
+    inputList.add(data);
+    DataMaskingModel dataMaskingModel =
+        new DataMaskingModel(config, inputList, ConfigSchemaType.FHIR);
+    String request = new ObjectMapper().writeValueAsString(dataMaskingModel);
+
+    // the second request is satisfied by the configuration cached by the first
+    this.mockMvc
+        .perform(post(basePath + "/deidentification")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(request))
+        .andExpect(status().isOk());
+    long hits = dataMaskingService.getCache().getHitCount();
+    this.mockMvc
+        .perform(post(basePath + "/deidentification")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(request))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data[0].id").value(containsString("1234")))
+        .andExpect(jsonPath("$.data[0].patient.display").value(not("Patient Zero")));
+    assertEquals(hits + 1, dataMaskingService.getCache().getHitCount());
+  }
+
   @Test
   public void testMaskData_invalidInputDocument() throws Exception {
     String dataGood = new String(Files
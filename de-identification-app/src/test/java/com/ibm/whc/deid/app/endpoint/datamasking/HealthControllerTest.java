@@ -1,11 +1,13 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.app.endpoint.datamasking;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -37,8 +39,10 @@ public class HealthControllerTest {
   @Before
   public void setup() throws DeidException {
 
+    ResourceManagerWarmUp warmUp = new ResourceManagerWarmUp("", 0);
+    warmUp.start();
     this.mockMvc =
-				MockMvcBuilders.standaloneSetup(new HealthController()).build();
+				MockMvcBuilders.standaloneSetup(new HealthController(warmUp)).build();
   }
 
   @Test
@@ -50,5 +54,25 @@ public class HealthControllerTest {
 				.andExpect(jsonPath("$.status").value(containsString("UP")));
   }
 
+  @Test
+  public void testWarmUp() throws Exception {
+    ResourceManagerWarmUp warmUp = new ResourceManagerWarmUp("SWIFT, GENDER", 2);
+    MockMvc warmUpMvc = MockMvcBuilders.standaloneSetup(new HealthController(warmUp)).build();
+
+    // not ready until the configured managers are loaded
+    warmUpMvc.perform(get(basePath + "/health")).andExpect(status().isServiceUnavailable())
+        .andExpect(jsonPath("$.status").value("STARTING"));
 
+    warmUp.start();
+    long end = System.currentTimeMillis() + 60000;
+    while (!warmUp.isComplete() && System.currentTimeMillis() < end) {
+      Thread.sleep(50);
+    }
+    assertTrue(warmUp.isComplete());
+
+    warmUpMvc.perform(get(basePath + "/health")).andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("UP"))
+        .andExpect(jsonPath("$.resourceManagers[*].resourceType").value(hasItem("swift")))
+        .andExpect(jsonPath("$.resourceManagers[*].resourceType").value(hasItem("gender")));
+  }
 }
@@ -0,0 +1,271 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.app.endpoint.datamasking;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.Filter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.whc.deid.app.endpoint.Application;
+import com.ibm.whc.deid.shared.exception.InvalidInputException;
+import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaType;
+import com.ibm.whc.deid.shared.pojo.masking.DataMaskingByReferenceModel;
+import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
+
+@RunWith(SpringRunner.class)
+// force using a test profile to avoid using any other active profile
+// we do not have a real application-test.properties.
+@ActiveProfiles(profiles = {"test"})
+@AutoConfigureMockMvc
+@SpringBootTest(classes = Application.class)
+public class MaskingConfigurationControllerTest {
+
+  private final String basePath = "/api/v1";
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private WebApplicationContext wac;
+
+  @Autowired
+  public Filter noCacheHeadersFilter;
+
+  @Autowired
+  private DataMaskingService dataMaskingService;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String config;
+  private String data;
+
+  @Before
+  public void setup() throws Exception {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(wac).addFilter(noCacheHeadersFilter).build();
+    config = new String(Files.readAllBytes(
+        Paths.get(getClass().getResource("/config/fhir/masking_config.json").toURI())));
+    data = new String(Files
+        .readAllBytes(Paths.get(getClass().getResource("/masking/data/simple_fhir.json").toURI())));
+  }
+
+  private String maskRequest(String name, String version) throws Exception {
+    List<String> inputList = new ArrayList<>();
+    inputList.add(data);
+    return new ObjectMapper().writeValueAsString(
+        new DataMaskingByReferenceModel(name, version, inputList, ConfigSchemaType.FHIR));
+  }
+
+  @Test
+  public void testRegisterAndMask() throws Exception {
+    this.mockMvc
+        .perform(put(basePath + "/configurations/device/1.0")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(config))
+        .andExpect(status().isCreated()).andExpect(jsonPath("$.name").value("device"))
+        .andExpect(jsonPath("$.version").value("1.0"));
+    this.mockMvc
+        .perform(put(basePath + "/configurations/device/1.0")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(config))
+        .andExpect(status().isOk());
+
+    this.mockMvc.perform(get(basePath + "/configurations")).andExpect(status().isOk())
+        .andExpect(content().string(containsString("{\"name\":\"device\",\"version\":\"1.0\"}")));
+    this.mockMvc.perform(get(basePath + "/configurations/device/1.0"))
+        .andExpect(status().isOk()).andExpect(content().string(config));
+
+    this.mockMvc
+        .perform(post(basePath + "/deidentification/byReference")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(maskRequest("device", "1.0")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data[0].id").value(containsString("1234")))
+        .andExpect(jsonPath("$.data[0].patient.display").value(not("Patient Zero")));
+
+    this.mockMvc.perform(delete(basePath + "/configurations/device/1.0"))
+        .andExpect(status().isNoContent());
+    this.mockMvc.perform(delete(basePath + "/configurations/device/1.0"))
+        .andExpect(status().isNotFound());
+    this.mockMvc.perform(get(basePath + "/configurations/device/1.0"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void testMaskNotRegistered() throws Exception {
+    this.mockMvc
+        .perform(post(basePath + "/deidentification/byReference")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(maskRequest("none", "1")))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void testRegisterInvalid() throws Exception {
+    this.mockMvc
+        .perform(put(basePath + "/configurations/bad/1")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content("{\"rules\":"))
+        .andExpect(status().isBadRequest());
+    this.mockMvc
+        .perform(put(basePath + "/configurations/.bad/1")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(config))
+        .andExpect(status().isBadRequest());
+    this.mockMvc.perform(get(basePath + "/configurations/bad/1"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void testMaskStream() throws Exception {
+    this.mockMvc.perform(put(basePath + "/configurations/stream/1")
+        .contentType(MediaType.APPLICATION_JSON_VALUE).content(config))
+        .andExpect(status().isCreated());
+
+    String ndjson = data + "\n\n" + data.replace("1234", "5678") + "\n" + data + "\n";
+    String output = this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "1").param("schemaType", "FHIR").param("batchSize", "2")
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE).content(ndjson))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse().getContentAsString();
+    String[] lines = output.split("\n");
+    assertEquals(3, lines.length);
+    ObjectMapper mapper = new ObjectMapper();
+    assertTrue(mapper.readTree(lines[0]).get("id").asText().contains("1234"));
+    assertTrue(mapper.readTree(lines[1]).get("id").asText().contains("5678"));
+    for (String line : lines) {
+      assertFalse(line.contains("Patient Zero"));
+    }
+
+    // a JSON array of documents, either as objects or as strings
+    String array = "[" + data + "," + mapper.writeValueAsString(data) + "]";
+    output = this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "1").param("schemaType", "FHIR")
+            .contentType(MediaType.APPLICATION_JSON_VALUE).content(array))
+        .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    lines = output.split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(lines[0], lines[1]);
+    assertTrue(mapper.readTree(lines[0]).get("id").asText().contains("1234"));
+    assertFalse(lines[0].contains("Patient Zero"));
+  }
+
+  @Test
+  public void testMaskStreamInvalid() throws Exception {
+    this.mockMvc.perform(put(basePath + "/configurations/stream/2")
+        .contentType(MediaType.APPLICATION_JSON_VALUE).content(config))
+        .andExpect(status().isCreated());
+    this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "3").param("schemaType", "FHIR")
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE).content(data))
+        .andExpect(status().isNotFound());
+    this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "2").param("schemaType", "XML")
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE).content(data))
+        .andExpect(status().isBadRequest());
+    this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "2").param("schemaType", "FHIR").param("batchSize", "0")
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE).content(data))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void testMaskStreamInvalidDocument() throws Exception {
+    this.mockMvc.perform(put(basePath + "/configurations/stream/4")
+        .contentType(MediaType.APPLICATION_JSON_VALUE).content(config))
+        .andExpect(status().isCreated());
+
+    // a bad document in the first batch is reported before any output is written
+    this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "4").param("schemaType", "FHIR").param("batchSize", "2")
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE).content(data + "\n{\"id\":\n"))
+        .andExpect(status().isBadRequest());
+
+    // after the first batch has been written the output ends with an error record
+    String ndjson = data + "\n" + data + "\n" + data + "\n{\"id\":\n" + data + "\n";
+    String output = this.mockMvc
+        .perform(post(basePath + "/deidentification/stream").param("configName", "stream")
+            .param("configVersion", "4").param("schemaType", "FHIR").param("batchSize", "2")
+            .contentType(MediaType.APPLICATION_NDJSON_VALUE).content(ndjson))
+        .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    String[] lines = output.split("\n");
+    assertEquals(3, lines.length);
+    ObjectMapper mapper = new ObjectMapper();
+    assertTrue(mapper.readTree(lines[1]).get("id").asText().contains("1234"));
+    JsonNode error = mapper.readTree(lines[2]);
+    assertEquals(1, error.size());
+    assertTrue(error.get("error").asText().contains("identifier `3`"));
+  }
+
+  @Test
+  public void testDirectory() throws Exception {
+    Path directory = folder.getRoot().toPath();
+    MaskingConfigurationRegistry registry =
+        new MaskingConfigurationRegistry(dataMaskingService, directory.toString());
+    assertTrue(registry.register("device", "2", config));
+    assertFalse(registry.register("device", "2", config));
+    assertTrue(Files.exists(directory.resolve("device").resolve("2.json")));
+    Files.write(directory.resolve("device").resolve("3.json"), "{\"rules\":".getBytes());
+
+    // configurations are loaded from the directory when the registry is created
+    MaskingConfigurationRegistry reloaded =
+        new MaskingConfigurationRegistry(dataMaskingService, directory.toString());
+    assertNotNull(reloaded.get("device", "2"));
+    assertEquals(config, reloaded.get("device", "2").getConfiguration());
+    assertNull(reloaded.get("device", "3"));
+    assertEquals(1, reloaded.list().size());
+
+    assertTrue(reloaded.remove("device", "2"));
+    assertFalse(Files.exists(directory.resolve("device").resolve("2.json")));
+    assertFalse(reloaded.remove("device", "2"));
+
+    try {
+      registry.register("device", "../x", config);
+      fail("expected exception");
+    } catch (InvalidInputException e) {
+      assertEquals("version", e.getMessageParameter());
+    }
+    try {
+      registry.register("device", "4", "{\"rules\":");
+      fail("expected exception");
+    } catch (InvalidMaskingConfigurationException e) {
+      assertFalse(Files.exists(directory.resolve("device").resolve("4.json")));
+    }
+  }
+}
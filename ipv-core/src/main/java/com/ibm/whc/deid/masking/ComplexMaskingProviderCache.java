@@ -0,0 +1,497 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.masking;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import com.ibm.whc.deid.providers.masking.BasicMaskingProviderFactory;
+import com.ibm.whc.deid.providers.masking.ComplexMaskingProvider;
+import com.ibm.whc.deid.providers.masking.ComplexMaskingProviderFactoryUtil;
+import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaTypes;
+import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.pojo.config.GlobalProcessorConfig;
+import com.ibm.whc.deid.shared.pojo.config.Rule;
+import com.ibm.whc.deid.shared.pojo.config.masking.ConditionalMaskRuleSet;
+import com.ibm.whc.deid.shared.pojo.config.masking.ConditionalMaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
+import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
+import com.ibm.whc.deid.shared.util.MaskingConfigUtils;
+import com.ibm.whc.deid.util.HashUtils;
+import com.ibm.whc.deid.util.RandomSource;
+
+/**
+ * Bounded cache of validated masking configurations and the masking drivers built from them.
+ *
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the serialized masking configuration together with the
+ * schema type and tenant of the request, so a configuration that is submitted repeatedly is
+ * validated and built into masking providers only once. The digest is taken over the exact string
+ * submitted, which is not parsed before the lookup - configurations that differ only in whitespace
+ * or in the order of their properties are cached as separate entries. The least recently used
+ * entry is removed when the maximum size is reached and entries are discarded once they have been
+ * cached longer than the configured expiry time.
+ *
+ * <p>
+ * Masking drivers built from configurations that use any of the given uncached masking provider
+ * types, including within the rule sets of CONDITIONAL providers, are not reused - a new driver is
+ * built for every request using such a configuration, while the validated configuration itself is
+ * still cached. Neither are the masking drivers built from configurations that use a
+ * {@link com.ibm.whc.deid.shared.pojo.config.RandomSourceType#SEEDED} random source, so that every
+ * request starts from the seed and the same input is always masked the same way. A cache with a
+ * maximum size of zero caches nothing.
+ *
+ * <p>
+ * The replacement values cached by the masking providers of a driver are dropped when its entry
+ * is removed from this cache, and those of a driver that is not reused when the caller
+ * {@link Entry#release(ComplexMaskingProvider) releases} it.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class ComplexMaskingProviderCache {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 100;
+  public static final long DEFAULT_EXPIRE_AFTER_MILLIS = 60L * 60L * 1000L;
+
+  /**
+   * A validated masking configuration and the masking driver built from it.
+   */
+  public static final class Entry {
+
+    private final DeidMaskingConfig maskingConfig;
+    private final ConfigSchemaTypes schemaType;
+    private final String tenantId;
+    private final boolean reusable;
+    private final long createdMillis;
+    private final BasicMaskingProviderFactory maskingProviderFactory;
+    private volatile ComplexMaskingProvider complexMaskingProvider;
+
+    Entry(DeidMaskingConfig maskingConfig, ConfigSchemaTypes schemaType, String tenantId,
+        boolean reusable, long createdMillis, BasicMaskingProviderFactory maskingProviderFactory) {
+      this.maskingConfig = maskingConfig;
+      this.schemaType = schemaType;
+      this.tenantId = tenantId;
+      this.reusable = reusable;
+      this.createdMillis = createdMillis;
+      this.maskingProviderFactory = maskingProviderFactory;
+    }
+
+    /**
+     * @return the validated masking configuration, which must not be modified
+     */
+    public DeidMaskingConfig getMaskingConfig() {
+      return maskingConfig;
+    }
+
+    /**
+     * @return <i>true</i> if the masking driver built from this configuration is reused
+     */
+    public boolean isReusable() {
+      return reusable;
+    }
+
+    /**
+     * Obtains the masking driver for this configuration, building it if required.
+     *
+     * @param gpConfig the configuration of the global processor, which may be <i>null</i> if the
+     *        global processor is not requested - drivers are not reused if this is not <i>null</i>
+     *
+     * @return the masking driver or <i>null</i> if no driver can be built for the configuration
+     */
+    public ComplexMaskingProvider getComplexMaskingProvider(GlobalProcessorConfig gpConfig) {
+      if (!reusable || gpConfig != null) {
+        return build(gpConfig);
+      }
+      ComplexMaskingProvider provider = complexMaskingProvider;
+      if (provider == null) {
+        synchronized (this) {
+          provider = complexMaskingProvider;
+          if (provider == null) {
+            provider = build(null);
+            complexMaskingProvider = provider;
+          }
+        }
+      }
+      return provider;
+    }
+
+    /**
+     * Releases a masking driver obtained from
+     * {@link #getComplexMaskingProvider(GlobalProcessorConfig)} once the caller has finished with
+     * it, dropping the values cached by its masking providers unless the driver is reused.
+     *
+     * @param provider the masking driver, which may be <i>null</i>
+     */
+    public void release(ComplexMaskingProvider provider) {
+      if (provider != null && provider != complexMaskingProvider) {
+        provider.dropCache();
+      }
+    }
+
+    /**
+     * Drops the values cached by the masking providers of the reused driver, if it has been built.
+     * The entry remains usable.
+     */
+    public void release() {
+      ComplexMaskingProvider provider = complexMaskingProvider;
+      if (provider != null) {
+        provider.dropCache();
+      }
+    }
+
+    private ComplexMaskingProvider build(GlobalProcessorConfig gpConfig) {
+      return ComplexMaskingProviderFactoryUtil.getComplexMaskingProviderFactory().get(schemaType,
+          maskingConfig, maskingProviderFactory, gpConfig, tenantId);
+    }
+  }
+
+  private static final class Key {
+
+    private final byte[] digest;
+    private final String schemaType;
+    private final String tenantId;
+    private final int hashCode;
+
+    Key(byte[] digest, String schemaType, String tenantId) {
+      this.digest = digest;
+      this.schemaType = schemaType;
+      this.tenantId = tenantId;
+      this.hashCode = Objects.hash(Integer.valueOf(Arrays.hashCode(digest)), schemaType, tenantId);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return Arrays.equals(digest, other.digest) && Objects.equals(schemaType, other.schemaType)
+          && Objects.equals(tenantId, other.tenantId);
+    }
+  }
+
+  private final int maximumSize;
+  private final long expireAfterMillis;
+  private final Set<MaskingProviderType> uncachedProviderTypes;
+  private final BasicMaskingProviderFactory maskingProviderFactory;
+
+  // access-ordered so the eldest entry is the least recently used, guarded by itself
+  private final LinkedHashMap<Key, Entry> entries;
+  // entries removed while holding the lock, released once it is no longer held
+  private final List<Entry> removed = new ArrayList<>();
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * Instantiates a cache with the default maximum size and expiry time that reuses the masking
+   * drivers for all configurations.
+   */
+  public ComplexMaskingProviderCache() {
+    this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_MILLIS, Collections.emptySet());
+  }
+
+  /**
+   * Instantiates a cache.
+   *
+   * @param maximumSize the maximum number of entries retained, zero to disable caching
+   * @param expireAfterMillis the number of milliseconds for which an entry is retained, zero or
+   *        less to retain entries until they are removed due to the maximum size
+   * @param uncachedProviderTypes the masking provider types for which masking drivers are never
+   *        reused, typically because the providers of these types keep state between requests
+   */
+  public ComplexMaskingProviderCache(int maximumSize, long expireAfterMillis,
+      Collection<MaskingProviderType> uncachedProviderTypes) {
+    this(maximumSize, expireAfterMillis, uncachedProviderTypes, new BasicMaskingProviderFactory());
+  }
+
+  /**
+   * Instantiates a cache that builds masking drivers with the given masking provider factory.
+   *
+   * @param maximumSize the maximum number of entries retained, zero to disable caching
+   * @param expireAfterMillis the number of milliseconds for which an entry is retained, zero or
+   *        less to retain entries until they are removed due to the maximum size
+   * @param uncachedProviderTypes the masking provider types for which masking drivers are never
+   *        reused, typically because the providers of these types keep state between requests
+   * @param maskingProviderFactory the factory of the masking providers of the drivers
+   */
+  public ComplexMaskingProviderCache(int maximumSize, long expireAfterMillis,
+      Collection<MaskingProviderType> uncachedProviderTypes,
+      BasicMaskingProviderFactory maskingProviderFactory) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.expireAfterMillis = expireAfterMillis;
+    this.uncachedProviderTypes = uncachedProviderTypes == null || uncachedProviderTypes.isEmpty()
+        ? Collections.emptySet()
+        : Collections.unmodifiableSet(EnumSet.copyOf(uncachedProviderTypes));
+    this.maskingProviderFactory = maskingProviderFactory;
+    this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(
+          Map.Entry<Key, ComplexMaskingProviderCache.Entry> eldest) {
+        if (size() > ComplexMaskingProviderCache.this.maximumSize) {
+          evictionCount.incrementAndGet();
+          removed.add(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Obtains the cached entry for the given masking configuration, validating the configuration and
+   * adding an entry for it if no unexpired entry is present.
+   *
+   * @param configuration the masking configuration in serialized JSON (String) form, matched
+   *        exactly against the configurations already cached
+   * @param schemaType the format of the documents to be processed
+   * @param tenantId the tenant making the request
+   *
+   * @return the non-null entry for the configuration
+   *
+   * @throws InvalidMaskingConfigurationException if the given configuration string is not valid
+   */
+  public Entry getEntry(String configuration, ConfigSchemaTypes schemaType, String tenantId)
+      throws InvalidMaskingConfigurationException {
+    if (maximumSize == 0 || configuration == null) {
+      missCount.incrementAndGet();
+      return createEntry(configuration, schemaType, tenantId);
+    }
+
+    Key key = new Key(digest(configuration), schemaType == null ? null : schemaType.toString(),
+        tenantId);
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (!isExpired(entry)) {
+          hitCount.incrementAndGet();
+          return entry;
+        }
+        entries.remove(key);
+        evictionCount.incrementAndGet();
+        removed.add(entry);
+      }
+    }
+    releaseRemoved();
+
+    // validation and building occur outside the lock so that other configurations are not delayed
+    missCount.incrementAndGet();
+    Entry entry = createEntry(configuration, schemaType, tenantId);
+    synchronized (entries) {
+      Entry replaced = entries.put(key, entry);
+      if (replaced != null) {
+        removed.add(replaced);
+      }
+    }
+    releaseRemoved();
+    return entry;
+  }
+
+  /**
+   * Drops the values cached by the masking drivers of the entries removed from this cache. This
+   * occurs outside the lock, since overwriting the cached values takes time, and concurrent
+   * requests that still hold a removed entry can continue to use it.
+   */
+  private void releaseRemoved() {
+    List<Entry> released;
+    synchronized (entries) {
+      if (removed.isEmpty()) {
+        return;
+      }
+      released = new ArrayList<>(removed);
+      removed.clear();
+    }
+    for (Entry entry : released) {
+      entry.release();
+    }
+  }
+
+  /**
+   * Validates the given masking configuration and creates an entry for it that is not added to
+   * this cache, for callers that manage the lifetime of the entry themselves.
+   *
+   * @param configuration the masking configuration in serialized JSON (String) form
+   * @param schemaType the format of the documents to be processed
+   * @param tenantId the tenant making the request
+   *
+   * @return the non-null entry for the configuration
+   *
+   * @throws InvalidMaskingConfigurationException if the given configuration string is not valid
+   */
+  public Entry createEntry(String configuration, ConfigSchemaTypes schemaType, String tenantId)
+      throws InvalidMaskingConfigurationException {
+    return createEntry(MaskingConfigUtils.validateConfig(configuration), schemaType, tenantId);
+  }
+
+  /**
+   * Creates an entry that is not added to this cache for a masking configuration that has already
+   * been validated.
+   *
+   * @param maskingConfig the validated masking configuration
+   * @param schemaType the format of the documents to be processed
+   * @param tenantId the tenant making the request
+   *
+   * @return the non-null entry for the configuration
+   */
+  public Entry createEntry(DeidMaskingConfig maskingConfig, ConfigSchemaTypes schemaType,
+      String tenantId) {
+    return new Entry(maskingConfig, schemaType, tenantId, isReusable(maskingConfig),
+        System.currentTimeMillis(), maskingProviderFactory);
+  }
+
+  private boolean isExpired(Entry entry) {
+    return expireAfterMillis > 0
+        && System.currentTimeMillis() - entry.createdMillis >= expireAfterMillis;
+  }
+
+  private boolean isReusable(DeidMaskingConfig maskingConfig) {
+    if (RandomSource.isSeeded(maskingConfig)) {
+      return false;
+    }
+    if (!uncachedProviderTypes.isEmpty() && maskingConfig.getRules() != null) {
+      for (Rule rule : maskingConfig.getRules()) {
+        if (rule != null && rule.getMaskingProviders() != null) {
+          for (MaskingProviderConfig providerConfig : rule.getMaskingProviders()) {
+            if (usesUncachedProviderType(providerConfig)) {
+              return false;
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean usesUncachedProviderType(MaskingProviderConfig providerConfig) {
+    if (providerConfig == null) {
+      return false;
+    }
+    if (uncachedProviderTypes.contains(providerConfig.getType())) {
+      return true;
+    }
+    if (providerConfig instanceof ConditionalMaskingProviderConfig) {
+      List<ConditionalMaskRuleSet> ruleSets =
+          ((ConditionalMaskingProviderConfig) providerConfig).getMaskRuleSet();
+      if (ruleSets != null) {
+        for (ConditionalMaskRuleSet ruleSet : ruleSets) {
+          if (ruleSet != null && usesUncachedProviderType(ruleSet.getMaskingProvider())) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static byte[] digest(String configuration) {
+    try {
+      return HashUtils.getMessageDigest("SHA-256")
+          .digest(configuration.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Removes all expired entries.
+   */
+  public void removeExpired() {
+    synchronized (entries) {
+      Iterator<Entry> it = entries.values().iterator();
+      while (it.hasNext()) {
+        Entry entry = it.next();
+        if (isExpired(entry)) {
+          it.remove();
+          evictionCount.incrementAndGet();
+          removed.add(entry);
+        }
+      }
+    }
+    releaseRemoved();
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    synchronized (entries) {
+      removed.addAll(entries.values());
+      entries.clear();
+    }
+    releaseRemoved();
+  }
+
+  /**
+   * @return the number of entries currently cached, including any that have expired but have not
+   *         yet been removed
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  public long getExpireAfterMillis() {
+    return expireAfterMillis;
+  }
+
+  public Set<MaskingProviderType> getUncachedProviderTypes() {
+    return uncachedProviderTypes;
+  }
+
+  /**
+   * @return the number of requests satisfied by a cached entry
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of requests that required the configuration to be validated
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of entries removed due to the maximum size or expiry time
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+}
@@ -5,17 +5,54 @@
  */
 package com.ibm.whc.deid.masking;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
 import com.ibm.whc.deid.providers.masking.BasicMaskingProviderFactory;
 import com.ibm.whc.deid.providers.masking.ComplexMaskingProvider;
 import com.ibm.whc.deid.providers.masking.ComplexMaskingProviderFactoryUtil;
+import com.ibm.whc.deid.shared.exception.KeyedRuntimeException;
 import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaTypes;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
 import com.ibm.whc.deid.shared.pojo.config.GlobalProcessorConfig;
 import com.ibm.whc.deid.shared.pojo.masking.ReferableData;
+import com.ibm.whc.deid.shared.pojo.masking.ReferableNode;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.Messages;
 
 public class DataMaskingCore {
 
+  private final ExecutorService executor;
+  private final int chunkSize;
+
+  /**
+   * Creates an instance that masks all the documents of a batch on the calling thread.
+   */
+  public DataMaskingCore() {
+    this(null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates an instance that divides batches larger than the given chunk size into chunks of that
+   * size and masks the chunks concurrently using the given executor, provided the masking driver
+   * {@link ComplexMaskingProvider#supportsConcurrentMasking() supports concurrent masking}.
+   * Otherwise documents are masked on the calling thread.
+   *
+   * @param executor the executor used to mask chunks of documents, or <i>null</i> to mask all
+   *        documents on the calling thread
+   * @param chunkSize the number of documents in each chunk
+   */
+  public DataMaskingCore(ExecutorService executor, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException(String.valueOf(chunkSize));
+    }
+    this.executor = executor;
+    this.chunkSize = chunkSize;
+  }
+
   /**
    * Given a configuration file, mask fields in a JSON document.
    *
@@ -35,6 +72,36 @@ public class DataMaskingCore {
     return protectRecord(inputData, complexMaskingProvider);
   }
 
+  /**
+   * Mask fields in JSON documents using a masking driver already built from a configuration, for
+   * example one obtained from a {@link ComplexMaskingProviderCache}.
+   *
+   * @param complexMaskingProvider the masking driver
+   * @param inputData JSON documents to process
+   * 
+   * @return the processed documents with their identifiers
+   */
+  public List<ReferableData> maskData(final ComplexMaskingProvider complexMaskingProvider,
+      final List<ReferableData> inputData) {
+    return protectRecord(inputData, complexMaskingProvider);
+  }
+
+  /**
+   * Mask fields in JSON documents that have already been parsed using a masking driver already
+   * built from a configuration. The masked documents are returned as JSON trees so that callers
+   * can write them without parsing serialized output again.
+   *
+   * @param complexMaskingProvider the masking driver
+   * @param inputData JSON documents to process
+   * 
+   * @return the processed documents with their identifiers
+   */
+  public List<ReferableNode> maskNodes(final ComplexMaskingProvider complexMaskingProvider,
+      final List<ReferableNode> inputData) {
+    return maskInChunks(complexMaskingProvider, inputData,
+        chunk -> complexMaskingProvider.maskNodesWithBatch(chunk, "REST"));
+  }
+
   /**
    * @param input
    * @param maskingProvider
@@ -43,6 +110,53 @@ public class DataMaskingCore {
    */
   protected List<ReferableData> protectRecord(List<ReferableData> input,
       final ComplexMaskingProvider maskingProvider) {
-    return maskingProvider.maskWithBatch(input, "REST");
+    return maskInChunks(maskingProvider, input,
+        chunk -> maskingProvider.maskWithBatch(chunk, "REST"));
+  }
+
+  /**
+   * Masks the given documents, dividing them among the executor threads if possible. The first
+   * chunk is masked on the calling thread. The masked documents are returned in the order of the
+   * chunks.
+   */
+  private <T> List<T> maskInChunks(ComplexMaskingProvider maskingProvider, List<T> input,
+      UnaryOperator<List<T>> masker) {
+    if (executor == null || input.size() <= chunkSize
+        || !maskingProvider.supportsConcurrentMasking()) {
+      return masker.apply(input);
+    }
+    List<Future<List<T>>> futures = new ArrayList<>();
+    for (int start = chunkSize; start < input.size(); start += chunkSize) {
+      List<T> chunk =
+          new ArrayList<>(input.subList(start, Math.min(start + chunkSize, input.size())));
+      futures.add(executor.submit(() -> masker.apply(chunk)));
+    }
+    List<T> output = new ArrayList<>(input.size());
+    try {
+      output.addAll(masker.apply(new ArrayList<>(input.subList(0, chunkSize))));
+      for (Future<List<T>> future : futures) {
+        output.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new KeyedRuntimeException(LogCodes.WPH1013E,
+          Messages.getMessage(LogCodes.WPH1013E, e.getMessage()), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new KeyedRuntimeException(LogCodes.WPH1013E,
+          Messages.getMessage(LogCodes.WPH1013E, cause.getMessage()), cause);
+    } finally {
+      // no further chunks are needed if any chunk failed
+      for (Future<List<T>> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return output;
   }
 }
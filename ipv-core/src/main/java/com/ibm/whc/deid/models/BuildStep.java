@@ -1,12 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.models;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
+import java.util.Random;
 
 /**
  * A token class and multiplicity to build a part of the string with
@@ -21,6 +21,14 @@ public class BuildStep implements Serializable {
   private TokenSet c;
   // Number of characters to gen is determined from this
   private Multiplicity m;
+  // The characters the token class selects from, if it selects single characters, in the order of
+  // the token class, or null to ask the token class for each token
+  private final int[] codePoints;
+  // Whether a random number is drawn to select each character, as the token class does
+  private final boolean drawCodePoint;
+
+  // Character tables larger than this are not built
+  private static final int MAXIMUM_CODE_POINTS = 1 << 16;
 
   /**
    * Create a build step from a token class and a multiplicity
@@ -31,6 +39,23 @@ public class BuildStep implements Serializable {
   public BuildStep(TokenSet lastClassLoaded, Multiplicity mult) {
     this.c = lastClassLoaded;
     this.m = mult;
+    if (lastClassLoaded instanceof TokenClass) {
+      this.codePoints = ((TokenClass) lastClassLoaded).getCodePoints(MAXIMUM_CODE_POINTS);
+      this.drawCodePoint = lastClassLoaded.getSize() > 0;
+    } else if (lastClassLoaded instanceof CharacterRange
+        && lastClassLoaded.getSize() <= MAXIMUM_CODE_POINTS) {
+      // a range selects from all but its last character unless it has only one character
+      CharacterRange range = (CharacterRange) lastClassLoaded;
+      int size = Math.max(1, range.getSize() - 1);
+      this.codePoints = new int[size];
+      for (int i = 0; i < size; i++) {
+        this.codePoints[i] = range.getStart() + i;
+      }
+      this.drawCodePoint = range.getSize() > 1;
+    } else {
+      this.codePoints = null;
+      this.drawCodePoint = false;
+    }
   }
 
   /**
@@ -45,20 +70,38 @@ public class BuildStep implements Serializable {
   /**
    * Generate a random string based on this build step. This will be a part of the entire pattern
    *
-   * @param random A SecureRandom instance to generate with.
+   * @param random A random number generator to generate with.
    * @return A string generated based on the given token class and multiplicity
    */
-  public String generateRandomString(SecureRandom random) {
+  public String generateRandomString(Random random) {
+    StringBuilder buffer = new StringBuilder();
+    appendRandomString(buffer, random);
+    return buffer.toString();
+  }
+
+  /**
+   * Generate a random string based on this build step and append it to the given buffer. This
+   * draws the same random numbers as {@link #generateRandomString(Random)}.
+   *
+   * @param buffer the buffer to which the generated characters are appended
+   * @param random A random number generator to generate with.
+   */
+  public void appendRandomString(StringBuilder buffer, Random random) {
     int times = 1;
-    String returnString = "";
     // Get a random multiplicity
     if (m != null) {
       times = m.getRandomMultiplicity(random);
     }
     // Get the random token the appropriate number of times.
-    for (int i = 0; i < times; i++) {
-      returnString += c.getRandomToken(random);
+    if (codePoints == null) {
+      for (int i = 0; i < times; i++) {
+        buffer.append(c.getRandomToken(random));
+      }
+    } else if (codePoints.length > 0) {
+      for (int i = 0; i < times; i++) {
+        buffer.appendCodePoint(
+            drawCodePoint ? codePoints[random.nextInt(codePoints.length)] : codePoints[0]);
+      }
     }
-    return returnString;
   }
 }
@@ -1,12 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.models;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
+import java.util.Random;
 
 /**
  * Unicode compliant CharacterRange. This represents a range of characters and should be compliant
@@ -93,7 +93,7 @@ public class CharacterRange implements TokenSet, Serializable {
   }
 
   @Override
-  public String getRandomToken(SecureRandom random) {
+  public String getRandomToken(Random random) {
     if (size == 1) {
       return String.valueOf(Character.toChars(start));
     }
@@ -118,6 +118,13 @@ public class CharacterRange implements TokenSet, Serializable {
     this.size = end - start + 1;
   }
 
+  /**
+   * @return the first Unicode code point in the range
+   */
+  int getStart() {
+    return start;
+  }
+
   @Override
   public String getTokenAt(int index) {
     return String.valueOf(Character.toChars(start + index));
@@ -1,13 +1,13 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.models;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * Represents a range of multiplicities, for use in a build step
@@ -25,10 +25,10 @@ public class Multiplicity extends ReverseRegexParser implements Serializable {
   /**
    * A random multiplicity given the range
    *
-   * @param random An instance of SecureRandom to generate with
+   * @param random A random number generator to generate with
    * @return A random integer between the minimum and maximum inclusive
    */
-  public int getRandomMultiplicity(SecureRandom random) {
+  public int getRandomMultiplicity(Random random) {
     if (singleValue)
       return lower;
     return random.nextInt((upper - lower) + 1) + lower;
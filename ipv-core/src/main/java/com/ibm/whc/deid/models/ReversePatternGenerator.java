@@ -1,15 +1,16 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.models;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import com.ibm.whc.deid.util.RandomSource;
 
 /**
  * A parsable reverse-regex pattern. Patterns use a form of reverse regex, see constructor for
@@ -24,7 +25,7 @@ public class ReversePatternGenerator extends ReverseRegexParser implements Token
 // Country code for this pattern
   private final String countryCode;
   // A random number generator
-  private final SecureRandom random = new SecureRandom();
+  private final Random random = RandomSource.create();
   // The set of steps to construct a string of this pattern
   private List<BuildStep> buildSteps = new ArrayList<BuildStep>();
 
@@ -306,16 +307,13 @@ public class ReversePatternGenerator extends ReverseRegexParser implements Token
   }
 
   @Override
-  public String getRandomToken(SecureRandom s) {
-    String returnString = "";
-    // Get a string from each step, and add them together
+  public String getRandomToken(Random s) {
+    // Generate each step into one buffer
+    StringBuilder buffer = new StringBuilder(32);
     for (BuildStep bs : buildSteps) {
-      String portion = bs.generateRandomString(s);
-      if (portion != null) {
-        returnString += portion;
-      }
+      bs.appendRandomString(buffer, s);
     }
-    return returnString;
+    return buffer.toString();
   }
 
   /** This class provides a random result for any index. */
@@ -1,15 +1,15 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.models;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.Random;
 import java.util.TreeMap;
 
 /**
@@ -106,7 +106,7 @@ public class TokenClass extends ReverseRegexParser implements TokenSet, Serializ
   }
 
   @Override
-  public String getRandomToken(SecureRandom s) {
+  public String getRandomToken(Random s) {
     if (totalSize == 0)
       return "";
     int selection = s.nextInt(totalSize);
@@ -117,4 +117,30 @@ public class TokenClass extends ReverseRegexParser implements TokenSet, Serializ
   public int getSize() {
     return totalSize;
   }
+
+  /**
+   * Lists the characters of this class in index order, if the class consists only of character
+   * ranges.
+   *
+   * @param limit the maximum number of characters to list
+   *
+   * @return the Unicode code points of the characters or <i>null</i> if the class contains other
+   *         token sets or more characters than the limit
+   */
+  int[] getCodePoints(int limit) {
+    if (totalSize > limit) {
+      return null;
+    }
+    int[] codePoints = new int[totalSize];
+    for (Entry<Integer, TokenSet> entry : characterSets.entrySet()) {
+      if (!(entry.getValue() instanceof CharacterRange)) {
+        return null;
+      }
+      CharacterRange range = (CharacterRange) entry.getValue();
+      for (int i = 0; i < range.getSize(); i++) {
+        codePoints[entry.getKey() + i] = range.getStart() + i;
+      }
+    }
+    return codePoints;
+  }
 }
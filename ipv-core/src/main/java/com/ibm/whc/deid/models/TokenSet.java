@@ -1,22 +1,22 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.models;
 
-import java.security.SecureRandom;
+import java.util.Random;
 
 public interface TokenSet {
 
   /**
    * A random token from this set, consisting of a string of one or more characters
    *
-   * @param s A SecureRandom instance to generate with
+   * @param s A random number generator to generate with
    * @return A String representing a random selection from this token set. If the generation failed,
    *         a null will be returned.
    */
-  String getRandomToken(SecureRandom s);
+  String getRandomToken(Random s);
 
   /**
    * A specific token, by index.
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -23,6 +23,16 @@ public abstract class AbstractIdentifier implements Identifier, Serializable {
     return Collections.emptyList();
   }
 
+  /**
+   * Gets the values this identifier recognizes if it recognizes exactly the values in a fixed
+   * list, ignoring case, so that they can all be searched for at once in free text.
+   *
+   * @return the values in the list or <i>null</i> if values are not recognized by lookup alone
+   */
+  protected Collection<String> getDictionaryKeys() {
+    return null;
+  }
+
   @Override
   public int getPriority() {
     return 100;
@@ -1,10 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.identifiers;
 
+import java.util.Collection;
+import com.ibm.whc.deid.resources.ResourceManager;
 import com.ibm.whc.deid.util.Manager;
 
 public abstract class AbstractManagerBasedIdentifier extends AbstractIdentifier {
@@ -30,4 +32,13 @@ public abstract class AbstractManagerBasedIdentifier extends AbstractIdentifier
   public boolean isOfThisType(String identifier) {
     return getManager().isValidKey(identifier);
   }
+
+  @Override
+  protected Collection<String> getDictionaryKeys() {
+    Manager manager = getManager();
+    if (manager instanceof ResourceManager) {
+      return ((ResourceManager<?>) manager).getKeys();
+    }
+    return null;
+  }
 }
@@ -1,10 +1,15 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.identifiers;
 
+/**
+ * Flags for the kinds of character in a value. The minimum character requirements of an identifier
+ * are a combination of flags, and a value can only be recognized by the identifier if it contains
+ * at least one of the kinds of character given.
+ */
 public class CharacterRequirements {
   public static final int NONE = 0;
   public static final int DIGIT = 1;
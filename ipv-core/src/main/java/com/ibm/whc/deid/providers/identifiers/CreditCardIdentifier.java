@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -65,4 +65,14 @@ public class CreditCardIdentifier extends AbstractRegexBasedIdentifier {
 
     return true;
   }
+
+  @Override
+  public int getMinimumCharacterRequirements() {
+    return CharacterRequirements.DIGIT;
+  }
+
+  @Override
+  public int getMinimumLength() {
+    return 7;
+  }
 }
@@ -5,13 +5,15 @@
  */
 package com.ibm.whc.deid.providers.identifiers;
 
+import java.text.ParsePosition;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAccessor;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.regex.Pattern;
 import com.ibm.whc.deid.models.ValueClass;
 import com.ibm.whc.deid.providers.ProviderType;
 import com.ibm.whc.deid.utils.log.LogCodes;
@@ -33,21 +35,31 @@ public class DateTimeIdentifier extends AbstractIdentifier {
       "yyyy/MM/dd", "dd-MM-yyyy[ HH:mm:ss]", "yyyy-MM-dd[ HH:mm:ss]", "dd/MM/yyyy[ HH:mm:ss]",
       "yyyy/MM/dd[ HH:mm:ss]"};
 
-  // These patterns are used as a "fast-check" for each of the datetime patterns above.
-  private static final Pattern[] datePatterns =
-      new Pattern[] {Pattern.compile("^\\d{2}-\\d{2}-\\d{4}$"),
-          Pattern.compile("^\\d{2}-.{3,}-\\d{4}$"), Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$"),
-          Pattern.compile("^\\d{2}/\\d{2}/\\d{4}$"), Pattern.compile("^\\d{4}/\\d{2}/\\d{2}$"),
-          Pattern.compile("^\\d{2}-\\d{2}-\\d{4}( \\d{2}:\\d{2}:\\d{2})?$"),
-          Pattern.compile("^\\d{4}-\\d{2}-\\d{2}( \\d{2}:\\d{2}:\\d{2})?$"),
-          Pattern.compile("^\\d{2}/\\d{2}/\\d{4}( \\d{2}:\\d{2}:\\d{2})?$"),
-          Pattern.compile("^\\d{4}/\\d{2}/\\d{2}( \\d{2}:\\d{2}:\\d{2})?$")};
+  // The shape of the values recognized by each of the datetime patterns above, reported as the
+  // pattern of the parse result. Values are classified by classify() rather than by matching these
+  // expressions.
+  private static final String[] datePatterns = {"^\\d{2}-\\d{2}-\\d{4}$",
+      "^\\d{2}-.{3,}-\\d{4}$", "^\\d{4}-\\d{2}-\\d{2}$", "^\\d{2}/\\d{2}/\\d{4}$",
+      "^\\d{4}/\\d{2}/\\d{2}$", "^\\d{2}-\\d{2}-\\d{4}( \\d{2}:\\d{2}:\\d{2})?$",
+      "^\\d{4}-\\d{2}-\\d{2}( \\d{2}:\\d{2}:\\d{2})?$",
+      "^\\d{2}/\\d{2}/\\d{4}( \\d{2}:\\d{2}:\\d{2})?$",
+      "^\\d{4}/\\d{2}/\\d{2}( \\d{2}:\\d{2}:\\d{2})?$"};
 
   // Indicates whether the pattern includes an alphabetic component that could benefit from
   // character case awareness
   private static final boolean[] patternHasVariableCaseComponent =
       {false, true, false, false, false, false, false, false, false};
 
+  private static final int DD_MM_YYYY = 0;
+  private static final int DD_MMM_YYYY = 1;
+  private static final int YYYY_MM_DD = 2;
+  private static final int DD_MM_YYYY_SLASH = 3;
+  private static final int YYYY_MM_DD_SLASH = 4;
+  private static final int DD_MM_YYYY_TIME = 5;
+  private static final int YYYY_MM_DD_TIME = 6;
+  private static final int DD_MM_YYYY_SLASH_TIME = 7;
+  private static final int YYYY_MM_DD_SLASH_TIME = 8;
+
   private static final DateTimeFormatter dateFormats[] = new DateTimeFormatter[patterns.length];
   static {
     for (int i = 0; i < patterns.length; i++) {
@@ -59,18 +71,42 @@ public class DateTimeIdentifier extends AbstractIdentifier {
     }
   }
 
+  // FHIR partial dates, which stand for the middle of the year or month they give
+  private static final String YEAR_PATTERN = "^\\d{4}$";
+  private static final String YEAR_MONTH_PATTERN = "^\\d{4}-\\d{2}$";
+  private static final DateTimeFormatter yearFormat = buildPartialFormatter("yyyy", 7, 2);
+  private static final DateTimeFormatter yearMonthFormat = buildPartialFormatter("yyyy-MM", 0, 15);
+
+  private static DateTimeFormatter buildPartialFormatter(String pattern, int month, int day) {
+    DateTimeFormatterBuilder builder =
+        new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern);
+    if (month > 0) {
+      builder.parseDefaulting(ChronoField.MONTH_OF_YEAR, month);
+    }
+    return builder.parseDefaulting(ChronoField.DAY_OF_MONTH, day)
+        .parseDefaulting(ChronoField.HOUR_OF_DAY, 0).parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+        .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0).toFormatter();
+  }
+
   public static class DateTimeParseResult {
 
     private final DateTimeFormatter formatter;
     private final String pattern;
     private final TemporalAccessor accessor;
     private final boolean variableCase;
+    private final ChronoUnit precision;
 
     public DateTimeParseResult(DateTimeFormatter f, String p, TemporalAccessor a, boolean vc) {
+      this(f, p, a, vc, null);
+    }
+
+    public DateTimeParseResult(DateTimeFormatter f, String p, TemporalAccessor a, boolean vc,
+        ChronoUnit precision) {
       accessor = a;
       formatter = f;
       pattern = p;
       variableCase = vc;
+      this.precision = precision;
     }
 
     public DateTimeFormatter getFormatter() {
@@ -88,6 +124,23 @@ public class DateTimeIdentifier extends AbstractIdentifier {
     public boolean isVariableCase() {
       return variableCase;
     }
+
+    /**
+     * @return {@link ChronoUnit#YEARS} or {@link ChronoUnit#MONTHS} for a partial date that gives
+     *         only a year or a year and month, <i>null</i> for a value that gives at least a day
+     */
+    public ChronoUnit getPrecision() {
+      return precision;
+    }
+
+    /**
+     * @param unit a unit no larger than a year
+     *
+     * @return <i>true</i> if the parsed value gives the component of the given unit
+     */
+    public boolean hasComponent(ChronoUnit unit) {
+      return precision == null || unit.compareTo(precision) >= 0;
+    }
   }
 
   @Override
@@ -104,40 +157,184 @@ public class DateTimeIdentifier extends AbstractIdentifier {
    *         object resulting from the parse or <i>null</i> if no formatters recognized the string.
    */
   public DateTimeParseResult parse(String data) {
+    if (mightBeIsoOffsetDateTime(data)) {
+      // check the syntax without an exception before parsing - most values that contain a T are
+      // dates with month names
+      ParsePosition position = new ParsePosition(0);
+      if (DateTimeFormatter.ISO_OFFSET_DATE_TIME.parseUnresolved(data, position) != null
+          && position.getErrorIndex() < 0 && position.getIndex() == data.length()) {
+        try {
+          TemporalAccessor temporalAccessor = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(data);
+          // although this format does include some alphabetic components, values formatted from
+          // this pattern should always use the standard character case, so "variable case" is
+          // false
+          return new DateTimeParseResult(DateTimeFormatter.ISO_OFFSET_DATE_TIME,
+              "ISO_DATE_TIME_OFFSET", temporalAccessor, false);
+        } catch (DateTimeParseException e) {
+          logParseFailure("ISO", e);
+        }
+      }
+    }
+
+    int i = classify(data);
+    if (i >= 0) {
+      try {
+        DateTimeFormatter f = dateFormats[i];
+        TemporalAccessor d = f.parse(data);
+        return new DateTimeParseResult(f, datePatterns[i], d, patternHasVariableCaseComponent[i]);
+      } catch (DateTimeParseException e) {
+        // the value has the shape of the pattern, but not valid values, such as month 13
+        logParseFailure("`" + patterns[i] + "`", e);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Parse the given string as a FHIR partial date, which gives only a year, <i>yyyy</i>, or a year
+   * and month, <i>yyyy-MM</i>.
+   *
+   * <p>
+   * These values are not recognized by {@link #parse(String)} or {@link #isOfThisType(String)},
+   * since any four digit number would otherwise be taken for a date. Masking providers that are
+   * applied to date values try them after the other patterns. The parsed value is the middle of the
+   * year or month, so that shifting it by fewer days than half the period leaves it unchanged, and
+   * the formatter of the result prints only the components given by the value.
+   *
+   * @param data the string to parse
+   *
+   * @return the parse result, with the precision of the value, or <i>null</i> if the string is not
+   *         a partial date
+   */
+  public DateTimeParseResult parsePartialDate(String data) {
+    DateTimeFormatter f;
+    String pattern;
+    ChronoUnit precision;
+    if (data.length() == 4 && digits(data, 0, 4)) {
+      f = yearFormat;
+      pattern = YEAR_PATTERN;
+      precision = ChronoUnit.YEARS;
+    } else if (data.length() == 7 && digits(data, 0, 4) && data.charAt(4) == '-'
+        && digits(data, 5, 7)) {
+      f = yearMonthFormat;
+      pattern = YEAR_MONTH_PATTERN;
+      precision = ChronoUnit.MONTHS;
+    } else {
+      return null;
+    }
     try {
-      TemporalAccessor temporalAccessor = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(data);
-      // although this format does include some alphabetic components, values formatted from this
-      // pattern should always use the standard character case, so "variable case" is false
-      return new DateTimeParseResult(DateTimeFormatter.ISO_OFFSET_DATE_TIME, "ISO_DATE_TIME_OFFSET",
-          temporalAccessor, false);
-    } catch (Exception e) {
-      if (log.isDebugEnabled()) {
-        StringBuilder buffer = new StringBuilder(120);
-        buffer.append("could not parse with ISO format: ").append(e.getMessage())
-            .append(" - trying other formats");
-        log.logDebug(LogCodes.WPH1000I, buffer.toString());
+      return new DateTimeParseResult(f, pattern, f.parse(data), false, precision);
+    } catch (DateTimeParseException e) {
+      // a month other than 01 to 12
+      logParseFailure("`" + pattern + "`", e);
+      return null;
+    }
+  }
+
+  private static void logParseFailure(String format, DateTimeParseException e) {
+    if (log.isDebugEnabled()) {
+      StringBuilder buffer = new StringBuilder(120);
+      buffer.append("could not parse with format ").append(format).append(": ")
+          .append(e.getMessage());
+      log.logDebug(LogCodes.WPH1000I, buffer.toString());
+    }
+  }
+
+  /**
+   * Every ISO offset date-time contains the date-time separator after a date of at least ten
+   * characters.
+   */
+  private static boolean mightBeIsoOffsetDateTime(String data) {
+    for (int i = 10; i < data.length(); i++) {
+      char c = data.charAt(i);
+      if (c == 'T' || c == 't') {
+        return true;
       }
     }
+    return false;
+  }
 
-    for (int i = 0; i < datePatterns.length; i++) {
-      if (datePatterns[i].matcher(data).matches()) {
-        try {
-          DateTimeFormatter f = dateFormats[i];
-          TemporalAccessor d = f.parse(data);
-          return new DateTimeParseResult(f, datePatterns[i].pattern(), d,
-              patternHasVariableCaseComponent[i]);
-        } catch (Exception e) {
-          if (log.isDebugEnabled()) {
-            StringBuilder buffer = new StringBuilder(120);
-            buffer.append("could not parse with format `").append(patterns[i]).append("`: ")
-                .append(e.getMessage()).append(" - trying other formats");
-            log.logDebug(LogCodes.WPH1000I, buffer.toString());
+  /**
+   * Determines from the positions of digits and separators which of the built-in patterns, if any,
+   * could parse the given value. Only one pattern can match the shape of any value.
+   *
+   * @param data the value to classify
+   *
+   * @return the index of the pattern or -1 if no pattern applies
+   */
+  private static int classify(String data) {
+    int length = data.length();
+    switch (length) {
+      case 10:
+        return classifyDate(data);
+      case 19:
+        if (data.charAt(10) == ' ' && digits(data, 11, 13) && data.charAt(13) == ':'
+            && digits(data, 14, 16) && data.charAt(16) == ':' && digits(data, 17, 19)) {
+          switch (classifyDate(data)) {
+            case DD_MM_YYYY:
+              return DD_MM_YYYY_TIME;
+            case YYYY_MM_DD:
+              return YYYY_MM_DD_TIME;
+            case DD_MM_YYYY_SLASH:
+              return DD_MM_YYYY_SLASH_TIME;
+            case YYYY_MM_DD_SLASH:
+              return YYYY_MM_DD_SLASH_TIME;
+            default:
+              return -1;
           }
         }
+        break;
+      default:
+        break;
+    }
+    return isDayMonthNameYear(data) ? DD_MMM_YYYY : -1;
+  }
+
+  /**
+   * Classifies the first ten characters of the given value as one of the date-only patterns.
+   */
+  private static int classifyDate(String data) {
+    char c2 = data.charAt(2);
+    char c4 = data.charAt(4);
+    if ((c2 == '-' || c2 == '/') && data.charAt(5) == c2 && digits(data, 0, 2)
+        && digits(data, 3, 5) && digits(data, 6, 10)) {
+      return c2 == '-' ? DD_MM_YYYY : DD_MM_YYYY_SLASH;
+    }
+    if ((c4 == '-' || c4 == '/') && data.charAt(7) == c4 && digits(data, 0, 4)
+        && digits(data, 5, 7) && digits(data, 8, 10)) {
+      return c4 == '-' ? YYYY_MM_DD : YYYY_MM_DD_SLASH;
+    }
+    return -1;
+  }
+
+  /**
+   * Two digits, a hyphen, at least three characters other than line terminators, a hyphen, and
+   * four digits.
+   */
+  private static boolean isDayMonthNameYear(String data) {
+    int length = data.length();
+    if (length < 11 || data.charAt(2) != '-' || data.charAt(length - 5) != '-'
+        || !digits(data, 0, 2) || !digits(data, length - 4, length)) {
+      return false;
+    }
+    for (int i = 3; i < length - 5; i++) {
+      char c = data.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return false;
       }
     }
+    return true;
+  }
 
-    return null;
+  private static boolean digits(String data, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = data.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -49,4 +49,14 @@ public class EmailIdentifier extends AbstractRegexBasedIdentifier {
   protected Collection<String> getAppropriateNames() {
     return Arrays.asList(appropriateNames);
   }
+
+  @Override
+  public int getMinimumCharacterRequirements() {
+    return CharacterRequirements.AT;
+  }
+
+  @Override
+  public int getMinimumLength() {
+    return 6;
+  }
 }
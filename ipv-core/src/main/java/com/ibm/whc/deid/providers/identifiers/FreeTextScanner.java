@@ -0,0 +1,529 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.identifiers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import com.ibm.whc.deid.providers.ProviderType;
+import com.ibm.whc.deid.providers.masking.MaskingProvider;
+import com.ibm.whc.deid.util.IdentifierUtils;
+import com.ibm.whc.deid.util.Tuple;
+
+/**
+ * Finds the values recognized by a set of identifiers in free text, such as the narrative of a FHIR
+ * resource or a clinical note, in a single pass over the text.
+ *
+ * <p>
+ * The text is divided into whitespace-separated tokens, ignoring punctuation at either end of a
+ * token, and the candidate values are the runs of up to a maximum number of consecutive tokens. The
+ * identifiers are applied as follows:
+ * <ul>
+ * <li>identifiers that recognize the values in a fixed list are all applied at once by searching
+ * the text for any of the values, which are found wherever they start and end at a word
+ * boundary</li>
+ * <li>the patterns of the regular expression based identifiers are combined into a single pattern,
+ * so that each candidate is matched against all of them at once</li>
+ * <li>any other identifier is applied to each candidate in turn</li>
+ * </ul>
+ * Candidates are only offered to the identifiers whose minimum and maximum lengths and minimum
+ * character requirements they meet. Regular expression based identifiers are assumed to recognize
+ * only values that match one of their patterns.
+ *
+ * <p>
+ * Where values found overlap, the longest is kept, then the one recognized by the identifier with
+ * the highest priority, then the one recognized by the identifier given first.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class FreeTextScanner {
+
+  public static final int DEFAULT_MAXIMUM_TOKENS = 8;
+
+  private static final String LEADING_PUNCTUATION = "([{<\"'";
+  private static final String TRAILING_PUNCTUATION = ")]}>\"',;:!?.";
+
+  private static final int[] INLINE_FLAGS = {Pattern.CASE_INSENSITIVE, Pattern.MULTILINE,
+      Pattern.DOTALL, Pattern.UNICODE_CASE, Pattern.COMMENTS, Pattern.UNIX_LINES,
+      Pattern.UNICODE_CHARACTER_CLASS};
+  private static final String INLINE_FLAG_CHARACTERS = "imsuxdU";
+
+  // an odd number of backslashes before a digit, which would refer to the wrong group once combined
+  private static final Pattern NUMBERED_BACK_REFERENCE =
+      Pattern.compile("(?<!\\\\)(?:\\\\\\\\)*\\\\[1-9]");
+
+  // the start, end and identifier index of the values found, in a single array
+  private static final class Candidates {
+
+    private int[] values = new int[48];
+    private int size;
+
+    void add(int start, int end, int identifier) {
+      if (size + 3 > values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+      values[size++] = start;
+      values[size++] = end;
+      values[size++] = identifier;
+    }
+  }
+
+  private final Identifier[] identifiers;
+  private final int[] minimumLengths;
+  private final int[] maximumLengths;
+  private final int[] characterRequirements;
+  private final int maximumTokens;
+
+  private final KeywordAutomaton dictionary;
+
+  private final Pattern combinedPattern;
+  // the indexes of the identifiers in the combined pattern, highest priority first
+  private final int[] combinedIdentifiers;
+  // the group that captures each alternative of the combined pattern
+  private final int[] alternativeGroups;
+  // the position in combinedIdentifiers of the identifier of each alternative
+  private final int[] alternativeOwners;
+
+  private final int[] otherIdentifiers;
+
+  // the longest candidate accepted by any identifier applied to candidates
+  private final int maximumLength;
+
+  /**
+   * Instantiates a scanner with candidates of up to {@value #DEFAULT_MAXIMUM_TOKENS} tokens.
+   *
+   * @param identifiers the identifiers of the values to find
+   */
+  public FreeTextScanner(Collection<? extends Identifier> identifiers) {
+    this(identifiers, DEFAULT_MAXIMUM_TOKENS);
+  }
+
+  /**
+   * Instantiates a scanner.
+   *
+   * @param identifiers the identifiers of the values to find
+   * @param maximumTokens the largest number of tokens in a candidate value, which must be greater
+   *        than zero
+   */
+  public FreeTextScanner(Collection<? extends Identifier> identifiers, int maximumTokens) {
+    if (maximumTokens <= 0) {
+      throw new IllegalArgumentException(
+          "maximumTokens must be greater than zero: " + maximumTokens);
+    }
+    this.identifiers = identifiers.toArray(new Identifier[identifiers.size()]);
+    this.maximumTokens = maximumTokens;
+    int count = this.identifiers.length;
+    minimumLengths = new int[count];
+    maximumLengths = new int[count];
+    characterRequirements = new int[count];
+
+    KeywordAutomaton automaton = new KeywordAutomaton();
+    boolean hasKeywords = false;
+    List<Integer> regexIdentifiers = new ArrayList<>();
+    List<Integer> others = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Identifier identifier = this.identifiers[i];
+      minimumLengths[i] = identifier.getMinimumLength();
+      maximumLengths[i] = identifier.getMaximumLength();
+      characterRequirements[i] = identifier.getMinimumCharacterRequirements();
+      Collection<String> keys = identifier instanceof AbstractIdentifier
+          ? ((AbstractIdentifier) identifier).getDictionaryKeys()
+          : null;
+      if (keys != null) {
+        for (String key : keys) {
+          automaton.add(key, i);
+        }
+        hasKeywords = true;
+      } else if (identifier instanceof AbstractRegexBasedIdentifier) {
+        regexIdentifiers.add(i);
+      } else {
+        others.add(i);
+      }
+    }
+    if (hasKeywords) {
+      automaton.build();
+      dictionary = automaton;
+    } else {
+      dictionary = null;
+    }
+
+    // the sort is stable, so identifiers with equal priority keep their order
+    regexIdentifiers.sort(Comparator.comparingInt(i -> -this.identifiers[i].getPriority()));
+    StringBuilder combined = new StringBuilder();
+    Pattern pattern = null;
+    List<Integer> combinedIndexes = new ArrayList<>();
+    List<Integer> groups = new ArrayList<>();
+    List<Integer> owners = new ArrayList<>();
+    int groupCount = 0;
+    for (int index : regexIdentifiers) {
+      Collection<Pattern> patterns =
+          ((AbstractRegexBasedIdentifier) this.identifiers[index]).getPatterns();
+      List<String> alternatives = new ArrayList<>();
+      if (patterns != null) {
+        for (Pattern p : patterns) {
+          String alternative = toAlternative(p);
+          if (alternative == null) {
+            alternatives = null;
+            break;
+          }
+          alternatives.add(alternative);
+        }
+      }
+      Pattern extended = null;
+      if (alternatives != null && !alternatives.isEmpty()) {
+        String regex = (combined.length() == 0 ? "" : combined + "|")
+            + String.join("|", alternatives);
+        try {
+          extended = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+          // for example, a group name also used by another identifier
+        }
+      }
+      if (extended == null) {
+        others.add(index);
+        continue;
+      }
+      for (Pattern p : patterns) {
+        groups.add(groupCount + 1);
+        owners.add(combinedIndexes.size());
+        groupCount += 1 + p.matcher("").groupCount();
+      }
+      combinedIndexes.add(index);
+      combined.setLength(0);
+      combined.append(extended.pattern());
+      pattern = extended;
+    }
+    combinedPattern = pattern;
+    combinedIdentifiers = toArray(combinedIndexes);
+    alternativeGroups = toArray(groups);
+    alternativeOwners = toArray(owners);
+    Collections.sort(others);
+    otherIdentifiers = toArray(others);
+
+    int longest = 0;
+    for (int index : combinedIdentifiers) {
+      longest = Math.max(longest, maximumLengths[index]);
+    }
+    for (int index : otherIdentifiers) {
+      longest = Math.max(longest, maximumLengths[index]);
+    }
+    maximumLength = longest;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    int[] array = new int[values.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = values.get(i);
+    }
+    return array;
+  }
+
+  /**
+   * @return the given pattern as a capturing group with its flags inline, or <i>null</i> if it
+   *         cannot be combined with other patterns
+   */
+  private static String toAlternative(Pattern pattern) {
+    int flags = pattern.flags();
+    StringBuilder inline = new StringBuilder();
+    for (int i = 0; i < INLINE_FLAGS.length; i++) {
+      if ((flags & INLINE_FLAGS[i]) != 0) {
+        inline.append(INLINE_FLAG_CHARACTERS.charAt(i));
+        flags &= ~INLINE_FLAGS[i];
+      }
+    }
+    String regex = pattern.pattern();
+    if (flags != 0 || NUMBERED_BACK_REFERENCE.matcher(regex).find()) {
+      return null;
+    }
+    // a line break ends any comment at the end of the pattern
+    return "((?" + inline + ":" + regex
+        + ((pattern.flags() & Pattern.COMMENTS) != 0 ? "\n" : "") + "))";
+  }
+
+  private boolean isEligible(int index, int length, int profile) {
+    return length >= minimumLengths[index] && length <= maximumLengths[index]
+        && (characterRequirements[index] == CharacterRequirements.NONE
+            || (profile & characterRequirements[index]) != 0);
+  }
+
+  private static boolean isWordBoundary(String text, int offset) {
+    return offset == 0 || offset == text.length()
+        || !Character.isLetterOrDigit(text.charAt(offset - 1))
+        || !Character.isLetterOrDigit(text.charAt(offset));
+  }
+
+  // dictionary values are matched with any run of whitespace between words
+  private static String collapseWhitespace(String text, int start, int end) {
+    StringBuilder buffer = new StringBuilder(end - start);
+    boolean space = false;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        buffer.append(c);
+        space = false;
+      } else if (!space) {
+        buffer.append(' ');
+        space = true;
+      }
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * Finds the values recognized by the identifiers in free text.
+   *
+   * @param text the free text
+   *
+   * @return the values found, which do not overlap, in order of their position in the text
+   */
+  public List<FreeTextSpan> scan(String text) {
+    if (text == null || text.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Candidates candidates = new Candidates();
+
+    if (dictionary != null) {
+      dictionary.scan(text, (start, end, label) -> {
+        if (isWordBoundary(text, start) && isWordBoundary(text, end)
+            && identifiers[label].isOfThisType(collapseWhitespace(text, start, end))) {
+          candidates.add(start, end, label);
+        }
+      });
+    }
+
+    if (combinedPattern != null || otherIdentifiers.length > 0) {
+      int[] starts = new int[64];
+      int[] ends = new int[64];
+      // the character profile of each token including the characters since the previous token
+      int[] profiles = new int[64];
+      int tokenCount = 0;
+      int length = text.length();
+      int position = 0;
+      while (position < length) {
+        while (position < length && Character.isWhitespace(text.charAt(position))) {
+          position++;
+        }
+        int start = position;
+        while (position < length && !Character.isWhitespace(text.charAt(position))) {
+          position++;
+        }
+        int end = position;
+        while (start < end && LEADING_PUNCTUATION.indexOf(text.charAt(start)) >= 0) {
+          start++;
+        }
+        while (end > start && TRAILING_PUNCTUATION.indexOf(text.charAt(end - 1)) >= 0) {
+          end--;
+        }
+        if (start < end) {
+          if (tokenCount == starts.length) {
+            starts = Arrays.copyOf(starts, tokenCount * 2);
+            ends = Arrays.copyOf(ends, tokenCount * 2);
+            profiles = Arrays.copyOf(profiles, tokenCount * 2);
+          }
+          starts[tokenCount] = start;
+          ends[tokenCount] = end;
+          profiles[tokenCount] = IdentifierUtils.createCharacterProfile(text,
+              tokenCount == 0 ? start : ends[tokenCount - 1], end);
+          tokenCount++;
+        }
+      }
+      scanCandidates(text, starts, ends, profiles, tokenCount, candidates);
+    }
+
+    return resolveOverlaps(text, candidates);
+  }
+
+  private void scanCandidates(String text, int[] starts, int[] ends, int[] profiles,
+      int tokenCount, Candidates candidates) {
+    Matcher matcher = combinedPattern == null ? null : combinedPattern.matcher(text);
+    for (int first = 0; first < tokenCount; first++) {
+      int start = starts[first];
+      int profile = CharacterRequirements.NONE;
+      // whether no longer candidate from this token can match the combined pattern
+      boolean exhausted = false;
+      int lastToken = Math.min(tokenCount, first + maximumTokens) - 1;
+      for (int last = first; last <= lastToken; last++) {
+        int end = ends[last];
+        int length = end - start;
+        if (length > maximumLength) {
+          break;
+        }
+        profile |= last == first
+            ? IdentifierUtils.createCharacterProfile(text, start, end)
+            : profiles[last];
+        String value = null;
+
+        if (matcher != null && !exhausted
+            && anyEligible(combinedIdentifiers, length, profile)) {
+          matcher.region(start, end);
+          if (!matcher.matches()) {
+            // the match failed before the end of the candidate, so more text cannot help
+            exhausted = !matcher.hitEnd();
+          } else {
+            value = text.substring(start, end);
+            // the identifiers before the one matched have no pattern that matches
+            for (int i = matchedOwner(matcher); i < combinedIdentifiers.length; i++) {
+              int index = combinedIdentifiers[i];
+              if (isEligible(index, length, profile) && identifiers[index].isOfThisType(value)) {
+                candidates.add(start, end, index);
+                break;
+              }
+            }
+          }
+        }
+
+        for (int index : otherIdentifiers) {
+          if (!isEligible(index, length, profile)) {
+            continue;
+          }
+          if (value == null) {
+            value = text.substring(start, end);
+          }
+          Identifier identifier = identifiers[index];
+          if (identifier instanceof IdentifierWithOffset) {
+            Tuple<Boolean, Tuple<Integer, Integer>> result =
+                ((IdentifierWithOffset) identifier).isOfThisTypeWithOffset(value);
+            if (result.getFirst()) {
+              // the offset and length of the value within the candidate
+              int offset = result.getSecond().getFirst();
+              int valueLength = result.getSecond().getSecond();
+              if (valueLength > 0) {
+                candidates.add(start + offset, start + offset + valueLength, index);
+              }
+            }
+          } else if (identifier.isOfThisType(value)) {
+            candidates.add(start, end, index);
+          }
+        }
+      }
+    }
+  }
+
+  private boolean anyEligible(int[] indexes, int length, int profile) {
+    for (int index : indexes) {
+      if (isEligible(index, length, profile)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int matchedOwner(Matcher matcher) {
+    for (int i = 0; i < alternativeGroups.length; i++) {
+      if (matcher.start(alternativeGroups[i]) >= 0) {
+        return alternativeOwners[i];
+      }
+    }
+    return combinedIdentifiers.length;
+  }
+
+  private List<FreeTextSpan> resolveOverlaps(String text, Candidates candidates) {
+    int[] values = candidates.values;
+    Integer[] order = new Integer[candidates.size / 3];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i * 3;
+    }
+    Arrays.sort(order, (a, b) -> {
+      int result = Integer.compare(values[b + 1] - values[b], values[a + 1] - values[a]);
+      if (result == 0) {
+        result = Integer.compare(identifiers[values[b + 2]].getPriority(),
+            identifiers[values[a + 2]].getPriority());
+      }
+      if (result == 0) {
+        result = Integer.compare(values[a + 2], values[b + 2]);
+      }
+      if (result == 0) {
+        result = Integer.compare(values[a], values[b]);
+      }
+      return result;
+    });
+
+    List<FreeTextSpan> spans = new ArrayList<>();
+    BitSet covered = new BitSet(text.length());
+    for (int i : order) {
+      int start = values[i];
+      int end = values[i + 1];
+      int next = covered.nextSetBit(start);
+      if (next < 0 || next >= end) {
+        covered.set(start, end);
+        spans.add(new FreeTextSpan(start, end, text.substring(start, end),
+            identifiers[values[i + 2]]));
+      }
+    }
+    spans.sort(Comparator.comparingInt(FreeTextSpan::getStart));
+    return spans;
+  }
+
+  /**
+   * Replaces the values found in free text with the results of masking them.
+   *
+   * <p>
+   * The values of each type are masked together by the {@link MaskingProvider#maskBatch(List)}
+   * method of the provider given for the type. Values of types for which no provider is given are
+   * left unchanged, and values for which the provider returns <i>null</i> are removed.
+   *
+   * @param text the free text
+   * @param providers the masking provider for each type of value to mask
+   *
+   * @return the masked text
+   */
+  public String mask(String text, Map<ProviderType, MaskingProvider> providers) {
+    if (text == null) {
+      return null;
+    }
+    List<FreeTextSpan> spans = scan(text);
+    Map<ProviderType, List<Integer>> positionsByType = new HashMap<>();
+    for (int i = 0; i < spans.size(); i++) {
+      ProviderType type = spans.get(i).getType();
+      if (providers.get(type) != null) {
+        positionsByType.computeIfAbsent(type, t -> new ArrayList<>()).add(i);
+      }
+    }
+    if (positionsByType.isEmpty()) {
+      return text;
+    }
+
+    String[] replacements = new String[spans.size()];
+    boolean[] masked = new boolean[spans.size()];
+    for (Map.Entry<ProviderType, List<Integer>> entry : positionsByType.entrySet()) {
+      List<Integer> positions = entry.getValue();
+      List<String> values = new ArrayList<>(positions.size());
+      for (int position : positions) {
+        values.add(spans.get(position).getText());
+      }
+      List<String> results = providers.get(entry.getKey()).maskBatch(values);
+      for (int i = 0; i < positions.size(); i++) {
+        replacements[positions.get(i)] = results.get(i);
+        masked[positions.get(i)] = true;
+      }
+    }
+
+    StringBuilder buffer = new StringBuilder(text.length());
+    int copied = 0;
+    for (int i = 0; i < spans.size(); i++) {
+      FreeTextSpan span = spans.get(i);
+      if (masked[i]) {
+        buffer.append(text, copied, span.getStart());
+        if (replacements[i] != null) {
+          buffer.append(replacements[i]);
+        }
+        copied = span.getEnd();
+      }
+    }
+    buffer.append(text, copied, text.length());
+    return buffer.toString();
+  }
+}
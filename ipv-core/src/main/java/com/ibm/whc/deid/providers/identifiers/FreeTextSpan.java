@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.identifiers;
+
+import com.ibm.whc.deid.providers.ProviderType;
+
+/**
+ * A part of a free text value recognized by an identifier.
+ */
+public final class FreeTextSpan {
+
+  private final int start;
+  private final int end;
+  private final String text;
+  private final Identifier identifier;
+
+  /**
+   * Instantiates a span.
+   *
+   * @param start the offset in the free text of the first character of the span
+   * @param end the offset in the free text after the last character of the span
+   * @param text the characters of the span
+   * @param identifier the identifier that recognized the span
+   */
+  public FreeTextSpan(int start, int end, String text, Identifier identifier) {
+    this.start = start;
+    this.end = end;
+    this.text = text;
+    this.identifier = identifier;
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getEnd() {
+    return end;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  public Identifier getIdentifier() {
+    return identifier;
+  }
+
+  /**
+   * @return the type of the identifier that recognized the span
+   */
+  public ProviderType getType() {
+    return identifier.getType();
+  }
+
+  @Override
+  public String toString() {
+    return getType().getName() + "[" + start + "," + end + "]";
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -77,4 +77,10 @@ public class ICDv10Identifier extends AbstractManagerBasedIdentifier {
     }
     return valid;
   }
+
+  @Override
+  protected Collection<String> getDictionaryKeys() {
+    // values are not recognized by lookup alone
+    return null;
+  }
 }
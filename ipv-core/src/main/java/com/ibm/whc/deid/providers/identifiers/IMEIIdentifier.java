@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -78,4 +78,10 @@ public class IMEIIdentifier extends AbstractManagerBasedIdentifier {
     }
     return imeiManager;
   }
+
+  @Override
+  protected Collection<String> getDictionaryKeys() {
+    // values are not recognized by lookup alone
+    return null;
+  }
 }
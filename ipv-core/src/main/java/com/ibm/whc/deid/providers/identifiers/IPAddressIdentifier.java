@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -77,4 +77,14 @@ public class IPAddressIdentifier extends AbstractRegexBasedIdentifier {
   protected Collection<String> getAppropriateNames() {
     return Arrays.asList(appropriateNames);
   }
+
+  @Override
+  public int getMinimumCharacterRequirements() {
+    return CharacterRequirements.DOT | CharacterRequirements.DOUBLEDOT;
+  }
+
+  @Override
+  public int getMinimumLength() {
+    return 2;
+  }
 }
@@ -0,0 +1,254 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.identifiers;
+
+import java.util.Arrays;
+
+/**
+ * An Aho-Corasick automaton that finds every occurrence of any of a set of keywords in a text in a
+ * single pass.
+ *
+ * <p>
+ * Matching ignores case and treats any run of whitespace as a single space. Each keyword is added
+ * with a label, and an occurrence is reported with the labels of all the keywords it matches.
+ *
+ * <p>
+ * Keywords are added first, then the automaton is built, after which instances are immutable and
+ * thread-safe.
+ */
+class KeywordAutomaton {
+
+  /**
+   * Receives the occurrences of keywords in a text.
+   */
+  interface MatchHandler {
+
+    /**
+     * @param start the offset in the text of the first character of the occurrence
+     * @param end the offset in the text after the last character of the occurrence
+     * @param label the label of the keyword
+     */
+    void match(int start, int end, int label);
+  }
+
+  private static final int ROOT = 0;
+  private static final int[] NO_LABELS = new int[0];
+  private static final char[] NO_CHARS = new char[0];
+  private static final int[] NO_NODES = new int[0];
+
+  // the children of each node, labels kept sorted for binary search
+  private char[][] childChars = new char[16][];
+  private int[][] childNodes = new int[16][];
+  private int[] childCounts = new int[16];
+  private int[] depths = new int[16];
+  private int[][] labels = new int[16][];
+  private int[] failures;
+  // the nearest node along the failure links that ends a keyword, or -1
+  private int[] outputs;
+  private int nodeCount = 1;
+  private int maximumDepth = 0;
+
+  KeywordAutomaton() {
+    childChars[ROOT] = NO_CHARS;
+    childNodes[ROOT] = NO_NODES;
+    labels[ROOT] = NO_LABELS;
+  }
+
+  private static char normalize(char c) {
+    return Character.isWhitespace(c) ? ' ' : Character.toUpperCase(c);
+  }
+
+  /**
+   * Adds a keyword. Leading and trailing whitespace is ignored.
+   *
+   * @param keyword the keyword
+   * @param label the label reported with occurrences of the keyword
+   *
+   * @throws IllegalStateException if the automaton has been built
+   */
+  void add(String keyword, int label) {
+    if (failures != null) {
+      throw new IllegalStateException("automaton already built");
+    }
+    int node = ROOT;
+    boolean space = false;
+    for (int i = 0; i < keyword.length(); i++) {
+      char c = normalize(keyword.charAt(i));
+      if (c == ' ') {
+        space = node != ROOT;
+        continue;
+      }
+      if (space) {
+        node = child(node, ' ', true);
+        space = false;
+      }
+      node = child(node, c, true);
+    }
+    if (node == ROOT) {
+      return;
+    }
+    int[] nodeLabels = labels[node];
+    for (int existing : nodeLabels) {
+      if (existing == label) {
+        return;
+      }
+    }
+    nodeLabels = Arrays.copyOf(nodeLabels, nodeLabels.length + 1);
+    nodeLabels[nodeLabels.length - 1] = label;
+    labels[node] = nodeLabels;
+  }
+
+  private int child(int node, char c, boolean create) {
+    char[] chars = childChars[node];
+    int count = childCounts[node];
+    int index = Arrays.binarySearch(chars, 0, count, c);
+    if (index >= 0) {
+      return childNodes[node][index];
+    }
+    if (!create) {
+      return -1;
+    }
+    int created = newNode(depths[node] + 1);
+    // the arrays may have been replaced while creating the node
+    chars = childChars[node];
+    int[] nodes = childNodes[node];
+    if (count == chars.length) {
+      chars = Arrays.copyOf(chars, Math.max(2, count * 2));
+      nodes = Arrays.copyOf(nodes, chars.length);
+    }
+    index = -index - 1;
+    System.arraycopy(chars, index, chars, index + 1, count - index);
+    System.arraycopy(nodes, index, nodes, index + 1, count - index);
+    chars[index] = c;
+    nodes[index] = created;
+    childChars[node] = chars;
+    childNodes[node] = nodes;
+    childCounts[node] = count + 1;
+    return created;
+  }
+
+  private int newNode(int depth) {
+    if (nodeCount == depths.length) {
+      int capacity = nodeCount * 2;
+      childChars = Arrays.copyOf(childChars, capacity);
+      childNodes = Arrays.copyOf(childNodes, capacity);
+      childCounts = Arrays.copyOf(childCounts, capacity);
+      depths = Arrays.copyOf(depths, capacity);
+      labels = Arrays.copyOf(labels, capacity);
+    }
+    int node = nodeCount++;
+    childChars[node] = NO_CHARS;
+    childNodes[node] = NO_NODES;
+    depths[node] = depth;
+    labels[node] = NO_LABELS;
+    maximumDepth = Math.max(maximumDepth, depth);
+    return node;
+  }
+
+  /**
+   * Computes the failure links. No more keywords can be added afterwards.
+   */
+  void build() {
+    if (failures != null) {
+      return;
+    }
+    int[] failure = new int[nodeCount];
+    int[] output = new int[nodeCount];
+    output[ROOT] = -1;
+    // breadth-first, so the failure of a node is always resolved before its children
+    int[] queue = new int[nodeCount];
+    int head = 0;
+    int tail = 0;
+    for (int i = 0; i < childCounts[ROOT]; i++) {
+      int node = childNodes[ROOT][i];
+      failure[node] = ROOT;
+      output[node] = -1;
+      queue[tail++] = node;
+    }
+    while (head < tail) {
+      int node = queue[head++];
+      for (int i = 0; i < childCounts[node]; i++) {
+        char c = childChars[node][i];
+        int next = childNodes[node][i];
+        int fallback = failure[node];
+        int target;
+        while ((target = child(fallback, c, false)) < 0 && fallback != ROOT) {
+          fallback = failure[fallback];
+        }
+        failure[next] = target < 0 ? ROOT : target;
+        int suffix = failure[next];
+        output[next] = labels[suffix].length > 0 ? suffix : output[suffix];
+        queue[tail++] = next;
+      }
+    }
+    // trim the arrays grown while adding keywords
+    for (int node = 0; node < nodeCount; node++) {
+      int count = childCounts[node];
+      if (count < childChars[node].length) {
+        childChars[node] = Arrays.copyOf(childChars[node], count);
+        childNodes[node] = Arrays.copyOf(childNodes[node], count);
+      }
+    }
+    childChars = Arrays.copyOf(childChars, nodeCount);
+    childNodes = Arrays.copyOf(childNodes, nodeCount);
+    childCounts = Arrays.copyOf(childCounts, nodeCount);
+    depths = Arrays.copyOf(depths, nodeCount);
+    labels = Arrays.copyOf(labels, nodeCount);
+    outputs = output;
+    failures = failure;
+  }
+
+  /**
+   * Reports every occurrence of a keyword in a text, in order of the end of the occurrence.
+   *
+   * @param text the text to search
+   * @param handler receives the occurrences
+   *
+   * @throws IllegalStateException if the automaton has not been built
+   */
+  void scan(CharSequence text, MatchHandler handler) {
+    if (failures == null) {
+      throw new IllegalStateException("automaton not built");
+    }
+    // the offsets in the text of the most recent characters consumed by the automaton
+    int[] offsets = new int[maximumDepth + 1];
+    long consumed = 0;
+    int node = ROOT;
+    boolean space = false;
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      char c = normalize(text.charAt(i));
+      if (c == ' ') {
+        if (space) {
+          continue;
+        }
+        space = true;
+      } else {
+        space = false;
+      }
+      offsets[(int) (consumed++ % offsets.length)] = i;
+      int next;
+      while ((next = child(node, c, false)) < 0 && node != ROOT) {
+        node = failures[node];
+      }
+      node = next < 0 ? ROOT : next;
+      for (int match = labels[node].length > 0 ? node : outputs[node]; match >= 0; match =
+          outputs[match]) {
+        int start = offsets[(int) ((consumed - depths[match]) % offsets.length)];
+        for (int label : labels[match]) {
+          handler.match(start, i + 1, label);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of states of the automaton
+   */
+  int size() {
+    return nodeCount;
+  }
+}
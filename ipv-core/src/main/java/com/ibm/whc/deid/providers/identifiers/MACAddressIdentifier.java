@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -45,4 +45,19 @@ public class MACAddressIdentifier extends AbstractRegexBasedIdentifier {
   public ValueClass getValueClass() {
     return ValueClass.TEXT;
   }
+
+  @Override
+  public int getMinimumCharacterRequirements() {
+    return CharacterRequirements.DOUBLEDOT;
+  }
+
+  @Override
+  public int getMinimumLength() {
+    return 17;
+  }
+
+  @Override
+  public int getMaximumLength() {
+    return 17;
+  }
 }
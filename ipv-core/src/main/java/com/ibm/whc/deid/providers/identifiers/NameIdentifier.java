@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,6 +7,7 @@ package com.ibm.whc.deid.providers.identifiers;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.regex.Pattern;
 import com.ibm.whc.deid.models.ValueClass;
 import com.ibm.whc.deid.providers.ProviderType;
 import com.ibm.whc.deid.util.NamesManager;
@@ -20,6 +21,8 @@ public class NameIdentifier extends AbstractIdentifier implements IdentifierWith
 
   private static final String[] appropriateNames = {"Name", "Surname"};
 
+  private static final Pattern WHITESPACE = Pattern.compile("\\s");
+
   protected transient volatile NamesManager namesResourceManager = null;
 
   protected final String tenantId;
@@ -45,7 +48,7 @@ public class NameIdentifier extends AbstractIdentifier implements IdentifierWith
 
   @Override
   public boolean isOfThisType(String data) {
-    final String[] parts = data.split("\\s");
+    final String[] parts = WHITESPACE.split(data);
 
     boolean hasSurname = false;
     boolean hasName = false;
@@ -104,15 +107,17 @@ public class NameIdentifier extends AbstractIdentifier implements IdentifierWith
 
   @Override
   public Tuple<Boolean, Tuple<Integer, Integer>> isOfThisTypeWithOffset(String data) {
-    final String[] parts = data.split("\\s");
+    // reject input with digits or a first word that is not capitalized before splitting it
+    if (NumberUtils.countDigits(data) > 0 || (!data.isEmpty()
+        && !Character.isWhitespace(data.charAt(0)) && !Character.isUpperCase(data.charAt(0)))) {
+      return new Tuple<>(false, null);
+    }
+
+    final String[] parts = WHITESPACE.split(data);
 
     boolean hasSurname = false;
     boolean hasName = false;
 
-    if (NumberUtils.countDigits(data) > 0) {
-      return new Tuple<>(false, null);
-    }
-
     int offset = 0;
     int depth = data.length();
 
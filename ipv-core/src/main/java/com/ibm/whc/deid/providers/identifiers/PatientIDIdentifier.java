@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -48,4 +48,19 @@ public class PatientIDIdentifier extends AbstractRegexBasedIdentifier {
   protected Collection<String> getAppropriateNames() {
     return Arrays.asList(appropriateNames);
   }
+
+  @Override
+  public int getMinimumCharacterRequirements() {
+    return CharacterRequirements.DIGIT;
+  }
+
+  @Override
+  public int getMinimumLength() {
+    return 15;
+  }
+
+  @Override
+  public int getMaximumLength() {
+    return 15;
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -67,6 +67,11 @@ public class PluggableLookupIdentifier extends AbstractIdentifier {
     }
   }
 
+  @Override
+  protected Collection<String> getDictionaryKeys() {
+    return this.valueSet;
+  }
+
   @Override
   public String getDescription() {
     return "Pluggable lookup-based identifier";
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -86,4 +86,19 @@ public class SSNUSIdentifier extends AbstractIdentifier {
   public ValueClass getValueClass() {
     return ValueClass.TEXT;
   }
+
+  @Override
+  public int getMinimumCharacterRequirements() {
+    return CharacterRequirements.DIGIT;
+  }
+
+  @Override
+  public int getMinimumLength() {
+    return 9;
+  }
+
+  @Override
+  public int getMaximumLength() {
+    return 11;
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -76,4 +76,10 @@ public class SWIFTCodeIdentifier extends AbstractManagerBasedIdentifier {
   public ValueClass getValueClass() {
     return ValueClass.TEXT;
   }
+
+  @Override
+  protected Collection<String> getDictionaryKeys() {
+    // values are not recognized by lookup alone
+    return null;
+  }
 }
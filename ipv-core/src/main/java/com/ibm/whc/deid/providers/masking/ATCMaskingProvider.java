@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -61,4 +61,9 @@ public class ATCMaskingProvider extends AbstractMaskingProvider {
 
     return identifier.substring(0, prefixPreserveLength);
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -5,9 +5,13 @@
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.NullNode;
@@ -16,6 +20,8 @@ import com.fasterxml.jackson.databind.node.TextNode;
 import com.ibm.whc.deid.providers.masking.fhir.MaskingActionInputIdentifier;
 import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.UnexpectedMaskingInputHandler;
+import com.ibm.whc.deid.util.RandomSource;
+import com.ibm.whc.deid.util.cache.DeidCache;
 import com.ibm.whc.deid.utils.log.LogCodes;
 import com.ibm.whc.deid.utils.log.LogManager;
 
@@ -28,7 +34,7 @@ public abstract class AbstractMaskingProvider implements MaskingProvider {
 
   protected static final LogManager log = LogManager.getInstance();
 
-  protected SecureRandom random;
+  protected Random random;
   protected boolean debug_enabled;
 
   protected final String localizationProperty;
@@ -52,11 +58,41 @@ public abstract class AbstractMaskingProvider implements MaskingProvider {
     this.unexpectedInputReturnMessage = config.getUnexpectedInputReturnMessage();
   }
 
+  /**
+   * Replaces the random number generator with which this provider selects random replacement
+   * values.
+   *
+   * @param random the random number generator, which must be thread-safe
+   */
+  public void setRandom(Random random) {
+    this.random = random;
+  }
+
   @Override
   public String mask(String identifier, String fieldName) {
     return mask(identifier);
   }
 
+  /**
+   * Providers derived from this class do not support concurrent masking unless they override this
+   * method. A provider that does must change no state while masking other than lazily-loaded
+   * resources, such as resource managers obtained from the thread-safe {@link
+   * com.ibm.whc.deid.util.ManagerFactory}, and must not support it if it selects values with
+   * {@link #random} while {@link #hasSeededRandom()}.
+   */
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return false;
+  }
+
+  /**
+   * @return <i>true</i> if the random number generator of this provider is seeded, so its output
+   *         is reproducible only when values are masked in the same order
+   */
+  protected boolean hasSeededRandom() {
+    return RandomSource.isSeeded(random);
+  }
+
   protected void debugFaultyInput(String faultyInput) {
     if (log.isDebugEnabled()) {
       log.logDebug(LogCodes.WPH1015D, faultyInput, this.getClass().getName());
@@ -91,11 +127,66 @@ public abstract class AbstractMaskingProvider implements MaskingProvider {
 
   @Override
   public void maskIdentifierBatch(List<MaskingActionInputIdentifier> identifiers) {
-    for (MaskingActionInputIdentifier i : identifiers) {
-      String value = i.getNode().asText();
-      value = mask(value);
-      putField(i, value);
+    if (identifiers.size() == 1) {
+      MaskingActionInputIdentifier i = identifiers.get(0);
+      putField(i, mask(i.getNode().asText()));
+    } else if (!identifiers.isEmpty()) {
+      List<String> values = new ArrayList<>(identifiers.size());
+      for (MaskingActionInputIdentifier i : identifiers) {
+        values.add(i.getNode().asText());
+      }
+      List<String> masked = maskBatch(values);
+      for (int index = 0; index < masked.size(); index++) {
+        putField(identifiers.get(index), masked.get(index));
+      }
+    }
+  }
+
+  /**
+   * Masks each distinct value in the given list only once, for providers that always return the
+   * same replacement for the same input.
+   *
+   * @param identifiers the input data to be protected
+   * @param masker the function that masks a single value
+   *
+   * @return the protected values to use, in the same order as the input
+   */
+  protected List<String> maskDistinct(List<String> identifiers, UnaryOperator<String> masker) {
+    Map<String, String> distinct = new HashMap<>();
+    List<String> masked = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      String value = distinct.get(identifier);
+      if (value == null && !distinct.containsKey(identifier)) {
+        value = masker.apply(identifier);
+        distinct.put(identifier, value);
+      }
+      masked.add(value);
+    }
+    return masked;
+  }
+
+  /**
+   * Returns the cached replacement for the given value, masking the value and caching its
+   * replacement if none is cached, for providers that always return the same replacement for the
+   * same input.
+   *
+   * @param cache the cache of replacements or <i>null</i> if replacements are not cached
+   * @param identifier the input data to be protected
+   * @param masker the function that masks a single value
+   *
+   * @return the protected value to use
+   */
+  protected String maskWithCache(DeidCache cache, String identifier,
+      UnaryOperator<String> masker) {
+    if (cache == null || identifier == null) {
+      return masker.apply(identifier);
+    }
+    String value = cache.getCachedValue(identifier);
+    if (value == null) {
+      value = masker.apply(identifier);
+      cache.putCachedValue(identifier, value);
     }
+    return value;
   }
 
   protected final void putField(MaskingActionInputIdentifier i, String value) {
@@ -1,11 +1,10 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 import java.util.List;
 import com.ibm.whc.deid.models.Address;
 import com.ibm.whc.deid.models.PostalCode;
@@ -18,6 +17,7 @@ import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
 import com.ibm.whc.deid.util.HashUtils;
 import com.ibm.whc.deid.util.ManagerFactory;
 import com.ibm.whc.deid.util.PostalCodeManager;
+import com.ibm.whc.deid.util.RandomSource;
 import com.ibm.whc.deid.util.StreetNameManager;
 
 /**
@@ -54,7 +54,7 @@ public class AddressMaskingProvider extends AbstractMaskingProvider {
     this.maskingProviderFactory = maskingProviderFactory;
 
     this.configuration = configuration;
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.getPseudorandom = configuration.isMaskPseudorandom();
     if (this.getPseudorandom) {
       configuration.setCountryMaskPseudorandom(true);
@@ -197,4 +197,17 @@ public class AddressMaskingProvider extends AbstractMaskingProvider {
           Resource.POSTAL_CODES, null, localizationProperty);
     }
   }
+
+  @Override
+  public void dropCache() {
+    CityMaskingProvider provider = cityMaskingProvider;
+    if (provider != null) {
+      provider.dropCache();
+    }
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
@@ -56,6 +56,7 @@ import com.ibm.whc.deid.shared.pojo.config.masking.VINMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.ZIPCodeMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
 import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderTypes;
+import com.ibm.whc.deid.util.RandomSource;
 
 /**
  * Class that creates masking provider instances.
@@ -256,6 +257,10 @@ public class BasicMaskingProviderFactory implements MaskingProviderFactory {
       default:
         throw new IllegalArgumentException("Unsupported provider type" + providerType);
     }
+    if (deidMaskingConfig != null && deidMaskingConfig.getRandomSource() != null
+        && provider instanceof AbstractMaskingProvider) {
+      ((AbstractMaskingProvider) provider).setRandom(RandomSource.create(deidMaskingConfig));
+    }
     return provider;
   }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -102,4 +102,8 @@ public class BinningMaskingProvider extends AbstractMaskingProvider {
     return String.format(this.format, Long.valueOf(lowerBase), Long.valueOf(higherBase));
   }
 
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
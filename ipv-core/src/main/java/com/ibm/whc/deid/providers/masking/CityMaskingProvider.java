@@ -1,15 +1,22 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import com.ibm.whc.deid.models.City;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.shared.pojo.config.masking.CityMaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
 import com.ibm.whc.deid.util.CityManager;
 import com.ibm.whc.deid.util.ManagerFactory;
+import com.ibm.whc.deid.util.cache.BoundedDeidCache;
+import com.ibm.whc.deid.util.cache.DeidCache;
 
 
 /**
@@ -25,6 +32,8 @@ public class CityMaskingProvider extends AbstractMaskingProvider {
   protected final boolean getPseudorandom;
 
   protected transient volatile CityManager cityResourceManager = null;
+  // pseudorandom replacements only, not restored after deserialization
+  private final transient DeidCache cache;
 
   public CityMaskingProvider(CityMaskingProviderConfig configuration, String tenantId,
       String localizationProperty) {
@@ -32,6 +41,8 @@ public class CityMaskingProvider extends AbstractMaskingProvider {
     this.getClosest = configuration.isMaskClosest();
     this.closestK = configuration.getMaskClosestK();
     this.getPseudorandom = configuration.isMaskPseudorandom();
+    this.cache =
+        this.getPseudorandom ? BoundedDeidCache.forProviderType(MaskingProviderType.CITY) : null;
   }
 
   protected CityManager getCityManager() {
@@ -52,23 +63,74 @@ public class CityMaskingProvider extends AbstractMaskingProvider {
     CityManager cityManager = getCityManager();
 
     if (getPseudorandom) {
-      return cityManager.getPseudorandom(identifier);
+      return maskWithCache(cache, identifier, cityManager::getPseudorandom);
     }
 
     if (getClosest) {
+      return getClosestCityName(identifier, cityManager, null);
+    }
+
+    return getRandomCityName(cityManager);
+  }
+
+  @Override
+  public List<String> maskBatch(List<String> identifiers) {
+    CityManager cityManager = getCityManager();
+
+    if (getPseudorandom) {
+      return maskDistinct(identifiers, this::mask);
+    }
+
+    List<String> masked = new ArrayList<>(identifiers.size());
+    if (getClosest) {
+      // the closest cities are found once for each distinct city in the batch
+      Map<String, List<City>> neighbors = new HashMap<>();
+      for (String identifier : identifiers) {
+        masked.add(identifier == null ? mask(identifier)
+            : getClosestCityName(identifier, cityManager, neighbors));
+      }
+    } else {
+      List<City> cities = cityManager.getRandomValues(identifiers.size());
+      for (int i = 0; i < cities.size(); i++) {
+        String identifier = identifiers.get(i);
+        City city = cities.get(i);
+        masked.add(identifier == null ? mask(identifier) : city == null ? null : city.getName());
+      }
+    }
+    return masked;
+  }
+
+  private String getClosestCityName(String identifier, CityManager cityManager,
+      Map<String, List<City>> neighbors) {
+    List<City> closest = neighbors == null ? null : neighbors.get(identifier);
+    if (closest == null) {
       City inputCity = cityManager.getValue(identifier);
       if (inputCity == null || inputCity.getLocation() == null) {
         return applyUnexpectedValueHandling(identifier, () -> getRandomCityName(cityManager));
       }
-      City selected = cityManager.getClosestCity(inputCity, closestK);
-      return selected == null ? null : selected.getName();
+      closest = cityManager.getClosestCities(inputCity, closestK);
+      if (neighbors != null && closest != null) {
+        neighbors.put(identifier, closest);
+      }
     }
-
-    return getRandomCityName(cityManager);
+    City selected = cityManager.getRandomNeighbor(closest);
+    return selected == null ? null : selected.getName();
   }
 
   protected String getRandomCityName(CityManager manager) {
     City city = manager.getRandomValue();
     return city == null ? null : city.getName();
   }
+
+  @Override
+  public void dropCache() {
+    if (cache != null) {
+      cache.dropCache();
+    }
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,12 +1,21 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import java.util.ArrayList;
 import java.util.List;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.whc.deid.ObjectMapperFactory;
+import com.ibm.whc.deid.shared.exception.KeyedIllegalArgumentException;
+import com.ibm.whc.deid.shared.exception.KeyedRuntimeException;
 import com.ibm.whc.deid.shared.pojo.masking.ReferableData;
+import com.ibm.whc.deid.shared.pojo.masking.ReferableNode;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.Messages;
 
 /**
  * Interface supported by top-level masking processors.
@@ -15,4 +24,65 @@ public interface ComplexMaskingProvider {
 
   public List<ReferableData> maskWithBatch(List<ReferableData> payloadData, String jobId);
 
+  /**
+   * Indicates whether {@link #maskWithBatch(List, String)} and
+   * {@link #maskNodesWithBatch(List, String)} can be called at the same time from multiple threads,
+   * each call with different documents, so that a large batch can be divided among threads.
+   *
+   * @return <i>true</i> if different documents can be masked concurrently
+   */
+  public default boolean supportsConcurrentMasking() {
+    return false;
+  }
+
+  /**
+   * Discards the replacement values cached by the masking providers of this driver, overwriting
+   * them in memory where the caches support it. Called when the driver is no longer used.
+   */
+  public default void dropCache() {
+    // nothing is cached by default
+  }
+
+  /**
+   * Masks documents that have already been parsed, so that callers holding JSON trees need not
+   * serialize them for masking and parse the masked output again.
+   *
+   * <p>
+   * The default implementation performs that round trip through
+   * {@link #maskWithBatch(List, String)}. Implementations that mask JSON trees internally should
+   * override it.
+   *
+   * @param payloadData the documents to mask with their identifiers
+   * @param jobId identifier of the masking job
+   * 
+   * @return the masked documents with their identifiers
+   */
+  public default List<ReferableNode> maskNodesWithBatch(List<ReferableNode> payloadData,
+      String jobId) {
+    ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    List<ReferableData> toMask = new ArrayList<>(payloadData.size());
+    for (ReferableNode input : payloadData) {
+      try {
+        toMask.add(new ReferableData(input.getIdentifier(),
+            objectMapper.writeValueAsString(input.getNode())));
+      } catch (JsonProcessingException e) {
+        // this is unlikely to occur
+        throw new KeyedRuntimeException(LogCodes.WPH1013E,
+            Messages.getMessage(LogCodes.WPH1013E, e.getMessage()), e);
+      }
+    }
+    List<ReferableData> masked = maskWithBatch(toMask, jobId);
+    List<ReferableNode> toReturn = new ArrayList<>(masked.size());
+    for (ReferableData output : masked) {
+      try {
+        toReturn.add(
+            new ReferableNode(output.getIdentifier(), objectMapper.readTree(output.getData())));
+      } catch (JsonProcessingException e) {
+        throw new KeyedIllegalArgumentException(LogCodes.WPH1026E,
+            Messages.getMessage(LogCodes.WPH1026E, output.getIdentifier(), e.getMessage()), e);
+      }
+    }
+    return toReturn;
+  }
+
 }
@@ -1,16 +1,19 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.ibm.whc.deid.providers.masking.fhir.MaskingActionInputIdentifier;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
@@ -18,10 +21,15 @@ import com.ibm.whc.deid.shared.pojo.config.masking.ConditionalMaskRuleSet;
 import com.ibm.whc.deid.shared.pojo.config.masking.ConditionalMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.conditional.Condition;
+import com.ibm.whc.deid.shared.pojo.config.masking.conditional.ConditionOperator;
 
 /**
  * The type Conditional masking provider.
  *
+ * <p>
+ * The rule set is compiled when the provider is created - condition paths are parsed and the
+ * masking provider of each rule is built once. The condition that applies to a document is
+ * evaluated once for all the values of that document masked in the same batch.
  */
 public class ConditionalMaskingProvider extends AbstractMaskingProvider {
 
@@ -29,27 +37,191 @@ public class ConditionalMaskingProvider extends AbstractMaskingProvider {
 
   private static final String ERROR_MESSAGE = "A Conditional node value was unparsable";
 
-  private final List<ConditionalMaskRuleSet> maskRuleSet;
-  private final DeidMaskingConfig deidMaskingConfig;
-  private final MaskingProviderFactory maskingProviderFactory;
+  // index of the matched rule recorded for a document when no rule applies
+  private static final int NO_RULE = -1;
+
+  /**
+   * A rule of the rule set with its condition parsed and its masking provider built.
+   */
+  private static final class CompiledRule implements Serializable {
+
+    private static final long serialVersionUID = 3183468129045612207L;
+
+    // null if the rule has no condition
+    private final ConditionOperator operator;
+    private final String value;
+    // the path segments traversed from the root of the document
+    private final String[] paths;
+    // for array query paths - the name of the value field and the name and value of its sibling
+    private final boolean arrayQuery;
+    private final String valueName;
+    private final String conditionName;
+    private final String conditionValue;
+    // set if the array query path cannot be parsed - thrown when the condition is evaluated if the
+    // path segments that precede the unparsable segment are found
+    private final RuntimeException parseError;
+    // null if the rule has no masking provider
+    private final MaskingProvider maskingProvider;
+
+    CompiledRule(Condition condition, MaskingProvider maskingProvider) {
+      this.maskingProvider = maskingProvider;
+      String[] parsedPaths = null;
+      String parsedValueName = null;
+      String parsedConditionName = null;
+      String parsedConditionValue = null;
+      RuntimeException error = null;
+      if (condition == null) {
+        operator = null;
+        value = null;
+        arrayQuery = false;
+      } else {
+        operator = condition.getOperator();
+        value = condition.getValue();
+        String path = condition.getField();
+        arrayQuery = path.contains("==");
+        int eqeqIndex = path.indexOf("==");
+        if (arrayQuery && eqeqIndex > 0) {
+          if (path.startsWith("/")) {
+            parsedPaths = path.substring(1, eqeqIndex).split("/");
+          } else {
+            parsedPaths = path.substring(0, eqeqIndex).split("/");
+          }
+          parsedPaths[parsedPaths.length - 1] =
+              parsedPaths[parsedPaths.length - 1] + path.substring(eqeqIndex);
+        } else if (path.startsWith("/")) {
+          parsedPaths = path.substring(1).split("/");
+        } else {
+          parsedPaths = path.split("/");
+        }
+
+        if (arrayQuery) {
+          /*
+           * Currently, only array leaf nodes and a single condition is supported. For example, a
+           * FullPath of the form : "/telecom/value(system==phone)"
+           */
+          List<String> dataPaths = new ArrayList<>(parsedPaths.length);
+          for (String element : parsedPaths) {
+            if (element.contains("==")) {
+              try {
+                String[] arrayElementAndCondition = element.split("\\(");
+                String arrayElement = arrayElementAndCondition[0].trim();
+                String conditionElement = arrayElementAndCondition[1].trim().replace(")", "");
+                String[] pathCondition = conditionElement.split("==");
+                parsedConditionName = pathCondition[0].trim();
+                parsedConditionValue = pathCondition[1].trim();
+                parsedValueName = arrayElement;
+              } catch (RuntimeException e) {
+                error = e;
+                break;
+              }
+            } else {
+              dataPaths.add(element);
+            }
+          }
+          parsedPaths = dataPaths.toArray(new String[dataPaths.size()]);
+        }
+      }
+      paths = parsedPaths;
+      valueName = parsedValueName;
+      conditionName = parsedConditionName;
+      conditionValue = parsedConditionValue;
+      parseError = error;
+    }
+
+    /**
+     * Adds the names of the fields this rule reads from the document to the given set.
+     */
+    void addReadNames(Set<String> names) {
+      if (paths != null) {
+        for (String path : paths) {
+          names.add(path);
+        }
+        if (arrayQuery) {
+          if (conditionName != null) {
+            names.add(conditionName);
+          }
+          if (valueName != null) {
+            names.add(valueName);
+          }
+        } else {
+          names.add(value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reusable storage for evaluating the conditions of the documents in one batch.
+   */
+  private static final class Evaluation {
+
+    // the index of the rule that applies to each document, by identity of the document root
+    final Map<JsonNode, Integer> matchedRules = new IdentityHashMap<>();
+    List<JsonNode> nodeList = new ArrayList<>();
+    List<JsonNode> childNodeList = new ArrayList<>();
+  }
+
+  private final CompiledRule[] rules;
+  // the names, ignoring case, of the fields that conditions read
+  private final TreeSet<String> conditionFieldNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 
   public ConditionalMaskingProvider(ConditionalMaskingProviderConfig configuration, String tenantId,
       DeidMaskingConfig deidMaskingConfig, String localizationProperty,
       MaskingProviderFactory maskingProviderFactory) {
     super(tenantId, localizationProperty, configuration);
-    this.deidMaskingConfig = deidMaskingConfig;
-    this.maskRuleSet = configuration.getMaskRuleSet();
-    this.maskingProviderFactory = maskingProviderFactory;
+    List<ConditionalMaskRuleSet> maskRuleSet = configuration.getMaskRuleSet();
+    // the configuration validation rejects a missing rule set, only unvalidated configurations
+    // have none
+    this.rules = new CompiledRule[maskRuleSet == null ? 0 : maskRuleSet.size()];
+    for (int i = 0; i < rules.length; i++) {
+      ConditionalMaskRuleSet rule = maskRuleSet.get(i);
+      MaskingProviderConfig config = rule.getMaskingProvider();
+      MaskingProvider maskingProvider = config == null ? null
+          : maskingProviderFactory.getProviderFromType(config.getType(), deidMaskingConfig, config,
+              tenantId, localizationProperty);
+      rules[i] = new CompiledRule(rule.getCondition(), maskingProvider);
+      rules[i].addReadNames(conditionFieldNames);
+    }
   }
 
   @Override
   public void maskIdentifierBatch(List<MaskingActionInputIdentifier> identifiers) {
+    Evaluation evaluation = new Evaluation();
     for (MaskingActionInputIdentifier i : identifiers) {
-      String value = mask(i);
+      String identifier = i.getNode().asText();
+      String value = mask(i, evaluation);
       putField(i, value);
+      if (value == null ? identifier != null : !value.equals(identifier)) {
+        // the change might affect the condition of this document
+        String name = i.getPath();
+        int index = name == null ? -1 : name.indexOf('[');
+        if (name == null
+            || conditionFieldNames.contains(index < 0 ? name : name.substring(0, index))) {
+          evaluation.matchedRules.remove(i.getRoot());
+        }
+      }
     }
   }
 
+  @Override
+  public void dropCache() {
+    for (CompiledRule rule : rules) {
+      if (rule.maskingProvider != null) {
+        rule.maskingProvider.dropCache();
+      }
+    }
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    for (CompiledRule rule : rules) {
+      if (rule.maskingProvider != null && !rule.maskingProvider.supportsConcurrentMasking()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Masks the specified identifier by the masking provider of the condition that is met.
    *
@@ -58,8 +230,11 @@ public class ConditionalMaskingProvider extends AbstractMaskingProvider {
    * @return the updated value as a string
    */
   protected String mask(MaskingActionInputIdentifier maii) {
+    return mask(maii, new Evaluation());
+  }
+
+  private String mask(MaskingActionInputIdentifier maii, Evaluation evaluation) {
     JsonNode root = maii.getRoot();
-    String resourceType = maii.getResourceType();
     String identifier = maii.getNode().asText();
 
     if (identifier == null) {
@@ -67,344 +242,178 @@ public class ConditionalMaskingProvider extends AbstractMaskingProvider {
       return null;
     }
 
-    if (maskRuleSet.isEmpty()) {
+    if (rules.length == 0) {
       // No masking rules provided.
       return null;
     }
 
-    return maskRuleSet.stream().filter(rule -> {
-      return evaluateConditionTypeString(identifier, rule, root, resourceType);
-    }).findFirst().map(rule -> {
-      MaskingProvider maskingProvider = getMaskingProvider(rule.getMaskingProvider());
-      return maskingProvider.mask(identifier);
-    }).orElse(identifier);
+    Integer matched = evaluation.matchedRules.get(root);
+    if (matched == null) {
+      matched = Integer.valueOf(findRule(root, evaluation));
+      evaluation.matchedRules.put(root, matched);
+    }
+    return matched.intValue() == NO_RULE ? identifier
+        : rules[matched.intValue()].maskingProvider.mask(identifier);
   }
 
-  private MaskingProvider getMaskingProvider(MaskingProviderConfig config) {
-    return maskingProviderFactory.getProviderFromType(config.getType(), deidMaskingConfig, config,
-        tenantId, localizationProperty);
+  /**
+   * @return the index of the first rule whose condition is met by the given document
+   */
+  private int findRule(JsonNode root, Evaluation evaluation) {
+    for (int i = 0; i < rules.length; i++) {
+      if (evaluateCondition(rules[i], root, evaluation)) {
+        return i;
+      }
+    }
+    return NO_RULE;
   }
 
   /**
    * Evaluate the condition to see if it matches
-   *
-   * @param identifier
-   * @param conditionalMaskRuleSet
-   * @return
    */
-  private boolean evaluateConditionTypeString(String identifier,
-      ConditionalMaskRuleSet conditionalMaskRuleSet, JsonNode root, String resourceType) {
-
-    Condition condition = conditionalMaskRuleSet.getCondition();
-    if (condition == null) {
+  private boolean evaluateCondition(CompiledRule rule, JsonNode root, Evaluation evaluation) {
+    if (rule.operator == null) {
       // If there are no condition, but a masking provider is configured,
       // just return true so that masking provider is used.
-      return conditionalMaskRuleSet.getMaskingProvider() != null;
+      return rule.maskingProvider != null;
     }
 
-    Set<String> valueSet;
-    if (condition.getField().contains("==")) {
-      // Array query path
-      valueSet = getConditionArrayFieldValue(condition, root, resourceType);
-    } else {
-      // Regular path
-      valueSet = getConditionRegularFieldValues(condition, root, resourceType);
+    List<JsonNode> nodeList = getLeafNodes(rule, root, evaluation);
+    if (nodeList == null) {
+      return false;
     }
-    boolean conditionMatch = false;
-    String conditionValue = condition.getValue();
-
-    for (String value : valueSet) {
-      switch (condition.getOperator()) {
-        case EQUALS:
-          if (value.equals(conditionValue)) {
-            return true;
-          }
-          break;
-        case EQUALS_IGNORE_CASE:
-          if (value.equalsIgnoreCase(conditionValue)) {
-            return true;
-          }
-          break;
-        case CONTAINS:
-          if (value.contains(conditionValue)) {
-            return true;
-          }
-          break;
-        case CONTAINED_IN:
-          if (conditionValue.contains(value)) {
-            return true;
-          }
-          break;
-      }
+    if (rule.parseError != null) {
+      throw rule.parseError;
     }
-    return conditionMatch;
+    return rule.arrayQuery ? matchesArrayValue(rule, nodeList)
+        : matchesRegularValues(rule, nodeList);
   }
 
-  private Set<String> getConditionRegularFieldValues(Condition condition, JsonNode root,
-      String resourceType) {
-
-    Set<String> valueSet = new HashSet<>();
-
-    String path = condition.getField();
-    String[] paths = null;
-    if (path.startsWith("/")) {
-      paths = path.substring(1).split("/");
-    } else {
-      paths = path.split("/");
-    }
-
-    /*
-     * We go through two loops: The first loop goes through the paths elements to get to the leaf
-     * node that matches the path, if path is not found, it returns an empty valueSet.
-     */
-    String currentPath = "";
-    List<JsonNode> nodeList = new ArrayList<>();
-    for (int i = 0; i < paths.length; i++) {
-      /*
-       * The Following code for each paths.i traverses the nodes and collects the child nodes, then
-       * at the end sets nodeList to childNodeList which for the next loop nodeList becomes the new
-       * parent.
-       */
-
-      currentPath = paths[i];
-      // System.out.println("========> " + i + " currentPath: " +
-      // currentPath);
-      nodeList = getChildrenNodes(root, currentPath, nodeList);
-      if (nodeList == null) {
-        return valueSet;
-      }
-    }
-
+  private boolean matchesRegularValues(CompiledRule rule, List<JsonNode> nodeList) {
+    // every value is examined so that unparsable values are reported as they always have been
+    boolean conditionMatch = false;
     for (JsonNode elementNode : nodeList) {
-      // System.out.println("\n\n========> elementNode: " +
-      // elementNode.toString());
       if (elementNode.isValueNode()) {
-        Object value = getValue(elementNode);
-        if (value == null) {
-          throw new RuntimeException(ERROR_MESSAGE);
-        }
-        valueSet.add(value.toString());
+        conditionMatch |= matches(rule, getValue(elementNode));
       } else {
         Iterator<Entry<String, JsonNode>> dataNodeList = elementNode.fields();
         while (dataNodeList.hasNext()) {
           Entry<String, JsonNode> entryNode = dataNodeList.next();
-          String key = entryNode.getKey();
-          JsonNode valueNode = entryNode.getValue();
-          if (key.equalsIgnoreCase(condition.getValue())) {
-            // System.out.println(" NextNode=======> key : " + key +
-            // " valuNode: " + valueNode.toString());
-            Object value = getValue(valueNode);
-            if (value == null) {
-              throw new RuntimeException(ERROR_MESSAGE);
-            }
-            valueSet.add(value.toString());
+          if (entryNode.getKey().equalsIgnoreCase(rule.value)) {
+            conditionMatch |= matches(rule, getValue(entryNode.getValue()));
           }
         }
       }
     }
-    return valueSet;
+    return conditionMatch;
   }
 
   /**
-   * @param condition the condition to be examined
-   * @param root the root of the document being processed
-   * 
-   * @return the set of value(s) of a condition field
+   * The second step of array query paths walks through the array resource node to find the leaf
+   * node with sibling that matches the condition name and value. Note: the conditionValue of * is
+   * used as a wild card.
    */
-  private Set<String> getConditionArrayFieldValue(Condition condition, JsonNode root,
-      String resourceType) {
-
-    Set<String> valueSet = new HashSet<>();
-
-    String path = condition.getField();
-    String[] paths = null;
-    int eqeqIndex = path.indexOf("==");
-    if (eqeqIndex > 0) {
-      if (path.startsWith("/")) {
-        paths = path.substring(1, eqeqIndex).split("/");
-      } else {
-        paths = path.substring(0, eqeqIndex).split("/");
-      }
-      paths[paths.length - 1] = paths[paths.length - 1] + path.substring(eqeqIndex);
-    } else {
-      if (path.startsWith("/")) {
-        paths = path.substring(1).split("/");
-      } else {
-        paths = path.split("/");
-      }
-    }
-
-    // System.out.println("\n\n========> paths: " + Arrays.toString(paths));
-
-    /*
-     * Currently, only array leaf nodes and a single condition is supported. This path is for array
-     * nodes with query conditions. For example, a FullPath of the form :
-     * "/telecom/value(system==phone)"
-     */
-    String currentPath = "";
-    String conditionName = null;
-    String conditionValue = null;
-    String valueName = null;
-    List<String> dataPathList = new ArrayList<>();
-
-    /*
-     * We go through two loops: The first loop goes through the paths elements to get to the leaf
-     * node with the condition, and then determines the specified conditionName and conditionValue.
-     */
-    List<JsonNode> nodeList = new ArrayList<>();
-    for (int i = 0; i < paths.length; i++) {
-
-      /*
-       * Goes through each paths elements to collect all the array nodes and the condition name and
-       * value.
-       */
-      if (paths[i].contains("==")) {
-        // This the paths element that has the condition, get the
-        // condition name and value
-        String[] arrayElementAndCondition = paths[i].split("\\(");
-
-        String arrayElement = arrayElementAndCondition[0].trim();
-        String conditionELement = arrayElementAndCondition[1].trim().replace(")", "");
-        String[] pathCondition = conditionELement.split("==");
-        conditionName = pathCondition[0].trim();
-        conditionValue = pathCondition[1].trim();
-        valueName = arrayElement;
-
-        // System.out.println("\n\n========> conditionName: " +
-        // conditionName);
-        // System.out.println("\n\n========> conditionValue: " +
-        // conditionValue);
-        // System.out.println("\n\n========> valueName: " + valueName);
-
-        dataPathList.add(arrayElement);
-      } else {
-        /*
-         * The Following code for each paths.i traverses the nodes and collects the child nodes,
-         * then at the end sets nodeList to childNodeList which for the next loop nodeList becomes
-         * the new parent.
-         */
-        currentPath = paths[i];
-
-        nodeList = getChildrenNodes(root, currentPath, nodeList);
-        if (nodeList == null) {
-          return valueSet;
-        }
-      }
-    }
-    /*
-     * The second loop walks through the array resource node to find the leaf node with sibling that
-     * matches the condition name and value determined in the first loop above. Note: the
-     * conditionName of * and conditionValue of * are used as a wild card. *
-     */
-    // JsonNode arrayNode = node.get(arrayPath);
-
-    // JsonNode arrayNode = getNodeFromPath(arrayPath, node);
-    // for (JsonNode elementNode : arrayNode) {
+  private boolean matchesArrayValue(CompiledRule rule, List<JsonNode> nodeList) {
     for (JsonNode elementNode : nodeList) {
-      if (elementNode.has(conditionName)) {
-        // System.out.println("\n\n========> elementNode: " +
-        // elementNode.toString());
-        String elementConditionValue = elementNode.get(conditionName).textValue();
-        if (elementConditionValue.equals(conditionValue) || ("*".equals(conditionValue))) {
+      JsonNode conditionNode = elementNode.get(rule.conditionName);
+      if (conditionNode != null) {
+        String elementConditionValue = conditionNode.textValue();
+        if (elementConditionValue.equals(rule.conditionValue)
+            || ("*".equals(rule.conditionValue))) {
           Iterator<Entry<String, JsonNode>> dataNodeList = elementNode.fields();
           while (dataNodeList.hasNext()) {
             Entry<String, JsonNode> entryNode = dataNodeList.next();
-            String key = entryNode.getKey();
-            JsonNode valueNode = entryNode.getValue();
-            if (key.equalsIgnoreCase(valueName)) {
-              // System.out.println(" NextNode=======> key : " +
-              // key + " valuNode: " + valueNode.toString());
-
-              Object value = getValue(valueNode);
-              if (value == null) {
-                throw new RuntimeException(ERROR_MESSAGE);
-              }
-              valueSet.add(value.toString());
-
-              return valueSet;
+            if (entryNode.getKey().equalsIgnoreCase(rule.valueName)) {
+              return matches(rule, getValue(entryNode.getValue()));
             }
           }
         }
       }
     }
-    return valueSet;
+    return false;
+  }
+
+  private boolean matches(CompiledRule rule, String value) {
+    if (value == null) {
+      throw new RuntimeException(ERROR_MESSAGE);
+    }
+    String conditionValue = rule.value;
+    switch (rule.operator) {
+      case EQUALS:
+        return value.equals(conditionValue);
+      case EQUALS_IGNORE_CASE:
+        return value.equalsIgnoreCase(conditionValue);
+      case CONTAINS:
+        return value.contains(conditionValue);
+      case CONTAINED_IN:
+        return conditionValue.contains(value);
+      default:
+        return false;
+    }
   }
 
   /**
-   * getChildrenNodes - get children nodes of the nodeList for the given path.
+   * Traverses the path segments of the given rule from the given root, collecting the nodes at the
+   * end of the path in the reusable lists of the given evaluation. Members of arrays along the way
+   * are traversed individually.
    *
-   * @param node
-   * @param currentPath
-   * @param nodeList
-   * @return nodeList (new node list)
+   * @return the nodes at the end of the path, or <i>null</i> if the first path segment does not
+   *         exist in the document
    */
-  private List<JsonNode> getChildrenNodes(JsonNode node, String currentPath,
-      List<JsonNode> nodeList) {
-    if (nodeList.isEmpty()) {
-      JsonNode currentNode = node.get(currentPath);
-
-      if (currentNode == null || currentNode.isNull()) {
-        // The FHIR resource node does not exist.
-        // The rule does not apply.
-        return null;
-      }
-      if (currentNode.isArray()) {
-        for (JsonNode childNode : currentNode) {
-          nodeList.add(childNode);
-          // System.out.println("========> " +
-          // " nodeList.add(childNode): " + childNode);
-        }
-      } else {
-        nodeList.add(currentNode);
-        // System.out.println("========> " +
-        // " nodeList.add(currentNode): " + currentNode);
-      }
-    } else {
-
-      List<JsonNode> childNodeList = new ArrayList<>();
-      for (JsonNode subNode : nodeList) {
-        JsonNode currentNode = subNode.get(currentPath);
-        // System.out.println("========> " + " currentPath: " +
-        // currentPath);
-        // System.out.println("========> " + " subNode: " +
-        // subNode.toString());
+  private List<JsonNode> getLeafNodes(CompiledRule rule, JsonNode root, Evaluation evaluation) {
+    List<JsonNode> nodeList = evaluation.nodeList;
+    nodeList.clear();
+    for (String currentPath : rule.paths) {
+      if (nodeList.isEmpty()) {
+        // no parent nodes remain, so the path is resolved again from the root
+        JsonNode currentNode = root.get(currentPath);
         if (currentNode == null || currentNode.isNull()) {
-          continue;
+          // The FHIR resource node does not exist.
+          // The rule does not apply.
+          return null;
         }
-
-        if (currentNode.isArray()) {
-          for (JsonNode childNode : currentNode) {
-            childNodeList.add(childNode);
-            // System.out.println("========> " +
-            // " childNodeList.add(childNode): " +
-            // childNode.toString());
+        addNode(currentNode, nodeList);
+      } else {
+        List<JsonNode> childNodeList = evaluation.childNodeList;
+        childNodeList.clear();
+        for (JsonNode subNode : nodeList) {
+          JsonNode currentNode = subNode.get(currentPath);
+          if (currentNode != null && !currentNode.isNull()) {
+            addNode(currentNode, childNodeList);
           }
-        } else {
-          childNodeList.add(currentNode);
-          // System.out.println("========> " +
-          // " childNodeList.add(currentNode): " + currentNode);
         }
+        evaluation.childNodeList = nodeList;
+        evaluation.nodeList = childNodeList;
+        nodeList = childNodeList;
       }
-      nodeList = childNodeList;
     }
-
     return nodeList;
   }
 
+  private static void addNode(JsonNode currentNode, List<JsonNode> nodeList) {
+    if (currentNode.isArray()) {
+      for (JsonNode childNode : currentNode) {
+        nodeList.add(childNode);
+      }
+    } else {
+      nodeList.add(currentNode);
+    }
+  }
+
   /**
    * getValue - returns the value of the given JSON ValueNode.
    *
    * @param value
-   * @return
+   * @return the value in string form or <i>null</i> if the node is missing or null
    */
-  private Object getValue(JsonNode value) {
+  private String getValue(JsonNode value) {
     if (value == null || value.isNull()) {
       return null;
     }
     if (value.isBoolean())
-      return value.asBoolean();
+      return String.valueOf(value.asBoolean());
     if (value.isShort() || value.isInt() || value.isIntegralNumber())
-      return value.asInt();
+      return String.valueOf(value.asInt());
     if (!value.isTextual() || value.textValue() == null) {
       return value.toString();
     }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -65,4 +65,9 @@ public class ContinentMaskingProvider extends AbstractMaskingProvider {
     Continent randomContinent = manager.getRandomValue();
     return randomContinent == null ? null : randomContinent.getName();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -72,4 +72,9 @@ public class CountryMaskingProvider extends AbstractMaskingProvider {
     Country selectedCountry = countryManager.getRandomValue(spec);
     return selectedCountry == null ? null : selectedCountry.getName(spec);
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
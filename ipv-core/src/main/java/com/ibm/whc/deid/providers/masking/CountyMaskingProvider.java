@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -66,4 +66,9 @@ public class CountyMaskingProvider extends AbstractMaskingProvider {
     }
     return value;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
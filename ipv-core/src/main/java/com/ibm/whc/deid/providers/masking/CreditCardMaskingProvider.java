@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -88,4 +88,9 @@ public class CreditCardMaskingProvider extends AbstractMaskingProvider {
 
     return buffer.toString();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -40,4 +40,9 @@ public class CreditCardTypeMaskingProvider extends AbstractMaskingProvider {
     CreditCardType ccType = getCreditCardTypeManager().getRandomValue();
     return ccType == null ? null : ccType.getName();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -17,11 +17,14 @@ import java.time.temporal.TemporalAccessor;
 import java.time.temporal.TemporalQueries;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import org.apache.commons.lang.NotImplementedException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.ibm.whc.deid.jsonpath.JSONPath;
+import com.ibm.whc.deid.jsonpath.JSONPathSet;
 import com.ibm.whc.deid.providers.identifiers.DateTimeIdentifier;
 import com.ibm.whc.deid.providers.identifiers.DateTimeIdentifier.DateTimeParseResult;
 import com.ibm.whc.deid.providers.masking.fhir.MaskingActionInputIdentifier;
@@ -47,8 +50,15 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
   private final int dateShiftMaximumDays;
   private final DateShiftDirection dateShiftDirection;
   private final String salt;
+  // the hash of the salt, which is the same for every patient, or zero if there is no salt
+  private final long saltHash;
   private final List<String> customFormats;
-  private final JSONPath compiledPathExp;
+  // the patient identifier path, resolved with a single descent of each document
+  private final JSONPathSet patientIdentifierPaths;
+
+  // DateTimeFormatter is not Serializable, so the formatters are built again when needed after
+  // deserialization
+  private transient volatile List<DateTimeFormatter> customFormatters;
 
   public DateTimeConsistentShiftMaskingProvider(
       DateTimeConsistentShiftMaskingProviderConfig configuration, DeidMaskingConfig deidMaskingConfig) {
@@ -64,14 +74,17 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
     this.dateShiftMaximumDays = configuration.getDateShiftMaximumDays();
     this.dateShiftDirection = configuration.getDateShiftDirection();
     this.salt = configuration.getSalt();
+    this.saltHash =
+        this.salt != null && !this.salt.trim().isEmpty() ? HashUtils.longFromHash(this.salt) : 0L;
     this.customFormats = configuration.getCustomFormats();
+    this.customFormatters = buildCustomFormatters();
 
     // path must start with '/' as required for JsonPointer
     String path = configuration.getPatientIdentifierPath().trim();
     if (path.charAt(0) != '/') {
       path = "/" + path;
     }
-    this.compiledPathExp = JSONPath.compile(path);
+    this.patientIdentifierPaths = JSONPathSet.compile(path);
   }
 
   @Override
@@ -81,11 +94,14 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
 
   @Override
   public void maskIdentifierBatch(List<MaskingActionInputIdentifier> identifiers) {
-    // DateTimeFormatter is not Serializable, so build instances as method variables
-    List<DateTimeFormatter> customFormatters = buildCustomFormatters();
+    List<DateTimeFormatter> formatters = getCustomFormatters();
+    // all the dates in a document are shifted by the same number of days, so the patient
+    // identifier of each document is found and hashed only once per batch
+    Map<JsonNode, Integer> shiftDaysByRoot = new IdentityHashMap<>();
 
     for (MaskingActionInputIdentifier maskingActionInputIdentifier : identifiers) {
-      String replacementValue = generateReplacement(maskingActionInputIdentifier, customFormatters);
+      String replacementValue =
+          generateReplacement(maskingActionInputIdentifier, formatters, shiftDaysByRoot);
       // set the replacement value into the record
       putField(maskingActionInputIdentifier, replacementValue);
     }
@@ -94,17 +110,33 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
   /**
    * Builds date time formatting objects from the configured custom format patterns, if any.
    * 
-   * @return a possibly-null, non-empty list of custom date time formatters
+   * @return a possibly-null, non-empty, unmodifiable list of custom date time formatters
    */
   protected List<DateTimeFormatter> buildCustomFormatters() {
-    List<DateTimeFormatter> customFormatters = null;
+    List<DateTimeFormatter> formatters = null;
     if (this.customFormats != null && !this.customFormats.isEmpty()) {
-      customFormatters = new ArrayList<>(this.customFormats.size());
+      formatters = new ArrayList<>(this.customFormats.size());
       for (String format : this.customFormats) {        
-        customFormatters.add(DateTimeMaskingProviderConfig.buildOverrideFormatter(format, null));
+        formatters.add(DateTimeMaskingProviderConfig.buildOverrideFormatter(format, null));
       }
+      formatters = Collections.unmodifiableList(formatters);
+    }
+    return formatters;
+  }
+
+  /**
+   * Obtains the formatters for the configured custom format patterns, which are built once and
+   * shared by all threads.
+   * 
+   * @return a possibly-null, non-empty, unmodifiable list of custom date time formatters
+   */
+  protected List<DateTimeFormatter> getCustomFormatters() {
+    List<DateTimeFormatter> formatters = this.customFormatters;
+    if (formatters == null && this.customFormats != null && !this.customFormats.isEmpty()) {
+      formatters = buildCustomFormatters();
+      this.customFormatters = formatters;
     }
-    return customFormatters;
+    return formatters;
   }
 
   /**
@@ -117,19 +149,41 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
    */
   protected String generateReplacement(MaskingActionInputIdentifier maskingActionInputIdentifier,
       List<DateTimeFormatter> customFormatters) {
+    return generateReplacement(maskingActionInputIdentifier, customFormatters, null);
+  }
+
+  /**
+   * Perform privacy protection operation on the given masking input
+   * 
+   * @param maskingActionInputIdentifier the masking input
+   * @param customFormatters the customer-provided formatters - used before builtin formatters
+   * @param shiftDaysByRoot the number of days already generated for the documents with the given
+   *        root nodes, in which the number generated for this input is recorded, or <i>null</i>
+   *        to always generate the number
+   * 
+   * @return the value resulting from applying the privacy protection operation
+   */
+  protected String generateReplacement(MaskingActionInputIdentifier maskingActionInputIdentifier,
+      List<DateTimeFormatter> customFormatters, Map<JsonNode, Integer> shiftDaysByRoot) {
     String originalValue = maskingActionInputIdentifier.getNode().asText();
     if (originalValue == null || originalValue.trim().isEmpty()) {
       return applyUnexpectedValueHandling(String.valueOf(originalValue), null);
     }
 
-    String patientId = getPatientIdentifier(maskingActionInputIdentifier);
-    if (patientId == null || patientId.trim().isEmpty()) {
-      return applyUnexpectedValueHandling("patient identifier `" + patientId + "`", null);
+    JsonNode root = maskingActionInputIdentifier.getRoot();
+    Integer offsetDays = shiftDaysByRoot == null ? null : shiftDaysByRoot.get(root);
+    if (offsetDays == null) {
+      String patientId = getPatientIdentifier(maskingActionInputIdentifier);
+      if (patientId == null || patientId.trim().isEmpty()) {
+        return applyUnexpectedValueHandling("patient identifier `" + patientId + "`", null);
+      }
+      offsetDays = Integer.valueOf(generateShiftNumberOfDays(patientId));
+      if (shiftDaysByRoot != null) {
+        shiftDaysByRoot.put(root, offsetDays);
+      }
     }
 
-    int offsetDays = generateShiftNumberOfDays(patientId);
-
-    return applyOffsetAndReformat(originalValue, offsetDays, customFormatters);
+    return applyOffsetAndReformat(originalValue, offsetDays.intValue(), customFormatters);
   }
   
   /**
@@ -142,7 +196,7 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
    *         in the document or the field at that path is null
    */
   protected String getPatientIdentifier(MaskingActionInputIdentifier identifier) {
-    JsonNode node = this.compiledPathExp.apply(identifier.getRoot());
+    JsonNode node = this.patientIdentifierPaths.apply(identifier.getRoot()).get(0);
     // use default value in asText() to ensure "missing" nodes and explicit
     // null nodes are treated as empty string
     String patientId = node.asText("");
@@ -223,13 +277,8 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
       seed = seed.trim().toUpperCase();
     }
 
-    long generatedLong = HashUtils.longFromHash(seed) * 31L;
-    
-    // if the salt parameter is not null or all whitespace, use it modify the generated long
-    if (this.salt != null && !this.salt.trim().isEmpty()) {
-      long saltLong = HashUtils.longFromHash(this.salt);
-      generatedLong += saltLong;
-    }
+    // if the salt parameter is not null or all whitespace, its hash modifies the generated long
+    long generatedLong = HashUtils.longFromHash(seed) * 31L + this.saltHash;
 
     // NOTE - Math.abs(long) returns negative number if given long is MIN_VALUE
     if (generatedLong == Long.MIN_VALUE) {
@@ -314,11 +363,13 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
               new DateTimeParseResult(formatter, customFormats.get(index), accessor, false);
           break;
         } catch (Exception e) {
-          StringBuilder buffer = new StringBuilder(120);
-          buffer.append("could not parse with custom format `")
-              .append(customFormats.get(index)).append("`: ").append(e.getMessage())
-              .append(" - trying other formats");
-          log.logInfo(LogCodes.WPH1000I, buffer.toString());
+          if (log.isDebugEnabled()) {
+            StringBuilder buffer = new StringBuilder(120);
+            buffer.append("could not parse with custom format `")
+                .append(customFormats.get(index)).append("`: ").append(e.getMessage())
+                .append(" - trying other formats");
+            log.logDebug(LogCodes.WPH1000I, buffer.toString());
+          }
           // continue processing
         }
         index++;
@@ -328,6 +379,10 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
     if (parseResponse == null) {
       parseResponse = dateTimeIdentifier.parse(originalValue);
     }
+    if (parseResponse == null) {
+      // a year or year and month is shifted from the middle of the period and keeps its precision
+      parseResponse = dateTimeIdentifier.parsePartialDate(originalValue);
+    }
 
     return parseResponse;
   }
@@ -377,4 +432,9 @@ public class DateTimeConsistentShiftMaskingProvider extends AbstractMaskingProvi
     }
     return adjusted;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
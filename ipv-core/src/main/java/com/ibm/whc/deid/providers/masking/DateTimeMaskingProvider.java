@@ -18,6 +18,8 @@ import java.time.temporal.ChronoUnit;
 import java.time.temporal.Temporal;
 import java.time.temporal.TemporalAccessor;
 import java.time.temporal.TemporalQueries;
+import java.util.ArrayList;
+import java.util.List;
 import com.ibm.whc.deid.providers.identifiers.DateTimeIdentifier;
 import com.ibm.whc.deid.providers.identifiers.DateTimeIdentifier.DateTimeParseResult;
 import com.ibm.whc.deid.shared.pojo.config.masking.DateTimeMaskingProviderConfig;
@@ -34,6 +36,63 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
   private static final DateTimeIdentifier dateTimeIdentifier = new DateTimeIdentifier();
 
+  private static final String DEFAULT_QUARTER_YEAR_OUTPUT_FORMAT = "Q/yyyy";
+
+  /**
+   * The formatters for the configured patterns, which are resolved once rather than for every
+   * value. DateTimeFormatter is not serializable, so they are resolved again when needed after
+   * the provider is deserialized.
+   */
+  private static final class Formatters {
+    final DateTimeFormatter fixed;
+    final DateTimeFormatter generalizeMonthYearOutput;
+    final DateTimeFormatter generalizeQuarterYearOutput;
+    final DateTimeFormatter generalizeMonthYearMaskAgeOver90Output;
+    final DateTimeFormatter yearDeleteOutput;
+    final DateTimeFormatter yearDeleteNdaysOutput;
+
+    // note - these can throw IllegalArgumentException, but the patterns have already
+    // been checked when the configuration was validated, so this should not occur
+    Formatters(DateTimeMaskingProvider provider) {
+      fixed = DateTimeMaskingProviderConfig.buildOverrideFormatter(provider.formatFixed, null);
+      generalizeMonthYearOutput = DateTimeMaskingProviderConfig
+          .buildOverrideFormatter(provider.generalizeMonthYearOutputFormat, null);
+      DateTimeFormatter quarter = DateTimeMaskingProviderConfig
+          .buildOverrideFormatter(provider.generalizeQuarterYearOutputFormat, null);
+      generalizeQuarterYearOutput = quarter != null ? quarter
+          : DateTimeMaskingProviderConfig.buildOverrideFormatter(DEFAULT_QUARTER_YEAR_OUTPUT_FORMAT,
+              null);
+      generalizeMonthYearMaskAgeOver90Output = DateTimeMaskingProviderConfig
+          .buildOverrideFormatter(provider.generalizeMonthYearMaskAgeOver90OutputFormat, null);
+      yearDeleteOutput = DateTimeMaskingProviderConfig
+          .buildOverrideFormatter(provider.yearDeleteOutputFormat, null);
+      yearDeleteNdaysOutput = DateTimeMaskingProviderConfig
+          .buildOverrideFormatter(provider.yearDeleteNdaysOutputFormat, null);
+    }
+  }
+
+  /**
+   * The current time, obtained when first needed and then kept for all the values masked together
+   * so that the clock is read at most once per batch.
+   */
+  private static final class CurrentTime {
+    private LocalDateTime local;
+    private ZonedDateTime zoned;
+
+    Temporal get(boolean withOffset) {
+      if (withOffset) {
+        if (zoned == null) {
+          zoned = ZonedDateTime.now();
+        }
+        return zoned;
+      }
+      if (local == null) {
+        local = LocalDateTime.now();
+      }
+      return local;
+    }
+  }
+
   private final boolean maskShiftDate;
   private final int maskShiftSeconds;
 
@@ -95,6 +154,8 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
   private final String formatFixed;
 
+  private transient volatile Formatters formatters;
+
   public DateTimeMaskingProvider(DateTimeMaskingProviderConfig configuration) {
     super(configuration);
 
@@ -160,10 +221,35 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
     this.yearDeleteNDays = configuration.isYearDeleteNdays();
     this.yearDeleteNDaysValue = configuration.getYearDeleteNdaysValue();
     this.yearDeleteNdaysOutputFormat = configuration.getYearDeleteNdaysOutputFormat();
+
+    this.formatters = new Formatters(this);
+  }
+
+  private Formatters getFormatters() {
+    Formatters resolved = formatters;
+    if (resolved == null) {
+      resolved = new Formatters(this);
+      formatters = resolved;
+    }
+    return resolved;
+  }
+
+  @Override
+  public List<String> maskBatch(List<String> identifiers) {
+    CurrentTime now = new CurrentTime();
+    List<String> masked = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      masked.add(mask(identifier, now));
+    }
+    return masked;
   }
 
   @Override
   public String mask(String identifier) {
+    return mask(identifier, new CurrentTime());
+  }
+
+  private String mask(String identifier, CurrentTime currentTime) {
     if (identifier == null) {
       debugFaultyInput("identifier");
       return null;
@@ -176,11 +262,11 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
     TemporalAccessor d = null;
     String matchedPattern = null;
     boolean patternContainsCaseInsensitiveCharacters = false;
+    // the parse result of a built-in pattern, which tells whether the value is a partial date
+    DateTimeParseResult parseResult = null;
 
-    // note - this can throw IllegalArgumentException, but the pattern has already
-    // been checked when the configuration was validated, so this should not occur
-    final DateTimeFormatter fixedFormatter =
-        DateTimeMaskingProviderConfig.buildOverrideFormatter(formatFixed, null);
+    final Formatters resolvedFormatters = getFormatters();
+    final DateTimeFormatter fixedFormatter = resolvedFormatters.fixed;
     if (fixedFormatter != null) {
       try {
         d = fixedFormatter.parse(identifier);
@@ -193,7 +279,10 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
             () -> RandomGenerators.generateRandomDate(fixedFormatter));
       }
     } else {
-      DateTimeParseResult parseResult = dateTimeIdentifier.parse(identifier);
+      parseResult = dateTimeIdentifier.parse(identifier);
+      if (parseResult == null) {
+        parseResult = dateTimeIdentifier.parsePartialDate(identifier);
+      }
       if (parseResult == null) {
         return applyUnexpectedValueHandling(identifier,
             () -> RandomGenerators.generateRandomDate(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
@@ -236,10 +325,15 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
       throw new IllegalArgumentException(buffer.toString());
     }
 
+    // A partial date is masked at its own precision - the components it does not give are never
+    // changed or returned, and options that return such a component treat the value as unexpected
+    final boolean hasMonth = parseResult == null || parseResult.hasComponent(ChronoUnit.MONTHS);
+    final boolean hasDay = parseResult == null || parseResult.hasComponent(ChronoUnit.DAYS);
+
     // Return a given, constant value if the input date is at least a given number of years ago.
     // Otherwise, continue processing.
     if (overrideMask) {
-      Temporal now = datetimeHasOffset ? ZonedDateTime.now() : LocalDateTime.now();
+      Temporal now = currentTime.get(datetimeHasOffset);
       if (ChronoUnit.YEARS.between(datetime, now) >= overrideYearsPassed) {
         if (overrideValue != null && !overrideValue.isEmpty()) {
           return overrideValue;
@@ -253,13 +347,13 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
     // Return the updated date or just the year, as per configuration.
     // Otherwise, continue processing.
     if (yearMaxYearsAgoMask) {
-      Temporal now = datetimeHasOffset ? ZonedDateTime.now() : LocalDateTime.now();
+      Temporal now = currentTime.get(datetimeHasOffset);
       if (ChronoUnit.YEARS.between(datetime, now) >= yearMaxYearsAgo) {
         // Get the new year value by subtracting the configured amount from the current year
         now = now.minus(yearShiftFromCurrentYear, ChronoUnit.YEARS);
         int newyear = now.get(ChronoField.YEAR);
         if (yearMaxYearsAgoOnlyYear) {
-          return String.format("%d", newyear);
+          return String.valueOf(newyear);
         }
         datetime = datetime.with(ChronoField.YEAR, newyear);
         String result = f.format(datetime);
@@ -273,12 +367,12 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
     // Return the updated date or just the year, as per configuration.
     // Otherwise, continue processing.
     if (dayMaxDaysAgoMask) {
-      Temporal now = datetimeHasOffset ? ZonedDateTime.now() : LocalDateTime.now();
+      Temporal now = currentTime.get(datetimeHasOffset);
       if (ChronoUnit.DAYS.between(datetime, now) >= dayMaxDaysAgo) {
         now = now.minus(dayShiftFromCurrentDay, ChronoUnit.DAYS);
         int newyear = now.get(ChronoField.YEAR);
         if (dayMaxDaysAgoOnlyYear) {
-          return String.format("%d", newyear);
+          return String.valueOf(newyear);
         }
         datetime = datetime.with(ChronoField.YEAR, newyear);
         String result = f.format(datetime);
@@ -290,17 +384,19 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
     // If the input date occurred after a given number of days ago, return the day and month.
     // Otherwise, continue processing.
     if (yearDeleteNDays) {
-      Temporal now = datetimeHasOffset ? ZonedDateTime.now() : LocalDateTime.now();
+      Temporal now = currentTime.get(datetimeHasOffset);
       if (ChronoUnit.DAYS.between(datetime, now) < yearDeleteNDaysValue) {
+        if (!hasDay) {
+          return applyUnexpectedPartialDateHandling(identifier, f);
+        }
         MonthDay monthDay = MonthDay.of(datetime.get(ChronoField.MONTH_OF_YEAR),
             datetime.get(ChronoField.DAY_OF_MONTH));
-        DateTimeFormatter outputFormatter = DateTimeMaskingProviderConfig
-            .buildOverrideFormatter(yearDeleteNdaysOutputFormat, monthDay);
+        DateTimeFormatter outputFormatter = resolvedFormatters.yearDeleteNdaysOutput;
         if (outputFormatter != null) {
           return outputFormatter.format(monthDay);
         }
-        return String.format("%02d/%02d", datetime.get(ChronoField.DAY_OF_MONTH),
-            datetime.get(ChronoField.MONTH_OF_YEAR));
+        return formatPair(datetime.get(ChronoField.DAY_OF_MONTH),
+            datetime.get(ChronoField.MONTH_OF_YEAR), true);
       }
     }
 
@@ -314,82 +410,89 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
     // Return the week and the year
     if (generalizeWeekYear) {
+      if (!hasDay) {
+        return applyUnexpectedPartialDateHandling(identifier, f);
+      }
       // Note - DateTimeFormatter with pattern ww doesn't work as expected for week 53
-      return String.format("%02d/%d", datetime.get(ChronoField.ALIGNED_WEEK_OF_YEAR),
-          datetime.get(ChronoField.YEAR));
+      return formatPair(datetime.get(ChronoField.ALIGNED_WEEK_OF_YEAR),
+          datetime.get(ChronoField.YEAR), false);
     }
 
     // Return the month and the year
     if (generalizeMonthYear) {
+      if (!hasMonth) {
+        return applyUnexpectedPartialDateHandling(identifier, f);
+      }
       int year = datetime.get(ChronoField.YEAR);
       int month = datetime.get(ChronoField.MONTH_OF_YEAR);
       YearMonth yearMonth = YearMonth.of(year, month);
-      DateTimeFormatter outputFormatter = DateTimeMaskingProviderConfig
-          .buildOverrideFormatter(generalizeMonthYearOutputFormat, yearMonth);
+      DateTimeFormatter outputFormatter = resolvedFormatters.generalizeMonthYearOutput;
       if (outputFormatter != null) {
         return outputFormatter.format(yearMonth);
       }
-      return String.format("%02d/%d", month, year);
+      return formatPair(month, year, false);
     }
 
     // Return the quarter and the year
     if (generalizeQuarterYear) {
+      if (!hasMonth) {
+        return applyUnexpectedPartialDateHandling(identifier, f);
+      }
       YearMonth yearMonth =
           YearMonth.of(datetime.get(ChronoField.YEAR), datetime.get(ChronoField.MONTH_OF_YEAR));
-      DateTimeFormatter formatter = DateTimeMaskingProviderConfig
-          .buildOverrideFormatter(generalizeQuarterYearOutputFormat, yearMonth);
-      if (formatter == null) {
-        final String PATTERN = "Q/yyyy";
-        formatter = DateTimeMaskingProviderConfig.buildOverrideFormatter(PATTERN, null);
-      }
-      return formatter.format(yearMonth);
+      return resolvedFormatters.generalizeQuarterYearOutput.format(yearMonth);
     }
 
     // Return the year
     if (generalizeYear) {
-      return String.format("%d", datetime.get(ChronoField.YEAR));
+      return String.valueOf(datetime.get(ChronoField.YEAR));
     }
 
     // Return the day and month
     if (yearDelete) {
+      if (!hasDay) {
+        return applyUnexpectedPartialDateHandling(identifier, f);
+      }
       int month = datetime.get(ChronoField.MONTH_OF_YEAR);
       int day = datetime.get(ChronoField.DAY_OF_MONTH);
       MonthDay monthDay = MonthDay.of(month, day);
-      DateTimeFormatter outputFormatter =
-          DateTimeMaskingProviderConfig.buildOverrideFormatter(yearDeleteOutputFormat, monthDay);
+      DateTimeFormatter outputFormatter = resolvedFormatters.yearDeleteOutput;
       if (outputFormatter != null) {
         return outputFormatter.format(monthDay);
       }
-      return String.format("%02d/%02d", day, month);
+      return formatPair(day, month, true);
     }
 
     // Return the year from the input date modified so that it is not more
     // than 90 years before the current date
     if (generalizeYearMaskAgeOver90) {
-      Temporal now = datetimeHasOffset ? ZonedDateTime.now() : LocalDateTime.now();
+      Temporal now = currentTime.get(datetimeHasOffset);
       // @formatter:off
       Temporal dateToReturn = ChronoUnit.YEARS.between(datetime, now) >= 90 
               ? now.minus(90, ChronoUnit.YEARS)
               : datetime;
       // @formatter:on
-      return String.format("%d", dateToReturn.get(ChronoField.YEAR));
+      return String.valueOf(dateToReturn.get(ChronoField.YEAR));
     }
 
     // Return the month and year from the input date modified so that it is not more
     // than 90 years before the current date
     if (generalizeMonthYearMaskAgeOver90) {
-      Temporal now = datetimeHasOffset ? ZonedDateTime.now() : LocalDateTime.now();
+      if (!hasMonth) {
+        return applyUnexpectedPartialDateHandling(identifier, f);
+      }
+      Temporal now = currentTime.get(datetimeHasOffset);
       int year = ChronoUnit.YEARS.between(datetime, now) >= 90
           ? now.minus(90, ChronoUnit.YEARS).get(ChronoField.YEAR)
           : datetime.get(ChronoField.YEAR);
       int month = datetime.get(ChronoField.MONTH_OF_YEAR);
       YearMonth yearMonth = YearMonth.of(year, month);
-      DateTimeFormatter outputFormatter = DateTimeMaskingProviderConfig
-          .buildOverrideFormatter(generalizeMonthYearMaskAgeOver90OutputFormat, yearMonth);
+      DateTimeFormatter outputFormatter =
+          resolvedFormatters.generalizeMonthYearMaskAgeOver90Output;
       if (outputFormatter != null) {
         return outputFormatter.format(yearMonth);
       }
-      return String.format("%02d/%d", month, year);
+      return formatPair(month, year, false);
     }
 
     // Randomly modify the year within a given range and continue.
@@ -402,7 +505,7 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
     // Randomly modify the month within a given range and continue.
     // This might cause changes to other components of the datetime.
-    if (monthMask) {
+    if (monthMask && hasMonth) {
       int month = datetime.get(ChronoField.MONTH_OF_YEAR);
       int randomMonth = RandomGenerators.randomWithinRange(month, monthRangeDown, monthRangeUp);
       datetime = datetime.plus(randomMonth - month, ChronoUnit.MONTHS);
@@ -410,7 +513,7 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
     // Randomly modify the day of the month within a given range and continue.
     // This might cause changes to other components of the datetime.
-    if (dayMask) {
+    if (dayMask && hasDay) {
       int day = datetime.get(ChronoField.DAY_OF_MONTH);
       int randomDay = RandomGenerators.randomWithinRange(day, dayRangeDownMin, dayRangeDown,
           dayRangeUpMin, dayRangeUp);
@@ -419,7 +522,7 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
     // Randomly modify the hour within a given range and continue.
     // This might cause changes to other components of the datetime.
-    if (hourMask) {
+    if (hourMask && hasDay) {
       int hour = datetime.get(ChronoField.HOUR_OF_DAY);
       int randomHour = RandomGenerators.randomWithinRange(hour, hourRangeDown, hourRangeUp);
       datetime = datetime.plus(randomHour - hour, ChronoUnit.HOURS);
@@ -427,7 +530,7 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
     // Randomly modify the minute within a given range and continue.
     // This might cause changes to other components of the datetime.
-    if (minuteMask) {
+    if (minuteMask && hasDay) {
       int minute = datetime.get(ChronoField.MINUTE_OF_HOUR);
       int randomMinutes =
           RandomGenerators.randomWithinRange(minute, minuteRangeDown, minuteRangeUp);
@@ -436,7 +539,7 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
 
     // Randomly modify the second within a given range and continue.
     // This might cause changes to other components of the datetime.
-    if (secondMask) {
+    if (secondMask && hasDay) {
       int second = datetime.get(ChronoField.SECOND_OF_MINUTE);
       int randomSeconds =
           RandomGenerators.randomWithinRange(second, secondRangeDown, secondRangeUp);
@@ -448,6 +551,42 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
         isAllLowerCase);
   }
 
+  /**
+   * Handles a partial date that does not give a component the configured options return.
+   *
+   * @param identifier the partial date
+   * @param f the formatter of the partial date, which prints only the components it gives
+   *
+   * @return the result of the unexpected input handling, where random values have the precision
+   *         of the partial date
+   */
+  private String applyUnexpectedPartialDateHandling(String identifier, DateTimeFormatter f) {
+    return applyUnexpectedValueHandling(identifier, () -> RandomGenerators.generateRandomDate(f));
+  }
+
+  /**
+   * Formats two numbers separated by a slash, the first padded to at least two digits, as with the
+   * pattern <i>%02d/%d</i> or <i>%02d/%02d</i>, without the cost of parsing a format string.
+   */
+  private static String formatPair(int first, int second, boolean padSecond) {
+    StringBuilder buffer = new StringBuilder(12);
+    appendPadded(buffer, first);
+    buffer.append('/');
+    if (padSecond) {
+      appendPadded(buffer, second);
+    } else {
+      buffer.append(second);
+    }
+    return buffer.toString();
+  }
+
+  private static void appendPadded(StringBuilder buffer, int value) {
+    if (value >= 0 && value < 10) {
+      buffer.append('0');
+    }
+    buffer.append(value);
+  }
+
   protected String applyCharacterCase(boolean patternContainsCaseInsensitveChars, String datetime,
       boolean wasAllUpperCase, boolean wasAllLowerCase) {
     String result = datetime;
@@ -460,4 +599,9 @@ public class DateTimeMaskingProvider extends AbstractMaskingProvider {
     }
     return result;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -68,4 +68,9 @@ public class EmailMaskingProvider extends AbstractMaskingProvider {
     builder.append(RandomGenerators.randomHostnameGenerator(domain, this.preserveDomains));
     return builder.toString();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
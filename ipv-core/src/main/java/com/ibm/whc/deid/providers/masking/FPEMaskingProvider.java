@@ -1,16 +1,23 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.ibm.whc.deid.providers.masking.fhir.MaskingActionInputIdentifier;
 import com.ibm.whc.deid.providers.masking.fpe.EncryptionEngineException;
 import com.ibm.whc.deid.providers.masking.fpe.FPEDriver;
 import com.ibm.whc.deid.providers.masking.fpe.UnsupportedLengthException;
 import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.Pad;
 import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.UsageType;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
+import com.ibm.whc.deid.util.cache.BoundedDeidCache;
+import com.ibm.whc.deid.util.cache.DeidCache;
 import com.ibm.whc.deid.utils.log.LogCodes;
 
 /**
@@ -25,6 +32,10 @@ public class FPEMaskingProvider extends AbstractMaskingProvider {
   private final UsageType usageType;
   private final Pad padding;
 
+  protected transient volatile FPEDriver driver = null;
+  // not restored after deserialization, which only disables caching
+  private final transient DeidCache cache;
+
   /**
    * Instantiates a new FPE masking provider.
    *
@@ -36,6 +47,16 @@ public class FPEMaskingProvider extends AbstractMaskingProvider {
     this.tweak = config.getTweak();
     this.usageType = config.getInputType();
     this.padding = config.getPadding();
+    // random replacements for values that cannot be encrypted must not be repeated
+    this.cache = isUnexpectedValueHandlingRandom() ? null
+        : BoundedDeidCache.forProviderType(MaskingProviderType.FPE);
+  }
+
+  protected FPEDriver getDriver() {
+    if (driver == null) {
+      driver = FPEDriver.getFPEDriver(usageType);
+    }
+    return driver;
   }
 
   @Override
@@ -44,17 +65,70 @@ public class FPEMaskingProvider extends AbstractMaskingProvider {
       debugFaultyInput("identifier");
       return null;
     }
+    return encrypt(Collections.singletonList(identifier)).get(0);
+  }
 
-    try {
-      return FPEDriver.getFPEDriver(usageType).encrypt(identifier, key, tweak, padding);
+  @Override
+  public void maskIdentifierBatch(List<MaskingActionInputIdentifier> identifiers) {
+    List<String> values = new ArrayList<>(identifiers.size());
+    for (MaskingActionInputIdentifier i : identifiers) {
+      values.add(i.getNode().asText());
+    }
+    List<String> masked = encrypt(values);
+    for (int i = 0; i < identifiers.size(); i++) {
+      putField(identifiers.get(i), masked.get(i));
+    }
+  }
 
-    } catch (UnsupportedLengthException e) {
-      // this message is safe to log
-      log.logError(LogCodes.WPH1027E, Integer.toString(e.getMin()), Integer.toString(e.getMax()),
-          Integer.toString(e.getLength()));
-      return applyUnexpectedValueHandling(identifier, null);
+  private List<String> encrypt(List<String> values) {
+    if (cache == null) {
+      return encryptAll(values);
+    }
+    // only the values not already cached are encrypted, together
+    List<String> masked = new ArrayList<>(values.size());
+    List<String> misses = new ArrayList<>();
+    List<Integer> missIndexes = new ArrayList<>();
+    for (int i = 0; i < values.size(); i++) {
+      String value = values.get(i);
+      String cached = value == null ? null : cache.getCachedValue(value);
+      masked.add(cached);
+      if (cached == null) {
+        misses.add(value);
+        missIndexes.add(Integer.valueOf(i));
+      }
+    }
+    if (!misses.isEmpty()) {
+      List<String> encrypted = encryptAll(misses);
+      for (int i = 0; i < encrypted.size(); i++) {
+        masked.set(missIndexes.get(i).intValue(), encrypted.get(i));
+        cache.putCachedValue(misses.get(i), encrypted.get(i));
+      }
+    }
+    return masked;
+  }
+
+  private List<String> encryptAll(List<String> values) {
+    try {
+      return getDriver().encrypt(values, key, tweak, padding, (value, e) -> {
+        // this message is safe to log
+        log.logError(LogCodes.WPH1027E, Integer.toString(e.getMin()),
+            Integer.toString(e.getMax()), Integer.toString(e.getLength()));
+        return applyUnexpectedValueHandling(value, null);
+      });
     } catch (EncryptionEngineException e) {
       throw new RuntimeException(e);
     }
   }
+
+  @Override
+  public void dropCache() {
+    if (cache != null) {
+      cache.dropCache();
+    }
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
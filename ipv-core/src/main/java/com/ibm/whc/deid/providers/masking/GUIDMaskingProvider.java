@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -30,4 +30,9 @@ public class GUIDMaskingProvider extends AbstractMaskingProvider {
   public String mask(String identifier) {
     return UUID.randomUUID().toString();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -41,4 +41,9 @@ public class GenderMaskingProvider extends AbstractMaskingProvider {
     }
     return genderResourceManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
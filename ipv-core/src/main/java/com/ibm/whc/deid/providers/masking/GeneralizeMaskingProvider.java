@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -99,4 +99,9 @@ public class GeneralizeMaskingProvider extends AbstractMaskingProvider {
     }
     return maskValue;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,22 +1,25 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import org.apache.commons.lang.StringUtils;
 import com.ibm.whc.deid.shared.pojo.config.masking.HashMaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
+import com.ibm.whc.deid.util.HashUtils;
+import com.ibm.whc.deid.util.cache.BoundedDeidCache;
+import com.ibm.whc.deid.util.cache.DeidCache;
 
 /** The type Hash masking provider. */
 public class HashMaskingProvider extends AbstractMaskingProvider {
 
   private static final long serialVersionUID = 7924730647129367168L;
 
-  private final char[] hexArray = "0123456789ABCDEF".toCharArray();
-
   private final String algorithm;
   private final boolean hashingOffsetOffsetMask;
   private final boolean hashingOffsetOffsetMaskDelete;
@@ -24,6 +27,10 @@ public class HashMaskingProvider extends AbstractMaskingProvider {
   private final int hashingOffsetEnd;
   private final int hashingOffsetInvalidOffsetValue;
   private final String hashSaltValue;
+  // the salt is appended to every value hashed, so it is encoded only once
+  private final byte[] hashSaltBytes;
+  // not restored after deserialization, which only disables caching
+  private final transient DeidCache cache;
 
   /** Instantiates a new Hash masking provider. */
   public HashMaskingProvider() {
@@ -44,23 +51,18 @@ public class HashMaskingProvider extends AbstractMaskingProvider {
     this.hashingOffsetEnd = config.getOffsetEnd();
     this.hashingOffsetInvalidOffsetValue = config.getOffsetInvalidOffsetValue();
     this.hashSaltValue = config.getSalt();
+    this.hashSaltBytes = String.valueOf(this.hashSaltValue).getBytes(StandardCharsets.UTF_8);
+    this.cache = BoundedDeidCache.forProviderType(MaskingProviderType.HASH);
   }
 
-  private String bytesToHex(byte[] bytes) {
-    char[] hexChars = new char[bytes.length * 2];
-    for (int j = 0; j < bytes.length; j++) {
-      int v = bytes[j] & 0xFF;
-      hexChars[j * 2] = hexArray[v >>> 4];
-      hexChars[j * 2 + 1] = hexArray[v & 0x0F];
-    }
-
-    return new String(hexChars);
-  }
-
+  /**
+   * Applies the salt and hashes the given value.
+   */
   private String getHashValue(MessageDigest md, String identifier) {
-    md.update(identifier.getBytes());
+    md.update(identifier.getBytes(StandardCharsets.UTF_8));
+    md.update(hashSaltBytes);
     byte[] shaDig = md.digest();
-    return bytesToHex(shaDig);
+    return HashUtils.toHex(shaDig);
   }
 
   @Override
@@ -69,10 +71,13 @@ public class HashMaskingProvider extends AbstractMaskingProvider {
       debugFaultyInput("identifier");
       return null;
     }
+    return maskWithCache(cache, identifier, this::hash);
+  }
 
+  private String hash(String identifier) {
     MessageDigest md;
     try {
-      md = MessageDigest.getInstance(this.algorithm);
+      md = HashUtils.getMessageDigest(this.algorithm);
     } catch (NoSuchAlgorithmException e) {
       logException(e);
       throw new RuntimeException(e);
@@ -94,7 +99,7 @@ public class HashMaskingProvider extends AbstractMaskingProvider {
           return "";
         else if (hashingOffsetInvalidOffsetValue == 3)
           // Apply salt and hash
-          return getHashValue(md, identifier + this.hashSaltValue);
+          return getHashValue(md, identifier);
         else
           return null;
       }
@@ -111,11 +116,22 @@ public class HashMaskingProvider extends AbstractMaskingProvider {
         headNonHashedValue = "";
         tailNonHashedValue = "";
       }
-      return headNonHashedValue + getHashValue(md, partToHash + this.hashSaltValue)
-          + tailNonHashedValue;
+      return headNonHashedValue + getHashValue(md, partToHash) + tailNonHashedValue;
     }
 
     // Apply salt and hash
-    return getHashValue(md, identifier + this.hashSaltValue);
+    return getHashValue(md, identifier);
+  }
+
+  @Override
+  public void dropCache() {
+    if (cache != null) {
+      cache.dropCache();
+    }
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
   }
 }
@@ -1,10 +1,14 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import com.ibm.whc.deid.models.Hospital;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.shared.pojo.config.masking.HospitalMaskingProviderConfig;
@@ -40,7 +44,45 @@ public class HospitalMaskingProvider extends AbstractMaskingProvider {
     }
 
     // preserveCountry was specified
-    Hospital hospital = hospitalManager.getValue(identifier);
+    return getRandomHospitalName(identifier, hospitalManager.getValue(identifier),
+        hospitalManager);
+  }
+
+  @Override
+  public List<String> maskBatch(List<String> identifiers) {
+    HospitalManager hospitalManager = getHospitalManager();
+    List<String> masked = new ArrayList<>(identifiers.size());
+
+    if (!this.preserveCountry) {
+      List<Hospital> hospitals = hospitalManager.getRandomValues(identifiers.size());
+      for (int i = 0; i < hospitals.size(); i++) {
+        String identifier = identifiers.get(i);
+        Hospital hospital = hospitals.get(i);
+        masked.add(
+            identifier == null ? mask(identifier) : hospital == null ? null : hospital.getName());
+      }
+      return masked;
+    }
+
+    // each distinct hospital is looked up once, a replacement is still chosen for every value
+    Map<String, Hospital> hospitals = new HashMap<>();
+    for (String identifier : identifiers) {
+      if (identifier == null) {
+        masked.add(mask(identifier));
+      } else {
+        Hospital hospital = hospitals.get(identifier);
+        if (hospital == null && !hospitals.containsKey(identifier)) {
+          hospital = hospitalManager.getValue(identifier);
+          hospitals.put(identifier, hospital);
+        }
+        masked.add(getRandomHospitalName(identifier, hospital, hospitalManager));
+      }
+    }
+    return masked;
+  }
+
+  private String getRandomHospitalName(String identifier, Hospital hospital,
+      HospitalManager hospitalManager) {
     if (hospital == null) {
       return applyUnexpectedValueHandling(identifier, () -> getRandomHospitalName(hospitalManager));
     }
@@ -60,4 +102,9 @@ public class HospitalMaskingProvider extends AbstractMaskingProvider {
     }
     return hospitalResourceManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
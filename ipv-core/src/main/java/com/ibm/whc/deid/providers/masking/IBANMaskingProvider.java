@@ -1,11 +1,11 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
+import com.ibm.whc.deid.util.RandomSource;
 import org.iban4j.CountryCode;
 import org.iban4j.Iban;
 import com.ibm.whc.deid.providers.identifiers.IBANIdentifier;
@@ -32,7 +32,7 @@ public class IBANMaskingProvider extends AbstractMaskingProvider {
    */
   public IBANMaskingProvider(IBANMaskingProviderConfig configuration) {
     super(configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.preserveCountry = configuration.isMaskPreserveCountry();
   }
 
@@ -52,4 +52,9 @@ public class IBANMaskingProvider extends AbstractMaskingProvider {
 
     return Iban.random().toString();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,12 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 
+import com.ibm.whc.deid.util.RandomSource;
 import org.apache.commons.lang3.StringUtils;
 
 import com.ibm.whc.deid.providers.identifiers.IPAddressIdentifier;
@@ -30,7 +30,7 @@ public class IPAddressMaskingProvider extends AbstractMaskingProvider {
 
   public IPAddressMaskingProvider(IPAddressMaskingProviderConfig configuration) {
     super(configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.preservedPrefixes = configuration.getSubnetsPreserve();
   }
 
@@ -94,4 +94,9 @@ public class IPAddressMaskingProvider extends AbstractMaskingProvider {
           random.nextInt(255), random.nextInt(255), random.nextInt(255), random.nextInt(255)));
     }
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -106,4 +106,9 @@ public class LatitudeLongitudeMaskingProvider extends AbstractMaskingProvider {
     return latitudeLongitude == null ? randomLatLon.toString()
         : randomLatLon.toString(latitudeLongitude.getFormat());
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -1,13 +1,13 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 import com.ibm.whc.deid.providers.identifiers.MACAddressIdentifier;
 import com.ibm.whc.deid.shared.pojo.config.masking.MACAddressMaskingProviderConfig;
+import com.ibm.whc.deid.util.RandomSource;
 
 public class MACAddressMaskingProvider extends AbstractMaskingProvider {
 
@@ -30,7 +30,7 @@ public class MACAddressMaskingProvider extends AbstractMaskingProvider {
    */
   public MACAddressMaskingProvider(MACAddressMaskingProviderConfig configuration) {
     super(configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.preserveVendor = configuration.isMaskingPreserveVendor();
   }
 
@@ -67,4 +67,9 @@ public class MACAddressMaskingProvider extends AbstractMaskingProvider {
 
     return identifier.substring(0, 9) + randomMACAddress(3);
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
@@ -1,11 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import com.ibm.whc.deid.providers.masking.fhir.MaskingActionInputIdentifier;
 
@@ -32,8 +33,67 @@ public interface MaskingProvider extends Serializable {
    */
   String mask(String identifier, String fieldName);
 
+  /**
+   * Applies a privacy protection operation to several strings.
+   *
+   * <p>
+   * The result must be the same as applying {@link #mask(String)} to each value in turn. Providers
+   * can override this method to share work between the values of a batch, for example by looking
+   * up a resource manager once, by masking identical values only once when the result depends only
+   * on the value, or by drawing random numbers together. Values whose replacement is chosen at
+   * random must still be masked independently of each other.
+   *
+   * @param identifiers the input data to be protected, which can contain <i>null</i> and repeated
+   *        values
+   *
+   * @return the protected values to use, in the same order as the input
+   */
+  default List<String> maskBatch(List<String> identifiers) {
+    List<String> masked = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      masked.add(mask(identifier));
+    }
+    return masked;
+  }
+
   public void maskIdentifierBatch(List<MaskingActionInputIdentifier> identifiers);
 
+  /**
+   * Indicates whether {@link #maskIdentifierBatch(List)} can add or change nodes in the document
+   * other than the nodes identified by the given input, for example by setting a related property.
+   *
+   * @return <i>true</i> if nodes other than the identified nodes can be changed
+   */
+  default boolean changesRelatedNodes() {
+    return false;
+  }
+
+  /**
+   * Indicates whether this provider can be used to mask different documents concurrently.
+   *
+   * <p>
+   * A provider that returns <i>true</i> guarantees that {@link #mask(String)},
+   * {@link #mask(String, String)} and {@link #maskIdentifierBatch(List)} can be called at the same
+   * time from multiple threads, each call with input from a different document. Such a provider
+   * must not change its own state while masking, or must synchronize access to any state it does
+   * change, such as a lazily-loaded resource. Documents are only masked concurrently when every
+   * provider in the masking configuration returns <i>true</i>.
+   *
+   * @return <i>true</i> if the provider can be used from multiple threads at the same time
+   */
+  default boolean supportsConcurrentMasking() {
+    return false;
+  }
+
+  /**
+   * Discards any replacement values this provider has cached, overwriting them in memory where the
+   * cache supports it. Called when the provider is no longer used, although the provider remains
+   * usable and simply caches values again.
+   */
+  default void dropCache() {
+    // nothing is cached by default
+  }
+
   public void setName(String ruleName);
 
   public String getName();
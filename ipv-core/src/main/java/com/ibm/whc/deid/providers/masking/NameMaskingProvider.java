@@ -1,15 +1,20 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import com.ibm.whc.deid.models.FirstName;
 import com.ibm.whc.deid.models.LastName;
 import com.ibm.whc.deid.shared.pojo.config.masking.NameMaskingProviderConfig;
 import com.ibm.whc.deid.util.NamesManager;
+import com.ibm.whc.deid.util.RandomSource;
 
 /**
  * The type Name masking provider.
@@ -21,6 +26,19 @@ public class NameMaskingProvider extends AbstractMaskingProvider {
 
   private static final String[] initials = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K",
       "L", "M", "N", "O", "P", "Q", "R", "S", "T", "U", "V", "W", "X", "Y", "Z"};
+
+  private static final Pattern WORD_BOUNDARY = Pattern.compile("\\b");
+
+  /**
+   * The result of looking up a name token, kept while masking a batch of names so that each
+   * distinct token is looked up only once.
+   */
+  private static final class TokenLookup {
+    FirstName firstName;
+    LastName lastName;
+    // the replacement, only kept when it does not depend on random selection
+    String pseudorandom;
+  }
   
   private final boolean allowUnisex;
   private final boolean genderPreserve;
@@ -31,7 +49,7 @@ public class NameMaskingProvider extends AbstractMaskingProvider {
   public NameMaskingProvider(NameMaskingProviderConfig configuration, String tenantId,
       String localizationProperty) {
     super(tenantId, localizationProperty, configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.allowUnisex = configuration.isMaskingAllowUnisex();
     this.genderPreserve = configuration.isMaskGenderPreserve();
     this.getPseudorandom = configuration.isMaskPseudorandom();
@@ -44,11 +62,24 @@ public class NameMaskingProvider extends AbstractMaskingProvider {
       return null;
     }
 
+    return mask(identifier, getNamesManager(), null);
+  }
+
+  @Override
+  public List<String> maskBatch(List<String> identifiers) {
     NamesManager names = getNamesManager();
-    
+    Map<String, TokenLookup> lookups = new HashMap<>();
+    List<String> masked = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      masked.add(identifier == null ? mask(identifier) : mask(identifier, names, lookups));
+    }
+    return masked;
+  }
+
+  private String mask(String identifier, NamesManager names, Map<String, TokenLookup> lookups) {
     StringBuilder builder = new StringBuilder();
 
-    for (String token : identifier.split("\\b")) {
+    for (String token : WORD_BOUNDARY.split(identifier)) {
       token = token.trim();
 
       if (token.isEmpty())
@@ -65,26 +96,42 @@ public class NameMaskingProvider extends AbstractMaskingProvider {
           maskedToken = token;
         }
       } else {
-        FirstName lookup = names.getFirstName(token);
-        if (lookup != null) {
+        TokenLookup lookup = lookups == null ? null : lookups.get(token);
+        if (lookup == null) {
+          lookup = new TokenLookup();
+          lookup.firstName = names.getFirstName(token);
+          if (lookup.firstName == null) {
+            lookup.lastName = names.getLastName(token);
+          }
+          if (lookups != null) {
+            lookups.put(token, lookup);
+          }
+        }
+        if (lookup.pseudorandom != null) {
+          maskedToken = lookup.pseudorandom;
+        } else if (lookup.firstName != null) {
+          FirstName firstName = lookup.firstName;
           if (getPseudorandom) {
-            maskedToken = names.getPseudoRandomFirstName(lookup.getGender(), allowUnisex, token);
+            maskedToken =
+                names.getPseudoRandomFirstName(firstName.getGender(), allowUnisex, token);
+            lookup.pseudorandom = maskedToken;
           } else if (!genderPreserve) {
             if (allowUnisex)
               maskedToken = names.getRandomFirstNameWithoutPreservingGender(true,
-                  lookup.getNameCountryCode());
+                  firstName.getNameCountryCode());
             else
               maskedToken = names.getRandomFirstNameWithoutPreservingGender(false,
-                  lookup.getNameCountryCode());
+                  firstName.getNameCountryCode());
           } else {
-            maskedToken = names.getRandomFirstName(lookup.getGender(), allowUnisex,
-                lookup.getNameCountryCode());
+            maskedToken = names.getRandomFirstName(firstName.getGender(), allowUnisex,
+                firstName.getNameCountryCode());
           }
         } else {
-          LastName lookupLastName = names.getLastName(token);
+          LastName lookupLastName = lookup.lastName;
           if (lookupLastName != null) {
             if (getPseudorandom) {
               maskedToken = names.getPseudoRandomLastName(token);
+              lookup.pseudorandom = maskedToken;
             } else {
               maskedToken = names.getRandomLastName(lookupLastName.getNameCountryCode());
             }
@@ -125,4 +172,9 @@ public class NameMaskingProvider extends AbstractMaskingProvider {
     }
     return namesResourceManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -36,4 +36,9 @@ public class NullMaskingProvider extends AbstractMaskingProvider {
   public String mask(String identifier) {
     return maskReturnNull ? null : "";
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
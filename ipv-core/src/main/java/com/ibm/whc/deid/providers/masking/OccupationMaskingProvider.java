@@ -1,18 +1,21 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ibm.whc.deid.models.Occupation;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.shared.pojo.config.masking.OccupationMaskingProviderConfig;
 import com.ibm.whc.deid.util.ManagerFactory;
 import com.ibm.whc.deid.util.OccupationManager;
+import com.ibm.whc.deid.util.RandomSource;
 
 /**
  * Privacy provider to mask the names of occupations.
@@ -29,7 +32,7 @@ public class OccupationMaskingProvider extends AbstractMaskingProvider {
       String localizationProperty) {
     super(tenantId, localizationProperty, configuration);
     this.generalizeToCategory = configuration.isMaskGeneralize();
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
   }
 
   @Override
@@ -42,26 +45,63 @@ public class OccupationMaskingProvider extends AbstractMaskingProvider {
     OccupationManager occupationManager = getOccupationManager();
 
     if (this.generalizeToCategory) {
-      Occupation occupation = occupationManager.getValue(identifier);
+      return getRandomCategory(identifier, occupationManager.getValue(identifier),
+          occupationManager);
+    }
 
-      if (occupation == null) {
-        return applyUnexpectedValueHandling(identifier,
-            () -> getRandomOccupationName(occupationManager));
-      }
+    return getRandomOccupationName(occupationManager);
+  }
 
-      List<String> categories = occupation.getCategories();
-      int count = categories.size();
-      if (count == 0) {
-        return null;
-      }
-      if (count == 1) {
-        return categories.get(0);
+  @Override
+  public List<String> maskBatch(List<String> identifiers) {
+    OccupationManager occupationManager = getOccupationManager();
+    List<String> masked = new ArrayList<>(identifiers.size());
+
+    if (this.generalizeToCategory) {
+      // each distinct occupation is looked up once, a category is still chosen for every value
+      Map<String, Occupation> occupations = new HashMap<>();
+      for (String identifier : identifiers) {
+        if (identifier == null) {
+          masked.add(mask(identifier));
+        } else {
+          Occupation occupation = occupations.get(identifier);
+          if (occupation == null && !occupations.containsKey(identifier)) {
+            occupation = occupationManager.getValue(identifier);
+            occupations.put(identifier, occupation);
+          }
+          masked.add(getRandomCategory(identifier, occupation, occupationManager));
+        }
       }
-      int randomIndex = random.nextInt(count);
-      return categories.get(randomIndex);
+      return masked;
     }
 
-    return getRandomOccupationName(occupationManager);
+    List<Occupation> occupations = occupationManager.getRandomValues(identifiers.size());
+    for (int i = 0; i < occupations.size(); i++) {
+      String identifier = identifiers.get(i);
+      Occupation occupation = occupations.get(i);
+      masked.add(
+          identifier == null ? mask(identifier) : occupation == null ? null : occupation.getName());
+    }
+    return masked;
+  }
+
+  private String getRandomCategory(String identifier, Occupation occupation,
+      OccupationManager occupationManager) {
+    if (occupation == null) {
+      return applyUnexpectedValueHandling(identifier,
+          () -> getRandomOccupationName(occupationManager));
+    }
+
+    List<String> categories = occupation.getCategories();
+    int count = categories.size();
+    if (count == 0) {
+      return null;
+    }
+    if (count == 1) {
+      return categories.get(0);
+    }
+    int randomIndex = random.nextInt(count);
+    return categories.get(randomIndex);
   }
 
   protected String getRandomOccupationName(OccupationManager occupationManager) {
@@ -76,4 +116,9 @@ public class OccupationMaskingProvider extends AbstractMaskingProvider {
     }
     return occupationResourceManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
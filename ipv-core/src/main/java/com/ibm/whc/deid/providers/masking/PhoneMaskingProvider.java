@@ -1,11 +1,10 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 import java.util.List;
 
 import com.ibm.whc.deid.models.PhoneNumber;
@@ -13,6 +12,7 @@ import com.ibm.whc.deid.providers.identifiers.PhoneIdentifier;
 import com.ibm.whc.deid.shared.pojo.config.masking.PhoneMaskingProviderConfig;
 import com.ibm.whc.deid.util.MSISDNManager;
 import com.ibm.whc.deid.util.RandomGenerators;
+import com.ibm.whc.deid.util.RandomSource;
 
 /**
  * The type Phone masking provider.
@@ -34,7 +34,7 @@ public class PhoneMaskingProvider extends AbstractMaskingProvider {
   public PhoneMaskingProvider(PhoneMaskingProviderConfig configuration, String tenantId,
       String localizationProperty) {
     super(tenantId, localizationProperty, configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.preserveCountryCode = configuration.isCountryCodePreserve();
     this.preserveAreaCode = configuration.isAreaCodePreserve();
     this.invNdigitsReplaceWith = configuration.getInvNdigitsReplaceWith();
@@ -189,4 +189,9 @@ public class PhoneMaskingProvider extends AbstractMaskingProvider {
     }
     return msisdnManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
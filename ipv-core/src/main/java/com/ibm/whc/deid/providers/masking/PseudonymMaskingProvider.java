@@ -1,14 +1,14 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 import com.ibm.whc.deid.models.ReversePatternGenerator;
 import com.ibm.whc.deid.shared.pojo.config.masking.HashMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.PseudonymMaskingProviderConfig;
+import com.ibm.whc.deid.util.RandomSource;
 import com.ibm.whc.deid.util.ReversePatternManager;
 
 /**
@@ -34,6 +34,9 @@ public class PseudonymMaskingProvider extends AbstractMaskingProvider {
   private final String hashAlgorithm;
   private final HashMaskingProvider hashMaskingProvider;
 
+  // the generator of pseudonyms via options or a pattern, found once and again when needed after
+  // deserialization
+  private transient volatile ReversePatternGenerator patternGenerator;
 
   /** Instantiates a new pseudonym masking provider. */
   public PseudonymMaskingProvider() {
@@ -42,7 +45,7 @@ public class PseudonymMaskingProvider extends AbstractMaskingProvider {
 
   public PseudonymMaskingProvider(PseudonymMaskingProviderConfig configuration) {
     super(configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.generateViaOptions = configuration.isGenerateViaOptionsEnabled();
     this.minLength = configuration.getGenerateViaOptionsMinLength();
     this.maxLength = configuration.getGenerateViaOptionsMaxLength();
@@ -64,6 +67,36 @@ public class PseudonymMaskingProvider extends AbstractMaskingProvider {
     } else {
       this.hashMaskingProvider = null;
     }
+
+    if (this.generateViaOptions || this.generateViaPattern) {
+      this.patternGenerator = findPatternGenerator();
+    }
+  }
+
+  /**
+   * Finds the generator of pseudonyms via options or a pattern.
+   *
+   * @return the generator or <i>null</i> if the configured pattern name is not found
+   */
+  private ReversePatternGenerator findPatternGenerator() {
+    if (this.generateViaOptions) {
+      return ReversePatternManager.getInstance().getPatternByPattern(createPatternFromOptions());
+    }
+    if (this.pattern != null && !this.pattern.trim().isEmpty()) {
+      return ReversePatternManager.getInstance().getPatternByPattern(this.pattern,
+          this.patternLanguageCode);
+    }
+    return ReversePatternManager.getInstance().getPatternByResource(this.patternName,
+        this.patternLanguageCode);
+  }
+
+  private ReversePatternGenerator getPatternGenerator() {
+    ReversePatternGenerator generator = patternGenerator;
+    if (generator == null) {
+      generator = findPatternGenerator();
+      patternGenerator = generator;
+    }
+    return generator;
   }
 
   @Override
@@ -76,25 +109,14 @@ public class PseudonymMaskingProvider extends AbstractMaskingProvider {
     // Check if pseudonym should be created via specific options
     if (this.generateViaOptions) {
 
-      String pattern = createPatternFromOptions();
-      ReversePatternGenerator patternGenerator =
-          ReversePatternManager.getInstance().getPatternByPattern(pattern);
-
-      identifier = patternGenerator.getRandomToken(random);
+      identifier = getPatternGenerator().getRandomToken(random);
       return identifier;
     }
 
     // Check if pseudonym should be created via pattern
     if (this.generateViaPattern) {
 
-      ReversePatternGenerator patternGenerator;
-      if (this.pattern != null && !this.pattern.trim().isEmpty()) {
-        patternGenerator = ReversePatternManager.getInstance().getPatternByPattern(this.pattern,
-            this.patternLanguageCode);
-      } else {
-        patternGenerator = ReversePatternManager.getInstance()
-            .getPatternByResource(this.patternName, this.patternLanguageCode);
-      }
+      ReversePatternGenerator patternGenerator = getPatternGenerator();
 
       if (patternGenerator == null) {
         return "";
@@ -161,4 +183,16 @@ public class PseudonymMaskingProvider extends AbstractMaskingProvider {
 
     return sb.toString();
   }
+
+  @Override
+  public void dropCache() {
+    if (hashMaskingProvider != null) {
+      hashMaskingProvider.dropCache();
+    }
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
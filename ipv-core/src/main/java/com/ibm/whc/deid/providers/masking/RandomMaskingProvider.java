@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -25,4 +25,9 @@ public class RandomMaskingProvider extends AbstractMaskingProvider {
 
     return RandomGenerators.randomReplacement(identifier);
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
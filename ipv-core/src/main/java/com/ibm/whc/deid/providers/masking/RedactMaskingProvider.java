@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -47,4 +47,9 @@ public class RedactMaskingProvider extends AbstractMaskingProvider {
       return replacementCharacter;
     }
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
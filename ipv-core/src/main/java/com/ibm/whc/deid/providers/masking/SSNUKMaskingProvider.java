@@ -1,15 +1,15 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 
 import com.ibm.whc.deid.providers.identifiers.SSNUKIdentifier;
 import com.ibm.whc.deid.shared.pojo.config.masking.SSNUKMaskingProviderConfig;
 import com.ibm.whc.deid.util.RandomGenerators;
+import com.ibm.whc.deid.util.RandomSource;
 
 public class SSNUKMaskingProvider extends AbstractMaskingProvider {
 
@@ -38,7 +38,7 @@ public class SSNUKMaskingProvider extends AbstractMaskingProvider {
 
   public SSNUKMaskingProvider(SSNUKMaskingProviderConfig configuration) {
     super(configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.preservePrefix = configuration.isMaskPreservePrefix();
   }
 
@@ -81,4 +81,9 @@ public class SSNUKMaskingProvider extends AbstractMaskingProvider {
 
     return builder.toString();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
@@ -1,14 +1,14 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 import com.ibm.whc.deid.models.SSNUS;
 import com.ibm.whc.deid.providers.identifiers.SSNUSIdentifier;
 import com.ibm.whc.deid.shared.pojo.config.masking.SSNUSMaskingProviderConfig;
+import com.ibm.whc.deid.util.RandomSource;
 
 public class SSNUSMaskingProvider extends AbstractMaskingProvider {
 
@@ -31,7 +31,7 @@ public class SSNUSMaskingProvider extends AbstractMaskingProvider {
    */
   public SSNUSMaskingProvider(SSNUSMaskingProviderConfig configuration) {
     super(configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.preserveAreaNumber = configuration.isMaskPreserveAreaNumber();
     this.preserveGroup = configuration.isMaskPreserveGroup();
   }
@@ -89,4 +89,9 @@ public class SSNUSMaskingProvider extends AbstractMaskingProvider {
 
     return (new SSNUS(areaNumber, group, serialNumber)).toString();
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
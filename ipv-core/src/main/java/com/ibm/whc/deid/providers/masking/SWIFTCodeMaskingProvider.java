@@ -1,15 +1,15 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
 import com.ibm.whc.deid.models.SWIFTCode;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.shared.pojo.config.masking.SWIFTMaskingProviderConfig;
 import com.ibm.whc.deid.util.ManagerFactory;
+import com.ibm.whc.deid.util.RandomSource;
 import com.ibm.whc.deid.util.SWIFTCodeManager;
 
 public class SWIFTCodeMaskingProvider extends AbstractMaskingProvider {
@@ -31,7 +31,7 @@ public class SWIFTCodeMaskingProvider extends AbstractMaskingProvider {
       String localizationProperty) {
     super(tenantId, localizationProperty, configuration);
     this.preserveCountry = configuration.isPreserveCountry();
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
   }
 
   @Override
@@ -118,4 +118,9 @@ public class SWIFTCodeMaskingProvider extends AbstractMaskingProvider {
     }
     return swiftCodeResourceManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -53,4 +53,9 @@ public class StatesUSMaskingProvider extends AbstractMaskingProvider {
     State randomState = statesUSManager.getRandomValue();
     return randomState == null ? null : randomState.toString(state.getNameFormat());
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
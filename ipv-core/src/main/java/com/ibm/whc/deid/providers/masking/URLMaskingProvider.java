@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,7 +7,6 @@ package com.ibm.whc.deid.providers.masking;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.security.SecureRandom;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -16,6 +15,7 @@ import com.ibm.whc.deid.shared.pojo.config.masking.RedactMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.URLMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
 import com.ibm.whc.deid.util.RandomGenerators;
+import com.ibm.whc.deid.util.RandomSource;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
 
 public class URLMaskingProvider extends AbstractMaskingProvider {
@@ -33,7 +33,7 @@ public class URLMaskingProvider extends AbstractMaskingProvider {
   public URLMaskingProvider(URLMaskingProviderConfig configuration, String tenantId,
       DeidMaskingConfig deidMaskingConfig, String localizationProperty, MaskingProviderFactory maskingProviderFactory) {
     super(tenantId, localizationProperty, configuration);
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
     this.maskUsernamePassword = configuration.isMaskUsernamePassword();
     this.randomizePort = configuration.isMaskPort();
     this.preserveDomains = configuration.getPreserveDomains();
@@ -190,4 +190,9 @@ public class URLMaskingProvider extends AbstractMaskingProvider {
 
     return maskURL(url);
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
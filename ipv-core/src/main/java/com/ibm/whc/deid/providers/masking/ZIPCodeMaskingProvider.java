@@ -1,12 +1,15 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
-import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import com.ibm.whc.deid.util.RandomSource;
 import org.apache.commons.lang.StringUtils;
 import com.ibm.whc.deid.models.PostalCode;
 import com.ibm.whc.deid.shared.localization.Resource;
@@ -49,7 +52,7 @@ public class ZIPCodeMaskingProvider extends AbstractMaskingProvider {
     this.suffixTruncate = configuration.isMaskSuffixTruncate();
     this.suffixReplaceWithRandom = configuration.isMaskSuffixReplaceWithRandom();
     this.suffixReplaceWithValidOnly = configuration.isMaskSuffixReplaceWithValidOnly();
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
   }
 
   @Override
@@ -59,8 +62,33 @@ public class ZIPCodeMaskingProvider extends AbstractMaskingProvider {
       return null;
     }
 
+    return mask(identifier, getZIPCodeManager(), null);
+  }
+
+  @Override
+  public List<String> maskBatch(List<String> identifiers) {
     ZIPCodeManager zipCodeManager = getZIPCodeManager();
+    boolean neighbor = replaceWithNeighbor && replaceWithNeighborNearestCount > 0;
 
+    if (!neighbor && !suffixReplaceWithRandom && !isUnexpectedValueHandlingRandom()) {
+      // nothing is chosen at random, so the same input always has the same result
+      return maskDistinct(identifiers,
+          identifier -> identifier == null ? mask(identifier)
+              : mask(identifier, zipCodeManager, null));
+    }
+
+    // the neighboring ZIP codes are found once for each distinct ZIP code in the batch
+    Map<String, List<PostalCode>> neighbors = neighbor ? new HashMap<>() : null;
+    List<String> masked = new ArrayList<>(identifiers.size());
+    for (String identifier : identifiers) {
+      masked.add(identifier == null ? mask(identifier)
+          : mask(identifier, zipCodeManager, neighbors));
+    }
+    return masked;
+  }
+
+  private String mask(String identifier, ZIPCodeManager zipCodeManager,
+      Map<String, List<PostalCode>> neighbors) {
     if (identifier.length() != zipCodeManager.getZipCodeLength(countryCode)) {
       return applyUnexpectedValueHandling(identifier, () -> {
         String key = zipCodeManager.getRandomKey(countryCode);
@@ -72,8 +100,14 @@ public class ZIPCodeMaskingProvider extends AbstractMaskingProvider {
     // ZIP code
     if (replaceWithNeighbor && replaceWithNeighborNearestCount > 0) {
       PostalCodeManager postalCodeManager = getPostalCodeManager();
-      List<PostalCode> nearest =
-          postalCodeManager.getClosestPostalCodes(identifier, replaceWithNeighborNearestCount);
+      List<PostalCode> nearest = neighbors == null ? null : neighbors.get(identifier);
+      if (nearest == null) {
+        nearest =
+            postalCodeManager.getClosestPostalCodes(identifier, replaceWithNeighborNearestCount);
+        if (neighbors != null) {
+          neighbors.put(identifier, nearest);
+        }
+      }
       if (nearest.size() > 0) {
         identifier = nearest.get(random.nextInt(nearest.size())).getName();
       } else {
@@ -165,4 +199,9 @@ public class ZIPCodeMaskingProvider extends AbstractMaskingProvider {
     }
     return zipCodeResourceManager;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return !hasSeededRandom();
+  }
 }
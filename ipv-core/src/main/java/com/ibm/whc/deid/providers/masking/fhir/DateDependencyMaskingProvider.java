@@ -97,14 +97,14 @@ public class DateDependencyMaskingProvider extends AbstractMaskingProvider {
 
     String maskedString;
 
-    DateTimeParseResult parseResult = dateTimeIdentifier.parse(identifier);
+    DateTimeParseResult parseResult = parse(identifier);
     if (parseResult == null) {
       return applyUnexpectedValueHandling(identifier,
           () -> RandomGenerators.generateRandomDate(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
     }
     TemporalAccessor d = parseResult.getValue();
     
-    DateTimeParseResult compareParseResult = dateTimeIdentifier.parse(targetDate);
+    DateTimeParseResult compareParseResult = parse(targetDate);
     if (compareParseResult == null) {
       return applyUnexpectedValueHandling(identifier,
           () -> RandomGenerators.generateRandomDate(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
@@ -142,8 +142,7 @@ public class DateDependencyMaskingProvider extends AbstractMaskingProvider {
     if (datetimeInstant != null) {
       long daysBetween = Math.abs(ChronoUnit.DAYS.between(datetimeInstant, compareInstant));
       if (daysBetween <= dateYearDeleteNDaysValue) {
-        maskedString = String.format("%02d/%02d", d.get(ChronoField.DAY_OF_MONTH),
-            d.get(ChronoField.MONTH_OF_YEAR));
+        maskedString = deleteYear(identifier, parseResult);
       } else {
         maskedString = identifier;
       }
@@ -151,8 +150,7 @@ public class DateDependencyMaskingProvider extends AbstractMaskingProvider {
     } else {
       long daysBetween = Math.abs(ChronoUnit.DAYS.between(datetimeLocal, compareLocal));
       if (daysBetween <= dateYearDeleteNDaysValue) {
-        maskedString = String.format("%02d/%02d", d.get(ChronoField.DAY_OF_MONTH),
-            d.get(ChronoField.MONTH_OF_YEAR));
+        maskedString = deleteYear(identifier, parseResult);
       } else {
         maskedString = identifier;
       }
@@ -160,4 +158,36 @@ public class DateDependencyMaskingProvider extends AbstractMaskingProvider {
 
     return maskedString;
   }
+
+  /**
+   * Parses a date, which can also be a FHIR partial date, with a year or a year and month.
+   *
+   * @return the parse result or <i>null</i> if the value is not recognized
+   */
+  private static DateTimeParseResult parse(String value) {
+    DateTimeParseResult result = dateTimeIdentifier.parse(value);
+    return result != null ? result : dateTimeIdentifier.parsePartialDate(value);
+  }
+
+  /**
+   * Removes the year from a parsed date. A year and month keeps only its month, while a year alone
+   * leaves nothing and is treated as unexpected input.
+   */
+  private String deleteYear(String identifier, DateTimeParseResult parseResult) {
+    TemporalAccessor d = parseResult.getValue();
+    if (parseResult.hasComponent(ChronoUnit.DAYS)) {
+      return String.format("%02d/%02d", d.get(ChronoField.DAY_OF_MONTH),
+          d.get(ChronoField.MONTH_OF_YEAR));
+    }
+    if (parseResult.hasComponent(ChronoUnit.MONTHS)) {
+      return String.format("%02d", d.get(ChronoField.MONTH_OF_YEAR));
+    }
+    return applyUnexpectedValueHandling(identifier,
+        () -> RandomGenerators.generateRandomDate(parseResult.getFormatter()));
+  }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
@@ -133,21 +133,11 @@ public class FHIRMaskingProvider implements ComplexMaskingProvider, Serializable
       return new ReferableNode(input.getIdentifier(), node);
     }).collect(Collectors.toList());
 
-    // call the global processor, if configured
-    if (!toMask.isEmpty() && this.gpConfig != null
-        && GlobalProcessorConfig.DEFAULT_RULE_SET.equals(this.gpConfig.getRuleSet())) {
-      toMask = new GlobalProcessorFactory().getGlobalProcessor().processBatch(toMask);
-    }
-
     // mask each JSON document
-    List<ReferableNode> haveMasked = maskResources(toMask);
-
-    // filter out any null results
-    haveMasked = haveMasked.stream().filter(maskedResource -> maskedResource.getNode() != null)
-        .collect(Collectors.toList());
+    List<ReferableNode> haveMasked = maskNodesWithBatch(toMask, jobId);
 
     // convert masked JSON back to string
-    List<ReferableData> toReturn = toMask.stream().map(input -> {
+    List<ReferableData> toReturn = haveMasked.stream().map(input -> {
       ReferableData serializedNode = null;
       try {
         serializedNode = new ReferableData(input.getIdentifier(),
@@ -163,6 +153,51 @@ public class FHIRMaskingProvider implements ComplexMaskingProvider, Serializable
     return toReturn;
   }
 
+  /**
+   * Documents can be masked concurrently when all the masking providers support it and no global
+   * processor, which processes the batch as a whole, is configured.
+   */
+  @Override
+  public boolean supportsConcurrentMasking() {
+    if (this.gpConfig != null
+        && GlobalProcessorConfig.DEFAULT_RULE_SET.equals(this.gpConfig.getRuleSet())) {
+      return false;
+    }
+    for (MaskingProviderBuilder builder : maskingProviderMap.values()) {
+      if (!builder.supportsConcurrentMasking()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void dropCache() {
+    for (MaskingProviderBuilder builder : maskingProviderMap.values()) {
+      builder.dropCache();
+    }
+  }
+
+  /**
+   * Entry point for callers that hold parsed JSON documents. The documents are masked in place and
+   * returned in the order given.
+   */
+  @Override
+  public List<ReferableNode> maskNodesWithBatch(List<ReferableNode> payloadData, String jobId) {
+    List<ReferableNode> toMask = payloadData;
+
+    // call the global processor, if configured
+    if (!toMask.isEmpty() && this.gpConfig != null
+        && GlobalProcessorConfig.DEFAULT_RULE_SET.equals(this.gpConfig.getRuleSet())) {
+      toMask = new GlobalProcessorFactory().getGlobalProcessor().processBatch(toMask);
+    }
+
+    // mask each JSON document
+    maskResources(toMask);
+
+    return toMask;
+  }
+
   /**
    * Reads masking configuration to get all the resources
    *
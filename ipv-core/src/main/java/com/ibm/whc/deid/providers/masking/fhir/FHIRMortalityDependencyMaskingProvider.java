@@ -129,6 +129,12 @@ public class FHIRMortalityDependencyMaskingProvider extends AbstractMaskingProvi
     }
   }
 
+  @Override
+  public boolean changesRelatedNodes() {
+    // the related boolean property is set or removed when the datetime property is masked
+    return true;
+  }
+
   protected void maskDateTime(MaskingActionInputIdentifier i, ObjectNode parent) {
     // The datetime value of this node will always be removed.
     // Determine whether the related boolean property should be set to True or
@@ -244,4 +250,9 @@ public class FHIRMortalityDependencyMaskingProvider extends AbstractMaskingProvi
     }
     return date;
   }
+
+  @Override
+  public boolean supportsConcurrentMasking() {
+    return true;
+  }
 }
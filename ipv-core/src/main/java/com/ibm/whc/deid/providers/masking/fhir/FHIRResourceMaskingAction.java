@@ -16,6 +16,7 @@ public class FHIRResourceMaskingAction implements Serializable {
   private final String fullPath;
   private final String path;
   private final String[] paths;
+  private final MaskingPathPlan pathPlan;
 
   private final MaskingProvider maskingProvider;
 
@@ -34,6 +35,13 @@ public class FHIRResourceMaskingAction implements Serializable {
     return pathsReturned;
   }
 
+  /**
+   * @return the compiled form of the path to which this action applies
+   */
+  public MaskingPathPlan getPathPlan() {
+    return pathPlan;
+  }
+
   public MaskingProvider getMaskingProvider() {
     return maskingProvider;
   }
@@ -56,6 +64,7 @@ public class FHIRResourceMaskingAction implements Serializable {
         this.paths = path.split("/");
       }
     }
+    this.pathPlan = new MaskingPathPlan(this.paths, path.contains("=="));
     this.maskingProvider = maskingProvider;
   }
 
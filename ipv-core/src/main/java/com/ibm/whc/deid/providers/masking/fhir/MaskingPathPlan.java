@@ -0,0 +1,707 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fhir;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ibm.whc.deid.providers.masking.MaskingProvider;
+import com.ibm.whc.deid.providers.masking.util.JsonNodeIdentityWrapper;
+
+/**
+ * Compiled form of the path of a {@link FHIRResourceMaskingAction}.
+ *
+ * <p>
+ * The path is parsed once, when the masking action is created, into a sequence of steps. The steps
+ * are then applied directly to the nodes of each document, so no string splitting, concatenation,
+ * or regular expression matching is performed while documents are being masked.
+ *
+ * <p>
+ * Supported path elements are:
+ * <ul>
+ * <li>field - select the named child, or every member of the named child if it is an array</li>
+ * <li>field[i] - select the member at offset i of the named array</li>
+ * <li>field[*] - select every member of the named array</li>
+ * <li>field[start,end] or field[start,*] - select the members in the given range of offsets</li>
+ * <li>field[{i,j,k}] - select the members at the given offsets</li>
+ * <li>field(conditionName==conditionValue) - as the final path element, select the named child of
+ * each array member having a sibling that satisfies the given condition</li>
+ * </ul>
+ *
+ * <p>
+ * Instances of this class are immutable and can be shared by multiple threads.
+ */
+public final class MaskingPathPlan implements Serializable {
+
+  private static final long serialVersionUID = -3981556237190254315L;
+
+  private static final Pattern ARRAY_PATTERN = Pattern.compile("(\\w+)(\\[)(.*)(\\])");
+  private static final Pattern OFFSET_PATTERN = Pattern.compile("(\\w+)(\\[)([0-9]+)(\\])");
+  private static final Pattern ALL_PATTERN = Pattern.compile("\\*+");
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("[0-9]+");
+  private static final Pattern RANGE_PATTERN = Pattern.compile("([0-9]+)(,)([0-9]+|\\*+)");
+  private static final Pattern LIST_PATTERN = Pattern.compile("(\\{)([0-9]+,?)+(\\})");
+  private static final Pattern BRACKETED_PATTERN = Pattern.compile("(.*)(\\[)(.*)(\\])(.*)");
+  private static final Pattern WORD_PATTERN = Pattern.compile("\\w+");
+
+  /**
+   * Number of array member labels such as <i>name[3]</i> computed in advance for each step.
+   */
+  private static final int CACHED_LABELS = 16;
+
+  enum StepType {
+    /**
+     * A named child, expanded to each of its members if the child is an array.
+     */
+    FIELD,
+    /**
+     * A specific offset in a named array.
+     */
+    INDEX,
+    /**
+     * A specific set of offsets in a named array.
+     */
+    INDEX_SET,
+    /**
+     * A range of offsets in a named array.
+     */
+    RANGE,
+    /**
+     * All offsets in a named array.
+     */
+    WILDCARD
+  }
+
+  /**
+   * A single element of a compiled path.
+   */
+  static final class Step implements Serializable {
+
+    private static final long serialVersionUID = 6519425374815917853L;
+
+    final StepType type;
+    final String name;
+    // whether name[offset] can be resolved to a member of the named array
+    final boolean indexable;
+    // name of the containing array if the name itself looks like an array reference
+    final String bracketedParent;
+    // INDEX and INDEX_SET offsets and the labels for those offsets as given in the rule
+    final int[] indices;
+    final String[] indexLabels;
+    // RANGE bounds, rangeEnd is negative for an open-ended range
+    final int rangeStart;
+    final int rangeEnd;
+    // labels for the leading array offsets
+    final String[] labels;
+
+    Step(StepType type, String name, int[] indices, String[] indexLabels, int rangeStart,
+        int rangeEnd) {
+      this.type = type;
+      this.name = name;
+      this.indexable = WORD_PATTERN.matcher(name).matches();
+      this.bracketedParent = type == StepType.FIELD && BRACKETED_PATTERN.matcher(name).matches()
+          ? name.substring(0, name.indexOf('['))
+          : null;
+      this.indices = indices;
+      this.indexLabels = indexLabels;
+      this.rangeStart = rangeStart;
+      this.rangeEnd = rangeEnd;
+      if (indexable && type != StepType.INDEX && type != StepType.INDEX_SET) {
+        labels = new String[CACHED_LABELS];
+        for (int i = 0; i < CACHED_LABELS; i++) {
+          labels[i] = buildLabel(i);
+        }
+      } else {
+        labels = null;
+      }
+    }
+
+    static Step field(String name) {
+      return new Step(StepType.FIELD, name, null, null, 0, 0);
+    }
+
+    /**
+     * Obtains the offset into the named array identified by the given choice.
+     *
+     * @param choice for INDEX and INDEX_SET steps, the position in the list of offsets, otherwise
+     *        the offset itself or -1 for the named child itself
+     *
+     * @return the offset, or -1 if the step refers to the named child itself
+     */
+    int offset(int choice) {
+      return indices == null ? choice : indices[choice];
+    }
+
+    /**
+     * Obtains the label by which the node identified by the given choice is known in its parent.
+     *
+     * @param choice see {@link #offset(int)}
+     *
+     * @return the name, for named children, or the name followed by the offset in brackets
+     */
+    String label(int choice) {
+      if (indexLabels != null) {
+        return indexLabels[choice];
+      }
+      if (choice < 0) {
+        return name;
+      }
+      return labels != null && choice < labels.length ? labels[choice] : buildLabel(choice);
+    }
+
+    /**
+     * Determines whether this step selects the same nodes as the given step.
+     *
+     * @param other the step to compare
+     *
+     * @return <i>true</i> if both steps select the same nodes using the same labels
+     */
+    boolean sameAs(Step other) {
+      return type == other.type && name.equals(other.name) && rangeStart == other.rangeStart
+          && rangeEnd == other.rangeEnd && Arrays.equals(indices, other.indices)
+          && Arrays.equals(indexLabels, other.indexLabels);
+    }
+
+    private String buildLabel(int offset) {
+      return new StringBuilder(name.length() + 6).append(name).append('[').append(offset)
+          .append(']').toString();
+    }
+
+    /**
+     * Obtains the node identified by the given choice within the given node.
+     *
+     * @param node the current node, possibly <i>null</i>
+     * @param choice see {@link #offset(int)}
+     *
+     * @return the identified node or <i>null</i> if no such node exists
+     */
+    JsonNode lookup(JsonNode node, int choice) {
+      if (node == null) {
+        return null;
+      }
+      int offset = offset(choice);
+      if (offset < 0) {
+        return node.get(name);
+      }
+      if (!indexable) {
+        return null;
+      }
+      JsonNode array = node.get(name);
+      return array != null && array.isArray() ? array.get(offset) : null;
+    }
+  }
+
+  private final Step[] steps;
+  // true if a step specifies an offset that is not valid so that nothing can match this path
+  private final boolean matchesNothing;
+
+  // array query support - node names leading to the array and the condition applied to its members
+  private final boolean query;
+  private final String[] queryPrefix;
+  private final Step queryStep;
+  private final String conditionName;
+  private final String conditionValue;
+  private final boolean conditionValid;
+
+  /**
+   * Instantiates a compiled path.
+   *
+   * @param paths the non-null elements of the path
+   * @param query <i>true</i> if the final element of the path is an array query condition of the
+   *        form <i>field(name==value)</i>
+   */
+  public MaskingPathPlan(String[] paths, boolean query) {
+    this.query = query;
+    if (query) {
+      this.steps = new Step[0];
+      this.matchesNothing = false;
+      List<String> prefix = new ArrayList<>(paths.length);
+      String conditionElement = null;
+      for (String path : paths) {
+        if (path.contains("==")) {
+          conditionElement = path;
+        } else {
+          prefix.add(path);
+        }
+      }
+      this.queryPrefix = prefix.toArray(new String[prefix.size()]);
+
+      String dataName = null;
+      String name = null;
+      String value = null;
+      if (conditionElement != null) {
+        String[] arrayElementAndCondition = conditionElement.split("\\(");
+        dataName = arrayElementAndCondition[0].trim();
+        if (arrayElementAndCondition.length > 1) {
+          String[] condition =
+              arrayElementAndCondition[1].trim().replace(")", "").split("==");
+          if (condition.length > 1) {
+            name = condition[0].trim();
+            value = condition[1].trim();
+          }
+        }
+      }
+      this.conditionValid = name != null;
+      this.conditionName = name;
+      this.conditionValue = value;
+      this.queryStep = dataName == null ? null : compileQueryStep(dataName);
+
+    } else {
+      this.queryPrefix = null;
+      this.queryStep = null;
+      this.conditionName = null;
+      this.conditionValue = null;
+      this.conditionValid = false;
+
+      List<Step> stepList = new ArrayList<>(paths.length);
+      boolean valid = true;
+      for (String path : paths) {
+        if (path.isEmpty()) {
+          continue;
+        }
+        Step step = compileStep(path);
+        if (step == null) {
+          valid = false;
+        } else {
+          stepList.add(step);
+        }
+      }
+      this.steps = stepList.toArray(new Step[stepList.size()]);
+      this.matchesNothing = !valid;
+    }
+  }
+
+  /**
+   * Compiles a single path element.
+   *
+   * @param path a non-empty path element
+   *
+   * @return the compiled step or <i>null</i> if the element contains an array specification that
+   *         is not supported and therefore cannot match any node
+   */
+  private static Step compileStep(String path) {
+    Matcher matcher = ARRAY_PATTERN.matcher(path);
+    if (!matcher.find()) {
+      return Step.field(path);
+    }
+
+    String name = matcher.group(1);
+    String arrayIndex = matcher.group(3).replaceAll("\\s", "");
+    try {
+      if (ALL_PATTERN.matcher(arrayIndex).matches()) {
+        return new Step(StepType.WILDCARD, name, null, null, 0, 0);
+      }
+      if (NUMBER_PATTERN.matcher(arrayIndex).matches()) {
+        return new Step(StepType.INDEX, name, new int[] {Integer.parseInt(arrayIndex)},
+            new String[] {name + "[" + arrayIndex + "]"}, 0, 0);
+      }
+      if (RANGE_PATTERN.matcher(arrayIndex).matches()) {
+        String[] parts = arrayIndex.split(",");
+        int start = Integer.parseInt(parts[0]);
+        int end = NUMBER_PATTERN.matcher(parts[1]).matches() ? Integer.parseInt(parts[1]) : -1;
+        return new Step(StepType.RANGE, name, null, null, start, end);
+      }
+      if (LIST_PATTERN.matcher(arrayIndex).matches()) {
+        String[] members = arrayIndex.substring(1, arrayIndex.length() - 1).split(",");
+        List<String> labels = new ArrayList<>(members.length);
+        List<Integer> offsets = new ArrayList<>(members.length);
+        for (String member : members) {
+          if (NUMBER_PATTERN.matcher(member).matches()) {
+            try {
+              offsets.add(Integer.valueOf(member));
+              labels.add(name + "[" + member + "]");
+            } catch (NumberFormatException e) {
+              // offset too large to exist in any array - member can never be found
+            }
+          }
+        }
+        int[] indices = new int[offsets.size()];
+        for (int i = 0; i < indices.length; i++) {
+          indices[i] = offsets.get(i).intValue();
+        }
+        return new Step(StepType.INDEX_SET, name, indices,
+            labels.toArray(new String[labels.size()]), 0, 0);
+      }
+    } catch (NumberFormatException e) {
+      // offset too large to exist in any array
+    }
+    return null;
+  }
+
+  /**
+   * Compiles the name of the node selected from array members by an array query condition.
+   *
+   * @param dataName the non-null name
+   *
+   * @return the compiled step or <i>null</i> if the name can never be found
+   */
+  private static Step compileQueryStep(String dataName) {
+    if (OFFSET_PATTERN.matcher(dataName).matches()) {
+      int open = dataName.indexOf('[');
+      try {
+        int offset = Integer.parseInt(dataName.substring(open + 1, dataName.length() - 1));
+        return new Step(StepType.INDEX, dataName.substring(0, open), new int[] {offset},
+            new String[] {dataName}, 0, 0);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return Step.field(dataName);
+  }
+
+  /**
+   * @return <i>true</i> if this path ends in an array query condition
+   */
+  public boolean isQuery() {
+    return query;
+  }
+
+  /**
+   * @return <i>true</i> if this path consists only of steps that can be applied together with the
+   *         steps of other paths in a {@link MaskingPathTrie}
+   */
+  boolean isMergeable() {
+    return !query && !matchesNothing && steps.length > 0;
+  }
+
+  /**
+   * @return the number of steps in this path
+   */
+  int size() {
+    return steps.length;
+  }
+
+  /**
+   * @param k the position of the step
+   *
+   * @return the step at the given position
+   */
+  Step step(int k) {
+    return steps[k];
+  }
+
+  /**
+   * Identifies the leaf nodes in the given document selected by this path.
+   *
+   * @param root the root node of the document
+   * @param provider the masking provider to associate with each selected node
+   * @param resourceType message type assigned to the document
+   * @param resourceId an identifier for the document
+   * @param maskedConditionNamedNodes array members already selected by an array query rule with a
+   *        specific condition name, which are therefore not selected by a wildcard condition - not
+   *        used and can be <i>null</i> if this path is not an array query
+   * @param output the list to which identifiers for the selected nodes are added
+   */
+  public void collect(JsonNode root, MaskingProvider provider, String resourceType,
+      String resourceId, Set<JsonNodeIdentityWrapper> maskedConditionNamedNodes,
+      List<MaskingActionInputIdentifier> output) {
+    Walk walk = new Walk(root, provider, resourceType, resourceId, output);
+    if (query) {
+      walk.query(maskedConditionNamedNodes);
+    } else if (!matchesNothing) {
+      if (steps.length == 0) {
+        walk.emit(root, root, null, -1);
+      } else {
+        walk.walk(0, root);
+      }
+    }
+  }
+
+  /**
+   * Identifies the leaf nodes selected by the steps of this path that follow an array member that
+   * is itself an array.
+   *
+   * @param nestedStep the position of the step that reached the nested array
+   * @param nested the nested array
+   * @param root the root node of the document
+   * @param provider the masking provider to associate with each selected node
+   * @param resourceType message type assigned to the document
+   * @param resourceId an identifier for the document
+   * @param output the list to which identifiers for the selected nodes are added
+   */
+  void collectNested(int nestedStep, JsonNode nested, JsonNode root, MaskingProvider provider,
+      String resourceType, String resourceId, List<MaskingActionInputIdentifier> output) {
+    new Walk(root, provider, resourceType, resourceId, output).expandNested(nestedStep + 1,
+        nestedStep, nested);
+  }
+
+  /**
+   * Records the leaf nodes at the end of a path.
+   *
+   * @param node the parent of the value node
+   * @param value the node reached by the final step
+   * @param step the final step or <i>null</i> if the path has no steps
+   * @param choice see {@link Step#offset(int)}
+   * @param root the root node of the document
+   * @param provider the masking provider to associate with each selected node
+   * @param resourceType message type assigned to the document
+   * @param resourceId an identifier for the document
+   * @param output the list to which identifiers for the selected nodes are added
+   */
+  static void emit(JsonNode node, JsonNode value, Step step, int choice, JsonNode root,
+      MaskingProvider provider, String resourceType, String resourceId,
+      List<MaskingActionInputIdentifier> output) {
+    if (value.isObject()) {
+      return;
+    }
+    String label = step == null ? "" : step.label(choice);
+    if (value.isArray()) {
+      int size = value.size();
+      for (int offset = 0; offset < size; offset++) {
+        JsonNode member = value.get(offset);
+        if (member.isNull() || member.isObject() || member.isArray()) {
+          continue;
+        }
+        StringBuilder buffer = new StringBuilder(label.length() + 6);
+        buffer.append(label).append('[').append(offset).append(']');
+        output.add(new MaskingActionInputIdentifier(provider, member, value, buffer.toString(),
+            resourceType, resourceId, root));
+      }
+
+    } else if (!value.isNull()) {
+      JsonNode parent = node;
+      if (step != null) {
+        if (step.offset(choice) >= 0) {
+          parent = node.get(step.name);
+        } else if (step.bracketedParent != null) {
+          parent = node.get(step.bracketedParent);
+        }
+      }
+      output.add(new MaskingActionInputIdentifier(provider, value, parent, label, resourceType,
+          resourceId, root));
+    }
+  }
+
+  /**
+   * State of the application of this path to a single document.
+   */
+  private final class Walk {
+
+    private final JsonNode root;
+    private final MaskingProvider provider;
+    private final String resourceType;
+    private final String resourceId;
+    private final List<MaskingActionInputIdentifier> output;
+    // the current choice at each step - see Step.offset()
+    private final int[] choices;
+    private final int last;
+
+    Walk(JsonNode root, MaskingProvider provider, String resourceType, String resourceId,
+        List<MaskingActionInputIdentifier> output) {
+      this.root = root;
+      this.provider = provider;
+      this.resourceType = resourceType;
+      this.resourceId = resourceId;
+      this.output = output;
+      this.choices = new int[steps.length];
+      this.last = steps.length - 1;
+    }
+
+    /**
+     * Applies the step at the given position to the given node.
+     *
+     * @param k the position of the step
+     * @param node the node reached by the preceding steps
+     */
+    void walk(int k, JsonNode node) {
+      Step step = steps[k];
+      JsonNode child = node.get(step.name);
+      JsonNode array = child != null && child.isArray() ? child : null;
+      switch (step.type) {
+        case FIELD:
+          if (array == null) {
+            advance(k, node, -1, child);
+          } else {
+            int size = array.size();
+            for (int j = 0; j < size; j++) {
+              advance(k, node, j, step.indexable ? array.get(j) : null);
+            }
+          }
+          break;
+        case WILDCARD:
+          if (array != null) {
+            int size = array.size();
+            for (int j = 0; j < size; j++) {
+              advance(k, node, j, array.get(j));
+            }
+          }
+          break;
+        case RANGE:
+          if (array != null) {
+            int size = array.size();
+            int end = step.rangeEnd < 0 ? size - 1 : step.rangeEnd;
+            for (int j = step.rangeStart; j <= end && j < size; j++) {
+              advance(k, node, j, array.get(j));
+            }
+          }
+          break;
+        case INDEX:
+        case INDEX_SET:
+          for (int j = 0; j < step.indices.length; j++) {
+            advance(k, node, j, array == null ? null : array.get(step.indices[j]));
+          }
+          break;
+        default:
+          throw new IllegalStateException(step.type.name());
+      }
+    }
+
+    private void advance(int k, JsonNode node, int choice, JsonNode value) {
+      choices[k] = choice;
+      if (value == null) {
+        return;
+      }
+      if (k == last) {
+        emit(node, value, steps[k], choice);
+      } else if (value.isObject()) {
+        walk(k + 1, value);
+      } else if (value.isArray()) {
+        // an array member that is itself an array - its members are visited once the choices
+        // for the remaining steps are determined
+        expandNested(k + 1, k, value);
+      }
+    }
+
+    /**
+     * Determines the choices for the remaining steps after an array member that is itself an array
+     * has been reached. Such steps are applied by name only and cannot be expanded based on the
+     * content of the document.
+     *
+     * @param k the position of the step
+     * @param nestedStep the position of the step that reached the nested array
+     * @param nested the nested array
+     */
+    void expandNested(int k, int nestedStep, JsonNode nested) {
+      if (k > last) {
+        for (JsonNode member : nested) {
+          resolve(nestedStep + 1, member);
+        }
+        return;
+      }
+      Step step = steps[k];
+      switch (step.type) {
+        case FIELD:
+          choices[k] = -1;
+          expandNested(k + 1, nestedStep, nested);
+          break;
+        case INDEX:
+        case INDEX_SET:
+          for (int j = 0; j < step.indices.length; j++) {
+            choices[k] = j;
+            expandNested(k + 1, nestedStep, nested);
+          }
+          break;
+        default:
+          // wildcards and ranges require the array to be located
+          break;
+      }
+    }
+
+    private void resolve(int k, JsonNode node) {
+      Step step = steps[k];
+      JsonNode value = step.lookup(node, choices[k]);
+      if (value == null) {
+        return;
+      }
+      if (k == last) {
+        emit(node, value, step, choices[k]);
+      } else if (value.isArray()) {
+        for (JsonNode member : value) {
+          resolve(k + 1, member);
+        }
+      } else if (value.isObject()) {
+        resolve(k + 1, value);
+      }
+    }
+
+    void emit(JsonNode node, JsonNode value, Step step, int choice) {
+      MaskingPathPlan.emit(node, value, step, choice, root, provider, resourceType, resourceId,
+          output);
+    }
+
+    /**
+     * Identifies target nodes for paths of the form
+     * <i>/arrayNode/valueNode(siblingNode==siblingValue)</i>.
+     *
+     * <p>
+     * Rules are specified with specific condition names followed by the wild card * condition
+     * name, for example <i>/telecom/value(system==phone)</i> and then
+     * <i>/telecom/value(*==*)</i>. Nodes selected by a specific condition are recorded so that
+     * they are not selected again by a wild card rule.
+     *
+     * @param maskedConditionNamedNodes nodes already selected by specific conditions
+     */
+    void query(Set<JsonNodeIdentityWrapper> maskedConditionNamedNodes) {
+      List<JsonNode> nodeList = new ArrayList<>();
+      for (String name : queryPrefix) {
+        // as in previous releases, when no nodes were found by the previous element the search
+        // for the current element starts again from the root
+        if (nodeList.isEmpty()) {
+          JsonNode arrayNode = root.get(name);
+          if (arrayNode == null || arrayNode.isNull()) {
+            // the document does not contain the array node or its parent - the rule does not apply
+            return;
+          }
+          addMembers(arrayNode, nodeList);
+        } else {
+          List<JsonNode> childNodeList = new ArrayList<>();
+          for (JsonNode subNode : nodeList) {
+            JsonNode arrayNode = subNode.get(name);
+            if (arrayNode != null && !arrayNode.isNull()) {
+              addMembers(arrayNode, childNodeList);
+            }
+          }
+          nodeList = childNodeList;
+        }
+      }
+
+      if (!conditionValid) {
+        throw new IllegalArgumentException("invalid array query condition in masking rule path");
+      }
+
+      for (JsonNode elementNode : nodeList) {
+        if ("*".equals(conditionName)
+            && !maskedConditionNamedNodes.contains(new JsonNodeIdentityWrapper(elementNode))) {
+          // process the node if it has not already been masked by a specified condition name
+          emitQuery(elementNode);
+
+        } else if (elementNode.has(conditionName)) {
+          String value = elementNode.get(conditionName).asText();
+          if (value.equals(conditionValue) || ("*".equals(conditionValue)
+              && !maskedConditionNamedNodes.contains(new JsonNodeIdentityWrapper(elementNode)))) {
+            maskedConditionNamedNodes.add(new JsonNodeIdentityWrapper(elementNode));
+            emitQuery(elementNode);
+          }
+        }
+      }
+    }
+
+    private void addMembers(JsonNode arrayNode, List<JsonNode> nodeList) {
+      if (arrayNode.isObject()) {
+        nodeList.add(arrayNode);
+      } else {
+        for (JsonNode childNode : arrayNode) {
+          nodeList.add(childNode);
+        }
+      }
+    }
+
+    private void emitQuery(JsonNode elementNode) {
+      if (queryStep != null) {
+        int choice = queryStep.type == StepType.INDEX ? 0 : -1;
+        JsonNode value = queryStep.lookup(elementNode, choice);
+        if (value != null) {
+          emit(elementNode, value, queryStep, choice);
+        }
+      }
+    }
+  }
+}
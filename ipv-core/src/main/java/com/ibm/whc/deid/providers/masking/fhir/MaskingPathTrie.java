@@ -0,0 +1,285 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fhir;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ibm.whc.deid.providers.masking.fhir.MaskingPathPlan.Step;
+
+/**
+ * The compiled paths of a sequence of masking actions merged into a single tree of path steps.
+ *
+ * <p>
+ * Steps shared by the paths of several masking actions are applied to a document only once, so the
+ * leaf nodes selected by all the merged actions are identified in a single traversal of the
+ * document rather than one traversal per action.
+ *
+ * <p>
+ * Paths that end in an array query condition are not merged, since the condition depends on the
+ * values of sibling nodes which may be changed by the masking actions that precede them.
+ *
+ * <p>
+ * Instances of this class are immutable and can be shared by multiple threads.
+ */
+final class MaskingPathTrie implements Serializable {
+
+  private static final long serialVersionUID = 2270373532402390416L;
+
+  private static final int[] NONE = new int[0];
+
+  /**
+   * A step of one or more of the merged paths.
+   */
+  private static final class Node implements Serializable {
+
+    private static final long serialVersionUID = -3424811564734416245L;
+
+    final Step step;
+    // position of the step in the merged paths
+    final int depth;
+    // the actions whose paths end at this step
+    int[] terminal = NONE;
+    // the actions whose paths continue beyond this step
+    int[] continuing = NONE;
+    Node[] children = new Node[0];
+
+    Node(Step step, int depth) {
+      this.step = step;
+      this.depth = depth;
+    }
+
+    Node child(Step childStep) {
+      for (Node child : children) {
+        if (child.step.sameAs(childStep)) {
+          return child;
+        }
+      }
+      Node child = new Node(childStep, depth + 1);
+      Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(children, 0, newChildren, 0, children.length);
+      newChildren[children.length] = child;
+      children = newChildren;
+      return child;
+    }
+  }
+
+  private final FHIRResourceMaskingAction[] actions;
+  private final boolean[] merged;
+  private final Node root;
+
+  /**
+   * Instantiates a merged tree of paths.
+   *
+   * @param actionList the masking actions in the order in which they are applied
+   * @param count the number of leading masking actions from the list to consider for merging
+   */
+  MaskingPathTrie(List<FHIRResourceMaskingAction> actionList, int count) {
+    this.actions = actionList.toArray(new FHIRResourceMaskingAction[actionList.size()]);
+    this.merged = new boolean[actions.length];
+    this.root = new Node(null, -1);
+    for (int i = 0; i < count; i++) {
+      MaskingPathPlan plan = actions[i].getPathPlan();
+      if (plan.isMergeable()) {
+        merged[i] = true;
+        Node node = root;
+        int last = plan.size() - 1;
+        for (int k = 0; k <= last; k++) {
+          node = node.child(plan.step(k));
+          if (k == last) {
+            node.terminal = append(node.terminal, i);
+          } else {
+            node.continuing = append(node.continuing, i);
+          }
+        }
+      }
+    }
+  }
+
+  private static int[] append(int[] array, int value) {
+    int[] newArray = new int[array.length + 1];
+    System.arraycopy(array, 0, newArray, 0, array.length);
+    newArray[array.length] = value;
+    return newArray;
+  }
+
+  /**
+   * @param action the position of a masking action in the list from which this object was built
+   *
+   * @return <i>true</i> if the nodes selected by the given action are identified by
+   *         {@link #collect(JsonNode, String, String)}
+   */
+  boolean isMerged(int action) {
+    return merged[action];
+  }
+
+  /**
+   * Identifies the leaf nodes in the given document selected by each of the merged paths.
+   *
+   * @param document the root node of the document
+   * @param resourceType message type assigned to the document
+   * @param resourceId an identifier for the document
+   *
+   * @return a list for each masking action in the order in which the actions were provided, which
+   *         contains the identifiers of the nodes selected by the action if the action is merged
+   *         and is otherwise <i>null</i>
+   */
+  List<List<MaskingActionInputIdentifier>> collect(JsonNode document, String resourceType,
+      String resourceId) {
+    List<List<MaskingActionInputIdentifier>> outputs = new ArrayList<>(actions.length);
+    for (int i = 0; i < actions.length; i++) {
+      outputs.add(merged[i] ? new ArrayList<>() : null);
+    }
+    new Traversal(document, resourceType, resourceId, outputs).walk(root, document);
+    return outputs;
+  }
+
+  /**
+   * Updates identifiers collected before preceding masking actions were applied so that they refer
+   * to the current nodes in the document. Identifiers of nodes that have since been set to null are
+   * removed, as such nodes would not have been selected had the path been applied at this point.
+   *
+   * @param identifiers the identifiers to update
+   */
+  static void refresh(List<MaskingActionInputIdentifier> identifiers) {
+    Iterator<MaskingActionInputIdentifier> it = identifiers.iterator();
+    while (it.hasNext()) {
+      MaskingActionInputIdentifier maii = it.next();
+      JsonNode parent = maii.getParent();
+      JsonNode current = null;
+      if (parent instanceof ObjectNode) {
+        current = parent.get(maii.getPath());
+      } else if (parent instanceof ArrayNode) {
+        int offset = offset(maii.getPath());
+        current = offset < 0 ? maii.getNode() : parent.get(offset);
+      } else {
+        // parent does not hold the node, leave the identifier as it was
+        current = maii.getNode();
+      }
+      if (current == null || current.isNull()) {
+        it.remove();
+      } else {
+        maii.setNode(current);
+      }
+    }
+  }
+
+  /**
+   * Obtains the array offset at the end of a label such as <i>name[3]</i>.
+   *
+   * @param label the label
+   *
+   * @return the offset or -1 if the label does not end with a valid offset
+   */
+  private static int offset(String label) {
+    int index = label.lastIndexOf('[');
+    int closeIndex = index < 0 ? -1 : label.indexOf(']', index);
+    if (closeIndex < 0) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(label.substring(index + 1, closeIndex));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * State of the application of the merged paths to a single document.
+   */
+  private final class Traversal {
+
+    private final JsonNode document;
+    private final String resourceType;
+    private final String resourceId;
+    private final List<List<MaskingActionInputIdentifier>> outputs;
+
+    Traversal(JsonNode document, String resourceType, String resourceId,
+        List<List<MaskingActionInputIdentifier>> outputs) {
+      this.document = document;
+      this.resourceType = resourceType;
+      this.resourceId = resourceId;
+      this.outputs = outputs;
+    }
+
+    /**
+     * Applies the steps that follow the given step to the given node.
+     *
+     * @param parentNode the step that reached the node
+     * @param node the node reached by the preceding steps
+     */
+    void walk(Node parentNode, JsonNode node) {
+      for (Node trieNode : parentNode.children) {
+        Step step = trieNode.step;
+        JsonNode child = node.get(step.name);
+        JsonNode array = child != null && child.isArray() ? child : null;
+        switch (step.type) {
+          case FIELD:
+            if (array == null) {
+              advance(trieNode, node, -1, child);
+            } else {
+              int size = array.size();
+              for (int j = 0; j < size; j++) {
+                advance(trieNode, node, j, step.indexable ? array.get(j) : null);
+              }
+            }
+            break;
+          case WILDCARD:
+            if (array != null) {
+              int size = array.size();
+              for (int j = 0; j < size; j++) {
+                advance(trieNode, node, j, array.get(j));
+              }
+            }
+            break;
+          case RANGE:
+            if (array != null) {
+              int size = array.size();
+              int end = step.rangeEnd < 0 ? size - 1 : step.rangeEnd;
+              for (int j = step.rangeStart; j <= end && j < size; j++) {
+                advance(trieNode, node, j, array.get(j));
+              }
+            }
+            break;
+          case INDEX:
+          case INDEX_SET:
+            for (int j = 0; j < step.indices.length; j++) {
+              advance(trieNode, node, j, array == null ? null : array.get(step.indices[j]));
+            }
+            break;
+          default:
+            throw new IllegalStateException(step.type.name());
+        }
+      }
+    }
+
+    private void advance(Node trieNode, JsonNode node, int choice, JsonNode value) {
+      if (value == null) {
+        return;
+      }
+      for (int action : trieNode.terminal) {
+        MaskingPathPlan.emit(node, value, trieNode.step, choice, document,
+            actions[action].getMaskingProvider(), resourceType, resourceId, outputs.get(action));
+      }
+      if (trieNode.continuing.length > 0) {
+        if (value.isObject()) {
+          walk(trieNode, value);
+        } else if (value.isArray()) {
+          // the remaining steps of each path are applied to the nested array separately
+          for (int action : trieNode.continuing) {
+            actions[action].getPathPlan().collectNested(trieNode.depth, value, document,
+                actions[action].getMaskingProvider(), resourceType, resourceId,
+                outputs.get(action));
+          }
+        }
+      }
+    }
+  }
+}
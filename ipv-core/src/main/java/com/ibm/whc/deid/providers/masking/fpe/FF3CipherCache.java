@@ -0,0 +1,95 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fpe;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import com.privacylogistics.FF3Cipher;
+
+/**
+ * Per-thread cache of encryption engines so that the AES key schedule for a given key, tweak and
+ * radix is computed once per thread rather than once per value.
+ *
+ * <p>
+ * The engines are not safe for use by multiple threads, so each thread has its own engines. Each
+ * thread keeps at most {@link #MAXIMUM_SIZE} engines, discarding the least recently used.
+ */
+final class FF3CipherCache {
+
+  static final int MAXIMUM_SIZE = 16;
+
+  private static final class CipherKey {
+
+    private final String key;
+    private final String tweak;
+    private final int radix;
+
+    CipherKey(String key, String tweak, int radix) {
+      this.key = key;
+      this.tweak = tweak;
+      this.radix = radix;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key, tweak, Integer.valueOf(radix));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CipherKey)) {
+        return false;
+      }
+      CipherKey other = (CipherKey) obj;
+      return radix == other.radix && Objects.equals(key, other.key)
+          && Objects.equals(tweak, other.tweak);
+    }
+  }
+
+  private static final ThreadLocal<Map<CipherKey, FF3Cipher>> CIPHERS =
+      ThreadLocal.withInitial(() -> new LinkedHashMap<CipherKey, FF3Cipher>(32, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CipherKey, FF3Cipher> eldest) {
+          return size() > MAXIMUM_SIZE;
+        }
+      });
+
+  private FF3CipherCache() {}
+
+  /**
+   * Obtains the current thread's encryption engine for the given keys and radix, creating it if
+   * necessary.
+   *
+   * @param key the primary encryption key
+   * @param tweak the secondary encryption key
+   * @param radix the number of distinct characters in the values to encrypt
+   *
+   * @return the encryption engine, which must be used only by the current thread
+   */
+  static FF3Cipher get(String key, String tweak, int radix) {
+    Map<CipherKey, FF3Cipher> ciphers = CIPHERS.get();
+    CipherKey cipherKey = new CipherKey(key, tweak, radix);
+    FF3Cipher cipher = ciphers.get(cipherKey);
+    if (cipher == null) {
+      cipher = new FF3Cipher(key, tweak, radix);
+      ciphers.put(cipherKey, cipher);
+    }
+    return cipher;
+  }
+
+  /**
+   * @return the number of encryption engines cached for the current thread
+   */
+  static int size() {
+    return CIPHERS.get().size();
+  }
+}
@@ -5,6 +5,9 @@
  */
 package com.ibm.whc.deid.providers.masking.fpe;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
 import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.Pad;
 import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.UsageType;
 
@@ -79,4 +82,37 @@ public interface FPEDriver {
    */
   public String encrypt(String in, String key, String tweak, Pad padding)
       throws UnsupportedLengthException, EncryptionEngineException;
+
+  /**
+   * Apply FPE upon each of the given inputs using the same keys and padding.
+   * 
+   * @param in the inputs to encrypt and format, <i>null</i> members are returned as <i>null</i>
+   * @param key the primary encryption key
+   * @param tweak the secondary encryption key
+   * @param padding strategy for data underflow
+   * @param unsupportedLengthHandler called with the input and the exception for any input that
+   *        cannot be encrypted because of its length, returns the value to use for that input
+   * 
+   * @return the encrypted and formatted results in the order of the inputs
+   * 
+   * @throws EncryptionEngineException if the encryption engine fails even though the input data is
+   *         valid
+   */
+  public default List<String> encrypt(List<String> in, String key, String tweak, Pad padding,
+      BiFunction<String, UnsupportedLengthException, String> unsupportedLengthHandler)
+      throws EncryptionEngineException {
+    List<String> output = new ArrayList<>(in.size());
+    for (String value : in) {
+      String result = null;
+      if (value != null) {
+        try {
+          result = encrypt(value, key, tweak, padding);
+        } catch (UnsupportedLengthException e) {
+          result = unsupportedLengthHandler.apply(value, e);
+        }
+      }
+      output.add(result);
+    }
+    return output;
+  }
 }
@@ -5,11 +5,9 @@
  */
 package com.ibm.whc.deid.providers.masking.fpe;
 
-import java.util.Arrays;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.Pad;
-import com.privacylogistics.FF3Cipher;
 
 /**
  * Superclass with utility functions useful for FPE operations.
@@ -21,6 +19,19 @@ public abstract class FPEDriverBase implements FPEDriver {
   protected static final char[] LETTERS = new char[] {'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i',
       'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'};
 
+  // character translation tables indexed by source character, 0 for unsupported characters
+  private static final char[] LETTERS_TO_BASE26 = buildTranslation(LETTERS, BASE26);
+  private static final char[] BASE26_TO_LETTERS = buildTranslation(BASE26, LETTERS);
+
+  private static char[] buildTranslation(char[] sourceRange, char[] targetRange) {
+    char[] translation = new char[Math.max(sourceRange[sourceRange.length - 1],
+        sourceRange[0]) + 1];
+    for (int i = 0; i < sourceRange.length; i++) {
+      translation[sourceRange[i]] = targetRange[i];
+    }
+    return translation;
+  }
+
   /**
    * Maps a given sequence of lower-case letters to digits using base 26 (0-9,a-p) where 'a' is the
    * lowest valued digit (0) and 'p' is the highest valued digit (25).
@@ -33,7 +44,7 @@ public abstract class FPEDriverBase implements FPEDriver {
    *         between 'a' and 'z' inclusive
    */
   public static String shiftLettersToBase26(String in) {
-    return convertChars(in, LETTERS, BASE26);
+    return convertChars(in, LETTERS_TO_BASE26);
   }
 
   /**
@@ -48,20 +59,21 @@ public abstract class FPEDriverBase implements FPEDriver {
    *         [0-9a-p]
    */
   public static String shiftBase26ToLetters(String in) {
-    return convertChars(in, BASE26, LETTERS);
+    return convertChars(in, BASE26_TO_LETTERS);
   }
 
-  private static String convertChars(String in, char[] sourceRange, char[] targetRange) {
-    StringBuilder buffer = new StringBuilder(in.length());
+  private static String convertChars(String in, char[] translation) {
     int length = in.length();
-    char ch;
-    int index;
+    char[] out = new char[length];
     for (int i = 0; i < length; i++) {
-      ch = in.charAt(i);
-      index = Arrays.binarySearch(sourceRange, ch);
-      buffer.append(targetRange[index]);
+      char ch = in.charAt(i);
+      char converted = ch < translation.length ? translation[ch] : 0;
+      if (converted == 0) {
+        throw new ArrayIndexOutOfBoundsException(String.valueOf(ch));
+      }
+      out[i] = converted;
     }
-    return buffer.toString();
+    return new String(out);
   }
 
   /**
@@ -128,7 +140,8 @@ public abstract class FPEDriverBase implements FPEDriver {
   }
 
   /**
-   * Calls the encryption engine to encrypt the given input.
+   * Calls the encryption engine to encrypt the given input. The engine for the given keys and
+   * radix is created once per thread and reused.
    * 
    * @param input the non-null input to encrypt. The string can consist only of characters supported
    *        by the given radix.
@@ -144,9 +157,7 @@ public abstract class FPEDriverBase implements FPEDriver {
   protected String encrypt(String input, String key, String tweak, Radix radix)
       throws EncryptionEngineException {
     try {
-      FF3Cipher cipher = new FF3Cipher(key, tweak, radix.value());
-      String encrypted = cipher.encrypt(input);
-      return encrypted;
+      return FF3CipherCache.get(key, tweak, radix.value()).encrypt(input);
     } catch (BadPaddingException | IllegalBlockSizeException e) {
       throw new EncryptionEngineException(e);
     }
@@ -6,7 +6,7 @@
 package com.ibm.whc.deid.providers.masking.util;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
@@ -18,80 +18,227 @@ import com.ibm.whc.deid.providers.masking.fhir.MaskingProviderBuilder;
 /**
  * Tracks the leaf nodes of a JSON document that are masked during masking processing so that
  * remaining leaf nodes can be processed by the provider designated for "defaultNoRuleRes".
+ *
+ * <p>
+ * Each leaf node is given a number when the document is first traversed. The leaf nodes of the same
+ * parent node are numbered consecutively, so a table keyed by the identity of the parent nodes
+ * locates the leaf nodes of any parent, and the masked leaf nodes are recorded in a bit set. The
+ * inputs for the remaining leaf nodes are only created once masking is complete.
  */
 public class NoRuleManager {
 
-  private MaskingProvider noRuleResProvider;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final MaskingProvider noRuleResProvider;
+  private final JsonNode rootNode;
+  private final String resourceId;
+  private final String resourceType;
+
+  // the leaf nodes, by number
+  private int leafCount;
+  private JsonNode[] leafNodes = new JsonNode[INITIAL_CAPACITY];
+  private JsonNode[] leafParents = new JsonNode[INITIAL_CAPACITY];
+  // the field name in an object parent or the path of an array parent
+  private String[] leafNames = new String[INITIAL_CAPACITY];
+  // the offset in an array parent or -1 for an object parent
+  private int[] leafOffsets = new int[INITIAL_CAPACITY];
+  private long[] masked;
 
-  private HashMap<NoRuleManagerHashKey, MaskingActionInputIdentifier> map = new HashMap<>(1000);
+  // open-addressing table of the parent nodes, by identity, with the range of their leaf numbers
+  private int parentCount;
+  private JsonNode[] parentNodes = new JsonNode[INITIAL_CAPACITY];
+  private int[] parentFirstLeaf = new int[INITIAL_CAPACITY];
+  private int[] parentLeafCount = new int[INITIAL_CAPACITY];
 
   public NoRuleManager(MaskingProviderBuilder.MaskingResource maskingResource, String resourceId,
       MaskingProvider noRuleResProvider) {
     this.noRuleResProvider = noRuleResProvider;
-    findLeaves(maskingResource.getJsonNode(), "", maskingResource.getJsonNode(), resourceId,
-        maskingResource.getResourceType());
+    this.rootNode = maskingResource.getJsonNode();
+    this.resourceId = resourceId;
+    this.resourceType = maskingResource.getResourceType();
+    findLeaves("", rootNode);
+    this.masked = new long[(leafCount + 63) >>> 6];
   }
 
   public void removeNodesAlreadyMasked(List<MaskingActionInputIdentifier> listToMaskPerResource) {
     if (listToMaskPerResource != null) {
       for (MaskingActionInputIdentifier inputIdentifier : listToMaskPerResource) {
-        map.remove(
-            new NoRuleManagerHashKey(inputIdentifier.getParent(), inputIdentifier.getPath()));
+        int leaf = findLeaf(inputIdentifier.getParent(), inputIdentifier.getPath());
+        if (leaf >= 0) {
+          masked[leaf >>> 6] |= 1L << leaf;
+        }
       }
     }
   }
 
   public void applyToRemainingNodes() {
-    List<MaskingActionInputIdentifier> list = new ArrayList<>(map.values());
+    List<MaskingActionInputIdentifier> list = new ArrayList<>();
+    for (int leaf = 0; leaf < leafCount; leaf++) {
+      if ((masked[leaf >>> 6] & (1L << leaf)) == 0) {
+        int offset = leafOffsets[leaf];
+        String path = offset < 0 ? leafNames[leaf] : arrayPath(leafNames[leaf], offset);
+        list.add(new MaskingActionInputIdentifier(noRuleResProvider, leafNodes[leaf],
+            leafParents[leaf], path, resourceType, resourceId, rootNode));
+      }
+    }
     noRuleResProvider.maskIdentifierBatch(list);
   }
 
-  private void findLeaves(JsonNode rootNode, String parentPath, JsonNode parentNode,
-      String resourceId, String resourceType) {
+  private static String arrayPath(String parentPath, int offset) {
+    StringBuilder buffer = new StringBuilder(parentPath.length() + 10);
+    return buffer.append(parentPath).append('[').append(offset).append(']').toString();
+  }
+
+  private void findLeaves(String parentPath, JsonNode parentNode) {
     if (parentNode != null && !parentNode.isNull()) {
 
+      // the leaf nodes of the parent are numbered before those of any child
       if (parentNode.isArray()) {
+        int first = leafCount;
         int size = parentNode.size();
         for (int i = 0; i < size; i++) {
           JsonNode childNode = parentNode.get(i);
-          if (!childNode.isNull()) {
-            StringBuilder buffer = new StringBuilder(parentPath.length() + 10);
-            buffer.append(parentPath).append('[').append(i).append(']');
-            String childPath = buffer.toString();
-            if (childNode.isArray() || childNode.isObject()) {
-              findLeaves(rootNode, childPath, childNode, resourceId, resourceType);
-            } else {
-              NoRuleManagerHashKey key = new NoRuleManagerHashKey(parentNode, childPath);
-              if (map.containsKey(key)) {
-                // this should not be possible
-                throw new RuntimeException("NoRuleManager map already has incoming object key");
-              }
-              map.put(key, new MaskingActionInputIdentifier(noRuleResProvider, childNode,
-                  parentNode, childPath, resourceType, resourceId, rootNode));
-            }
+          if (!childNode.isNull() && !childNode.isContainerNode()) {
+            addLeaf(childNode, parentNode, parentPath, i);
+          }
+        }
+        addParent(parentNode, first);
+        for (int i = 0; i < size; i++) {
+          JsonNode childNode = parentNode.get(i);
+          if (childNode.isContainerNode()) {
+            findLeaves(arrayPath(parentPath, i), childNode);
           }
         }
 
       } else if (parentNode.isObject()) {
+        int first = leafCount;
         Iterator<Entry<String, JsonNode>> it = parentNode.fields();
         while (it.hasNext()) {
           Entry<String, JsonNode> entry = it.next();
           JsonNode childNode = entry.getValue();
-          if (childNode.isNull()) {
-            continue;
-          } else if (childNode.isArray() || childNode.isObject()) {
-            findLeaves(rootNode, entry.getKey(), childNode, resourceId, resourceType);
-          } else {
-            NoRuleManagerHashKey key = new NoRuleManagerHashKey(parentNode, entry.getKey());
-            if (map.containsKey(key)) {
-              // this should not be possible
-              throw new RuntimeException("NoRuleManager map already has incoming array key");
-            }
-            map.put(key, new MaskingActionInputIdentifier(noRuleResProvider, childNode, parentNode,
-                entry.getKey(), resourceType, resourceId, rootNode));
+          if (!childNode.isNull() && !childNode.isContainerNode()) {
+            addLeaf(childNode, parentNode, entry.getKey(), -1);
+          }
+        }
+        addParent(parentNode, first);
+        it = parentNode.fields();
+        while (it.hasNext()) {
+          Entry<String, JsonNode> entry = it.next();
+          if (entry.getValue().isContainerNode()) {
+            findLeaves(entry.getKey(), entry.getValue());
           }
         }
       }
     }
   }
+
+  private void addLeaf(JsonNode node, JsonNode parent, String name, int offset) {
+    if (leafCount == leafNodes.length) {
+      int capacity = leafCount * 2;
+      leafNodes = Arrays.copyOf(leafNodes, capacity);
+      leafParents = Arrays.copyOf(leafParents, capacity);
+      leafNames = Arrays.copyOf(leafNames, capacity);
+      leafOffsets = Arrays.copyOf(leafOffsets, capacity);
+    }
+    leafNodes[leafCount] = node;
+    leafParents[leafCount] = parent;
+    leafNames[leafCount] = name;
+    leafOffsets[leafCount] = offset;
+    leafCount++;
+  }
+
+  private void addParent(JsonNode parent, int firstLeaf) {
+    if (firstLeaf == leafCount) {
+      return;
+    }
+    if (parentCount * 2 >= parentNodes.length) {
+      JsonNode[] oldNodes = parentNodes;
+      int[] oldFirst = parentFirstLeaf;
+      int[] oldCount = parentLeafCount;
+      parentNodes = new JsonNode[oldNodes.length * 2];
+      parentFirstLeaf = new int[oldNodes.length * 2];
+      parentLeafCount = new int[oldNodes.length * 2];
+      for (int i = 0; i < oldNodes.length; i++) {
+        if (oldNodes[i] != null) {
+          int slot = slot(oldNodes[i]);
+          parentNodes[slot] = oldNodes[i];
+          parentFirstLeaf[slot] = oldFirst[i];
+          parentLeafCount[slot] = oldCount[i];
+        }
+      }
+    }
+    // container nodes are never shared, so a parent is only added once
+    int slot = slot(parent);
+    parentNodes[slot] = parent;
+    parentFirstLeaf[slot] = firstLeaf;
+    parentLeafCount[slot] = leafCount - firstLeaf;
+    parentCount++;
+  }
+
+  /**
+   * @return the slot holding the given parent node or the empty slot where it would be added
+   */
+  private int slot(JsonNode parent) {
+    int mask = parentNodes.length - 1;
+    int h = System.identityHashCode(parent) * 0x9E3779B9;
+    int slot = (h ^ (h >>> 16)) & mask;
+    while (parentNodes[slot] != null && parentNodes[slot] != parent) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @return the number of the leaf node at the given path in the given parent node or -1 if the
+   *         node is not one of the original leaf nodes of the document
+   */
+  private int findLeaf(JsonNode parent, String path) {
+    if (parent == null || path == null) {
+      return -1;
+    }
+    int slot = slot(parent);
+    if (parentNodes[slot] == null) {
+      return -1;
+    }
+    int first = parentFirstLeaf[slot];
+    int end = first + parentLeafCount[slot];
+    if (leafOffsets[first] < 0) {
+      for (int leaf = first; leaf < end; leaf++) {
+        if (leafNames[leaf].equals(path)) {
+          return leaf;
+        }
+      }
+      return -1;
+    }
+    // all the leaf nodes of an array have the same parent path and ascending offsets
+    int offset = parseOffset(path, leafNames[first]);
+    if (offset < 0) {
+      return -1;
+    }
+    int leaf = Arrays.binarySearch(leafOffsets, first, end, offset);
+    return leaf < 0 ? -1 : leaf;
+  }
+
+  /**
+   * @return the offset from a path of the form <i>parentPath[offset]</i> or -1 if the path does not
+   *         have that form
+   */
+  private static int parseOffset(String path, String parentPath) {
+    int start = parentPath.length() + 1;
+    int end = path.length() - 1;
+    if (end <= start || !path.startsWith(parentPath) || path.charAt(start - 1) != '['
+        || path.charAt(end) != ']' || end - start > 9
+        || (path.charAt(start) == '0' && end - start > 1)) {
+      return -1;
+    }
+    int offset = 0;
+    for (int i = start; i < end; i++) {
+      char ch = path.charAt(i);
+      if (ch < '0' || ch > '9') {
+        return -1;
+      }
+      offset = offset * 10 + (ch - '0');
+    }
+    return offset;
+  }
 }
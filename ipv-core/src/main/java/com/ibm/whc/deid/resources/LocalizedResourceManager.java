@@ -1,11 +1,13 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.resources;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -34,7 +36,28 @@ public abstract class LocalizedResourceManager<K extends ManagedResource>
    * A map of a locale identifier (key) to a map (value) of resources related to that locale mapped
    * by the resource key
    */
-  private final HashMap<String, HashMap<String, K>> localizedResourceMapMap = new HashMap<>();
+  private HashMap<String, HashMap<String, K>> localizedResourceMapMap = new HashMap<>();
+
+  /**
+   * With packed storage, a map of a locale identifier (key) to the keys of the resources related to
+   * that locale, which replaces the map of maps when loading is complete
+   */
+  private HashMap<String, LocaleKeys> localizedKeysMap;
+
+  /**
+   * The keys of the resources related to a locale, held as ids in the key index of the manager.
+   */
+  private static final class LocaleKeys {
+    // the ids in ascending order
+    final int[] ids;
+    // the position in the list of resources for the locale of the resource with each id
+    final int[] positions;
+
+    LocaleKeys(int[] ids, int[] positions) {
+      this.ids = ids;
+      this.positions = positions;
+    }
+  }
 
 
   public LocalizedResourceManager() {
@@ -46,10 +69,82 @@ public abstract class LocalizedResourceManager<K extends ManagedResource>
   }
 
   public LocalizedResourceManager(int expectedCount, int perLocaleExpectedCount) {
-    super(expectedCount);
+    this(expectedCount, perLocaleExpectedCount, ResourceStorage.HASHED);
+  }
+
+  public LocalizedResourceManager(int expectedCount, int perLocaleExpectedCount,
+      ResourceStorage storage) {
+    super(expectedCount, storage);
     this.expectedCountPerLocale = perLocaleExpectedCount < 1 ? 16 : perLocaleExpectedCount;
   }
 
+  @Override
+  protected void finishLoading() {
+    super.finishLoading();
+    PackedStringIndex keyIndex = getKeyIndex();
+    if (keyIndex != null && localizedKeysMap == null) {
+      localizedKeysMap = new HashMap<>();
+      for (Map.Entry<String, ArrayList<K>> entry : localizedResourceListMap.entrySet()) {
+        ArrayList<K> list = entry.getValue();
+        list.trimToSize();
+        // sorting by id and then by position leaves the last resource with each key last
+        long[] idPositions = new long[list.size()];
+        for (int i = 0; i < idPositions.length; i++) {
+          long id = keyIndex.indexOf(list.get(i).getKey().toUpperCase());
+          idPositions[i] = (id << 32) | i;
+        }
+        Arrays.sort(idPositions);
+        int count = 0;
+        for (int i = 0; i < idPositions.length; i++) {
+          if (i + 1 == idPositions.length || idPositions[i] >>> 32 != idPositions[i + 1] >>> 32) {
+            idPositions[count++] = idPositions[i];
+          }
+        }
+        int[] ids = new int[count];
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+          ids[i] = (int) (idPositions[i] >>> 32);
+          positions[i] = (int) idPositions[i];
+        }
+        localizedKeysMap.put(entry.getKey(), new LocaleKeys(ids, positions));
+      }
+      localizedResourceMapMap = null;
+    }
+  }
+
+  @Override
+  protected Collection<String> getAllKeys() {
+    List<String> keys = new ArrayList<>(super.getAllKeys());
+    for (HashMap<String, K> map : localizedResourceMapMap.values()) {
+      keys.addAll(map.keySet());
+    }
+    return keys;
+  }
+
+  /**
+   * Finds the resource with the given key for the given localization code.
+   * 
+   * @param lcode the localization code in lower case
+   * @param upperCaseKey the key in upper case
+   * 
+   * @return the resource or <i>null</i> if there is no such resource
+   */
+  private K lookup(String lcode, String upperCaseKey) {
+    if (localizedKeysMap != null) {
+      LocaleKeys keys = localizedKeysMap.get(lcode);
+      if (keys != null) {
+        int id = getKeyIndex().indexOf(upperCaseKey);
+        int index = id < 0 ? -1 : Arrays.binarySearch(keys.ids, id);
+        if (index >= 0) {
+          return localizedResourceListMap.get(lcode).get(keys.positions[index]);
+        }
+      }
+      return null;
+    }
+    Map<String, K> map = localizedResourceMapMap.get(lcode);
+    return map == null ? null : map.get(upperCaseKey);
+  }
+
   /**
    * Adds a new resource associated with the given locale to the manager instance.
    * 
@@ -87,14 +182,21 @@ public abstract class LocalizedResourceManager<K extends ManagedResource>
    */
   public Set<String> getKeys(String countryCode) {
     Set<String> keys = null;
-    Map<String, K> map = null;
     if (countryCode != null) {
-      map = localizedResourceMapMap.get(countryCode.toLowerCase());
+      if (localizedKeysMap != null) {
+        LocaleKeys localeKeys = localizedKeysMap.get(countryCode.toLowerCase());
+        if (localeKeys != null) {
+          keys = getKeyIndex().subset(localeKeys.ids);
+        }
+      } else {
+        Map<String, K> map = localizedResourceMapMap.get(countryCode.toLowerCase());
+        if (map != null) {
+          keys = map.keySet();
+        }
+      }
     }
-    if (map == null) {
+    if (keys == null) {
       keys = Collections.emptySet();
-    } else {
-      keys = map.keySet();
     }
     return keys;
   }
@@ -206,10 +308,7 @@ public abstract class LocalizedResourceManager<K extends ManagedResource>
   public boolean isValidKey(String countryCode, String key) {
     boolean valid = false;
     if (countryCode != null && key != null) {
-      Map<String, K> map = localizedResourceMapMap.get(countryCode.toLowerCase());
-      if (map != null) {
-        valid = map.containsKey(key.toUpperCase());
-      }
+      valid = lookup(countryCode.toLowerCase(), key.toUpperCase()) != null;
     }
     return valid;
   }
@@ -226,10 +325,7 @@ public abstract class LocalizedResourceManager<K extends ManagedResource>
   public K getValue(String countryCode, String key) {
     K value = null;
     if (countryCode != null && key != null) {
-      Map<String, K> map = localizedResourceMapMap.get(countryCode.toLowerCase());
-      if (map != null) {
-        value = map.get(key.toUpperCase());
-      }
+      value = lookup(countryCode.toLowerCase(), key.toUpperCase());
     }
     return value;
   }
@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set of distinct strings, each identified by its position in the set.
+ *
+ * <p>
+ * The strings are held as UTF-8 bytes in a single array, in unsigned byte order, and are found by
+ * binary search. This takes a fraction of the memory of a hash table of the same strings at the
+ * cost of slower lookups.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class PackedStringIndex {
+
+  private final byte[] bytes;
+  // the start of each string in bytes, followed by the end of the last string
+  private final int[] offsets;
+
+  /**
+   * @param strings the strings to index, which can include duplicates
+   */
+  public PackedStringIndex(Collection<String> strings) {
+    byte[][] encoded = new byte[strings.size()][];
+    int count = 0;
+    for (String string : strings) {
+      encoded[count++] = string.getBytes(StandardCharsets.UTF_8);
+    }
+    Arrays.sort(encoded, Arrays::compareUnsigned);
+
+    int distinct = 0;
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      if (i == 0 || !Arrays.equals(encoded[i], encoded[distinct - 1])) {
+        encoded[distinct++] = encoded[i];
+        length += encoded[i].length;
+      }
+    }
+    bytes = new byte[length];
+    offsets = new int[distinct + 1];
+    int offset = 0;
+    for (int i = 0; i < distinct; i++) {
+      offsets[i] = offset;
+      System.arraycopy(encoded[i], 0, bytes, offset, encoded[i].length);
+      offset += encoded[i].length;
+    }
+    offsets[distinct] = offset;
+  }
+
+  /**
+   * @return the number of distinct strings in the set
+   */
+  public int size() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * @param id the position of a string in the set
+   *
+   * @return the string at the given position
+   */
+  public String get(int id) {
+    return new String(bytes, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param string the string to find
+   *
+   * @return the position of the string in the set or a negative value if the set does not contain
+   *         the string
+   */
+  public int indexOf(String string) {
+    byte[] key = string.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compare = Arrays.compareUnsigned(bytes, offsets[middle], offsets[middle + 1], key, 0,
+          key.length);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Provides an unmodifiable view of some of the strings in the set.
+   *
+   * @param ids the positions of the strings in ascending order or <i>null</i> for all the strings
+   *
+   * @return the strings at the given positions
+   */
+  public Set<String> subset(int[] ids) {
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+          private int next = 0;
+
+          @Override
+          public boolean hasNext() {
+            return next < size();
+          }
+
+          @Override
+          public String next() {
+            if (next >= size()) {
+              throw new NoSuchElementException();
+            }
+            int id = ids == null ? next : ids[next];
+            next++;
+            return get(id);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ids == null ? PackedStringIndex.this.size() : ids.length;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        if (o instanceof String) {
+          int id = indexOf((String) o);
+          return id >= 0 && (ids == null || Arrays.binarySearch(ids, id) >= 0);
+        }
+        return false;
+      }
+    };
+  }
+}
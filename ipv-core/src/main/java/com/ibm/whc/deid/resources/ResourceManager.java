@@ -1,17 +1,20 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.resources;
 
-import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import com.ibm.whc.deid.util.HashUtils;
 import com.ibm.whc.deid.util.Manager;
+import com.ibm.whc.deid.util.RandomSource;
 import com.ibm.whc.deid.utils.log.LogCodes;
 import com.ibm.whc.deid.utils.log.LogManager;
 
@@ -25,7 +28,9 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
 
   private static final LogManager logger = LogManager.getInstance();
   
-  protected final SecureRandom random = new SecureRandom();
+  protected final Random random = RandomSource.create();
+
+  private final ResourceStorage storage;
 
   /**
    * The known items stored in a list
@@ -33,22 +38,98 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
   private final ArrayList<K> resourceList;
 
   /**
-   * The known items/resources stored as a map from the resource key to the resource/item itself
+   * The known items/resources stored as a map from the resource key to the resource/item itself,
+   * which is replaced by the key index when loading completes if packed storage is used
+   */
+  private HashMap<String, K> resourceMap;
+
+  /**
+   * With packed storage, the keys of the known items once loading is complete
+   */
+  private PackedStringIndex keyIndex;
+
+  /**
+   * With packed storage, the position in the list of the item with each key in the key index, or -1
+   * if no item in the list has the key
    */
-  private final HashMap<String, K> resourceMap;
+  private int[] keyPositions;
+
+  /**
+   * With packed storage, the ids in the key index of the keys of the items in the list, or
+   * <i>null</i> if every key in the index is the key of an item in the list
+   */
+  private int[] listedIds;
 
   public ResourceManager() {
     this(-1);
   }
 
   public ResourceManager(int expectedCount) {
+    this(expectedCount, ResourceStorage.HASHED);
+  }
+
+  public ResourceManager(int expectedCount, ResourceStorage storage) {
     if (expectedCount < 1) {
       expectedCount = 16;
     }
+    this.storage = storage;
     resourceList = new ArrayList<>(expectedCount);
     resourceMap = new HashMap<>(Math.round(expectedCount / 0.75f) + 1, 0.75f);
   }
 
+  /**
+   * Completes the loading of resources into the manager instance. If the manager uses
+   * {@link ResourceStorage#PACKED} storage, the keys of the resources are moved into a
+   * {@link PackedStringIndex}.
+   * 
+   * <p>
+   * This method should only be called at the end of instance construction, after which no more
+   * resources can be added.
+   */
+  protected void finishLoading() {
+    resourceList.trimToSize();
+    if (storage == ResourceStorage.PACKED && keyIndex == null) {
+      keyIndex = new PackedStringIndex(getAllKeys());
+      keyPositions = new int[keyIndex.size()];
+      Arrays.fill(keyPositions, -1);
+      for (int i = 0; i < resourceList.size(); i++) {
+        // as with the map, the last resource with a key is the one retained
+        keyPositions[keyIndex.indexOf(resourceList.get(i).getKey().toUpperCase())] = i;
+      }
+      int listed = 0;
+      for (int position : keyPositions) {
+        if (position >= 0) {
+          listed++;
+        }
+      }
+      if (listed < keyPositions.length) {
+        listedIds = new int[listed];
+        for (int id = 0, i = 0; id < keyPositions.length; id++) {
+          if (keyPositions[id] >= 0) {
+            listedIds[i++] = id;
+          }
+        }
+      }
+      resourceMap = null;
+    }
+  }
+
+  /**
+   * @return the upper-case keys of all the resources loaded into the manager instance, possibly
+   *         including duplicates, from which the key index is built
+   */
+  protected Collection<String> getAllKeys() {
+    return resourceMap.keySet();
+  }
+
+  /**
+   * @return the index of the keys of all the resources if the manager uses packed storage and
+   *         loading is complete, otherwise <i>null</i>
+   */
+  protected PackedStringIndex getKeyIndex() {
+    return keyIndex;
+  }
+
   /**
    * Adds a new resource to the manager instance.
    * 
@@ -71,6 +152,9 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
    * @return a non-null, possibly empty set of the keys for each of the resources
    */
   public Set<String> getKeys() {
+    if (keyIndex != null) {
+      return keyIndex.subset(listedIds);
+    }
     return resourceMap.keySet();
   }
 
@@ -100,7 +184,7 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
 
   protected String getPseudorandomElement(List<K> resources, String key) {
     String element;
-    long hash = Math.abs(HashUtils.longFromHash(key));
+    long hash = Math.abs(HashUtils.pseudorandomLongFromHash(key));
     int count = resources.size();
     if (count == 0) {
       element = Long.toString(hash);
@@ -135,6 +219,65 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
     return getRandomResource(resourceList);
   }
 
+  /**
+   * Retrieves several of the loaded resources, each selected at random independently of the others.
+   * The random numbers are drawn together, which is faster than calling {@link #getRandomValue()}
+   * repeatedly.
+   * 
+   * @param count the number of resources to select
+   * 
+   * @return a list of <i>count</i> resources, each of which is <i>null</i> if no resources have been
+   *         loaded
+   */
+  public List<K> getRandomValues(int count) {
+    return getRandomResources(resourceList, count);
+  }
+
+  protected List<K> getRandomResources(List<K> resources, int count) {
+    List<K> selected = new ArrayList<>(count);
+    int size = resources.size();
+    if (size > 1) {
+      for (int index : randomIndexes(size, count)) {
+        selected.add(resources.get(index));
+      }
+    } else {
+      K resource = size == 1 ? resources.get(0) : null;
+      for (int i = 0; i < count; i++) {
+        selected.add(resource);
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Draws random numbers uniformly distributed between zero (inclusive) and the given bound
+   * (exclusive). The random bits for all the numbers are obtained from the random number generator
+   * in a single call and mapped onto the range by multiplication, rejecting the few values that
+   * would make the distribution uneven.
+   * 
+   * @param bound the upper bound, which must be positive
+   * @param count the number of random numbers required
+   * 
+   * @return the random numbers
+   */
+  protected int[] randomIndexes(int bound, int count) {
+    int[] indexes = new int[count];
+    byte[] bytes = new byte[count * 4];
+    random.nextBytes(bytes);
+    long threshold = (1L << 32) % bound;
+    for (int i = 0, b = 0; i < count; i++, b += 4) {
+      long bits = ((bytes[b] & 0xffL) << 24) | ((bytes[b + 1] & 0xffL) << 16)
+          | ((bytes[b + 2] & 0xffL) << 8) | (bytes[b + 3] & 0xffL);
+      long product = bits * bound;
+      if ((product & 0xffffffffL) < threshold) {
+        indexes[i] = random.nextInt(bound);
+      } else {
+        indexes[i] = (int) (product >>> 32);
+      }
+    }
+    return indexes;
+  }
+
   protected K getRandomResource(List<K> resources) {
     K resource = null;
     int count = resources.size();
@@ -157,7 +300,7 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
    */
   @Override
   public boolean isValidKey(String key) {
-    return key == null ? false : resourceMap.containsKey(key.toUpperCase());
+    return key == null ? false : lookup(key.toUpperCase()) != null;
   }
 
   /**
@@ -170,8 +313,17 @@ public abstract class ResourceManager<K extends ManagedResource> implements Mana
   public K getValue(String key) {
     K value = null;
     if (key != null) {
-      value = resourceMap.get(key.toUpperCase());
+      value = lookup(key.toUpperCase());
     }
     return value;
   }
+
+  private K lookup(String upperCaseKey) {
+    if (keyIndex != null) {
+      int id = keyIndex.indexOf(upperCaseKey);
+      int position = id < 0 ? -1 : keyPositions[id];
+      return position < 0 ? null : resourceList.get(position);
+    }
+    return resourceMap.get(upperCaseKey);
+  }
 }
@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.resources;
+
+import com.ibm.whc.deid.shared.localization.Resources;
+
+/**
+ * The ways in which a resource manager can hold the keys of its resources.
+ */
+public enum ResourceStorage {
+
+  /**
+   * The keys are held in hash tables, which gives the fastest lookups.
+   */
+  HASHED,
+
+  /**
+   * The keys are held in a {@link PackedStringIndex}, which takes much less memory than hash tables
+   * for large dictionaries but gives slower lookups.
+   */
+  PACKED;
+
+  /**
+   * The system property that gives the comma-separated names of the resource types whose managers
+   * use {@link #PACKED} storage, for example <i>LAST_NAME,HOSPITAL_NAMES</i>.
+   */
+  public static final String PACKED_RESOURCES_PROPERTY = "com.ibm.whc.deid.resources.packed";
+
+  /**
+   * @param resourceType the type of resource held by a manager
+   *
+   * @return the storage to be used by the manager as configured by the system property
+   *         {@value #PACKED_RESOURCES_PROPERTY}
+   */
+  public static ResourceStorage forResource(Resources resourceType) {
+    String packed = System.getProperty(PACKED_RESOURCES_PROPERTY);
+    if (packed != null) {
+      for (String name : packed.split(",")) {
+        if (name.trim().equalsIgnoreCase(resourceType.name())) {
+          return PACKED;
+        }
+      }
+    }
+    return HASHED;
+  }
+}
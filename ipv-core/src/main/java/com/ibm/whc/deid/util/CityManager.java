@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -32,10 +32,28 @@ public class CityManager extends LocalizedResourceManager<City> {
 
   private static final LogManager logger = LogManager.getInstance();
 
+  // index of the locations of the loaded cities, built when first needed
+  private volatile LatLonDistance<City> distanceCalculator;
+
   protected CityManager() {
     super(3000, 3000);
   }
 
+  @Override
+  protected void add(City city) {
+    super.add(city);
+    distanceCalculator = null;
+  }
+
+  private LatLonDistance<City> getDistanceCalculator() {
+    LatLonDistance<City> calculator = distanceCalculator;
+    if (calculator == null) {
+      calculator = new LatLonDistance<>(getValues());
+      distanceCalculator = calculator;
+    }
+    return calculator;
+  }
+
   /**
    * Creates a new CityManager instance from the definitions in the given properties file.
    * 
@@ -125,17 +143,41 @@ public class CityManager extends LocalizedResourceManager<City> {
    * @return the selected city or <i>null</i> if no city can be selected
    */
   public City getClosestCity(City city, int k) {
-    City selected = null;
+    return getRandomNeighbor(getClosestCities(city, k));
+  }
+
+  /**
+   * Returns the given number of cities closest to the given city, so that a random selection can be
+   * made from them repeatedly with {@link #getRandomNeighbor(List)}.
+   *
+   * @param city the starting city
+   * @param k the number of closest cities to return
+   * 
+   * @return the closest cities, or <i>null</i> if the city has no location
+   */
+  public List<City> getClosestCities(City city, int k) {
+    List<City> neighbors = null;
     if (city != null && city.getLocation() != null) {
-      LatLonDistance<City> distanceCalc = new LatLonDistance<>(getValues());
-      List<City> neighbors = distanceCalc.findNearestK(city, k);
-      if (neighbors != null && !neighbors.isEmpty()) {
-        int count = neighbors.size();
-        if (count == 1) {
-          selected = neighbors.get(0);
-        } else {
-          selected = neighbors.get(random.nextInt(count));
-        }
+      neighbors = getDistanceCalculator().findNearestK(city, k);
+    }
+    return neighbors;
+  }
+
+  /**
+   * Returns a random city from the given cities.
+   *
+   * @param neighbors the candidate cities, possibly empty or <i>null</i>
+   * 
+   * @return the selected city or <i>null</i> if no city can be selected
+   */
+  public City getRandomNeighbor(List<City> neighbors) {
+    City selected = null;
+    if (neighbors != null && !neighbors.isEmpty()) {
+      int count = neighbors.size();
+      if (count == 1) {
+        selected = neighbors.get(0);
+      } else {
+        selected = neighbors.get(random.nextInt(count));
       }
     }
     return selected;
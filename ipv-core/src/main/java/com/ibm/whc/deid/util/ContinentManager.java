@@ -32,9 +32,27 @@ public class ContinentManager extends LocalizedResourceManager<Continent> {
 
   private static final LogManager logger = LogManager.getInstance();
   
+  // index of the locations of the loaded continents, built when first needed
+  private volatile LatLonDistance<Continent> distanceCalculator;
+
   protected ContinentManager() {
     // nothing required here
   }
+
+  @Override
+  protected void add(Continent continent) {
+    super.add(continent);
+    distanceCalculator = null;
+  }
+
+  private LatLonDistance<Continent> getDistanceCalculator() {
+    LatLonDistance<Continent> calculator = distanceCalculator;
+    if (calculator == null) {
+      calculator = new LatLonDistance<>(getValues());
+      distanceCalculator = calculator;
+    }
+    return calculator;
+  }
   
   /**
    * Creates a new ContinentManager instance from the definitions in the given properties file.
@@ -127,8 +145,7 @@ public class ContinentManager extends LocalizedResourceManager<Continent> {
   public Continent getClosestContinent(Continent continent, int k) {
     Continent selected = null;
     if (continent != null && continent.getLocation() != null) {
-      LatLonDistance<Continent> distanceCalc = new LatLonDistance<>(getValues());
-      List<Continent> neighbors = distanceCalc.findNearestK(continent, k);
+      List<Continent> neighbors = getDistanceCalculator().findNearestK(continent, k);
       if (neighbors != null && !neighbors.isEmpty()) {
         int count = neighbors.size();
         if (count == 1) {
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,9 +7,9 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.SecureRandom;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.Country;
@@ -33,17 +33,30 @@ public class CountryManager implements Manager {
   protected static class CountrySpecificationResourceManager
       extends LocalizedResourceManager<Country> {
 
+    // index of the locations of the loaded countries, built when first needed
+    private volatile LatLonDistance<Country> distanceCalculator;
+
     public CountrySpecificationResourceManager(int expectedCount) {
       super(expectedCount);
     }
 
-    protected SecureRandom getRandom() {
+    protected Random getRandom() {
       return random;
     }
 
+    protected LatLonDistance<Country> getDistanceCalculator() {
+      LatLonDistance<Country> calculator = distanceCalculator;
+      if (calculator == null) {
+        calculator = new LatLonDistance<>(getValues());
+        distanceCalculator = calculator;
+      }
+      return calculator;
+    }
+
     @Override
     protected void add(Country resource) {
       super.add(resource);
+      distanceCalculator = null;
     }
 
     @Override
@@ -227,8 +240,7 @@ public class CountryManager implements Manager {
       } else if (spec == CountryNameSpecification.ISO3) {
         manager = countryISO3Codes;
       }
-      LatLonDistance<Country> distanceCalc = new LatLonDistance<>(manager.getValues());
-      List<Country> nearest = distanceCalc.findNearestK(country, k);
+      List<Country> nearest = manager.getDistanceCalculator().findNearestK(country, k);
       if (!nearest.isEmpty()) {
         Country selectedCountry = nearest.get(manager.getRandom().nextInt(nearest.size()));
         selected = selectedCountry.getName(selectedCountry.getCountryNameSpecification());
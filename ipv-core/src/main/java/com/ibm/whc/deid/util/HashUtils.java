@@ -1,24 +1,161 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
-import java.nio.charset.Charset;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class HashUtils {
 
+  /**
+   * Name of the system property that selects the hash used to choose pseudorandom replacement
+   * values from loaded resources. The value <i>fast</i> selects {@link #fastLongFromHash(String)}.
+   * Any other value, or no value, selects {@link #longFromHash(String)}, which is slower but
+   * chooses the same replacement values as earlier releases.
+   */
+  public static final String PSEUDORANDOM_HASH_PROPERTY = "com.ibm.whc.deid.pseudorandom.hash";
+
+  private static final boolean FAST_PSEUDORANDOM_HASH =
+      "fast".equalsIgnoreCase(System.getProperty(PSEUDORANDOM_HASH_PROPERTY));
+
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  // one instance of each algorithm requested so far, never used directly but cloned for each thread
+  private static final ConcurrentHashMap<String, MessageDigest> prototypes =
+      new ConcurrentHashMap<>();
+
+  private static final ThreadLocal<Map<String, MessageDigest>> digests =
+      ThreadLocal.withInitial(HashMap::new);
+
+  /**
+   * Obtains the current thread's message digest for the given algorithm, ready for use. Creating a
+   * message digest through the security providers is expensive, so each thread reuses one instance
+   * per algorithm. The digest must be completed before this method is called again for the same
+   * algorithm on the same thread, and it must not be passed to other threads.
+   *
+   * @param algorithm the name of the digest algorithm, such as SHA-256
+   *
+   * @return the reset message digest
+   *
+   * @throws NoSuchAlgorithmException if the algorithm is not supported
+   */
+  public static MessageDigest getMessageDigest(String algorithm) throws NoSuchAlgorithmException {
+    Map<String, MessageDigest> threadDigests = digests.get();
+    MessageDigest md = threadDigests.get(algorithm);
+    if (md == null) {
+      md = newMessageDigest(algorithm);
+      threadDigests.put(algorithm, md);
+    } else {
+      md.reset();
+    }
+    return md;
+  }
+
+  private static MessageDigest newMessageDigest(String algorithm) throws NoSuchAlgorithmException {
+    MessageDigest prototype = prototypes.get(algorithm);
+    if (prototype == null) {
+      prototype = MessageDigest.getInstance(algorithm);
+      prototypes.putIfAbsent(algorithm, prototype);
+    }
+    try {
+      return (MessageDigest) prototype.clone();
+    } catch (CloneNotSupportedException e) {
+      return MessageDigest.getInstance(algorithm);
+    }
+  }
+
+  /**
+   * @param bytes the bytes to encode
+   *
+   * @return the bytes as upper-case hexadecimal digits, two for each byte
+   */
+  public static String toHex(byte[] bytes) {
+    char[] hexChars = new char[bytes.length * 2];
+    for (int j = 0; j < bytes.length; j++) {
+      int v = bytes[j] & 0xFF;
+      hexChars[j * 2] = HEX_DIGITS[v >>> 4];
+      hexChars[j * 2 + 1] = HEX_DIGITS[v & 0x0F];
+    }
+    return new String(hexChars);
+  }
+
+  /**
+   * Generates a long value from the MD5 digest of the UTF-8 encoding of the given value. The result
+   * is the most significant bits of the name-based UUID of the value.
+   *
+   * @param value the value to hash, <i>null</i> is treated as an empty string
+   *
+   * @return the hash
+   */
   public static long longFromHash(String value) {
     if (value == null) {
       value = "";
     }
 
-    long hash =
-        UUID.nameUUIDFromBytes(value.getBytes(Charset.forName("UTF-8"))).getMostSignificantBits();
+    byte[] md5Bytes;
+    try {
+      md5Bytes = getMessageDigest("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support MD5
+      throw new InternalError("MD5 not supported", e);
+    }
+    // set the version bits as UUID.nameUUIDFromBytes() does
+    md5Bytes[6] &= 0x0f;
+    md5Bytes[6] |= 0x30;
+    long hash = 0;
+    for (int i = 0; i < 8; i++) {
+      hash = (hash << 8) | (md5Bytes[i] & 0xff);
+    }
     return hash;
+  }
+
+  /**
+   * Generates a long value from the given value using a fast non-cryptographic hash (64-bit FNV-1a
+   * over the characters of the value followed by the MurmurHash3 finalizer). The result is the same
+   * on every platform and in every release, but it is not suitable where the input must not be
+   * recoverable from the hash.
+   *
+   * @param value the value to hash, <i>null</i> is treated as an empty string
+   *
+   * @return the hash
+   */
+  public static long fastLongFromHash(String value) {
+    long hash = FNV_OFFSET_BASIS;
+    if (value != null) {
+      int length = value.length();
+      for (int i = 0; i < length; i++) {
+        hash ^= value.charAt(i);
+        hash *= FNV_PRIME;
+      }
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
 
+  /**
+   * Generates a long value used to choose a pseudorandom replacement for the given value, using the
+   * hash selected by the {@link #PSEUDORANDOM_HASH_PROPERTY} system property.
+   *
+   * @param value the value to hash, <i>null</i> is treated as an empty string
+   *
+   * @return the hash, which is not negative if the fast hash is selected
+   */
+  public static long pseudorandomLongFromHash(String value) {
+    return FAST_PSEUDORANDOM_HASH ? fastLongFromHash(value) & Long.MAX_VALUE : longFromHash(value);
   }
 }
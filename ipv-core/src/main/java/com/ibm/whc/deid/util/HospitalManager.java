@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,11 +7,13 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collection;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.Hospital;
 import com.ibm.whc.deid.resources.LocalizedResourceManager;
+import com.ibm.whc.deid.resources.ResourceStorage;
 import com.ibm.whc.deid.shared.exception.KeyedRuntimeException;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.shared.localization.Resources;
@@ -28,7 +30,7 @@ public class HospitalManager extends LocalizedResourceManager<Hospital> {
   protected static final Resources resourceType = Resource.HOSPITAL_NAMES;
 
   protected HospitalManager() {
-    // nothing required here
+    super(-1, -1, ResourceStorage.forResource(resourceType));
   }
 
   /**
@@ -48,10 +50,17 @@ public class HospitalManager extends LocalizedResourceManager<Hospital> {
       Collection<ResourceEntry> resourceEntries =
           LocalizationManager.getInstance(localizationProperty).getResources(resourceType);
       for (ResourceEntry entry : resourceEntries) {
+        String fileName = entry.getFilename();
 
-        try (InputStream inputStream = entry.createStream()) {
-          String fileName = entry.getFilename();
+        Iterable<String[]> records = entry.getSnapshotRecords();
+        if (records != null) {
+          for (String[] record : records) {
+            loadSnapshotRecord(fileName, manager, record);
+          }
+          continue;
+        }
 
+        try (InputStream inputStream = entry.createStream()) {
           try (CSVParser reader = Readers.createCSVReaderFromStream(inputStream)) {
             for (CSVRecord line : reader) {
               loadCSVRecord(fileName, manager, line);
@@ -64,6 +73,7 @@ public class HospitalManager extends LocalizedResourceManager<Hospital> {
       throw new RuntimeException(e);
     }
 
+    manager.finishLoading();
     return manager;
   }
 
@@ -91,6 +101,30 @@ public class HospitalManager extends LocalizedResourceManager<Hospital> {
     }
   }
 
+  /**
+   * Loads a record obtained from the resource snapshot into the given resource manager.
+   *
+   * @param fileName the name of the file from which the record was obtained - used for logging
+   *        and error messages
+   * @param manager the resource manager
+   * @param record the field values of a single record of the file
+   * 
+   * @throws RuntimeException if any of the data in the record is invalid for its target purpose.
+   *
+   * @see com.ibm.whc.deid.util.localization.ResourceSnapshot
+   */
+  protected static void loadSnapshotRecord(String fileName, HospitalManager manager,
+      String[] record) {
+    try {
+      loadRecord(manager, record);
+
+    } catch (RuntimeException e) {
+      String logmsg = Messages.getMessage(LogCodes.WPH1023E, Arrays.toString(record), fileName,
+          e.getMessage());
+      throw new KeyedRuntimeException(LogCodes.WPH1023E, logmsg, e);
+    }
+  }
+
   /**
    * Retrieves data from the given record and loads it into the given resource manager.
    *
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,10 +7,10 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Random;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.ICDWithoutFormat;
@@ -38,7 +38,7 @@ public class ICDv10Manager implements Manager {
   // Modify this value if the resource file is modified.
   private static final int EXPECTED_COUNT = 42000;
 
-  private final SecureRandom random = new SecureRandom();
+  private final Random random = RandomSource.create();
 
   private final ArrayList<ICDWithoutFormat> icdList;
   private final HashMap<String, ICDWithoutFormat> icdByCodeMap;
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,10 +7,11 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Random;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.ICD;
@@ -38,7 +39,7 @@ public class ICDv9Manager implements Manager {
   // Modify this value if the resource file is modified.
   private static final int EXPECTED_COUNT = 15000;
 
-  private final SecureRandom random = new SecureRandom();
+  private final Random random = RandomSource.create();
 
   private final ArrayList<ICDWithoutFormat> icdList;
   private final HashMap<String, ICDWithoutFormat> icdByCodeMap;
@@ -70,10 +71,17 @@ public class ICDv9Manager implements Manager {
       Collection<ResourceEntry> resourceEntries =
           LocalizationManager.getInstance(localizationProperty).getResources(resourceType);
       for (ResourceEntry entry : resourceEntries) {
+        String fileName = entry.getFilename();
 
-        try (InputStream inputStream = entry.createStream()) {
-          String fileName = entry.getFilename();
+        Iterable<String[]> records = entry.getSnapshotRecords();
+        if (records != null) {
+          for (String[] record : records) {
+            loadSnapshotRecord(fileName, manager, record);
+          }
+          continue;
+        }
 
+        try (InputStream inputStream = entry.createStream()) {
           try (CSVParser parser = Readers.createCSVReaderFromStream(inputStream, ';', '"')) {
             for (CSVRecord record : parser) {
               loadCSVRecord(fileName, manager, record);
@@ -113,6 +121,30 @@ public class ICDv9Manager implements Manager {
     }
   }
 
+  /**
+   * Loads a record obtained from the resource snapshot into the given resource manager.
+   *
+   * @param fileName the name of the file from which the record was obtained - used for logging
+   *        and error messages
+   * @param manager the resource manager
+   * @param record the field values of a single record of the file
+   * 
+   * @throws RuntimeException if any of the data in the record is invalid for its target purpose.
+   *
+   * @see com.ibm.whc.deid.util.localization.ResourceSnapshot
+   */
+  protected static void loadSnapshotRecord(String fileName, ICDv9Manager manager,
+      String[] record) {
+    try {
+      loadRecord(manager, record);
+
+    } catch (RuntimeException e) {
+      String logmsg = Messages.getMessage(LogCodes.WPH1023E, Arrays.toString(record), fileName,
+          e.getMessage());
+      throw new KeyedRuntimeException(LogCodes.WPH1023E, logmsg, e);
+    }
+  }
+
   /**
    * Retrieves data from the given record and loads it into the given resource manager.
    *
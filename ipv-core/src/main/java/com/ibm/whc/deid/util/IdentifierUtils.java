@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -52,9 +52,21 @@ public class IdentifierUtils {
   }
 
   public static int createCharacterProfile(String input) {
+    return createCharacterProfile(input, 0, input.length());
+  }
+
+  /**
+   * Creates the character profile of part of a sequence of characters.
+   *
+   * @param input the characters
+   * @param start the offset of the first character in the profile
+   * @param end the offset after the last character in the profile
+   * @return the combination of the {@link CharacterRequirements} flags of the characters
+   */
+  public static int createCharacterProfile(CharSequence input, int start, int end) {
     int mask = CharacterRequirements.NONE;
 
-    for (int i = 0; i < input.length(); i++) {
+    for (int i = start; i < end; i++) {
       char c = input.charAt(i);
 
       if (Character.isDigit(c)) {
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,29 +13,24 @@ import com.ibm.whc.deid.models.Location;
 
 /**
  * A calculator for distances between points expressed as latitude and longitude coordinates.
+ *
+ * <p>
+ * The locations given when the calculator is created are indexed in a k-d tree, so the calculator
+ * does not reflect later changes to the given collection. Instances of this class are immutable
+ * and thread-safe and are intended to be built once and reused for many searches.
  */
 public class LatLonDistance<K extends Location> {
 
-  private static class DistanceToLocation<K extends Location> {
-    
-    private final Double distance;
-    private final K location;
-    
-    public DistanceToLocation(Double d, K l) {
-      distance = d;
-      location = l;
-    }
-    
-    public Double getDistance() {
-      return distance;
-    }
-    
-    public K getLocation() {
-      return location;
-    }
-  }
-      
-  private final Collection<K> locations;
+  // relative tolerance applied when deciding whether a subtree might hold a point at the same
+  // distance as the farthest point found so far, guarding against rounding in the distances
+  private static final double PRUNE_TOLERANCE = 1.0e-9;
+
+  // the locations that have coordinates, in tree order
+  private final List<K> locations;
+  private final double[] latitudes;
+  private final double[] longitudes;
+  // the position of each location in the original collection, which breaks ties in distance
+  private final int[] order;
 
   /**
    * Instantiates a new distance calculator.
@@ -43,61 +38,263 @@ public class LatLonDistance<K extends Location> {
    * @param locationList the list of possible locations
    */
   public LatLonDistance(Collection<K> locationList) {
-    locations = locationList;
+    List<K> located = new ArrayList<>(locationList.size());
+    List<LatitudeLongitude> coordinates = new ArrayList<>(locationList.size());
+    int[] positions = new int[locationList.size()];
+    int position = 0;
+    for (K l : locationList) {
+      LatitudeLongitude latlon = l.getLocation();
+      if (latlon != null) {
+        positions[located.size()] = position;
+        located.add(l);
+        coordinates.add(latlon);
+      }
+      position++;
+    }
+
+    int size = located.size();
+    latitudes = new double[size];
+    longitudes = new double[size];
+    order = new int[size];
+    int[] index = new int[size];
+    for (int i = 0; i < size; i++) {
+      latitudes[i] = coordinates.get(i).getLatitude();
+      longitudes[i] = coordinates.get(i).getLongitude();
+      order[i] = positions[i];
+      index[i] = i;
+    }
+    build(index, 0, size, 0);
+
+    List<K> treeOrder = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      treeOrder.add(located.get(index[i]));
+    }
+    locations = treeOrder;
   }
 
   /**
-   * Finds the euclidean distance between two points
-   * 
-   * @param point1 the first point
-   * @param point2 the second point
-   * @return the distance
+   * Arranges the given range of points as an implicit k-d tree - the median point on the axis for
+   * the given depth is placed in the middle of the range, the points before it are its left subtree
+   * and the points after it its right subtree.
+   */
+  private void build(int[] index, int from, int to, int depth) {
+    if (to - from > 1) {
+      int median = (from + to) >>> 1;
+      select(index, from, to - 1, median, depth % 2 == 0);
+      build(index, from, median, depth + 1);
+      build(index, median + 1, to, depth + 1);
+    }
+  }
+
+  /**
+   * Partially sorts the given inclusive range so that position k holds the element that would be
+   * there if the range were sorted on the given axis (quickselect).
+   */
+  private void select(int[] index, int left, int right, int k, boolean latitude) {
+    while (right > left) {
+      double pivot = coordinate((left + right) >>> 1, latitude);
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (coordinate(i, latitude) < pivot) {
+          i++;
+        }
+        while (coordinate(j, latitude) > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(index, i++, j--);
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private double coordinate(int i, boolean latitude) {
+    return latitude ? latitudes[i] : longitudes[i];
+  }
+
+  private void swap(int[] index, int i, int j) {
+    double lat = latitudes[i];
+    latitudes[i] = latitudes[j];
+    latitudes[j] = lat;
+    double lon = longitudes[i];
+    longitudes[i] = longitudes[j];
+    longitudes[j] = lon;
+    int o = order[i];
+    order[i] = order[j];
+    order[j] = o;
+    int x = index[i];
+    index[i] = index[j];
+    index[j] = x;
+  }
+
+  /**
+   * The locations found so far by a search, kept as a max-heap on distance so that the farthest
+   * can be replaced when a closer location is found.
    */
-  private Double euclidean(LatitudeLongitude point1, LatitudeLongitude point2) {
-    return Double.valueOf(Math.sqrt(Math.pow(point1.getLatitude() - point2.getLatitude(), 2)
-        + Math.pow(point1.getLongitude() - point2.getLongitude(), 2)));
+  private static class NearestHeap {
+
+    private final double[] distances;
+    private final int[] points;
+    private final int[] orders;
+    private int size = 0;
+
+    NearestHeap(int k) {
+      distances = new double[k];
+      points = new int[k];
+      orders = new int[k];
+    }
+
+    boolean isFull() {
+      return size == distances.length;
+    }
+
+    double worst() {
+      return distances[0];
+    }
+
+    // ties in distance are resolved in favor of the location that was given first
+    private boolean farther(int i, int j) {
+      return distances[i] > distances[j] || (distances[i] == distances[j] && orders[i] > orders[j]);
+    }
+
+    void offer(double distance, int point, int order) {
+      if (size < distances.length) {
+        int i = size++;
+        distances[i] = distance;
+        points[i] = point;
+        orders[i] = order;
+        while (i > 0 && farther(i, (i - 1) / 2)) {
+          swap(i, (i - 1) / 2);
+          i = (i - 1) / 2;
+        }
+      } else if (distance < distances[0] || (distance == distances[0] && order < orders[0])) {
+        distances[0] = distance;
+        points[0] = point;
+        orders[0] = order;
+        int i = 0;
+        while (true) {
+          int child = 2 * i + 1;
+          if (child >= size) {
+            break;
+          }
+          if (child + 1 < size && farther(child + 1, child)) {
+            child++;
+          }
+          if (!farther(child, i)) {
+            break;
+          }
+          swap(i, child);
+          i = child;
+        }
+      }
+    }
+
+    private void swap(int i, int j) {
+      double d = distances[i];
+      distances[i] = distances[j];
+      distances[j] = d;
+      int p = points[i];
+      points[i] = points[j];
+      points[j] = p;
+      int o = orders[i];
+      orders[i] = orders[j];
+      orders[j] = o;
+    }
+
+    /**
+     * @return the points in the heap from nearest to farthest, emptying the heap
+     */
+    int[] drain() {
+      int[] result = new int[size];
+      while (size > 0) {
+        result[size - 1] = points[0];
+        swap(0, --size);
+        int i = 0;
+        while (true) {
+          int child = 2 * i + 1;
+          if (child >= size) {
+            break;
+          }
+          if (child + 1 < size && farther(child + 1, child)) {
+            child++;
+          }
+          if (!farther(child, i)) {
+            break;
+          }
+          swap(i, child);
+          i = child;
+        }
+      }
+      return result;
+    }
   }
 
   /**
    * Find nearest locations to a given starting location.
    *
+   * <p>
+   * Locations at exactly the same coordinates as the starting location are not included.
+   * Locations at the same distance are returned in the order in which they were given to the
+   * calculator.
+   *
    * @param current latitude and longitude of starting location
    * @param k the number of nearby locations to include in the list
    * 
-   * @return the non-null list of nearby locations
+   * @return the non-null list of nearby locations, nearest first
    */
   public List<K> findNearestK(LatitudeLongitude current, int k) {
-
-    // Find the euclidean distance between this point and others
-    List<DistanceToLocation<K>> closest = new ArrayList<>(locations.size());
-    for (K l : locations) {
-      LatitudeLongitude latlon = l.getLocation();
-      if (latlon != null) {
-        Double result = euclidean(latlon, current);
-        closest.add(new DistanceToLocation<>(result, l));
-      }
+    if (k > locations.size()) {
+      k = locations.size();
     }
-
-    // Sort the list
-    closest.sort((element1, element2) -> {
-      return element1.getDistance().compareTo(element2.getDistance());
-    });
-
-    closest.removeIf(i -> (i.getDistance().equals(0.0)));
-
-    // Return the first k records
-    if (k > closest.size()) {
-      k = closest.size();
+    if (k <= 0) {
+      return new ArrayList<>(0);
     }
-    if (k < 0) {
-      k = 0;
+    NearestHeap heap = new NearestHeap(k);
+    search(heap, current.getLatitude(), current.getLongitude(), 0, locations.size(), 0);
+    int[] points = heap.drain();
+    List<K> toReturn = new ArrayList<>(points.length);
+    for (int point : points) {
+      toReturn.add(locations.get(point));
     }
-    List<K> toReturn = new ArrayList<>(k);
-    for (int i = 0; i < k; i++) {
-      toReturn.add(closest.get(i).getLocation());
+    return toReturn;
+  }
+
+  private void search(NearestHeap heap, double latitude, double longitude, int from, int to,
+      int depth) {
+    if (from >= to) {
+      return;
+    }
+    int median = (from + to) >>> 1;
+    // euclidean distance in degrees
+    double dlat = latitudes[median] - latitude;
+    double dlon = longitudes[median] - longitude;
+    double distance = Math.sqrt(dlat * dlat + dlon * dlon);
+    if (distance != 0.0) {
+      heap.offer(distance, median, order[median]);
     }
 
-    return toReturn;
+    double diff = depth % 2 == 0 ? dlat : dlon;
+    // search the side of the splitting plane that holds the starting location first
+    if (diff > 0) {
+      search(heap, latitude, longitude, from, median, depth + 1);
+    } else {
+      search(heap, latitude, longitude, median + 1, to, depth + 1);
+    }
+    if (!heap.isFull() || Math.abs(diff) <= heap.worst() * (1.0 + PRUNE_TOLERANCE)) {
+      if (diff > 0) {
+        search(heap, latitude, longitude, median + 1, to, depth + 1);
+      } else {
+        search(heap, latitude, longitude, from, median, depth + 1);
+      }
+    }
   }
 
   public List<K> findNearestK(K location, int k) {
@@ -1,18 +1,18 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
-import java.security.SecureRandom;
 import java.util.List;
+import java.util.Random;
 import com.ibm.whc.deid.resources.KeyListResource;
 import com.ibm.whc.deid.shared.localization.Resource;
 
 public class MSISDNManager {
 
-  protected final SecureRandom random = new SecureRandom();
+  protected final Random random = RandomSource.create();
 
   protected final PhoneCountryCodesManager phoneCountryCodeManager;
   protected final PhoneAreaCodesManager phoneAreaCodesManager;
@@ -1,10 +1,14 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.shared.localization.Resources;
@@ -19,7 +23,49 @@ public class ManagerFactory {
   /**
    * Resource manager takes time to instantiate. To save time, we cache resource managers.
    */
-  private final ConcurrentHashMap<String, Manager> managers = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, LoadedManager> managers = new ConcurrentHashMap<>();
+
+  /**
+   * A cached resource manager, which is built by the first thread that requests it while any other
+   * threads requesting it wait for it to be built.
+   */
+  private static final class LoadedManager {
+
+    private final Resources resourceType;
+    private final String localizationProperty;
+    private volatile Manager manager;
+    private ManagerLoadStatistics statistics;
+
+    LoadedManager(Resources resourceType, String localizationProperty) {
+      this.resourceType = resourceType;
+      this.localizationProperty = localizationProperty;
+    }
+
+    Manager get() {
+      Manager loaded = manager;
+      if (loaded == null) {
+        synchronized (this) {
+          loaded = manager;
+          if (loaded == null) {
+            long allocatedBefore = getAllocatedBytes();
+            long start = System.nanoTime();
+            loaded = buildManager(resourceType, localizationProperty);
+            long loadTime = (System.nanoTime() - start) / 1000000L;
+            long allocatedAfter = getAllocatedBytes();
+            statistics = new ManagerLoadStatistics(resourceType.toString(), localizationProperty,
+                loadTime,
+                allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore);
+            manager = loaded;
+          }
+        }
+      }
+      return loaded;
+    }
+
+    synchronized ManagerLoadStatistics getStatistics() {
+      return statistics;
+    }
+  }
 
   private ManagerFactory() {}
 
@@ -29,7 +75,7 @@ public class ManagerFactory {
 
   /**
    * Get a resource based manager. First check to see if there is a cached version, otherwise create
-   * a new one.
+   * a new one. Concurrent requests for a manager that is not yet cached share a single new instance.
    *
    * @param tenantId
    * @param resourceType
@@ -40,11 +86,49 @@ public class ManagerFactory {
   public Manager getManager(String tenantId, Resources resourceType, Object options,
       String localizationProperty) {
     String cacheKey = resourceType + "_" + localizationProperty;
-    Manager manager = managers.get(cacheKey);
-    if (manager != null) {
-      return manager;
+    LoadedManager loaded = managers.computeIfAbsent(cacheKey,
+        k -> new LoadedManager(resourceType, localizationProperty));
+    try {
+      return loaded.get();
+    } catch (RuntimeException e) {
+      // a later request tries again
+      managers.remove(cacheKey, loaded);
+      throw e;
+    }
+  }
+
+  /**
+   * @return the time taken to load and the memory allocated while loading each of the resource
+   *         managers loaded so far
+   */
+  public List<ManagerLoadStatistics> getLoadStatistics() {
+    List<ManagerLoadStatistics> list = new ArrayList<>();
+    for (LoadedManager loaded : managers.values()) {
+      ManagerLoadStatistics statistics = loaded.getStatistics();
+      if (statistics != null) {
+        list.add(statistics);
+      }
     }
+    return list;
+  }
 
+  /**
+   * @return the number of bytes allocated by the current thread, or -1 if the Java virtual machine
+   *         does not measure it
+   */
+  private static long getAllocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+      if (threadBean.isThreadAllocatedMemoryEnabled()) {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  private static Manager buildManager(Resources resourceType, String localizationProperty) {
+    Manager manager;
     if (resourceType instanceof Resource) {
       switch ((Resource) resourceType) {
         case ATC_CODES:
@@ -135,8 +219,6 @@ public class ManagerFactory {
       throw new IllegalArgumentException("Unsupported resource type:" + resourceType);
     }
 
-    managers.put(cacheKey, manager);
-
     return manager;
   }
 }
@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util;
+
+/**
+ * The cost of loading a resource manager obtained from the {@link ManagerFactory}.
+ */
+public class ManagerLoadStatistics {
+
+  private final String resourceType;
+  private final String localizationProperty;
+  private final long loadTimeMillis;
+  private final long allocatedBytes;
+
+  public ManagerLoadStatistics(String resourceType, String localizationProperty,
+      long loadTimeMillis, long allocatedBytes) {
+    this.resourceType = resourceType;
+    this.localizationProperty = localizationProperty;
+    this.loadTimeMillis = loadTimeMillis;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  public String getResourceType() {
+    return resourceType;
+  }
+
+  public String getLocalizationProperty() {
+    return localizationProperty;
+  }
+
+  /**
+   * @return the number of milliseconds taken to build the manager
+   */
+  public long getLoadTimeMillis() {
+    return loadTimeMillis;
+  }
+
+  /**
+   * @return the number of bytes of memory allocated while building the manager, which includes
+   *         temporary objects as well as the data retained by the manager, or -1 if this is not
+   *         measured by the Java virtual machine
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return resourceType + " (" + localizationProperty + "): " + loadTimeMillis + " ms, "
+        + allocatedBytes + " bytes allocated";
+  }
+}
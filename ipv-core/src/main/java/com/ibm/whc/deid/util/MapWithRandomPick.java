@@ -1,16 +1,16 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
 import java.io.Serializable;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -23,7 +23,7 @@ public class MapWithRandomPick<K, V> implements Serializable {
 
   private final Map<K, V> map;
   private final List<K> keylist = new ArrayList<>();
-  private final SecureRandom random;
+  private final Random random;
 
   /**
    * Instantiates a new Map with random pick.
@@ -32,7 +32,7 @@ public class MapWithRandomPick<K, V> implements Serializable {
    */
   public MapWithRandomPick(Map<K, V> map) {
     this.map = map;
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
   }
 
   /** Sets key list. */
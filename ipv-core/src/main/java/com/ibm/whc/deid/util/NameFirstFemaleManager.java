@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,6 +13,7 @@ import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.FirstName;
 import com.ibm.whc.deid.models.Gender;
 import com.ibm.whc.deid.resources.LocalizedResourceManager;
+import com.ibm.whc.deid.resources.ResourceStorage;
 import com.ibm.whc.deid.shared.exception.KeyedRuntimeException;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
@@ -32,7 +33,7 @@ public class NameFirstFemaleManager extends LocalizedResourceManager<FirstName>
   private static final LogManager logger = LogManager.getInstance();
 
   protected NameFirstFemaleManager() {
-    super(1000, 1000);
+    super(1000, 1000, ResourceStorage.forResource(Resource.FIRST_NAME_FEMALE));
   }
 
   /**
@@ -69,6 +70,7 @@ public class NameFirstFemaleManager extends LocalizedResourceManager<FirstName>
       throw new RuntimeException(e);
     }
 
+    manager.finishLoading();
     return manager;
   }
 
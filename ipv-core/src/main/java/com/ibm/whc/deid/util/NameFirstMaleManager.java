@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,6 +13,7 @@ import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.FirstName;
 import com.ibm.whc.deid.models.Gender;
 import com.ibm.whc.deid.resources.LocalizedResourceManager;
+import com.ibm.whc.deid.resources.ResourceStorage;
 import com.ibm.whc.deid.shared.exception.KeyedRuntimeException;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
@@ -32,7 +33,7 @@ public class NameFirstMaleManager extends LocalizedResourceManager<FirstName> {
   private static final LogManager logger = LogManager.getInstance();
 
   protected NameFirstMaleManager() {
-    super(1100, 1100);
+    super(1100, 1100, ResourceStorage.forResource(Resource.FIRST_NAME_MALE));
   }
 
   /**
@@ -69,6 +70,7 @@ public class NameFirstMaleManager extends LocalizedResourceManager<FirstName> {
       throw new RuntimeException(e);
     }
 
+    manager.finishLoading();
     return manager;
   }
 
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,11 +7,13 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collection;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.LastName;
 import com.ibm.whc.deid.resources.LocalizedResourceManager;
+import com.ibm.whc.deid.resources.ResourceStorage;
 import com.ibm.whc.deid.shared.exception.KeyedRuntimeException;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
@@ -31,7 +33,7 @@ public class NameLastManager extends LocalizedResourceManager<LastName> {
   private static final LogManager logger = LogManager.getInstance();
 
   protected NameLastManager() {
-    super(163000, 163000);
+    super(163000, 163000, ResourceStorage.forResource(Resource.LAST_NAME));
   }
 
   /**
@@ -51,11 +53,18 @@ public class NameLastManager extends LocalizedResourceManager<LastName> {
       Collection<ResourceEntry> resourceEntries =
           LocalizationManager.getInstance(localizationProperty).getResources(Resource.LAST_NAME);
       for (ResourceEntry entry : resourceEntries) {
+        String countryCode = entry.getCountryCode();
+        String fileName = entry.getFilename();
 
-        try (InputStream inputStream = entry.createStream()) {
-          String countryCode = entry.getCountryCode();
-          String fileName = entry.getFilename();
+        Iterable<String[]> records = entry.getSnapshotRecords();
+        if (records != null) {
+          for (String[] record : records) {
+            loadSnapshotRecord(fileName, countryCode, nameLastManager, record);
+          }
+          continue;
+        }
 
+        try (InputStream inputStream = entry.createStream()) {
           try (CSVParser reader = Readers.createCSVReaderFromStream(inputStream)) {
             for (CSVRecord line : reader) {
               loadCSVRecord(fileName, countryCode, nameLastManager, line);
@@ -68,6 +77,7 @@ public class NameLastManager extends LocalizedResourceManager<LastName> {
       throw new RuntimeException(e);
     }
 
+    nameLastManager.finishLoading();
     return nameLastManager;
   }
 
@@ -96,6 +106,31 @@ public class NameLastManager extends LocalizedResourceManager<LastName> {
     }
   }
 
+  /**
+   * Loads a record obtained from the resource snapshot into the given resource manager.
+   *
+   * @param fileName the name of the file from which the record was obtained - used for logging
+   *        and error messages
+   * @param locale the locale or country code to associate with the resource
+   * @param manager the resource manager
+   * @param record the field values of a single record of the file
+   * 
+   * @throws RuntimeException if any of the data in the record is invalid for its target purpose.
+   *
+   * @see com.ibm.whc.deid.util.localization.ResourceSnapshot
+   */
+  protected static void loadSnapshotRecord(String fileName, String locale, NameLastManager manager,
+      String[] record) {
+    try {
+      loadRecord(locale, manager, record);
+
+    } catch (RuntimeException e) {
+      String logmsg = Messages.getMessage(LogCodes.WPH1023E, Arrays.toString(record), fileName,
+          e.getMessage());
+      throw new KeyedRuntimeException(LogCodes.WPH1023E, logmsg, e);
+    }
+  }
+
   /**
    * Retrieves data from the given record and loads it into the given resource manager.
    *
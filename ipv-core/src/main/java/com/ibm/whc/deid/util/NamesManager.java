@@ -1,11 +1,11 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
-import java.security.SecureRandom;
+import java.util.Random;
 import com.ibm.whc.deid.models.FirstName;
 import com.ibm.whc.deid.models.Gender;
 import com.ibm.whc.deid.models.LastName;
@@ -18,7 +18,7 @@ import com.ibm.whc.deid.shared.localization.Resource;
  */
 public class NamesManager {
 
-  private final SecureRandom random = new SecureRandom();
+  private final Random random = RandomSource.create();
 
   private final NameLastManager lastNameManager;
   private final NameFirstMaleManager maleNameManager;
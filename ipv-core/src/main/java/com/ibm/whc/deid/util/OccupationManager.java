@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,6 +7,7 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collection;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
@@ -48,11 +49,18 @@ public class OccupationManager extends LocalizedResourceManager<Occupation> {
       Collection<ResourceEntry> resourceEntries =
           LocalizationManager.getInstance(localizationProperty).getResources(resourceType);
       for (ResourceEntry entry : resourceEntries) {
+        String countryCode = entry.getCountryCode();
+        String fileName = entry.getFilename();
 
-        try (InputStream inputStream = entry.createStream()) {
-          String countryCode = entry.getCountryCode();
-          String fileName = entry.getFilename();
+        Iterable<String[]> records = entry.getSnapshotRecords();
+        if (records != null) {
+          for (String[] record : records) {
+            loadSnapshotRecord(fileName, countryCode, manager, record);
+          }
+          continue;
+        }
 
+        try (InputStream inputStream = entry.createStream()) {
           try (CSVParser reader = Readers.createCSVReaderFromStream(inputStream)) {
             for (CSVRecord line : reader) {
               loadCSVRecord(fileName, countryCode, manager, line);
@@ -93,6 +101,31 @@ public class OccupationManager extends LocalizedResourceManager<Occupation> {
     }
   }
 
+  /**
+   * Loads a record obtained from the resource snapshot into the given resource manager.
+   *
+   * @param fileName the name of the file from which the record was obtained - used for logging
+   *        and error messages
+   * @param countryCode the locale or country code to associate with the resource
+   * @param manager the resource manager
+   * @param record the field values of a single record of the file
+   * 
+   * @throws RuntimeException if any of the data in the record is invalid for its target purpose.
+   *
+   * @see com.ibm.whc.deid.util.localization.ResourceSnapshot
+   */
+  protected static void loadSnapshotRecord(String fileName, String countryCode,
+      OccupationManager manager, String[] record) {
+    try {
+      loadRecord(countryCode, manager, record);
+
+    } catch (RuntimeException e) {
+      String logmsg = Messages.getMessage(LogCodes.WPH1023E, Arrays.toString(record), fileName,
+          e.getMessage());
+      throw new KeyedRuntimeException(LogCodes.WPH1023E, logmsg, e);
+    }
+  }
+
   /**
    * Retrieves data from the given record and loads it into the given resource manager.
    *
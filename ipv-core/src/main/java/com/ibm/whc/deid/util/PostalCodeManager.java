@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -8,6 +8,7 @@ package com.ibm.whc.deid.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import org.apache.commons.csv.CSVParser;
@@ -29,10 +30,28 @@ public class PostalCodeManager extends ResourceManager<PostalCode> {
 
   protected static final Resources resourceType = Resource.POSTAL_CODES;
 
+  // index of the locations of the loaded postal codes, built when first needed
+  private volatile LatLonDistance<PostalCode> distanceCalculator;
+
   protected PostalCodeManager() {
     super(44000);
   }
 
+  @Override
+  protected void add(PostalCode postalCode) {
+    super.add(postalCode);
+    distanceCalculator = null;
+  }
+
+  private LatLonDistance<PostalCode> getDistanceCalculator() {
+    LatLonDistance<PostalCode> calculator = distanceCalculator;
+    if (calculator == null) {
+      calculator = new LatLonDistance<>(getValues());
+      distanceCalculator = calculator;
+    }
+    return calculator;
+  }
+
   /**
    * Creates a new PostalCodeManager instance from the definitions in the given properties file.
    * 
@@ -50,10 +69,17 @@ public class PostalCodeManager extends ResourceManager<PostalCode> {
       Collection<ResourceEntry> resourceEntries =
           LocalizationManager.getInstance(localizationProperty).getResources(resourceType);
       for (ResourceEntry entry : resourceEntries) {
+        String fileName = entry.getFilename();
 
-        try (InputStream inputStream = entry.createStream()) {
-          String fileName = entry.getFilename();
+        Iterable<String[]> records = entry.getSnapshotRecords();
+        if (records != null) {
+          for (String[] record : records) {
+            loadSnapshotRecord(fileName, manager, record);
+          }
+          continue;
+        }
 
+        try (InputStream inputStream = entry.createStream()) {
           try (CSVParser reader = Readers.createCSVReaderFromStream(inputStream)) {
             for (CSVRecord line : reader) {
               loadCSVRecord(fileName, manager, line);
@@ -93,6 +119,30 @@ public class PostalCodeManager extends ResourceManager<PostalCode> {
     }
   }
 
+  /**
+   * Loads a record obtained from the resource snapshot into the given resource manager.
+   *
+   * @param fileName the name of the file from which the record was obtained - used for logging
+   *        and error messages
+   * @param manager the resource manager
+   * @param record the field values of a single record of the file
+   * 
+   * @throws RuntimeException if any of the data in the record is invalid for its target purpose.
+   *
+   * @see com.ibm.whc.deid.util.localization.ResourceSnapshot
+   */
+  protected static void loadSnapshotRecord(String fileName, PostalCodeManager manager,
+      String[] record) {
+    try {
+      loadRecord(manager, record);
+
+    } catch (RuntimeException e) {
+      String logmsg = Messages.getMessage(LogCodes.WPH1023E, Arrays.toString(record), fileName,
+          e.getMessage());
+      throw new KeyedRuntimeException(LogCodes.WPH1023E, logmsg, e);
+    }
+  }
+
   /**
    * Retrieves data from the given record and loads it into the given resource manager.
    *
@@ -123,7 +173,6 @@ public class PostalCodeManager extends ResourceManager<PostalCode> {
     if (lookup == null || lookup.getLocation() == null) {
       return new ArrayList<>();
     }
-    LatLonDistance<PostalCode> calc = new LatLonDistance<>(getValues());
-    return calc.findNearestK(lookup.getLocation(), k);
+    return getDistanceCalculator().findNearestK(lookup.getLocation(), k);
   }
 }
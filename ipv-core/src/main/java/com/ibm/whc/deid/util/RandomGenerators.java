@@ -5,12 +5,12 @@
  */
 package com.ibm.whc.deid.util;
 
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
+import java.util.Random;
 import org.apache.commons.lang3.StringUtils;
 import com.ibm.whc.deid.models.CreditCardType;
 import com.ibm.whc.deid.models.LatitudeLongitude;
@@ -20,8 +20,8 @@ import com.ibm.whc.deid.providers.masking.IPAddressMaskingProvider;
 
 /** The type Random generators. */
 public class RandomGenerators {
-  private static final SecureRandom random = new SecureRandom();
-  private static final SecureRandom randomRadian = new SecureRandom();
+  private static final Random random = RandomSource.create();
+  private static final Random randomRadian = RandomSource.create();
   private static final IPAddressIdentifier ipAddressIdentifier = new IPAddressIdentifier();
   private static final IPAddressMaskingProvider ipAddressMaskingProvider =
       new IPAddressMaskingProvider();
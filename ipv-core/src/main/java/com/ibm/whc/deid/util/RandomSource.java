@@ -0,0 +1,204 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.pojo.config.RandomSourceType;
+
+/**
+ * Creates the random number generators used to select random replacement values.
+ *
+ * <p>
+ * The masking providers built from a masking configuration use the source named by its
+ * <i>randomSource</i> property. Resource managers and {@link RandomGenerators} are shared by all
+ * masking configurations, so they use the source named by the system property
+ * {@value #RANDOM_SOURCE_PROPERTY}, with the seed given by the system property
+ * {@value #RANDOM_SEED_PROPERTY} for the {@link RandomSourceType#SEEDED} source. The
+ * {@link RandomSourceType#SECURE} source is used if neither gives a source.
+ *
+ * <p>
+ * All the generators created by this class are thread-safe. The output of a seeded generator is
+ * reproducible only if it is used by a single thread and only for as long as it is used by a single
+ * request, so masking providers with a seeded generator are neither reused nor used concurrently.
+ */
+public class RandomSource {
+
+  /**
+   * The system property that gives the name of the default random source.
+   */
+  public static final String RANDOM_SOURCE_PROPERTY = "com.ibm.whc.deid.random.source";
+
+  /**
+   * The system property that gives the seed of the default random source when it is seeded.
+   */
+  public static final String RANDOM_SEED_PROPERTY = "com.ibm.whc.deid.random.seed";
+
+  private RandomSource() {
+    // no need to instantiate
+  }
+
+  /**
+   * @return a new cryptographically strong random number generator
+   */
+  public static Random secure() {
+    return new SecureRandom();
+  }
+
+  /**
+   * @return a fast random number generator that draws from the {@link ThreadLocalRandom} of the
+   *         calling thread
+   */
+  public static Random fast() {
+    return ThreadLocalRandomSource.INSTANCE;
+  }
+
+  /**
+   * @param seed the initial seed
+   *
+   * @return a new random number generator that produces the same sequence for the same seed
+   */
+  public static Random seeded(long seed) {
+    return new SeededRandom(seed);
+  }
+
+  /**
+   * @param random a random number generator, which can be <i>null</i>
+   *
+   * @return <i>true</i> if the generator was created by {@link #seeded(long)}
+   */
+  public static boolean isSeeded(Random random) {
+    return random instanceof SeededRandom;
+  }
+
+  /**
+   * @param deidMaskingConfig the masking configuration, which can be <i>null</i>
+   *
+   * @return <i>true</i> if the masking providers built from the configuration use a
+   *         {@link RandomSourceType#SEEDED} source, either requested by the configuration or as the
+   *         default source
+   */
+  public static boolean isSeeded(DeidMaskingConfig deidMaskingConfig) {
+    RandomSourceType type =
+        deidMaskingConfig == null ? null : deidMaskingConfig.getRandomSource();
+    if (type == null) {
+      String name = System.getProperty(RANDOM_SOURCE_PROPERTY);
+      return name != null && RandomSourceType.SEEDED.name().equalsIgnoreCase(name.trim());
+    }
+    return type == RandomSourceType.SEEDED;
+  }
+
+  /**
+   * @param type the type of source or <i>null</i> for the default source
+   * @param seed the seed of a {@link RandomSourceType#SEEDED} source, zero if <i>null</i>
+   *
+   * @return a random number generator of the given type
+   */
+  public static Random create(RandomSourceType type, Long seed) {
+    if (type == null) {
+      return create();
+    }
+    switch (type) {
+      case FAST:
+        return fast();
+      case SEEDED:
+        return seeded(seed == null ? 0L : seed.longValue());
+      default:
+        return secure();
+    }
+  }
+
+  /**
+   * @param deidMaskingConfig the masking configuration, which can be <i>null</i>
+   *
+   * @return a random number generator of the type requested by the masking configuration or of the
+   *         default type if the configuration does not request one
+   */
+  public static Random create(DeidMaskingConfig deidMaskingConfig) {
+    return deidMaskingConfig == null ? create()
+        : create(deidMaskingConfig.getRandomSource(), deidMaskingConfig.getRandomSeed());
+  }
+
+  /**
+   * @return a random number generator of the default type
+   *
+   * @throws IllegalArgumentException if the system properties do not name a valid source or seed
+   */
+  public static Random create() {
+    String type = System.getProperty(RANDOM_SOURCE_PROPERTY);
+    if (type == null || type.trim().isEmpty()) {
+      return secure();
+    }
+    String seed = System.getProperty(RANDOM_SEED_PROPERTY);
+    return create(RandomSourceType.valueOf(type.trim().toUpperCase()),
+        seed == null || seed.trim().isEmpty() ? null : Long.valueOf(seed.trim()));
+  }
+
+  /**
+   * A random number generator created from a seed, distinguished so that the users of a generator
+   * can tell whether its output must be reproducible.
+   */
+  private static final class SeededRandom extends Random {
+
+    private static final long serialVersionUID = -2591383542497812187L;
+
+    SeededRandom(long seed) {
+      super(seed);
+    }
+  }
+
+  /**
+   * A random number generator that delegates to the {@link ThreadLocalRandom} of the calling
+   * thread, so a single instance can be shared by all threads without contention.
+   */
+  private static final class ThreadLocalRandomSource extends Random {
+
+    private static final long serialVersionUID = 3178592405383419412L;
+
+    static final ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+
+    @Override
+    protected int next(int bits) {
+      return ThreadLocalRandom.current().nextInt() >>> (32 - bits);
+    }
+
+    @Override
+    public int nextInt() {
+      return ThreadLocalRandom.current().nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+      return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+      return ThreadLocalRandom.current().nextLong();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+      return ThreadLocalRandom.current().nextBoolean();
+    }
+
+    @Override
+    public double nextDouble() {
+      return ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+      ThreadLocalRandom.current().nextBytes(bytes);
+    }
+
+    private Object readResolve() {
+      return INSTANCE;
+    }
+  }
+}
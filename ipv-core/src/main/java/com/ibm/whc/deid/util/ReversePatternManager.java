@@ -9,10 +9,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.whc.deid.models.ReversePatternGenerator;
 import com.ibm.whc.deid.shared.localization.Resource;
@@ -25,11 +25,19 @@ public final class ReversePatternManager extends ResourceBasedManager<ReversePat
 
   private static final long serialVersionUID = 4317861826867615401L;
 
-  private static transient ReversePatternManager patternManager = null;
+  /**
+   * The number of cached patterns for a language above which patterns that are not loaded from the
+   * resource files are no longer cached. Generators for such patterns are parsed each time they are
+   * requested.
+   */
+  public static final int MAXIMUM_CACHED_PATTERNS = 1000;
+
+  private static transient volatile ReversePatternManager patternManager = null;
 
-  private HashMap<String, String> resourcePatterns = new HashMap<String, String>();
+  // written only while the resources are loaded, before the instance is published
+  private Map<String, String> resourcePatterns = new ConcurrentHashMap<String, String>();
   private Map<String, Map<String, ReversePatternGenerator>> patterns =
-      new HashMap<String, Map<String, ReversePatternGenerator>>();
+      new ConcurrentHashMap<String, Map<String, ReversePatternGenerator>>();
 
   private static LogManager log = LogManager.getInstance();
 
@@ -43,34 +51,52 @@ public final class ReversePatternManager extends ResourceBasedManager<ReversePat
    * @return The PatternManager
    */
   public static ReversePatternManager getInstance() {
-    if (patternManager == null) {
-      patternManager =
-          new ReversePatternManager(LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
-      patternManager.readResourcesFromFile(patternManager.getResources());
+    ReversePatternManager manager = patternManager;
+    if (manager == null) {
+      synchronized (ReversePatternManager.class) {
+        manager = patternManager;
+        if (manager == null) {
+          manager = new ReversePatternManager(LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
+          manager.readResourcesFromFile(manager.getResources());
+          patternManager = manager;
+        }
+      }
     }
-    return patternManager;
+    return manager;
   }
 
   /**
-   * Get a pattern based on the regex string provided. This pattern will be cached for the life of
-   * the VM. Insertion in to the map is synchronized.
+   * Get a pattern based on the regex string provided. The pattern is cached for the life of the VM
+   * unless {@value #MAXIMUM_CACHED_PATTERNS} patterns are already cached for the language. Cached
+   * patterns are found without locking.
    *
    * @param pattern The regex-based pattern
    * @param languageCode The country code for the pattern
    * @return The Pattern instance for generating strings.
    */
   public ReversePatternGenerator getPatternByPattern(String pattern, String languageCode) {
+    return getPatternByPattern(pattern, languageCode, false);
+  }
+
+  private ReversePatternGenerator getPatternByPattern(String pattern, String languageCode,
+      boolean resource) {
     languageCode = languageCode.toUpperCase();
     Map<String, ReversePatternGenerator> countryMap = patterns.get(languageCode);
     if (countryMap == null) {
-      patterns.put(languageCode, new HashMap<String, ReversePatternGenerator>());
-      countryMap = patterns.get(languageCode);
+      countryMap = patterns.computeIfAbsent(languageCode,
+          code -> new ConcurrentHashMap<String, ReversePatternGenerator>());
     }
-    if (countryMap.containsKey(pattern)) {
-      return patterns.get(languageCode).get(pattern);
+    ReversePatternGenerator p = countryMap.get(pattern);
+    if (p == null) {
+      p = new ReversePatternGenerator(pattern);
+      // the bound is approximate when threads add patterns concurrently
+      if (resource || countryMap.size() < MAXIMUM_CACHED_PATTERNS) {
+        ReversePatternGenerator previous = countryMap.putIfAbsent(pattern, p);
+        if (previous != null) {
+          p = previous;
+        }
+      }
     }
-    ReversePatternGenerator p = new ReversePatternGenerator(pattern);
-    countryMap.put(pattern, p);
     return p;
   }
 
@@ -112,8 +138,8 @@ public final class ReversePatternManager extends ResourceBasedManager<ReversePat
       Collection<ResourceEntry> entries) {
     // A new map, if one does not exist in this instance
     if (resourcePatterns == null || patterns == null) {
-      resourcePatterns = new HashMap<String, String>();
-      patterns = new HashMap<String, Map<String, ReversePatternGenerator>>();
+      resourcePatterns = new ConcurrentHashMap<String, String>();
+      patterns = new ConcurrentHashMap<String, Map<String, ReversePatternGenerator>>();
     }
     // Populate the map with each resource for each language / country code
     for (ResourceEntry entry : entries) {
@@ -125,7 +151,7 @@ public final class ReversePatternManager extends ResourceBasedManager<ReversePat
           // Populate the map for each pattern in this resource
           String key = (String) line.getKey();
           String patternAtKey = (String) line.getValue();
-          getPatternByPattern(patternAtKey, countryCode);
+          getPatternByPattern(patternAtKey, countryCode, true);
           resourcePatterns.put(key, patternAtKey);
         }
       } catch (IOException e) {
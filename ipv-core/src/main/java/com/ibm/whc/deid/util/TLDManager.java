@@ -1,13 +1,13 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
 import java.io.InputStreamReader;
-import java.security.SecureRandom;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
 import com.ibm.whc.deid.seceng.SecEngBufferedReader;
@@ -21,7 +21,7 @@ public class TLDManager {
 
   private static TLDManager instance = new TLDManager();
 
-  private SecureRandom random;
+  private Random random;
 
   private String[] tlds = {"com", "org", "edu", "co.uk"};
   @SuppressWarnings("unchecked")
@@ -30,7 +30,7 @@ public class TLDManager {
   private static final LogManager logger = LogManager.getInstance();
 
   private TLDManager() {
-    this.random = new SecureRandom();
+    this.random = RandomSource.create();
 
     for (int i = 0; i < 256; i++) {
       tldSet[i] = new HashSet<>();
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -7,11 +7,14 @@ package com.ibm.whc.deid.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import com.ibm.whc.deid.models.ZIPCode;
@@ -42,10 +45,92 @@ public class ZIPCodeManager extends LocalizedResourceManager<ZIPCode> {
    */
   private Map<String, String> replacementsMap = new HashMap<>();
 
+  /**
+   * Maps country codes (key) to the index of the zip codes loaded for that country.
+   */
+  private final ConcurrentHashMap<String, PrefixIndex> prefixIndexes = new ConcurrentHashMap<>();
+
+  /**
+   * The zip codes of a country in sorted order, so that the codes that begin with any given prefix
+   * are adjacent, together with the running total of their populations.
+   */
+  private static final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(Collections.emptyList());
+
+    private final String[] codes;
+    // populations[i] is the total population of codes[0] through codes[i - 1]
+    private final long[] populations;
+
+    PrefixIndex(List<ZIPCode> zipCodes) {
+      ZIPCode[] sorted = zipCodes.toArray(new ZIPCode[zipCodes.size()]);
+      Arrays.sort(sorted, (a, b) -> a.getCode().compareTo(b.getCode()));
+      codes = new String[sorted.length];
+      populations = new long[sorted.length + 1];
+      for (int i = 0; i < sorted.length; i++) {
+        codes[i] = sorted[i].getCode();
+        populations[i + 1] = populations[i] + sorted[i].getPopulation();
+      }
+    }
+
+    /**
+     * @return the index of the first code that is not less than the given prefix
+     */
+    int first(String prefix) {
+      int low = 0;
+      int high = codes.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (codes[mid].compareTo(prefix) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * @return the index after the last code that begins with the given prefix, searching from the
+     *         given index of the first such code
+     */
+    int end(String prefix, int first) {
+      int low = first;
+      int high = codes.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (codes[mid].startsWith(prefix)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
   protected ZIPCodeManager() {
     super(34000, 34000);
   }
 
+  @Override
+  protected void add(String localeCode, ZIPCode resource) {
+    super.add(localeCode, resource);
+    prefixIndexes.remove(localeCode.toLowerCase());
+  }
+
+  private PrefixIndex getPrefixIndex(String countryCode) {
+    String lcode = countryCode.toLowerCase();
+    PrefixIndex index = prefixIndexes.get(lcode);
+    if (index == null) {
+      List<ZIPCode> zipCodes = getValues(lcode);
+      // indexes are not retained for unknown countries
+      index = zipCodes.isEmpty() ? PrefixIndex.EMPTY
+          : prefixIndexes.computeIfAbsent(lcode, k -> new PrefixIndex(zipCodes));
+    }
+    return index;
+  }
+
   /**
    * Creates a new ZIPCodeManager instance from the definitions in the given properties file.
    * 
@@ -63,11 +148,18 @@ public class ZIPCodeManager extends LocalizedResourceManager<ZIPCode> {
       Collection<ResourceEntry> resourceEntries =
           LocalizationManager.getInstance(localizationProperty).getResources(resourceType);
       for (ResourceEntry entry : resourceEntries) {
+        String countryCode = entry.getCountryCode();
+        String fileName = entry.getFilename();
 
-        try (InputStream inputStream = entry.createStream()) {
-          String countryCode = entry.getCountryCode();
-          String fileName = entry.getFilename();
+        Iterable<String[]> records = entry.getSnapshotRecords();
+        if (records != null) {
+          for (String[] record : records) {
+            loadSnapshotRecord(fileName, countryCode, manager, record);
+          }
+          continue;
+        }
 
+        try (InputStream inputStream = entry.createStream()) {
           try (CSVParser reader = Readers.createCSVReaderFromStream(inputStream)) {
             for (CSVRecord line : reader) {
               loadCSVRecord(fileName, countryCode, manager, line);
@@ -75,6 +167,9 @@ public class ZIPCodeManager extends LocalizedResourceManager<ZIPCode> {
           }
         }
       }
+      for (ResourceEntry entry : resourceEntries) {
+        manager.getPrefixIndex(entry.getCountryCode());
+      }
     } catch (IOException e) {
       logger.logError(LogCodes.WPH1013E, e);
       throw new RuntimeException(e);
@@ -111,6 +206,31 @@ public class ZIPCodeManager extends LocalizedResourceManager<ZIPCode> {
     }
   }
 
+  /**
+   * Loads a record obtained from the resource snapshot into the given resource manager.
+   *
+   * @param fileName the name of the file from which the record was obtained - used for logging
+   *        and error messages
+   * @param countryCode the locale or country code to associate with the resource
+   * @param manager the resource manager
+   * @param record the field values of a single record of the file
+   * 
+   * @throws RuntimeException if any of the data in the record is invalid for its target purpose.
+   *
+   * @see com.ibm.whc.deid.util.localization.ResourceSnapshot
+   */
+  protected static void loadSnapshotRecord(String fileName, String countryCode,
+      ZIPCodeManager manager, String[] record) {
+    try {
+      loadRecord(countryCode, manager, record);
+
+    } catch (RuntimeException e) {
+      String logmsg = Messages.getMessage(LogCodes.WPH1023E, Arrays.toString(record), fileName,
+          e.getMessage());
+      throw new KeyedRuntimeException(LogCodes.WPH1023E, logmsg, e);
+    }
+  }
+
   /**
    * Retrieves data from the given record and loads it into the given resource manager.
    *
@@ -203,13 +323,11 @@ public class ZIPCodeManager extends LocalizedResourceManager<ZIPCode> {
   public Integer getPopulationByPrefix(String countryCode, String zipCodePrefix) {
     Integer populationI = null;
     if (countryCode != null && zipCodePrefix != null) {
-      int population = 0;
-      for (ZIPCode code : getValues(countryCode.toLowerCase())) {
-        if (code.getCode().startsWith(zipCodePrefix)) {
-          population += code.getPopulation();
-        }
-      }
-      populationI = Integer.valueOf(population);
+      PrefixIndex index = getPrefixIndex(countryCode);
+      int first = index.first(zipCodePrefix);
+      int end = index.end(zipCodePrefix, first);
+      // populations are added as integers as they always have been
+      populationI = Integer.valueOf((int) (index.populations[end] - index.populations[first]));
     }
     return populationI;
   }
@@ -226,19 +344,13 @@ public class ZIPCodeManager extends LocalizedResourceManager<ZIPCode> {
   public String getRandomZipCodeByPrefix(String countryCode, String zipCodePrefix) {
     String code = null;
     if (countryCode != null && zipCodePrefix != null) {
-
-      ArrayList<ZIPCode> candidates = new ArrayList<>(100);
-      for (ZIPCode zcode : getValues(countryCode)) {
-        if (zcode.getCode().startsWith(zipCodePrefix)) {
-          candidates.add(zcode);
-        }
-      }
-
-      int count = candidates.size();
+      PrefixIndex index = getPrefixIndex(countryCode);
+      int first = index.first(zipCodePrefix);
+      int count = index.end(zipCodePrefix, first) - first;
       if (count == 1) {
-        code = candidates.get(0).getCode();
+        code = index.codes[first];
       } else if (count > 1) {
-        code = candidates.get(random.nextInt(count)).getCode();
+        code = index.codes[first + random.nextInt(count)];
       }
     }
 
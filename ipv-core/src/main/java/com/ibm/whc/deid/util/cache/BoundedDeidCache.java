@@ -0,0 +1,362 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
+
+/**
+ * A bounded cache of the results of masking providers that always return the same replacement for
+ * the same input, so that values that recur in many documents are masked only once.
+ *
+ * <p>
+ * Each masking provider that uses a cache owns its own instance, so different rules and masking
+ * configurations never share entries. The entries are divided into segments, each with its own
+ * lock and each holding its share of the maximum size and weight, and the least recently used
+ * entry of a segment is removed when the segment is full. The weight of an entry is the number of
+ * bytes of its UTF-8 encoded key and value. Values can be held outside the Java heap.
+ *
+ * <p>
+ * Keys and values contain protected health information, so they are held as byte arrays or
+ * buffers that are overwritten with zeros when entries are evicted and when the cache is dropped.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class BoundedDeidCache implements DeidCache {
+
+  /**
+   * The system property that gives the comma-separated names of the masking provider types whose
+   * results are cached, for example <i>HASH,FPE</i>. No results are cached if it is not set.
+   */
+  public static final String PROVIDER_TYPES_PROPERTY = "com.ibm.whc.deid.cache.provider-types";
+
+  /**
+   * The system property that gives the maximum number of entries cached by each provider.
+   */
+  public static final String MAXIMUM_SIZE_PROPERTY = "com.ibm.whc.deid.cache.maximum-size";
+
+  /**
+   * The system property that gives the maximum total weight in bytes of the entries cached by each
+   * provider, zero or less for no limit.
+   */
+  public static final String MAXIMUM_WEIGHT_PROPERTY = "com.ibm.whc.deid.cache.maximum-weight";
+
+  /**
+   * The system property that is set to <i>true</i> to hold cached values outside the Java heap.
+   */
+  public static final String OFF_HEAP_PROPERTY = "com.ibm.whc.deid.cache.off-heap";
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+  private static final int MAXIMUM_SEGMENTS = 16;
+  private static final int MINIMUM_SEGMENT_SIZE = 64;
+
+  private static final class Key {
+
+    private final byte[] bytes;
+    private final int hashCode;
+
+    Key(byte[] bytes) {
+      this.bytes = bytes;
+      this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+    }
+  }
+
+  private static final class Value {
+
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+
+    Value(byte[] bytes, boolean offHeap) {
+      if (offHeap) {
+        this.buffer = ByteBuffer.allocateDirect(bytes.length);
+        this.buffer.put(bytes);
+        Arrays.fill(bytes, (byte) 0);
+        this.bytes = null;
+      } else {
+        this.bytes = bytes;
+        this.buffer = null;
+      }
+    }
+
+    int length() {
+      return bytes != null ? bytes.length : buffer.capacity();
+    }
+
+    String decode() {
+      if (bytes != null) {
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+      byte[] copy = new byte[buffer.capacity()];
+      for (int i = 0; i < copy.length; i++) {
+        copy[i] = buffer.get(i);
+      }
+      String value = new String(copy, StandardCharsets.UTF_8);
+      Arrays.fill(copy, (byte) 0);
+      return value;
+    }
+
+    void wipe() {
+      if (bytes != null) {
+        Arrays.fill(bytes, (byte) 0);
+      } else {
+        for (int i = 0; i < buffer.capacity(); i++) {
+          buffer.put(i, (byte) 0);
+        }
+      }
+    }
+  }
+
+  // access-ordered so the eldest entry is the least recently used, guarded by itself
+  private final class Segment extends LinkedHashMap<Key, Value> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maximumSize;
+    private final long maximumWeight;
+    private long weight;
+
+    Segment(int maximumSize, long maximumWeight) {
+      super(16, 0.75f, true);
+      this.maximumSize = maximumSize;
+      this.maximumWeight = maximumWeight;
+    }
+
+    void add(Key key, Value value) {
+      Value previous = put(key, value);
+      if (previous == null) {
+        weight += key.bytes.length + value.length();
+      } else {
+        // the map keeps the key it already holds
+        weight += value.length() - previous.length();
+        Arrays.fill(key.bytes, (byte) 0);
+        previous.wipe();
+      }
+      Iterator<Map.Entry<Key, Value>> it = entrySet().iterator();
+      while ((size() > maximumSize || (maximumWeight > 0 && weight > maximumWeight))
+          && it.hasNext()) {
+        Map.Entry<Key, Value> eldest = it.next();
+        it.remove();
+        weight -= eldest.getKey().bytes.length + eldest.getValue().length();
+        Arrays.fill(eldest.getKey().bytes, (byte) 0);
+        eldest.getValue().wipe();
+        evictionCount.incrementAndGet();
+      }
+    }
+
+    void wipe() {
+      for (Map.Entry<Key, Value> entry : entrySet()) {
+        Arrays.fill(entry.getKey().bytes, (byte) 0);
+        entry.getValue().wipe();
+      }
+      clear();
+      weight = 0;
+    }
+  }
+
+  private final int maximumSize;
+  private final long maximumWeight;
+  private final boolean offHeap;
+  private final Segment[] segments;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * Instantiates a cache.
+   *
+   * @param maximumSize the maximum number of entries retained, which must be greater than zero
+   * @param maximumWeight the maximum total weight in bytes of the entries retained, zero or less
+   *        for no limit
+   * @param offHeap <i>true</i> to hold the cached values outside the Java heap
+   */
+  public BoundedDeidCache(int maximumSize, long maximumWeight, boolean offHeap) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be greater than zero: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.maximumWeight = maximumWeight;
+    this.offHeap = offHeap;
+    int count = Math.max(1, Math.min(MAXIMUM_SEGMENTS, maximumSize / MINIMUM_SEGMENT_SIZE));
+    this.segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      // the first segments take any remainder so that the total matches the maximum
+      int segmentSize = maximumSize / count + (i < maximumSize % count ? 1 : 0);
+      long segmentWeight = maximumWeight <= 0 ? 0 : Math.max(1L, maximumWeight / count);
+      segments[i] = new Segment(segmentSize, segmentWeight);
+    }
+  }
+
+  /**
+   * Creates the cache for a masking provider as configured by the system properties
+   * {@value #PROVIDER_TYPES_PROPERTY}, {@value #MAXIMUM_SIZE_PROPERTY},
+   * {@value #MAXIMUM_WEIGHT_PROPERTY} and {@value #OFF_HEAP_PROPERTY}.
+   *
+   * @param providerType the type of the masking provider
+   *
+   * @return a new cache or <i>null</i> if the results of the given type of provider are not cached
+   *
+   * @throws IllegalArgumentException if the system properties do not give valid values
+   */
+  public static DeidCache forProviderType(MaskingProviderType providerType) {
+    String types = System.getProperty(PROVIDER_TYPES_PROPERTY);
+    if (types != null) {
+      for (String type : types.split(",")) {
+        if (type.trim().equalsIgnoreCase(providerType.getIdentifier())) {
+          String size = System.getProperty(MAXIMUM_SIZE_PROPERTY);
+          String weight = System.getProperty(MAXIMUM_WEIGHT_PROPERTY);
+          return new BoundedDeidCache(
+              size == null ? DEFAULT_MAXIMUM_SIZE : Integer.parseInt(size.trim()),
+              weight == null ? 0L : Long.parseLong(weight.trim()),
+              Boolean.parseBoolean(System.getProperty(OFF_HEAP_PROPERTY)));
+        }
+      }
+    }
+    return null;
+  }
+
+  private Segment segmentFor(Key key) {
+    int hash = key.hashCode ^ (key.hashCode >>> 16);
+    return segments[(hash & Integer.MAX_VALUE) % segments.length];
+  }
+
+  /**
+   * @param key the input value
+   *
+   * @return the cached replacement for the given input value or <i>null</i> if none is cached
+   */
+  @Override
+  public String getCachedValue(String key) {
+    if (key == null) {
+      return null;
+    }
+    byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+    Key cacheKey = new Key(bytes);
+    Segment segment = segmentFor(cacheKey);
+    String value = null;
+    synchronized (segment) {
+      Value cached = segment.get(cacheKey);
+      if (cached != null) {
+        value = cached.decode();
+      }
+    }
+    Arrays.fill(bytes, (byte) 0);
+    if (value == null) {
+      missCount.incrementAndGet();
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return value;
+  }
+
+  /**
+   * Caches the replacement for an input value. <i>null</i> keys and values are not cached.
+   *
+   * @param key the input value
+   * @param val the replacement
+   */
+  @Override
+  public void putCachedValue(String key, String val) {
+    if (key == null || val == null) {
+      return;
+    }
+    Key cacheKey = new Key(key.getBytes(StandardCharsets.UTF_8));
+    Value value = new Value(val.getBytes(StandardCharsets.UTF_8), offHeap);
+    Segment segment = segmentFor(cacheKey);
+    synchronized (segment) {
+      segment.add(cacheKey, value);
+    }
+  }
+
+  /**
+   * Removes all entries, overwriting their keys and values.
+   */
+  @Override
+  public void dropCache() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.wipe();
+      }
+    }
+  }
+
+  /**
+   * @return the number of entries currently cached
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the total weight in bytes of the entries currently cached
+   */
+  public long getWeight() {
+    long weight = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        weight += segment.weight;
+      }
+    }
+    return weight;
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  /**
+   * @return the number of lookups that found a cached value
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of lookups that did not find a cached value
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of entries removed due to the maximum size or weight
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+}
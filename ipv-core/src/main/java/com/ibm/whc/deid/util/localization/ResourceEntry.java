@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -57,6 +57,22 @@ public class ResourceEntry {
     }
   }
 
+  /**
+   * Retrieves the records of the resource from the resource snapshot, if one is in use.
+   *
+   * @return the records of the resource, each as an array of field values, or <i>null</i> if the
+   *         records must be read from the stream returned by {@link #createStream()}
+   *
+   * @see ResourceSnapshot
+   */
+  public Iterable<String[]> getSnapshotRecords() {
+    if (resourceEntryType != ResourceEntryType.INTERNAL_RESOURCE) {
+      return null;
+    }
+    ResourceSnapshot snapshot = ResourceSnapshot.getDefault();
+    return snapshot == null ? null : snapshot.getRecords(filename);
+  }
+
   /**
    * Gets country code.
    *
@@ -74,4 +90,8 @@ public class ResourceEntry {
   public String getFilename() {
     return filename;
   }
+
+  ResourceEntryType getResourceEntryType() {
+    return resourceEntryType;
+  }
 }
@@ -0,0 +1,318 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util.localization;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import com.ibm.whc.deid.shared.localization.Resource;
+import com.ibm.whc.deid.util.Readers;
+import com.ibm.whc.deid.utils.log.LogCodes;
+import com.ibm.whc.deid.utils.log.LogManager;
+
+/**
+ * A precompiled binary copy of the records of the CSV resource files packaged with the service.
+ *
+ * <p>
+ * Loading the larger resources, such as last names or postal codes, is dominated by parsing the CSV
+ * files. A snapshot holds the records of every packaged CSV resource named in a localization
+ * properties file as a table of distinct strings and, for each file, arrays of string numbers. The
+ * snapshot file is mapped into memory and strings are only decoded when a record is read.
+ *
+ * <p>
+ * A snapshot is created by running this class:
+ *
+ * <pre>
+ * java -cp &lt;classpath&gt; com.ibm.whc.deid.util.localization.ResourceSnapshot &lt;snapshot file&gt; [&lt;localization properties&gt;]
+ * </pre>
+ *
+ * <p>
+ * and is used when the path to the snapshot file is given in the system property
+ * {@value #SNAPSHOT_PROPERTY}. Resources not in the snapshot, including files registered as
+ * external resources, are read from their CSV files. A snapshot must be created again whenever the
+ * packaged resources change.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class ResourceSnapshot {
+
+  private static final LogManager logger = LogManager.getInstance();
+
+  /**
+   * The system property that gives the path to the snapshot file to use.
+   */
+  public static final String SNAPSHOT_PROPERTY = "com.ibm.whc.deid.resources.snapshot";
+
+  private static final int MAGIC = 0x44454944;
+  private static final int VERSION = 1;
+
+  // resources that are not read from CSV files
+  private static final EnumSet<Resource> NOT_CSV = EnumSet.of(Resource.PUBLIC_SUFFIX_LIST,
+      Resource.GENERALIZE, Resource.PATTERN, Resource.STREET_TYPES, Resource.SSNUK_PREFIXES);
+
+  private static final class DefaultHolder {
+    static final ResourceSnapshot INSTANCE = loadDefault();
+  }
+
+  private final ByteBuffer buffer;
+  private final int stringOffsetsPosition;
+  private final int stringsPosition;
+  private final String[] strings;
+  // the position of the records of each file, by file name
+  private final Map<String, Integer> files = new HashMap<>();
+
+  private ResourceSnapshot(ByteBuffer buffer) {
+    this.buffer = buffer;
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IllegalArgumentException("not a resource snapshot");
+    }
+    int stringCount = buffer.getInt(8);
+    this.strings = new String[stringCount];
+    this.stringOffsetsPosition = 12;
+    this.stringsPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+    int position = stringsPosition + buffer.getInt(stringOffsetsPosition + stringCount * 4);
+    int fileCount = buffer.getInt(position);
+    position += 4;
+    for (int i = 0; i < fileCount; i++) {
+      files.put(getString(buffer.getInt(position)), Integer.valueOf(position + 4));
+      int recordCount = buffer.getInt(position + 4);
+      int fieldCount = buffer.getInt(position + 8);
+      position += 12 + (recordCount + 1) * 4 + fieldCount * 4;
+    }
+  }
+
+  /**
+   * Maps the given snapshot file into memory.
+   *
+   * @param path the snapshot file
+   *
+   * @return the snapshot
+   *
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is not a resource snapshot
+   */
+  public static ResourceSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new ResourceSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * @return the snapshot named in the system property {@value #SNAPSHOT_PROPERTY} or <i>null</i>
+   *         if no snapshot is configured or the snapshot cannot be read
+   */
+  public static ResourceSnapshot getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  private static ResourceSnapshot loadDefault() {
+    String path = System.getProperty(SNAPSHOT_PROPERTY);
+    if (path != null && !path.trim().isEmpty()) {
+      try {
+        return open(Paths.get(path.trim()));
+      } catch (IOException | RuntimeException e) {
+        // the resources are read from their CSV files
+        logger.logError(LogCodes.WPH1013E, e);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves the records of a resource file.
+   *
+   * @param fileName the path of the resource file as given in the localization properties
+   *
+   * @return the records of the file, each as an array of field values, or <i>null</i> if the file
+   *         is not in the snapshot
+   */
+  public Iterable<String[]> getRecords(String fileName) {
+    Integer filePosition = files.get(fileName);
+    if (filePosition == null) {
+      return null;
+    }
+    int position = filePosition.intValue();
+    int recordCount = buffer.getInt(position);
+    int recordStarts = position + 8;
+    int fields = recordStarts + (recordCount + 1) * 4;
+    return () -> new Iterator<String[]>() {
+      private int record = 0;
+
+      @Override
+      public boolean hasNext() {
+        return record < recordCount;
+      }
+
+      @Override
+      public String[] next() {
+        if (record >= recordCount) {
+          throw new NoSuchElementException();
+        }
+        int start = buffer.getInt(recordStarts + record * 4);
+        int end = buffer.getInt(recordStarts + (record + 1) * 4);
+        String[] values = new String[end - start];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = getString(buffer.getInt(fields + (start + i) * 4));
+        }
+        record++;
+        return values;
+      }
+    };
+  }
+
+  private String getString(int index) {
+    String value = strings[index];
+    if (value == null) {
+      int start = buffer.getInt(stringOffsetsPosition + index * 4);
+      int end = buffer.getInt(stringOffsetsPosition + (index + 1) * 4);
+      byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = buffer.get(stringsPosition + start + i);
+      }
+      // equal strings can be decoded more than once by different threads, which does no harm
+      value = new String(bytes, StandardCharsets.UTF_8);
+      strings[index] = value;
+    }
+    return value;
+  }
+
+  /**
+   * Creates a snapshot of the packaged CSV resources named in the given localization properties.
+   *
+   * @param localizationProperty the localization properties file
+   * @param output the stream to which the snapshot is written
+   *
+   * @return the number of resource files in the snapshot
+   *
+   * @throws IOException if a resource cannot be read or the snapshot cannot be written
+   */
+  public static int compile(String localizationProperty, OutputStream output) throws IOException {
+    LocalizationManager localizationManager = LocalizationManager.getInstance(localizationProperty);
+    Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+    Map<String, List<int[]>> fileRecords = new LinkedHashMap<>();
+    for (Resource resource : EnumSet.complementOf(NOT_CSV)) {
+      for (ResourceEntry entry : localizationManager.getResources(resource)) {
+        if (entry == null || entry.getResourceEntryType() != ResourceEntryType.INTERNAL_RESOURCE
+            || fileRecords.containsKey(entry.getFilename())) {
+          continue;
+        }
+        String fileName = entry.getFilename();
+        List<int[]> records = new ArrayList<>();
+        try (InputStream inputStream = entry.createStream();
+            CSVParser parser = createParser(resource, inputStream)) {
+          for (CSVRecord record : parser) {
+            int[] values = new int[record.size()];
+            for (int i = 0; i < values.length; i++) {
+              values[i] = stringIndexes.computeIfAbsent(record.get(i),
+                  k -> Integer.valueOf(stringIndexes.size()));
+            }
+            records.add(values);
+          }
+        }
+        stringIndexes.computeIfAbsent(fileName, k -> Integer.valueOf(stringIndexes.size()));
+        fileRecords.put(fileName, records);
+      }
+    }
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(stringIndexes.size());
+    List<byte[]> encoded = new ArrayList<>(stringIndexes.size());
+    int offset = 0;
+    out.writeInt(offset);
+    for (String value : stringIndexes.keySet()) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      encoded.add(bytes);
+      offset += bytes.length;
+      out.writeInt(offset);
+    }
+    for (byte[] bytes : encoded) {
+      out.write(bytes);
+    }
+    out.writeInt(fileRecords.size());
+    for (Map.Entry<String, List<int[]>> file : fileRecords.entrySet()) {
+      List<int[]> records = file.getValue();
+      out.writeInt(stringIndexes.get(file.getKey()).intValue());
+      out.writeInt(records.size());
+      int fieldCount = 0;
+      for (int[] record : records) {
+        fieldCount += record.length;
+      }
+      out.writeInt(fieldCount);
+      int start = 0;
+      out.writeInt(start);
+      for (int[] record : records) {
+        start += record.length;
+        out.writeInt(start);
+      }
+      for (int[] record : records) {
+        for (int value : record) {
+          out.writeInt(value);
+        }
+      }
+    }
+    out.flush();
+    return fileRecords.size();
+  }
+
+  /**
+   * Creates a parser with the same CSV format as the manager that loads the given resource.
+   */
+  private static CSVParser createParser(Resource resource, InputStream inputStream)
+      throws IOException {
+    switch (resource) {
+      case ICDV9:
+        return Readers.createCSVReaderFromStream(inputStream, ';', '"');
+      case RACE_ETHNICITY:
+        return Readers.createCSVReaderFromStream(inputStream, ',', '"', '#');
+      default:
+        return Readers.createCSVReaderFromStream(inputStream);
+    }
+  }
+
+  /**
+   * Creates a resource snapshot file.
+   *
+   * @param args the path of the snapshot file to create and, optionally, the localization
+   *        properties file naming the resources, by default {@value
+   *        LocalizationManager#DEFAULT_LOCALIZATION_PROPERTIES}
+   *
+   * @throws IOException if a resource cannot be read or the snapshot cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("usage: ResourceSnapshot <snapshot file> [<localization properties>]");
+      System.exit(1);
+    }
+    String localizationProperty =
+        args.length > 1 ? args[1] : LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES;
+    try (OutputStream output = Files.newOutputStream(Paths.get(args[0]))) {
+      int count = compile(localizationProperty, output);
+      System.out.println(count + " resource files written to " + args[0]);
+    }
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.masking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import com.ibm.whc.deid.providers.masking.BasicMaskingProviderFactory;
+import com.ibm.whc.deid.providers.masking.ComplexMaskingProvider;
+import com.ibm.whc.deid.providers.masking.MaskingProvider;
+import com.ibm.whc.deid.providers.masking.RedactMaskingProvider;
+import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaType;
+import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.pojo.config.GlobalProcessorConfig;
+import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderTypes;
+import com.ibm.whc.deid.shared.pojo.masking.ReferableData;
+import com.ibm.whc.deid.shared.util.InvalidMaskingConfigurationException;
+
+public class ComplexMaskingProviderCacheTest {
+
+  private String config;
+
+  @Before
+  public void setup() throws IOException {
+    try (
+        InputStream inputStream =
+            this.getClass().getResourceAsStream("/config/fhir/masking_config.json");
+        Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+      config = scanner.useDelimiter("\\A").next();
+    }
+  }
+
+  @Test
+  public void testHit() throws Exception {
+    ComplexMaskingProviderCache cache = new ComplexMaskingProviderCache();
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    assertNotNull(entry.getMaskingConfig());
+    assertTrue(entry.isReusable());
+    assertEquals(0, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    assertSame(entry, cache.getEntry(new String(config), ConfigSchemaType.FHIR, null));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.size());
+
+    ComplexMaskingProvider provider = entry.getComplexMaskingProvider(null);
+    assertNotNull(provider);
+    assertSame(provider, entry.getComplexMaskingProvider(null));
+  }
+
+  @Test
+  public void testKey() throws Exception {
+    ComplexMaskingProviderCache cache = new ComplexMaskingProviderCache();
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    assertNotSame(entry, cache.getEntry(config, ConfigSchemaType.GEN, null));
+    assertNotSame(entry, cache.getEntry(config, ConfigSchemaType.FHIR, "tenant"));
+    assertNotSame(entry, cache.getEntry(config + " ", ConfigSchemaType.FHIR, null));
+    assertEquals(4, cache.size());
+    assertEquals(4, cache.getMissCount());
+  }
+
+  @Test
+  public void testMaximumSize() throws Exception {
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(2, 0, Collections.emptySet());
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    cache.getEntry(config, ConfigSchemaType.FHIR, "t1");
+    // make the first entry the most recently used
+    assertSame(entry, cache.getEntry(config, ConfigSchemaType.FHIR, null));
+    cache.getEntry(config, ConfigSchemaType.FHIR, "t2");
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertSame(entry, cache.getEntry(config, ConfigSchemaType.FHIR, null));
+  }
+
+  @Test
+  public void testExpiry() throws Exception {
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(10, 1, Collections.emptySet());
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    Thread.sleep(5);
+    assertNotSame(entry, cache.getEntry(config, ConfigSchemaType.FHIR, null));
+    assertEquals(1, cache.getEvictionCount());
+    Thread.sleep(5);
+    cache.removeExpired();
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(0, 0, Collections.emptySet());
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    assertNotSame(entry, cache.getEntry(config, ConfigSchemaType.FHIR, null));
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testUncachedProviderTypes() throws Exception {
+    ComplexMaskingProviderCache cache = new ComplexMaskingProviderCache(10, 0,
+        Arrays.asList(MaskingProviderType.HASH, MaskingProviderType.CITY));
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    assertFalse(entry.isReusable());
+    // the validated configuration is cached but the providers are built every time
+    assertSame(entry, cache.getEntry(config, ConfigSchemaType.FHIR, null));
+    assertNotSame(entry.getComplexMaskingProvider(null), entry.getComplexMaskingProvider(null));
+
+    cache = new ComplexMaskingProviderCache(10, 0, Arrays.asList(MaskingProviderType.BINNING));
+    assertTrue(cache.getEntry(config, ConfigSchemaType.FHIR, null).isReusable());
+  }
+
+  @Test
+  public void testUncachedProviderTypesConditional() throws Exception {
+    String conditional = "{\"rules\":[{\"name\":\"COND\",\"maskingProviders\":[{"
+        + "\"type\":\"CONDITIONAL\",\"maskRuleSet\":[{\"condition\":{\"field\":\"status\","
+        + "\"operator\":\"equals\",\"type\":\"string\",\"value\":\"x\"},"
+        + "\"maskingProvider\":{\"type\":\"CONDITIONAL\",\"maskRuleSet\":[{"
+        + "\"maskingProvider\":{\"type\":\"HASH\"}}]}},"
+        + "{\"maskingProvider\":{\"type\":\"REDACT\"}}]}]}],"
+        + "\"json\":{\"schemaType\":\"GEN\",\"messageTypeKey\":\"resourceType\","
+        + "\"messageTypes\":[\"Patient\"],"
+        + "\"maskingRules\":[{\"jsonPath\":\"/gen/Patient/name\",\"rule\":\"COND\"}]}}";
+
+    // the type of a provider nested within conditional rule sets is found
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(10, 0, Arrays.asList(MaskingProviderType.HASH));
+    ComplexMaskingProviderCache.Entry entry =
+        cache.getEntry(conditional, ConfigSchemaType.GEN, null);
+    assertFalse(entry.isReusable());
+    assertNotSame(entry.getComplexMaskingProvider(null), entry.getComplexMaskingProvider(null));
+
+    cache = new ComplexMaskingProviderCache(10, 0, Arrays.asList(MaskingProviderType.REDACT));
+    assertFalse(cache.getEntry(conditional, ConfigSchemaType.GEN, null).isReusable());
+
+    cache = new ComplexMaskingProviderCache(10, 0, Arrays.asList(MaskingProviderType.CONDITIONAL));
+    assertFalse(cache.getEntry(conditional, ConfigSchemaType.GEN, null).isReusable());
+
+    cache = new ComplexMaskingProviderCache(10, 0, Arrays.asList(MaskingProviderType.PSEUDONYM));
+    assertTrue(cache.getEntry(conditional, ConfigSchemaType.GEN, null).isReusable());
+  }
+
+  private static final String SEEDED_CONFIG = "{\"rules\":[{\"name\":\"PSEUDONYM\","
+      + "\"maskingProviders\":[{\"type\":\"PSEUDONYM\",\"generateViaOptionsMinLength\":12,"
+      + "\"generateViaOptionsMaxLength\":12}]}],\"randomSource\":\"SEEDED\",\"randomSeed\":42,"
+      + "\"json\":{\"schemaType\":\"GEN\",\"messageTypeKey\":\"resourceType\","
+      + "\"messageTypes\":[\"Patient\"],"
+      + "\"maskingRules\":[{\"jsonPath\":\"/gen/Patient/name\",\"rule\":\"PSEUDONYM\"}]}}";
+
+  private static List<ReferableData> patients() {
+    List<ReferableData> patients = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      patients.add(new ReferableData(String.valueOf(i),
+          "{\"resourceType\":\"Patient\",\"name\":\"John Smith\"}"));
+    }
+    return patients;
+  }
+
+  private static List<String> mask(ComplexMaskingProviderCache cache, DataMaskingCore core)
+      throws InvalidMaskingConfigurationException {
+    ComplexMaskingProviderCache.Entry entry =
+        cache.getEntry(SEEDED_CONFIG, ConfigSchemaType.GEN, null);
+    List<String> masked = new ArrayList<>();
+    for (ReferableData data : core.maskData(entry.getComplexMaskingProvider(null), patients())) {
+      masked.add(data.getData());
+    }
+    return masked;
+  }
+
+  @Test
+  public void testSeeded() throws Exception {
+    ComplexMaskingProviderCache cache = new ComplexMaskingProviderCache();
+    ComplexMaskingProviderCache.Entry entry =
+        cache.getEntry(SEEDED_CONFIG, ConfigSchemaType.GEN, null);
+    assertFalse(entry.isReusable());
+    assertFalse(entry.getComplexMaskingProvider(null).supportsConcurrentMasking());
+
+    // every request starts from the seed
+    List<String> first = mask(cache, new DataMaskingCore());
+    assertEquals(7, first.size());
+    assertTrue(new HashSet<>(first).size() > 1);
+    assertEquals(first, mask(cache, new DataMaskingCore()));
+    assertEquals(1, cache.size());
+    assertEquals(2, cache.getHitCount());
+  }
+
+  @Test
+  public void testSeededParallel() throws Exception {
+    ComplexMaskingProviderCache cache = new ComplexMaskingProviderCache();
+    List<String> expected = mask(cache, new DataMaskingCore());
+
+    ExecutorService executor = new ForkJoinPool(3);
+    try {
+      // documents are not divided among threads, which would make the output depend on timing
+      DataMaskingCore core = new DataMaskingCore(executor, 2);
+      assertEquals(expected, mask(cache, core));
+      assertEquals(expected, mask(cache, core));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Builds providers that count the number of times their cached values are dropped.
+   */
+  private static class DropCountingFactory extends BasicMaskingProviderFactory {
+
+    private static final long serialVersionUID = 1L;
+
+    final AtomicInteger dropped = new AtomicInteger();
+
+    @Override
+    public MaskingProvider getProviderFromType(MaskingProviderTypes providerType,
+        DeidMaskingConfig deidMaskingConfig, MaskingProviderConfig config, String tenantId,
+        String localizationProperty) {
+      return new RedactMaskingProvider() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void dropCache() {
+          dropped.incrementAndGet();
+        }
+      };
+    }
+  }
+
+  @Test
+  public void testRelease() throws Exception {
+    DropCountingFactory factory = new DropCountingFactory();
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(10, 0, Collections.emptySet(), factory);
+    ComplexMaskingProviderCache.Entry entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+
+    // nothing to drop before the reused driver is built
+    entry.release();
+    assertEquals(0, factory.dropped.get());
+
+    // the reused driver keeps its values until the entry leaves the cache
+    ComplexMaskingProvider provider = entry.getComplexMaskingProvider(null);
+    entry.release(provider);
+    assertEquals(0, factory.dropped.get());
+    entry.release(null);
+    assertEquals(0, factory.dropped.get());
+
+    cache.clear();
+    int dropped = factory.dropped.get();
+    assertTrue(dropped > 0);
+
+    // a driver that is not reused is dropped as soon as the request is done
+    entry = cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    entry.release(entry.getComplexMaskingProvider(new GlobalProcessorConfig()));
+    assertEquals(2 * dropped, factory.dropped.get());
+  }
+
+  @Test
+  public void testReleaseEvicted() throws Exception {
+    DropCountingFactory factory = new DropCountingFactory();
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(1, 0, Collections.emptySet(), factory);
+    cache.getEntry(config, ConfigSchemaType.FHIR, null).getComplexMaskingProvider(null);
+    assertEquals(0, factory.dropped.get());
+
+    // the eldest entry is removed when the next one is added
+    cache.getEntry(config, ConfigSchemaType.FHIR, "t1");
+    assertEquals(1, cache.getEvictionCount());
+    int dropped = factory.dropped.get();
+    assertTrue(dropped > 0);
+
+    // the driver of the entry now removed was never built
+    cache.getEntry(config, ConfigSchemaType.FHIR, null);
+    assertEquals(2, cache.getEvictionCount());
+    assertEquals(dropped, factory.dropped.get());
+  }
+
+  @Test
+  public void testReleaseExpired() throws Exception {
+    DropCountingFactory factory = new DropCountingFactory();
+    ComplexMaskingProviderCache cache =
+        new ComplexMaskingProviderCache(10, 1, Collections.emptySet(), factory);
+    cache.getEntry(config, ConfigSchemaType.FHIR, null).getComplexMaskingProvider(null);
+    Thread.sleep(5);
+    cache.getEntry(config, ConfigSchemaType.FHIR, null).getComplexMaskingProvider(null);
+    int dropped = factory.dropped.get();
+    assertTrue(dropped > 0);
+
+    Thread.sleep(5);
+    cache.removeExpired();
+    assertEquals(0, cache.size());
+    assertEquals(2 * dropped, factory.dropped.get());
+  }
+
+  @Test
+  public void testInvalid() {
+    ComplexMaskingProviderCache cache = new ComplexMaskingProviderCache();
+    try {
+      cache.getEntry("{\"rules\":", ConfigSchemaType.FHIR, null);
+      fail("expected exception");
+    } catch (InvalidMaskingConfigurationException e) {
+      assertEquals(0, cache.size());
+    }
+    try {
+      cache.getEntry(null, ConfigSchemaType.FHIR, null);
+      fail("expected exception");
+    } catch (InvalidMaskingConfigurationException e) {
+      assertEquals(0, cache.size());
+    }
+    try {
+      new ComplexMaskingProviderCache(-1, 0, null);
+      fail("expected exception");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("maximumSize"));
+    }
+  }
+}
@@ -9,20 +9,29 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Before;
 import org.junit.Test;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.ibm.whc.deid.ObjectMapperFactory;
+import com.ibm.whc.deid.providers.masking.BasicMaskingProviderFactory;
+import com.ibm.whc.deid.providers.masking.ComplexMaskingProvider;
+import com.ibm.whc.deid.providers.masking.ComplexMaskingProviderFactoryUtil;
 import com.ibm.whc.deid.shared.exception.DeidException;
+import com.ibm.whc.deid.shared.exception.KeyedIllegalArgumentException;
 import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaType;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
 import com.ibm.whc.deid.shared.pojo.masking.ReferableData;
+import com.ibm.whc.deid.shared.pojo.masking.ReferableNode;
 
 public class DataMaskingCoreTest {
 
@@ -80,6 +89,38 @@ public class DataMaskingCoreTest {
     System.out.println("Masked output is: " + maskedNode.toString());
   }
 
+  @Test
+  public void testMaskNodes() throws IOException {
+    String patientData = null;
+    try (InputStream inputStream = this.getClass().getResourceAsStream("/fhir/patientExample.json");
+        Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+      patientData = scanner.useDelimiter("\\A").next();
+    }
+    ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    ComplexMaskingProvider provider = ComplexMaskingProviderFactoryUtil
+        .getComplexMaskingProviderFactory().get(ConfigSchemaType.FHIR, maskingConf,
+            new BasicMaskingProviderFactory(), null, null);
+
+    List<ReferableNode> inputList = new ArrayList<>();
+    inputList.add(new ReferableNode("0", objectMapper.readTree(patientData)));
+    List<ReferableNode> maskedList = new DataMaskingCore().maskNodes(provider, inputList);
+    assertEquals(1, maskedList.size());
+    assertEquals("0", maskedList.get(0).getIdentifier());
+    JsonNode maskedNode = maskedList.get(0).getNode();
+    assertFalse(maskedNode.path("address").get(0).path("city").textValue().isEmpty());
+    assertNotEquals("PleasantVille", maskedNode.path("address").get(0).path("city").textValue());
+
+    // the default implementation masks the serialized form of the documents
+    ComplexMaskingProvider stringOnly = provider::maskWithBatch;
+    inputList.clear();
+    inputList.add(new ReferableNode("1", objectMapper.readTree(patientData)));
+    maskedList = stringOnly.maskNodesWithBatch(inputList, "test");
+    assertEquals(1, maskedList.size());
+    assertEquals("1", maskedList.get(0).getIdentifier());
+    maskedNode = maskedList.get(0).getNode();
+    assertNotEquals("PleasantVille", maskedNode.path("address").get(0).path("city").textValue());
+  }
+
   @Test
   public void testMaskDevice() throws IOException, DeidException {
     DataMaskingCore dataMask = new DataMaskingCore();
@@ -112,6 +153,50 @@ public class DataMaskingCoreTest {
         maskedNode.path("patient").path("reference").textValue());
   }
 
+  @Test
+  public void testMaskParallel() throws IOException {
+    String deviceData = null;
+    try (InputStream inputStream = this.getClass().getResourceAsStream("/fhir/deviceExample.json");
+        Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+      deviceData = scanner.useDelimiter("\\A").next();
+    }
+    ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    List<ReferableData> inputList = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      ObjectNode node = (ObjectNode) objectMapper.readTree(deviceData);
+      node.put("id", "device" + i);
+      inputList.add(new ReferableData(String.valueOf(i), objectMapper.writeValueAsString(node)));
+    }
+    ComplexMaskingProvider provider = ComplexMaskingProviderFactoryUtil
+        .getComplexMaskingProviderFactory().get(ConfigSchemaType.FHIR, maskingConf,
+            new BasicMaskingProviderFactory(), null, null);
+    assertTrue(provider.supportsConcurrentMasking());
+
+    ExecutorService executor = new ForkJoinPool(3);
+    try {
+      DataMaskingCore dataMask = new DataMaskingCore(executor, 2);
+      List<ReferableData> maskedDataList = dataMask.maskData(provider, inputList);
+      assertEquals(7, maskedDataList.size());
+      for (int i = 0; i < 7; i++) {
+        assertEquals(String.valueOf(i), maskedDataList.get(i).getIdentifier());
+        JsonNode maskedNode = objectMapper.readTree(maskedDataList.get(i).getData());
+        assertEquals("device" + i, maskedNode.path("id").textValue());
+        assertTrue(maskedNode.path("identifier").get(0).path("value").isNull());
+      }
+
+      // failures in any chunk are reported to the caller
+      inputList.set(5, new ReferableData("5", "{\"id\":"));
+      try {
+        dataMask.maskData(provider, inputList);
+        fail("expected exception");
+      } catch (KeyedIllegalArgumentException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("`5`"));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testMaskPatient_Generic() throws IOException, DeidException {
     DataMaskingCore dataMask = new DataMaskingCore();
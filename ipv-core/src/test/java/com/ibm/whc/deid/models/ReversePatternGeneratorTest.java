@@ -0,0 +1,61 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Ignore;
+import org.junit.Test;
+import com.ibm.whc.deid.providers.masking.PseudonymMaskingProvider;
+import com.ibm.whc.deid.shared.pojo.config.masking.PseudonymMaskingProviderConfig;
+
+public class ReversePatternGeneratorTest {
+
+  @Test
+  public void testBuildStepDrawsAsTokenSet() {
+    TokenSet[] sets =
+        new TokenSet[] {new TokenClass(Arrays.asList("a", "-", "f", "0", "\\", "d")),
+            new TokenClass(Arrays.asList("x")), new TokenClass(), CharacterRange.ENGLISH_DIGITS,
+            new CharacterRange('q'), new CharacterRange(0x1F600, 0x1F64F)};
+    for (TokenSet set : sets) {
+      BuildStep step = new BuildStep(set, null);
+      Random expected = new Random(11L);
+      Random actual = new Random(11L);
+      for (int i = 0; i < 1000; i++) {
+        // the same characters are selected with the same random numbers as by the token set
+        assertEquals(set.getRandomToken(expected), step.generateRandomString(actual));
+      }
+      assertEquals(expected.nextLong(), actual.nextLong());
+    }
+  }
+
+  @Test
+  public void testGetRandomToken() {
+    ReversePatternGenerator generator =
+        new ReversePatternGenerator("[\\u\\l\\d]{8,12}-(ab|[xyz]{2})\\d{3}\\p0001F600");
+    Random random = new Random();
+    for (int i = 0; i < 1000; i++) {
+      String token = generator.getRandomToken(random);
+      assertTrue(token, token.matches("^[A-Za-z0-9]{8,12}-(ab|[xyz]{2})[0-8]{3}\\x{1F600}$"));
+    }
+  }
+
+  @Ignore
+  @Test
+  public void testPerformance() {
+    PseudonymMaskingProvider provider =
+        new PseudonymMaskingProvider(new PseudonymMaskingProviderConfig());
+    int count = 10_000_000;
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < count; i++) {
+      provider.mask("value");
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(count + " pseudonyms in " + diff + " milliseconds");
+  }
+}
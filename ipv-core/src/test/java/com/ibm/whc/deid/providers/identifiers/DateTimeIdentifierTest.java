@@ -1,16 +1,24 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.identifiers;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
 import org.junit.Ignore;
 import org.junit.Test;
+import com.ibm.whc.deid.providers.identifiers.DateTimeIdentifier.DateTimeParseResult;
 
 public class DateTimeIdentifierTest {
   @Test
@@ -18,7 +26,8 @@ public class DateTimeIdentifierTest {
     DateTimeIdentifier identifier = new DateTimeIdentifier();
 
     String[] validDatetimes =
-        {"08-12-1981 00:00:11", "08/12/1981 00:00:11", "08-12-1981", "1981-12-08",};
+        {"08-12-1981 00:00:11", "08/12/1981 00:00:11", "08-12-1981", "1981-12-08",
+            "1981/12/08 00:00:11", "08-Dec-1981", "1981-12-08T00:00:11Z"};
 
     String[] invalidDatetimes = {"foobar", "08-13-1981 00:00:00", "01-01-1981 27:05:22", ""};
 
@@ -32,6 +41,73 @@ public class DateTimeIdentifierTest {
     }
   }
 
+  @Test
+  public void testParse() throws Exception {
+    DateTimeIdentifier identifier = new DateTimeIdentifier();
+
+    DateTimeParseResult result = identifier.parse("2022-03-04T05:06:07.123+01:00");
+    assertEquals(DateTimeFormatter.ISO_OFFSET_DATE_TIME, result.getFormatter());
+    assertEquals(7, result.getValue().get(ChronoField.SECOND_OF_MINUTE));
+    assertNotNull(identifier.parse("2022-03-04T05:06Z"));
+    assertNull(identifier.parse("2022-03-04T05:06"));
+    assertNull(identifier.parse("2022-02-30T05:06:07Z"));
+
+    result = identifier.parse("08-oct-1981");
+    assertEquals("^\\d{2}-.{3,}-\\d{4}$", result.getPattern());
+    assertTrue(result.isVariableCase());
+    assertEquals(10, result.getValue().get(ChronoField.MONTH_OF_YEAR));
+    assertNull(identifier.parse("08-Oct\n-1981"));
+
+    // the date-only pattern is preferred when the optional time is absent
+    assertEquals("^\\d{4}-\\d{2}-\\d{2}$", identifier.parse("1981-12-08").getPattern());
+    assertEquals(11,
+        identifier.parse("1981/12/08 10:11:12").getValue().get(ChronoField.MINUTE_OF_HOUR));
+
+    // partial dates are not parsed, since a bare year is indistinguishable from other numbers
+    assertFalse(identifier.isOfThisType("1981"));
+    assertFalse(identifier.isOfThisType("1981-12"));
+
+    String[] invalid = {"", "1", "198", "1981", "1981-12", "19811", "1981-1", "1981-12-0",
+        "1981-12-08 1:00:00", "1981-12/08", "08-12/1981", "a8-12-1981", "08-12-1981 00:00", "T", "x0000-00-00T"};
+    for (String value : invalid) {
+      assertNull(value, identifier.parse(value));
+    }
+  }
+
+  @Test
+  public void testParsePartialDate() {
+    DateTimeIdentifier identifier = new DateTimeIdentifier();
+
+    DateTimeParseResult result = identifier.parsePartialDate("1981");
+    assertEquals("^\\d{4}$", result.getPattern());
+    assertEquals(ChronoUnit.YEARS, result.getPrecision());
+    assertTrue(result.hasComponent(ChronoUnit.YEARS));
+    assertFalse(result.hasComponent(ChronoUnit.MONTHS));
+    // the middle of the year
+    assertEquals(LocalDateTime.of(1981, 7, 2, 0, 0), result.getValue().query(LocalDateTime::from));
+    assertEquals("1981", result.getFormatter().format(LocalDateTime.of(1981, 12, 31, 23, 59)));
+
+    result = identifier.parsePartialDate("1981-12");
+    assertEquals("^\\d{4}-\\d{2}$", result.getPattern());
+    assertEquals(ChronoUnit.MONTHS, result.getPrecision());
+    assertTrue(result.hasComponent(ChronoUnit.MONTHS));
+    assertFalse(result.hasComponent(ChronoUnit.DAYS));
+    assertEquals(LocalDateTime.of(1981, 12, 15, 0, 0),
+        result.getValue().query(LocalDateTime::from));
+    assertEquals("1982-01", result.getFormatter().format(LocalDateTime.of(1982, 1, 31, 0, 0)));
+
+    // full dates have every component
+    result = identifier.parse("1981-12-08");
+    assertNull(result.getPrecision());
+    assertTrue(result.hasComponent(ChronoUnit.DAYS));
+
+    String[] invalid = {"", "198", "19811", "1981-1", "1981-13", "1981-00", "1981/12", "0000",
+        "1981-12-08", "a981"};
+    for (String value : invalid) {
+      assertNull(value, identifier.parsePartialDate(value));
+    }
+  }
+
   @Test
   @Ignore
   public void testPerformance() {
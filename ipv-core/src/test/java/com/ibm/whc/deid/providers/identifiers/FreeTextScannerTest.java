@@ -0,0 +1,242 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.identifiers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Ignore;
+import org.junit.Test;
+import com.ibm.whc.deid.models.ValueClass;
+import com.ibm.whc.deid.providers.ProviderType;
+import com.ibm.whc.deid.providers.masking.MaskingProvider;
+import com.ibm.whc.deid.providers.masking.MaskingProviderTest;
+import com.ibm.whc.deid.providers.masking.RedactMaskingProvider;
+
+public class FreeTextScannerTest implements MaskingProviderTest {
+
+  private static List<String> describe(List<FreeTextSpan> spans) {
+    List<String> descriptions = new ArrayList<>();
+    for (FreeTextSpan span : spans) {
+      descriptions.add(span.getType().getName() + ":" + span.getText() + "@" + span.getStart());
+    }
+    return descriptions;
+  }
+
+  private static Identifier regex(String type, String... patterns) {
+    return new PluggableRegexIdentifier(type, Collections.emptyList(), Arrays.asList(patterns),
+        ValueClass.TEXT);
+  }
+
+  @Test
+  public void testScan() {
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(new EmailIdentifier(),
+        new IPAddressIdentifier(), new USPhoneIdentifier(),
+        new CityIdentifier(tenantId, localizationProperty)));
+
+    String text = "Seen in Athens. Email (john.doe@example.com) or call 555-123-4567;\n"
+        + "host 10.0.0.1.";
+    List<FreeTextSpan> spans = scanner.scan(text);
+
+    assertEquals(Arrays.asList("CITY:Athens@8", "EMAIL:john.doe@example.com@23",
+        "PHONE:555-123-4567@53", "IP_ADDRESS:10.0.0.1@72"), describe(spans));
+    for (FreeTextSpan span : spans) {
+      assertEquals(span.getText(), text.substring(span.getStart(), span.getEnd()));
+    }
+  }
+
+  @Test
+  public void testScanWithOffset() {
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(new USPhoneIdentifier()));
+
+    // the identifier gives the position of the number within the candidate
+    assertEquals(Arrays.asList("PHONE:(555) 123-4567@13"),
+        describe(scanner.scan("Contact Tel: (555) 123-4567 today")));
+  }
+
+  @Test
+  public void testDictionary() {
+    FreeTextScanner scanner =
+        new FreeTextScanner(Arrays.asList(new CityIdentifier(tenantId, localizationProperty)));
+
+    // the longest value is kept
+    assertEquals(Arrays.asList("CITY:New York City@8"),
+        describe(scanner.scan("Born in New York City.")));
+    // any whitespace between words
+    assertEquals(Arrays.asList("CITY:new\n  york city@0"),
+        describe(scanner.scan("new\n  york city")));
+    // only whole words
+    assertEquals(Arrays.asList(), describe(scanner.scan("Athensville, Dublins")));
+    assertEquals(Arrays.asList("CITY:Athens@0", "CITY:DUBLIN@7"),
+        describe(scanner.scan("Athens/DUBLIN")));
+  }
+
+  @Test
+  public void testLookup() {
+    Identifier caseSensitive = new PluggableLookupIdentifier("RELIGION", Collections.emptyList(),
+        Arrays.asList("Alpha Omega"), false, ValueClass.TEXT);
+    Identifier ignoreCase = new PluggableLookupIdentifier("GENDER", Collections.emptyList(),
+        Arrays.asList("beta"), true, ValueClass.TEXT);
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(caseSensitive, ignoreCase));
+
+    assertEquals(Arrays.asList("RELIGION:Alpha Omega@0", "GENDER:BETA@16"),
+        describe(scanner.scan("Alpha Omega and BETA, alpha omega")));
+  }
+
+  @Test
+  public void testCombinedPatterns() {
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(new CreditCardIdentifier(),
+        regex("NUMERIC", "\\d{16}"), regex("RELIGION", "[A-Z]{2}\\d{4}"),
+        regex("GENDER", "[A-Z]{2}\\d{4}"),
+        // these cannot be combined with the other patterns
+        regex("STATES_US", "(?<code>\\d{3})-[a-z]+"), regex("COUNTY", "(?<code>[a-z]{3})-\\d+"),
+        regex("CONTINENT", "(\\w)\\1x")));
+
+    assertEquals(
+        Arrays.asList("CREDIT_CARD:4111111111111111@0", "NUMERIC:4111111111111112@17",
+            "RELIGION:AB1234@34", "STATES_US:123-abc@41", "COUNTY:abc-123@49",
+            "CONTINENT:zzx@57"),
+        describe(scanner.scan("4111111111111111 4111111111111112 AB1234 123-abc abc-123 zzx")));
+  }
+
+  @Test
+  public void testPrefilter() {
+    Identifier word = new PluggableRegexIdentifier("RELIGION", Collections.emptyList(),
+        Arrays.asList("\\w+"), ValueClass.TEXT) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public int getMinimumCharacterRequirements() {
+        return CharacterRequirements.DIGIT;
+      }
+
+      @Override
+      public int getMinimumLength() {
+        return 3;
+      }
+
+      @Override
+      public int getMaximumLength() {
+        return 4;
+      }
+    };
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(word));
+
+    assertEquals(Arrays.asList("RELIGION:a1b@3", "RELIGION:123@15"),
+        describe(scanner.scan("ab a1b abcd 12 123 12345")));
+  }
+
+  @Test
+  public void testMaximumTokens() {
+    Identifier phrase = regex("RELIGION", "[a-z]+( [a-z]+)*");
+
+    assertEquals(Arrays.asList("RELIGION:a b c@0", "RELIGION:d@6"),
+        describe(new FreeTextScanner(Arrays.asList(phrase), 3).scan("a b c d")));
+    assertEquals(Arrays.asList("RELIGION:a b c d@0"),
+        describe(new FreeTextScanner(Arrays.asList(phrase)).scan("a b c d")));
+
+    // candidates that fail to match before their last token are not extended
+    assertEquals(Arrays.asList("RELIGION:xx y@7", "GENDER:ab  cd@12"),
+        describe(new FreeTextScanner(
+            Arrays.asList(regex("RELIGION", "x+ y"), regex("GENDER", "ab\\s+cd")))
+                .scan("xx z x xx y ab  cd")));
+
+    try {
+      new FreeTextScanner(Arrays.asList(phrase), 0);
+      fail("expected exception");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("0"));
+    }
+  }
+
+  @Test
+  public void testMask() {
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(new EmailIdentifier(),
+        new CityIdentifier(tenantId, localizationProperty)));
+    Map<ProviderType, MaskingProvider> providers = new HashMap<>();
+    providers.put(ProviderType.EMAIL, new RedactMaskingProvider());
+
+    assertEquals("Athens: XXXXXXXXXXXXXXX, XXXXXXXXXXXXXXX.",
+        scanner.mask("Athens: a.b@example.com, c.d@example.com.", providers));
+    assertEquals("no values", scanner.mask("no values", providers));
+    assertEquals("", scanner.mask("", providers));
+    assertNull(scanner.mask(null, providers));
+    assertTrue(scanner.scan(null).isEmpty());
+  }
+
+  private static String generateNote(Random random) {
+    String[] names = {"John Smith", "Maria Garcia", "Wei Chen", "Aisha Khan", "Peter Murphy"};
+    String[] cities = {"Dublin", "Athens", "New York City", "Chicago", "Houston"};
+    String[] findings = {"Patient reports intermittent chest pain radiating to the left arm.",
+        "No acute distress, vitals stable, afebrile overnight.",
+        "Continue metformin 500 mg twice daily and follow up in two weeks.",
+        "Lungs clear to auscultation bilaterally, no wheezes or crackles.",
+        "Discussed diet and exercise; patient verbalized understanding."};
+    StringBuilder note = new StringBuilder();
+    note.append("Patient ").append(names[random.nextInt(names.length)]).append(" of ")
+        .append(cities[random.nextInt(cities.length)]).append(" was seen today. ");
+    for (int i = 0; i < 4; i++) {
+      note.append(findings[random.nextInt(findings.length)]).append(' ');
+    }
+    note.append("Contact: ").append(String.format("%03d-%03d-%04d", random.nextInt(1000),
+        random.nextInt(1000), random.nextInt(10000)));
+    note.append(", email p").append(random.nextInt(100000)).append("@example.org, SSN ")
+        .append(String.format("%03d-%02d-%04d", 100 + random.nextInt(600), 10 + random.nextInt(80),
+            1000 + random.nextInt(9000)));
+    note.append(".\n");
+    return note.toString();
+  }
+
+  @Ignore
+  @Test
+  public void testPerformance() {
+    FreeTextScanner scanner = new FreeTextScanner(Arrays.asList(new EmailIdentifier(),
+        new IPAddressIdentifier(), new CreditCardIdentifier(), new PatientIDIdentifier(),
+        new USPhoneIdentifier(), new SSNUSIdentifier(), new NameIdentifier(tenantId,
+            localizationProperty),
+        new CityIdentifier(tenantId, localizationProperty),
+        new HospitalIdentifier(tenantId, localizationProperty),
+        new StatesUSIdentifier(tenantId, localizationProperty)));
+
+    Random random = new Random(42);
+    List<String> notes = new ArrayList<>();
+    long bytes = 0;
+    while (bytes < 16 * 1024 * 1024) {
+      StringBuilder document = new StringBuilder();
+      for (int i = 0; i < 20; i++) {
+        document.append(generateNote(random));
+      }
+      notes.add(document.toString());
+      bytes += document.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // warm up
+    for (int i = 0; i < 500; i++) {
+      scanner.scan(notes.get(i));
+    }
+
+    long found = 0;
+    long startMillis = System.currentTimeMillis();
+    for (String note : notes) {
+      found += scanner.scan(note).size();
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(
+        String.format("%d bytes in %d documents: %d values found in %d milliseconds (%.2f MB/s)",
+            bytes, notes.size(), found, diff, bytes / 1048576.0 / (diff / 1000.0)));
+    assertTrue(found > 0);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.identifiers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class KeywordAutomatonTest {
+
+  private static List<String> scan(KeywordAutomaton automaton, String text) {
+    List<String> matches = new ArrayList<>();
+    automaton.scan(text, (start, end, label) -> matches
+        .add(label + ":" + text.substring(start, end) + "@" + start));
+    return matches;
+  }
+
+  @Test
+  public void testScan() {
+    KeywordAutomaton automaton = new KeywordAutomaton();
+    automaton.add("he", 0);
+    automaton.add("she", 1);
+    automaton.add("his", 2);
+    automaton.add("hers", 3);
+    automaton.build();
+
+    assertEquals(Arrays.asList("1:she@1", "0:he@2", "3:hers@2"), scan(automaton, "ushers"));
+    assertEquals(Arrays.asList("2:his@0", "1:she@2", "0:he@3"), scan(automaton, "hishe"));
+    assertEquals(Arrays.asList(), scan(automaton, "hi s"));
+  }
+
+  @Test
+  public void testCaseAndWhitespace() {
+    KeywordAutomaton automaton = new KeywordAutomaton();
+    automaton.add(" New York ", 0);
+    automaton.add("YORK", 1);
+    automaton.add("york", 1);
+    automaton.build();
+
+    assertEquals(Arrays.asList("0:new york@3", "1:york@7"), scan(automaton, "in new york"));
+    assertEquals(Arrays.asList("0:New \n\t York@0", "1:York@7"),
+        scan(automaton, "New \n\t York"));
+    assertEquals(Arrays.asList("1:york@0"), scan(automaton, "york"));
+    // word boundaries are left to the caller
+    assertEquals(Arrays.asList("1:York@3"), scan(automaton, "NewYork"));
+  }
+
+  @Test
+  public void testSharedKeyword() {
+    KeywordAutomaton automaton = new KeywordAutomaton();
+    automaton.add("Paris", 0);
+    automaton.add("paris", 1);
+    automaton.add("", 2);
+    automaton.build();
+
+    assertEquals(Arrays.asList("0:PARIS@3", "1:PARIS@3"), scan(automaton, "to PARIS"));
+    assertEquals(6, automaton.size());
+  }
+
+  @Test
+  public void testState() {
+    KeywordAutomaton automaton = new KeywordAutomaton();
+    try {
+      automaton.scan("text", (start, end, label) -> {
+      });
+      fail("expected exception");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    automaton.build();
+    try {
+      automaton.add("text", 0);
+      fail("expected exception");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+}
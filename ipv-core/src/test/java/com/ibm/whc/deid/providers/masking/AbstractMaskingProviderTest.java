@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,7 +13,9 @@ import static org.junit.Assert.fail;
 import org.junit.Test;
 import com.ibm.whc.deid.shared.pojo.config.masking.MaintainMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.config.masking.PseudonymMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.UnexpectedMaskingInputHandler;
+import com.ibm.whc.deid.util.RandomSource;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
 
 public class AbstractMaskingProviderTest {
@@ -105,4 +107,24 @@ public class AbstractMaskingProviderTest {
       }
     }
   }
+
+  @Test
+  public void testSupportsConcurrentMasking() {
+    // providers must opt in
+    TestAbstractMaskingProvider provider =
+        new TestAbstractMaskingProvider(new MaintainMaskingProviderConfig());
+    assertFalse(provider.supportsConcurrentMasking());
+    assertFalse(provider.hasSeededRandom());
+
+    PseudonymMaskingProvider pseudonym =
+        new PseudonymMaskingProvider(new PseudonymMaskingProviderConfig());
+    assertTrue(pseudonym.supportsConcurrentMasking());
+    pseudonym.setRandom(RandomSource.seeded(1L));
+    assertFalse(pseudonym.supportsConcurrentMasking());
+
+    // the provider does not use the generator
+    RedactMaskingProvider redact = new RedactMaskingProvider();
+    redact.setRandom(RandomSource.seeded(1L));
+    assertTrue(redact.supportsConcurrentMasking());
+  }
 }
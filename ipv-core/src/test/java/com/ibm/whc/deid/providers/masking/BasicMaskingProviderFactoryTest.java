@@ -1,11 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -13,7 +14,9 @@ import java.io.Serializable;
 import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.pojo.config.RandomSourceType;
 import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.config.masking.PseudonymMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.RedactMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
 import com.ibm.whc.deid.shared.util.ConfigGenerator;
@@ -37,6 +40,43 @@ public class BasicMaskingProviderFactoryTest {
     assertEquals("XXXXXXXXXX", maskingProvider.mask("John Smith")); 
   }
 
+  @Test
+  public void testRandomSource() {
+    DeidMaskingConfig deidMaskingConfig = new DeidMaskingConfig();
+    deidMaskingConfig.setRandomSource(RandomSourceType.SEEDED);
+    deidMaskingConfig.setRandomSeed(Long.valueOf(42L));
+    MaskingProviderFactory maskingProviderFactory = new BasicMaskingProviderFactory();
+    PseudonymMaskingProviderConfig config = new PseudonymMaskingProviderConfig();
+    config.setGenerateViaOptionsMinLength(20);
+    config.setGenerateViaOptionsMaxLength(20);
+
+    // providers built from the same seed produce the same values
+    MaskingProvider first = maskingProviderFactory.getProviderFromType(
+        MaskingProviderType.PSEUDONYM, deidMaskingConfig, config, tenantId,
+        LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
+    MaskingProvider second = maskingProviderFactory.getProviderFromType(
+        MaskingProviderType.PSEUDONYM, deidMaskingConfig, config, tenantId,
+        LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
+    for (int i = 0; i < 10; i++) {
+      String masked = first.mask("John Smith");
+      assertEquals(20, masked.length());
+      assertEquals(masked, second.mask("John Smith"));
+    }
+
+    deidMaskingConfig.setRandomSeed(Long.valueOf(43L));
+    MaskingProvider third = maskingProviderFactory.getProviderFromType(
+        MaskingProviderType.PSEUDONYM, deidMaskingConfig, config, tenantId,
+        LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
+    assertNotEquals(first.mask("John Smith"), third.mask("John Smith"));
+
+    deidMaskingConfig.setRandomSource(RandomSourceType.FAST);
+    MaskingProvider fast = maskingProviderFactory.getProviderFromType(
+        MaskingProviderType.PSEUDONYM, deidMaskingConfig, config, tenantId,
+        LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES);
+    assertEquals(20, fast.mask("John Smith").length());
+    assertEquals(20, SerializationUtils.clone(fast).mask("John Smith").length());
+  }
+
   @Test
   public void verifySerialization() throws Exception {
     MaskingProviderFactory mpf = new BasicMaskingProviderFactory();
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -16,6 +16,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -266,4 +267,55 @@ public class CityMaskingProviderTest extends TestLogSetUp implements MaskingProv
     assertEquals("OTHER", value);
     assertTrue(maskingProvider.getCityManager().isValidKey(originalCity));
   }
+
+  @Test
+  public void testMaskBatch() {
+    List<String> cities = Arrays.asList("rochester", "DublinXXX", "rochester", null, "Pittsburg");
+
+    CityMaskingProviderConfig maskingConfiguration = new CityMaskingProviderConfig();
+    maskingConfiguration.setMaskPseudorandom(true);
+    CityMaskingProvider maskingProvider =
+        (CityMaskingProvider) maskingProviderFactory.getProviderFromType(MaskingProviderType.CITY,
+            null, maskingConfiguration, tenantId, TEST_LOCALIZATION_PROPERTIES);
+    List<String> masked = maskingProvider.maskBatch(cities);
+    assertEquals(cities.size(), masked.size());
+    for (int i = 0; i < cities.size(); i++) {
+      assertEquals(maskingProvider.mask(cities.get(i)), masked.get(i));
+    }
+
+    maskingConfiguration = new CityMaskingProviderConfig();
+    maskingConfiguration.setMaskClosest(true);
+    maskingConfiguration.setMaskClosestK(4);
+    maskingConfiguration.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.MESSAGE);
+    maskingProvider =
+        (CityMaskingProvider) maskingProviderFactory.getProviderFromType(MaskingProviderType.CITY,
+            null, maskingConfiguration, tenantId, TEST_LOCALIZATION_PROPERTIES);
+    HashSet<String> neighbors =
+        new HashSet<>(Arrays.asList("Minneapolis", "Byron", "Kasson", "Mantorville"));
+    HashSet<String> selected = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      masked = maskingProvider.maskBatch(cities);
+      assertEquals(cities.size(), masked.size());
+      assertTrue(masked.get(0), neighbors.contains(masked.get(0)));
+      assertTrue(masked.get(2), neighbors.contains(masked.get(2)));
+      assertEquals("OTHER", masked.get(1));
+      assertNull(masked.get(3));
+      assertEquals("OTHER", masked.get(4));
+      selected.add(masked.get(0));
+      selected.add(masked.get(2));
+    }
+    // a replacement is still selected at random for each value
+    assertTrue(selected.size() > 1);
+
+    maskingConfiguration = new CityMaskingProviderConfig();
+    maskingProvider =
+        (CityMaskingProvider) maskingProviderFactory.getProviderFromType(MaskingProviderType.CITY,
+            null, maskingConfiguration, tenantId, localizationProperty);
+    masked = maskingProvider.maskBatch(cities);
+    assertEquals(cities.size(), masked.size());
+    assertNull(masked.get(3));
+    for (int i : new int[] {0, 1, 2, 4}) {
+      assertTrue(maskingProvider.getCityManager().isValidKey(masked.get(i)));
+    }
+  }
 }
@@ -1,16 +1,18 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.providers.masking;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -24,10 +26,12 @@ import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.ConditionalMaskRuleSet;
 import com.ibm.whc.deid.shared.pojo.config.masking.ConditionalMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.HashMaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.config.masking.MaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.PseudonymMaskingProviderConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.conditional.Condition;
 import com.ibm.whc.deid.shared.pojo.config.masking.conditional.ConditionOperator;
 import com.ibm.whc.deid.shared.pojo.config.masking.conditional.ConditionType;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderTypes;
 import com.ibm.whc.deid.shared.util.ConfigGenerator;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
 
@@ -648,4 +652,85 @@ public class ConditionalMaskingProviderTest {
       throw e;
     }
   }
+
+  @Test
+  public void testProvidersBuiltOnce() throws Exception {
+    Condition condition = new Condition();
+    condition.setField("gender");
+    condition.setOperator(ConditionOperator.EQUALS);
+    condition.setType(ConditionType.STRING);
+    condition.setValue("female");
+    ConditionalMaskRuleSet ruleSet1 = new ConditionalMaskRuleSet();
+    ruleSet1.setCondition(condition);
+    ruleSet1.setMaskingProvider(new HashMaskingProviderConfig());
+    ConditionalMaskRuleSet ruleSet2 = new ConditionalMaskRuleSet();
+    ruleSet2.setMaskingProvider(new PseudonymMaskingProviderConfig());
+    ConditionalMaskingProviderConfig config = new ConditionalMaskingProviderConfig();
+    config.setMaskRuleSet(Arrays.asList(ruleSet1, ruleSet2));
+
+    AtomicInteger built = new AtomicInteger();
+    ConditionalMaskingProvider maskingProvider = new ConditionalMaskingProvider(config, tenantId,
+        deidMaskingConfig, localizationProperty, new BasicMaskingProviderFactory() {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          public MaskingProvider getProviderFromType(MaskingProviderTypes providerType,
+              DeidMaskingConfig deidMaskingConfig, MaskingProviderConfig config, String tenantId,
+              String localizationProperty) {
+            built.incrementAndGet();
+            return super.getProviderFromType(providerType, deidMaskingConfig, config, tenantId,
+                localizationProperty);
+          }
+        });
+    assertEquals(2, built.get());
+
+    ObjectMapper mapper = ObjectMapperFactory.getObjectMapper();
+    List<MaskingActionInputIdentifier> identifiers = new ArrayList<>();
+    List<JsonNode> roots = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      JsonNode root = mapper.readTree("{\"gender\":\"" + (i % 2 == 0 ? "female" : "male")
+          + "\",\"name\":[\"first\",\"second\"]}");
+      roots.add(root);
+      JsonNode names = root.get("name");
+      identifiers.add(new MaskingActionInputIdentifier(null, names.get(0), names, "name[0]", "",
+          "", root));
+      identifiers.add(new MaskingActionInputIdentifier(null, names.get(1), names, "name[1]", "",
+          "", root));
+    }
+    maskingProvider.maskIdentifierBatch(identifiers);
+
+    assertEquals(2, built.get());
+    for (int i = 0; i < 10; i++) {
+      JsonNode names = roots.get(i).get("name");
+      // hashes are 64 hex characters, pseudonyms are shorter
+      assertEquals(i % 2 == 0, names.get(0).asText().length() == 64);
+      assertEquals(i % 2 == 0, names.get(1).asText().length() == 64);
+      assertTrue(!names.get(0).asText().equals("first"));
+    }
+  }
+
+  @Test
+  public void testConditionFieldMasked() throws Exception {
+    Condition condition = new Condition();
+    condition.setField("status");
+    condition.setOperator(ConditionOperator.EQUALS);
+    condition.setType(ConditionType.STRING);
+    condition.setValue("secret");
+    ConditionalMaskRuleSet ruleSet = new ConditionalMaskRuleSet();
+    ruleSet.setCondition(condition);
+    ruleSet.setMaskingProvider(new HashMaskingProviderConfig());
+    ConditionalMaskingProviderConfig config = new ConditionalMaskingProviderConfig();
+    config.setMaskRuleSet(Arrays.asList(ruleSet));
+    ConditionalMaskingProvider maskingProvider = new ConditionalMaskingProvider(config, tenantId,
+        deidMaskingConfig, localizationProperty, new BasicMaskingProviderFactory());
+
+    JsonNode root = ObjectMapperFactory.getObjectMapper()
+        .readTree("{\"status\":\"secret\",\"note\":\"text\"}");
+    // once the condition field is masked the condition is no longer met for the other field
+    maskingProvider.maskIdentifierBatch(Arrays.asList(
+        new MaskingActionInputIdentifier(null, root.get("status"), root, "status", "", "", root),
+        new MaskingActionInputIdentifier(null, root.get("note"), root, "note", "", "", root)));
+    assertEquals(64, root.get("status").asText().length());
+    assertEquals("text", root.get("note").asText());
+  }
 }
@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.ibm.whc.deid.ObjectMapperFactory;
@@ -186,6 +188,28 @@ public class DateTimeConsistentShiftMaskingProviderTest implements MaskingProvid
     assertEquals(badInputValue, provider.applyOffsetAndReformat("29-apx-1967", 33, null));
   }
 
+  @Test
+  public void testApplyOffsetAndReformat_partialDate() {
+    DateTimeConsistentShiftMaskingProviderConfig config =
+        new DateTimeConsistentShiftMaskingProviderConfig();
+    config.setPatientIdentifierPath("/id");
+    DateTimeConsistentShiftMaskingProvider provider =
+        new DateTimeConsistentShiftMaskingProvider(config, null);
+
+    // FHIR partial dates are shifted from the middle of the period and keep their precision
+    assertEquals("1970", provider.applyOffsetAndReformat("1970", -182, null));
+    assertEquals("1969", provider.applyOffsetAndReformat("1970", -183, null));
+    assertEquals("1971", provider.applyOffsetAndReformat("1970", 183, null));
+    assertEquals("1970-05", provider.applyOffsetAndReformat("1970-05", 16, null));
+    assertEquals("1970-06", provider.applyOffsetAndReformat("1970-05", 17, null));
+    assertEquals("1969-12", provider.applyOffsetAndReformat("1970-01", -15, null));
+
+    config.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.MESSAGE);
+    provider = new DateTimeConsistentShiftMaskingProvider(config, null);
+    assertEquals("OTHER", provider.applyOffsetAndReformat("1970-13", 10, null));
+    assertEquals("OTHER", provider.applyOffsetAndReformat("197", 10, null));
+  }
+
   @Test
   public void testApplyOffsetAndReformat_custom() {
     DateTimeConsistentShiftMaskingProviderConfig config =
@@ -646,6 +670,75 @@ public class DateTimeConsistentShiftMaskingProviderTest implements MaskingProvid
     assertEquals(result2, list.get(3).getCurrentNode().asText());
   }
 
+  @Test
+  public void testMaskIdentifierBatch_sameDocument() throws Exception {
+    DateTimeConsistentShiftMaskingProviderConfig config =
+        new DateTimeConsistentShiftMaskingProviderConfig();
+    config.setPatientIdentifierPath("/a");
+    config.setDateShiftDirection(DateShiftDirection.AFTER);
+    config.setDateShiftMinimumDays(2);
+    config.setDateShiftMaximumDays(5);
+    config.setCustomFormats(Arrays.asList("yyyy/dd/MM"));
+    AtomicInteger generated = new AtomicInteger();
+    DateTimeConsistentShiftMaskingProvider provider =
+        new DateTimeConsistentShiftMaskingProvider(config, null) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected int generateShiftNumberOfDays(String patientId) {
+            generated.incrementAndGet();
+            return super.generateShiftNumberOfDays(patientId);
+          }
+        };
+
+    JsonNode root1 = ObjectMapperFactory.getObjectMapper()
+        .readTree("{\"a\": \"patient1\", \"d\": [\"2021/16/04\", \"2021/16/04\", \"2021/17/04\"]}");
+    JsonNode root2 = ObjectMapperFactory.getObjectMapper()
+        .readTree("{\"a\": \"patient1\", \"d\": [\"2021/16/04\"]}");
+    List<MaskingActionInputIdentifier> list = new ArrayList<>();
+    for (JsonNode root : Arrays.asList(root1, root2)) {
+      JsonNode parent = root.get("d");
+      for (int i = 0; i < parent.size(); i++) {
+        list.add(new MaskingActionInputIdentifier(provider, parent.get(i), parent,
+            "/d[" + i + "]", "type", "id", root));
+      }
+    }
+
+    provider.maskIdentifierBatch(list);
+
+    // the number of days is generated once for each document
+    assertEquals(2, generated.get());
+    String result = list.get(0).getCurrentNode().asText();
+    List<String> possibles = Arrays.asList("2021/18/04", "2021/19/04", "2021/20/04", "2021/21/04");
+    assertTrue(result, possibles.contains(result));
+    assertEquals(result, list.get(1).getCurrentNode().asText());
+    assertEquals(result, list.get(3).getCurrentNode().asText());
+    assertFalse(result.equals(list.get(2).getCurrentNode().asText()));
+  }
+
+  @Test
+  public void testSerializedCustomFormatters() throws Exception {
+    DateTimeConsistentShiftMaskingProviderConfig config =
+        new DateTimeConsistentShiftMaskingProviderConfig();
+    config.setPatientIdentifierPath("/a");
+    config.setCustomFormats(Arrays.asList("yyyy/dd/MM"));
+    DateTimeConsistentShiftMaskingProvider provider =
+        new DateTimeConsistentShiftMaskingProvider(config, null);
+    List<DateTimeFormatter> formatters = provider.getCustomFormatters();
+    assertEquals(1, formatters.size());
+    assertTrue(formatters == provider.getCustomFormatters());
+
+    DateTimeConsistentShiftMaskingProvider copy = SerializationUtils.clone(provider);
+    assertEquals(1, copy.getCustomFormatters().size());
+    MaskingActionInputIdentifier identifier = buildMaskingIdentifier(
+        "{\"a\": \"patient1\", \"b\": {\"one\": \"2021/16/04\"}}", provider);
+    MaskingActionInputIdentifier copyIdentifier = buildMaskingIdentifier(
+        "{\"a\": \"patient1\", \"b\": {\"one\": \"2021/16/04\"}}", copy);
+    provider.maskIdentifierBatch(Arrays.asList(identifier));
+    copy.maskIdentifierBatch(Arrays.asList(copyIdentifier));
+    assertEquals(identifier.getCurrentNode().asText(), copyIdentifier.getCurrentNode().asText());
+  }
+
   private MaskingActionInputIdentifier buildMaskingIdentifier(String jsonstr,
       DateTimeConsistentShiftMaskingProvider provider) throws Exception {
     JsonNode root = ObjectMapperFactory.getObjectMapper().readTree(jsonstr);
@@ -18,9 +18,13 @@ import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalField;
 import java.time.temporal.UnsupportedTemporalTypeException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.TreeMap;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Ignore;
 import org.junit.Test;
 import com.ibm.whc.deid.providers.identifiers.DateTimeIdentifier;
@@ -99,6 +103,78 @@ public class DateTimeMaskingProviderTest extends TestLogSetUp {
     assertEquals("1981-12-13T13:02:00-05:00", maskingProvider.mask("1981-12-13T13:04:01-05:00"));
   }
 
+  @Test
+  public void testMaskShiftDatePartial() throws Exception {
+    DateTimeMaskingProviderConfig config = new DateTimeMaskingProviderConfig();
+    config.setMaskShiftDate(true);
+    config.setMaskShiftSeconds(-86400);
+    DateTimeMaskingProvider maskingProvider = new DateTimeMaskingProvider(config);
+
+    // FHIR partial dates are shifted from the middle of the period and keep their precision
+    assertEquals("2019", maskingProvider.mask("2019"));
+    assertEquals("1981-12", maskingProvider.mask("1981-12"));
+    assertEquals("2021-12-31T23:59:59.5Z", maskingProvider.mask("2022-01-01T23:59:59.5Z"));
+
+    config.setMaskShiftSeconds(-200 * 86400);
+    maskingProvider = new DateTimeMaskingProvider(config);
+    assertEquals("2018", maskingProvider.mask("2019"));
+    assertEquals("1981-05", maskingProvider.mask("1981-12"));
+
+    // values that only look like partial dates are still unexpected input
+    assertNull(maskingProvider.mask("1981-13"));
+    assertNull(maskingProvider.mask("12345"));
+    config.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.MESSAGE);
+    maskingProvider = new DateTimeMaskingProvider(config);
+    assertEquals("OTHER", maskingProvider.mask("1981-13"));
+  }
+
+  @Test
+  public void testMaskPartialDatePrecision() throws Exception {
+    // the default options randomize the year, month, day, and time
+    DateTimeMaskingProvider maskingProvider =
+        new DateTimeMaskingProvider(new DateTimeMaskingProviderConfig());
+    for (int i = 0; i < 100; i++) {
+      assertTrue(maskingProvider.mask("1981").matches("\\d{4}"));
+      assertTrue(maskingProvider.mask("1981-12").matches("\\d{4}-\\d{2}"));
+    }
+
+    DateTimeMaskingProviderConfig config = new DateTimeMaskingProviderConfig();
+    config.setGeneralizeYear(true);
+    assertEquals("1981", new DateTimeMaskingProvider(config).mask("1981-12"));
+    assertEquals("1981", new DateTimeMaskingProvider(config).mask("1981"));
+
+    config = new DateTimeMaskingProviderConfig();
+    config.setGeneralizeMonthyear(true);
+    maskingProvider = new DateTimeMaskingProvider(config);
+    assertEquals("12/1981", maskingProvider.mask("1981-12"));
+    // a year does not give the month
+    assertNull(maskingProvider.mask("1981"));
+
+    config = new DateTimeMaskingProviderConfig();
+    config.setYearDelete(true);
+    config.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.MESSAGE);
+    maskingProvider = new DateTimeMaskingProvider(config);
+    // a year and month does not give the day
+    assertEquals("OTHER", maskingProvider.mask("1981-12"));
+    assertEquals("08/12", maskingProvider.mask("1981-12-08"));
+
+    config = new DateTimeMaskingProviderConfig();
+    config.setYearMaxYearsAgoMask(true);
+    config.setYearMaxYearsAgo(90);
+    config.setYearShiftFromCurrentYear(90);
+    maskingProvider = new DateTimeMaskingProvider(config);
+    String expectedYear = String.valueOf(LocalDate.now().getYear() - 90);
+    assertEquals(expectedYear, maskingProvider.mask("1900"));
+    assertEquals(expectedYear + "-03", maskingProvider.mask("1900-03"));
+
+    config.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.RANDOM);
+    config.setYearMaxYearsAgoMask(false);
+    config.setGeneralizeWeekyear(true);
+    maskingProvider = new DateTimeMaskingProvider(config);
+    // random values have the precision of the partial date
+    assertTrue(maskingProvider.mask("1981-12").matches("\\d{4}-\\d{2}"));
+  }
+
   @Test
   public void testMaskFixedFormat() throws Exception {
 
@@ -244,6 +320,97 @@ public class DateTimeMaskingProviderTest extends TestLogSetUp {
     }
   }
 
+  @Ignore
+  @Test
+  public void testPerformanceGeneralization() {
+    String[] modes = {"weekYear", "monthYear", "quarterYear", "year", "yearDelete",
+        "yearMaskAgeOver90", "monthYearMaskAgeOver90", "maxYearsAgo", "shift"};
+    List<String> batch = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      batch.add(String.format("%02d-%02d-%d", 1 + i % 28, 1 + i % 12, 1920 + i));
+    }
+
+    for (String mode : modes) {
+      DateTimeMaskingProviderConfig configuration = new DateTimeMaskingProviderConfig();
+      setAllDateTimeMaskingToFalse(configuration);
+      switch (mode) {
+        case "weekYear":
+          configuration.setGeneralizeWeekyear(true);
+          break;
+        case "monthYear":
+          configuration.setGeneralizeMonthyear(true);
+          break;
+        case "quarterYear":
+          configuration.setGeneralizeQuarteryear(true);
+          break;
+        case "year":
+          configuration.setGeneralizeYear(true);
+          break;
+        case "yearDelete":
+          configuration.setYearDelete(true);
+          configuration.setYearDeleteOutputFormat("MMM-dd");
+          break;
+        case "yearMaskAgeOver90":
+          configuration.setGeneralizeYearMaskAgeOver90(true);
+          break;
+        case "monthYearMaskAgeOver90":
+          configuration.setGeneralizeMonthyearMaskAgeOver90(true);
+          break;
+        case "maxYearsAgo":
+          configuration.setYearMaxYearsAgoMask(true);
+          configuration.setYearMaxYearsAgo(50);
+          break;
+        default:
+          configuration.setMaskShiftDate(true);
+          break;
+      }
+      DateTimeMaskingProvider maskingProvider = new DateTimeMaskingProvider(configuration);
+
+      int N = 10000;
+      long startMillis = System.currentTimeMillis();
+      for (int i = 0; i < N; i++) {
+        maskingProvider.maskBatch(batch);
+      }
+      long diff = System.currentTimeMillis() - startMillis;
+      System.out.println(String.format("%s: %d operations took %d milliseconds (%f per op)", mode,
+          N * batch.size(), diff, (double) diff / (N * batch.size())));
+    }
+  }
+
+  @Test
+  public void testMaskBatch() {
+    DateTimeMaskingProviderConfig configuration = new DateTimeMaskingProviderConfig();
+    setAllDateTimeMaskingToFalse(configuration);
+    configuration.setGeneralizeMonthyearMaskAgeOver90(true);
+    DateTimeMaskingProvider maskingProvider = new DateTimeMaskingProvider(configuration);
+
+    List<String> batch = Arrays.asList("2017-01-01 00:00:00", null, "1900-05-02",
+        "2017-01-01T00:00:00Z", "07-10-1900 08:08:08", "xyz");
+    List<String> masked = maskingProvider.maskBatch(batch);
+    assertEquals(batch.size(), masked.size());
+    for (int i = 0; i < batch.size(); i++) {
+      assertEquals(maskingProvider.mask(batch.get(i)), masked.get(i));
+    }
+    assertEquals("01/2017", masked.get(0));
+    assertNull(masked.get(1));
+    assertEquals(String.format("05/%d", LocalDateTime.now().minusYears(90).getYear()),
+        masked.get(2));
+  }
+
+  @Test
+  public void testSerializedFormatters() {
+    DateTimeMaskingProviderConfig configuration = new DateTimeMaskingProviderConfig();
+    configuration.setFormatFixed("dd-MM-yyyy");
+    configuration.setGeneralizeQuarteryear(true);
+    configuration.setGeneralizeQuarterYearOutputFormat("Q'Q'yyyy");
+    DateTimeMaskingProvider maskingProvider =
+        SerializationUtils.clone(new DateTimeMaskingProvider(configuration));
+
+    // the formatters are resolved again after deserialization
+    assertEquals("2Q2016", maskingProvider.mask("12-04-2016"));
+    assertNull(maskingProvider.mask("2016-04-12"));
+  }
+
   @Test
   public void testGeneralizeWeekYear() {
     DateTimeMaskingProviderConfig configuration = new DateTimeMaskingProviderConfig();
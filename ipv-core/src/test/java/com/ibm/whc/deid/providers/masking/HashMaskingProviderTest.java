@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -13,6 +13,7 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 import com.ibm.whc.deid.shared.pojo.config.masking.HashMaskingProviderConfig;
+import com.ibm.whc.deid.util.cache.BoundedDeidCache;
 
 public class HashMaskingProviderTest extends TestLogSetUp {
   /*
@@ -280,4 +281,23 @@ public class HashMaskingProviderTest extends TestLogSetUp {
     assertTrue(
         maskedValue.equals("D28B0E46851E018BB5FFE89FC12BA94C0B78E4A87C0CA57FE2365F62937949ED"));
   }
+
+  @Test
+  public void testMaskCached() throws Exception {
+    System.setProperty(BoundedDeidCache.PROVIDER_TYPES_PROPERTY, "HASH");
+    try {
+      HashMaskingProviderConfig config = new HashMaskingProviderConfig();
+      config.setSalt("salt");
+      HashMaskingProvider salted = new HashMaskingProvider(config);
+      HashMaskingProvider unsalted = new HashMaskingProvider();
+      String expected = salted.mask("test");
+      // each provider has its own cache, so different configurations do not share replacements
+      assertEquals(expected, salted.mask("test"));
+      assertFalse(expected.equals(unsalted.mask("test")));
+      assertEquals("9F86D081884C7D659A2FEAA0C55AD015A3BF4F1B2B0B822CD15D6C15B0F00A08",
+          unsalted.mask("test").toUpperCase());
+    } finally {
+      System.clearProperty(BoundedDeidCache.PROVIDER_TYPES_PROPERTY);
+    }
+  }
 }
@@ -257,4 +257,19 @@ public class NameMaskingProviderTest extends TestLogSetUp implements MaskingProv
     assertEquals(maskedName1, mp.mask(original1));
     assertEquals(maskedName2, mp.mask(original2));
   }
+
+  @Test
+  public void testMaskBatchPseudorandom() throws Exception {
+    NameMaskingProviderConfig config = new NameMaskingProviderConfig();
+    config.setMaskPseudorandom(true);
+    NameMaskingProvider provider = new NameMaskingProvider(config, tenantId, localizationProperty);
+
+    List<String> names =
+        Arrays.asList("John Smith", "Mary Smith", null, "John Smith", "Zzyqx", "mary");
+    List<String> masked = provider.maskBatch(names);
+    assertEquals(names.size(), masked.size());
+    for (int i = 0; i < names.size(); i++) {
+      assertEquals(provider.mask(names.get(i)), masked.get(i));
+    }
+  }
 }
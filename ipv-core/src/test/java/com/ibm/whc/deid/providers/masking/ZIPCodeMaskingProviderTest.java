@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -349,4 +349,39 @@ public class ZIPCodeMaskingProviderTest extends TestLogSetUp implements MaskingP
     assertEquals("00000", maskedZIPCode);
     assertThat(outContent.toString(), containsString("DEBUG - WPH1015D"));
   }
+
+  @Test
+  public void testMaskBatch() throws Exception {
+    List<String> zipcodes = Arrays.asList("00601", "85123", "123", "00601", null, "85123");
+
+    ZIPCodeMaskingProviderConfig configuration = new ZIPCodeMaskingProviderConfig();
+    configuration.setMaskPrefixRequireMinPopulation(true);
+    configuration.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.MESSAGE);
+    MaskingProvider maskingProvider =
+        new ZIPCodeMaskingProvider(configuration, tenantId, localizationProperty);
+    List<String> masked = maskingProvider.maskBatch(zipcodes);
+    assertEquals(zipcodes.size(), masked.size());
+    for (int i = 0; i < zipcodes.size(); i++) {
+      assertEquals(maskingProvider.mask(zipcodes.get(i)), masked.get(i));
+    }
+
+    configuration = new ZIPCodeMaskingProviderConfig();
+    configuration.setMaskSuffixTruncate(false);
+    configuration.setMaskReplaceWithNeighbor(true);
+    configuration.setMaskReplaceWithNeighborNearestCount(4);
+    maskingProvider = new ZIPCodeMaskingProvider(configuration, tenantId, localizationProperty);
+    List<String> nearestNeighbors =
+        Arrays.asList("85123", "85131", "85241", "85130", "85141", "85194");
+    int randomOK = 0;
+    for (int i = 0; i < MAX_LOOP_FOR_RANDOM_CHECK; ++i) {
+      masked = maskingProvider.maskBatch(Arrays.asList("85123", "85123"));
+      assertTrue(nearestNeighbors.contains(masked.get(0)));
+      assertTrue(nearestNeighbors.contains(masked.get(1)));
+      if (!masked.get(0).equals(masked.get(1))) {
+        randomOK++;
+      }
+    }
+    // the neighbor is still selected at random for each value
+    assertTrue(randomOK > 0);
+  }
 }
@@ -15,6 +15,7 @@ import com.ibm.whc.deid.ObjectMapperFactory;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
 import com.ibm.whc.deid.shared.pojo.config.json.JsonConfig;
 import com.ibm.whc.deid.shared.pojo.config.masking.DateDependencyMaskingProviderConfig;
+import com.ibm.whc.deid.shared.pojo.config.masking.UnexpectedMaskingInputHandler;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
@@ -49,6 +50,26 @@ public class DateDependencyMaskingProviderTest {
     assertEquals("08/12", maskedNode.get("birthDate").asText());
   }
 
+  @Test
+  public void testMaskPartialDate() throws Exception {
+    DateDependencyMaskingProviderConfig maskingConfiguration =
+        new DateDependencyMaskingProviderConfig();
+    maskingConfiguration.setDatetimeYearDeleteNIntervalCompareDate("deceasedDateTime");
+    maskingConfiguration.setUnexpectedInputHandling(UnexpectedMaskingInputHandler.MESSAGE);
+    DateDependencyMaskingProvider maskingProvider =
+        new DateDependencyMaskingProvider(maskingConfiguration, buildMaskingConfig());
+
+    // a year and month keeps only its month when the year is deleted
+    assertEquals("12", maskingProvider.doDateMasking("2010-12", "05-11-2011 00:00:00"));
+    assertEquals("2003-12", maskingProvider.doDateMasking("2003-12", "05-11-2011 00:00:00"));
+    // a year alone has nothing left once the year is deleted
+    assertEquals("OTHER", maskingProvider.doDateMasking("2011", "2011-05"));
+    assertEquals("2003", maskingProvider.doDateMasking("2003", "2011"));
+    // partial dates can also be compared to
+    assertEquals("08/12", maskingProvider.doDateMasking("08-12-2010 00:02:00", "2011"));
+    assertEquals("OTHER", maskingProvider.doDateMasking("2010-13", "2011"));
+  }
+
   @Test
   public void testMaskExceedRange() throws Exception {
     String identifierJSON = "{\n" + "      \"resourceType\": \"Patient\",\n"
@@ -0,0 +1,215 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fhir;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Ignore;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.whc.deid.providers.masking.util.JsonNodeIdentityWrapper;
+
+public class MaskingPathPlanTest {
+
+  private static final String DOCUMENT = "{\"resourceType\":\"Patient\",\"id\":\"p1\","
+      + "\"name\":[{\"family\":\"F0\",\"given\":[\"G00\",\"G01\"]},{\"family\":\"F1\"},"
+      + "{\"family\":\"F2\",\"given\":[\"G20\"]}],"
+      + "\"telecom\":[{\"system\":\"phone\",\"value\":\"T0\"},{\"system\":\"email\",\"value\":\"T1\"},"
+      + "{\"system\":\"fax\",\"value\":\"T2\"}],"
+      + "\"contact\":{\"nested\":[[\"N0\",\"N1\"],[\"N2\"]]},\"empty\":[],\"missing\":null}";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private List<MaskingActionInputIdentifier> collect(JsonNode root, String path,
+      Set<JsonNodeIdentityWrapper> conditionNodes) {
+    FHIRResourceMaskingAction action =
+        new FHIRResourceMaskingAction("/fhir/Patient" + path, path, null);
+    List<MaskingActionInputIdentifier> list = new ArrayList<>();
+    action.getPathPlan().collect(root, null, "Patient", "p1", conditionNodes, list);
+    return list;
+  }
+
+  private List<MaskingActionInputIdentifier> collect(String path) throws Exception {
+    return collect(mapper.readTree(DOCUMENT), path, new HashSet<>());
+  }
+
+  private void assertValues(List<MaskingActionInputIdentifier> list, String... values) {
+    assertEquals(values.length, list.size());
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(values[i], list.get(i).getNode().asText());
+    }
+  }
+
+  @Test
+  public void testField() throws Exception {
+    JsonNode root = mapper.readTree(DOCUMENT);
+    List<MaskingActionInputIdentifier> list = collect(root, "/id", null);
+    assertValues(list, "p1");
+    assertEquals("id", list.get(0).getPath());
+    assertSame(root, list.get(0).getParent());
+    assertSame(root, list.get(0).getRoot());
+    assertEquals("Patient", list.get(0).getResourceType());
+    assertEquals("p1", list.get(0).getResourceId());
+  }
+
+  @Test
+  public void testFieldExpandsArrays() throws Exception {
+    JsonNode root = mapper.readTree(DOCUMENT);
+    List<MaskingActionInputIdentifier> list = collect(root, "/name/given", null);
+    assertValues(list, "G00", "G01", "G20");
+    assertEquals("given[0]", list.get(0).getPath());
+    assertEquals("given[1]", list.get(1).getPath());
+    assertSame(root.get("name").get(0).get("given"), list.get(0).getParent());
+    assertSame(root.get("name").get(2).get("given"), list.get(2).getParent());
+
+    assertValues(collect("/name/family"), "F0", "F1", "F2");
+  }
+
+  @Test
+  public void testIndex() throws Exception {
+    assertValues(collect("/name[2]/family"), "F2");
+    assertValues(collect("/name[0]/given[1]"), "G01");
+    assertValues(collect("/name[5]/family"));
+    assertValues(collect("/name[ 01 ]/family"), "F1");
+    List<MaskingActionInputIdentifier> list = collect("/name/given[01]");
+    assertValues(list, "G01");
+    assertEquals("given[01]", list.get(0).getPath());
+  }
+
+  @Test
+  public void testWildcard() throws Exception {
+    assertValues(collect("/name[*]/family"), "F0", "F1", "F2");
+    assertValues(collect("/name/given[*]"), "G00", "G01", "G20");
+    assertValues(collect("/empty[*]"));
+    assertValues(collect("/id[*]"));
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    assertValues(collect("/name[1,2]/family"), "F1", "F2");
+    assertValues(collect("/name[1,*]/family"), "F1", "F2");
+    assertValues(collect("/name[ 0 , 1 ]/family"), "F0", "F1");
+    assertValues(collect("/name[2,9]/family"), "F2");
+    assertValues(collect("/name[3,*]/family"));
+  }
+
+  @Test
+  public void testIndexSet() throws Exception {
+    List<MaskingActionInputIdentifier> list = collect("/name[{2,0,02}]/family");
+    assertValues(list, "F2", "F0", "F2");
+    assertEquals("family", list.get(0).getPath());
+    list = collect("/name/given[{1,5}]");
+    assertValues(list, "G01");
+    assertEquals("given[1]", list.get(0).getPath());
+  }
+
+  @Test
+  public void testUnsupportedIndexMatchesNothing() throws Exception {
+    assertValues(collect("/name[x]/family"));
+    assertValues(collect("/name[99999999999]/family"));
+    assertValues(collect("/name[0,99999999999]/family"));
+  }
+
+  @Test
+  public void testNestedArrays() throws Exception {
+    List<MaskingActionInputIdentifier> list = collect("/contact/nested");
+    assertValues(list, "N0", "N1", "N2");
+    assertEquals("nested[0][0]", list.get(0).getPath());
+    assertEquals("nested[1][0]", list.get(2).getPath());
+    assertValues(collect("/contact/nested[1]"), "N2");
+  }
+
+  @Test
+  public void testNoValue() throws Exception {
+    assertValues(collect("/missing"));
+    assertValues(collect("/empty"));
+    assertValues(collect("/name"));
+    assertValues(collect("/name/family/text"));
+    assertValues(collect("/unknown/family"));
+  }
+
+  @Test
+  public void testQuery() throws Exception {
+    JsonNode root = mapper.readTree(DOCUMENT);
+    Set<JsonNodeIdentityWrapper> conditionNodes = new HashSet<>();
+
+    List<MaskingActionInputIdentifier> list =
+        collect(root, "/telecom/value(system==phone)", conditionNodes);
+    assertValues(list, "T0");
+    assertEquals("value", list.get(0).getPath());
+    assertSame(root.get("telecom").get(0), list.get(0).getParent());
+    assertEquals(1, conditionNodes.size());
+
+    // wildcards do not select nodes already selected by a specific condition
+    assertValues(collect(root, "/telecom/value(system==*)", conditionNodes), "T1", "T2");
+    assertValues(collect(root, "/telecom/value(*==*)", conditionNodes));
+    assertValues(collect(root, "/telecom/value(*==*)", new HashSet<>()), "T0", "T1", "T2");
+    assertValues(collect(root, "/name/value(system==phone)", new HashSet<>()));
+  }
+
+  @Test
+  public void testQueryInvalidCondition() throws Exception {
+    FHIRResourceMaskingAction action =
+        new FHIRResourceMaskingAction("/fhir/Patient/telecom/value(system==)",
+            "/telecom/value(system==)", null);
+    assertTrue(action.getPathPlan().isQuery());
+    try {
+      action.getPathPlan().collect(mapper.readTree(DOCUMENT), null, "Patient", "p1",
+          new HashSet<>(), new ArrayList<>());
+      fail("expected exception");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("array query condition"));
+    }
+  }
+
+  @Test
+  public void testIsQuery() {
+    assertFalse(new FHIRResourceMaskingAction("/fhir/Patient/name[0]/given", "/name[0]/given",
+        null).getPathPlan().isQuery());
+  }
+
+  @Ignore
+  @Test
+  public void testPerformance() throws Exception {
+    StringBuilder buffer = new StringBuilder("{\"resourceType\":\"Bundle\",\"entry\":[");
+    for (int i = 0; i < 1000; i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      buffer.append("{\"resource\":").append(DOCUMENT).append('}');
+    }
+    buffer.append("]}");
+    JsonNode bundle = mapper.readTree(buffer.toString());
+
+    String[] paths = {"/entry/resource/name/family", "/entry/resource/name[*]/given",
+        "/entry[0,*]/resource/name[{0,2}]/given[0]", "/entry/resource/id",
+        "/entry/resource/telecom/value(system==phone)", "/entry/resource/contact/nested"};
+    List<FHIRResourceMaskingAction> actions = new ArrayList<>();
+    for (String path : paths) {
+      actions.add(new FHIRResourceMaskingAction("/fhir/Bundle" + path, path, null));
+    }
+
+    int N = 100;
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      for (FHIRResourceMaskingAction action : actions) {
+        List<MaskingActionInputIdentifier> list = new ArrayList<>();
+        action.getPathPlan().collect(bundle, null, "Bundle", "b1", new HashSet<>(), list);
+      }
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("%d path resolutions took %d milliseconds (%f per op)",
+        N * actions.size(), diff, (double) diff / (N * actions.size())));
+  }
+}
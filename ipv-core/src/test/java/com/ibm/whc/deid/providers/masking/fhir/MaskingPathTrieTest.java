@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fhir;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Ignore;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.ibm.whc.deid.providers.masking.NullMaskingProvider;
+import com.ibm.whc.deid.shared.pojo.config.masking.NullMaskingProviderConfig;
+
+public class MaskingPathTrieTest {
+
+  private static final String DOCUMENT = "{\"resourceType\":\"Patient\",\"id\":\"p1\","
+      + "\"name\":[{\"family\":\"F0\",\"given\":[\"G00\",\"G01\"]},{\"family\":\"F1\"},"
+      + "{\"family\":\"F2\",\"given\":[\"G20\"]}],"
+      + "\"telecom\":[{\"system\":\"phone\",\"value\":\"T0\"},{\"system\":\"email\",\"value\":\"T1\"}],"
+      + "\"contact\":{\"nested\":[[{\"a\":\"N0\"},{\"a\":\"N1\"}],[{\"a\":\"N2\"}]]},"
+      + "\"empty\":[],\"missing\":null}";
+
+  private static final String[] PATHS = {"/id", "/name/family", "/name[*]/given", "/name[2]/family",
+      "/name[0,1]/family", "/name[{2,0}]/given[0]", "/name/given", "/name[x]/family",
+      "/contact/nested/a", "/contact/nested[1]/a", "/contact/nested", "/missing", "/empty",
+      "/telecom/value(system==phone)", "/telecom/value", "/unknown/family"};
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private List<FHIRResourceMaskingAction> buildActions(String... paths) {
+    List<FHIRResourceMaskingAction> actions = new ArrayList<>();
+    for (String path : paths) {
+      actions.add(new FHIRResourceMaskingAction("/fhir/Patient" + path, path,
+          new NullMaskingProvider(new NullMaskingProviderConfig())));
+    }
+    return actions;
+  }
+
+  @Test
+  public void testCollectMatchesIndividualPaths() throws Exception {
+    JsonNode root = mapper.readTree(DOCUMENT);
+    List<FHIRResourceMaskingAction> actions = buildActions(PATHS);
+    MaskingPathTrie trie = new MaskingPathTrie(actions, actions.size());
+
+    List<List<MaskingActionInputIdentifier>> outputs = trie.collect(root, "Patient", "p1");
+    assertEquals(actions.size(), outputs.size());
+
+    for (int i = 0; i < actions.size(); i++) {
+      FHIRResourceMaskingAction action = actions.get(i);
+      // array queries and paths that cannot match any node are not merged
+      boolean expectMerged = !action.getPathPlan().isQuery()
+          && !action.getShortRuleName().startsWith("/name[x]");
+      assertEquals(action.getShortRuleName(), expectMerged, trie.isMerged(i));
+      if (!expectMerged) {
+        assertNull(outputs.get(i));
+        continue;
+      }
+
+      List<MaskingActionInputIdentifier> expected = new ArrayList<>();
+      action.getPathPlan().collect(root, action.getMaskingProvider(), "Patient", "p1",
+          new HashSet<>(), expected);
+      List<MaskingActionInputIdentifier> actual = outputs.get(i);
+      assertEquals(action.getShortRuleName(), expected.size(), actual.size());
+      for (int j = 0; j < expected.size(); j++) {
+        MaskingActionInputIdentifier e = expected.get(j);
+        MaskingActionInputIdentifier a = actual.get(j);
+        assertSame(e.getNode(), a.getNode());
+        assertSame(e.getParent(), a.getParent());
+        assertEquals(e.getPath(), a.getPath());
+        assertSame(action.getMaskingProvider(), a.getProvider());
+        assertSame(root, a.getRoot());
+        assertEquals("Patient", a.getResourceType());
+        assertEquals("p1", a.getResourceId());
+      }
+    }
+  }
+
+  @Test
+  public void testCount() throws Exception {
+    List<FHIRResourceMaskingAction> actions = buildActions("/id", "/name/family");
+    MaskingPathTrie trie = new MaskingPathTrie(actions, 1);
+    assertTrue(trie.isMerged(0));
+    assertFalse(trie.isMerged(1));
+
+    List<List<MaskingActionInputIdentifier>> outputs =
+        trie.collect(mapper.readTree(DOCUMENT), "Patient", "p1");
+    assertEquals(1, outputs.get(0).size());
+    assertNull(outputs.get(1));
+  }
+
+  @Test
+  public void testRefresh() throws Exception {
+    JsonNode root = mapper.readTree(DOCUMENT);
+    List<FHIRResourceMaskingAction> actions = buildActions("/id", "/name/given", "/name/family");
+    MaskingPathTrie trie = new MaskingPathTrie(actions, actions.size());
+    List<List<MaskingActionInputIdentifier>> outputs = trie.collect(root, "Patient", "p1");
+
+    ((ObjectNode) root).set("id", new TextNode("changed"));
+    ((ArrayNode) root.get("name").get(0).get("given")).set(0, NullNode.getInstance());
+    ((ObjectNode) root.get("name").get(1)).remove("family");
+
+    List<MaskingActionInputIdentifier> list = outputs.get(0);
+    MaskingPathTrie.refresh(list);
+    assertEquals(1, list.size());
+    assertSame(root.get("id"), list.get(0).getNode());
+
+    list = outputs.get(1);
+    MaskingPathTrie.refresh(list);
+    assertEquals(2, list.size());
+    assertEquals("given[1]", list.get(0).getPath());
+    assertEquals("G20", list.get(1).getNode().asText());
+
+    list = outputs.get(2);
+    MaskingPathTrie.refresh(list);
+    assertEquals(2, list.size());
+    assertEquals("F0", list.get(0).getNode().asText());
+    assertEquals("F2", list.get(1).getNode().asText());
+  }
+
+  @Ignore
+  @Test
+  public void testPerformance() throws Exception {
+    StringBuilder buffer = new StringBuilder("{\"resourceType\":\"Bundle\",\"entry\":[");
+    for (int i = 0; i < 1000; i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      buffer.append("{\"resource\":").append(DOCUMENT).append('}');
+    }
+    buffer.append("]}");
+    JsonNode bundle = mapper.readTree(buffer.toString());
+
+    List<FHIRResourceMaskingAction> actions = new ArrayList<>();
+    for (String path : PATHS) {
+      actions.addAll(buildActions("/entry/resource" + path));
+    }
+    MaskingPathTrie trie = new MaskingPathTrie(actions, actions.size());
+
+    int N = 100;
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      for (FHIRResourceMaskingAction action : actions) {
+        List<MaskingActionInputIdentifier> list = new ArrayList<>();
+        action.getPathPlan().collect(bundle, null, "Bundle", "b1", new HashSet<>(), list);
+      }
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("%d traversals per path took %d milliseconds (%f per op)", N,
+        diff, (double) diff / N));
+
+    startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      trie.collect(bundle, "Bundle", "b1");
+    }
+    diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("%d merged traversals took %d milliseconds (%f per op)", N,
+        diff, (double) diff / N));
+  }
+}
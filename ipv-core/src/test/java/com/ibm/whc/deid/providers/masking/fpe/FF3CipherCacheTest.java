@@ -0,0 +1,52 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fpe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import com.privacylogistics.FF3Cipher;
+
+public class FF3CipherCacheTest {
+
+  private static final String KEY = "11111111222222223333333344444444";
+  private static final String TWEAK = "aaaabbbbccccdddd";
+
+  @Test
+  public void testGet() throws Exception {
+    FF3Cipher cipher = FF3CipherCache.get(KEY, TWEAK, 10);
+    assertSame(cipher, FF3CipherCache.get(KEY, TWEAK, 10));
+    assertSame(cipher, FF3CipherCache.get(new String(KEY), new String(TWEAK), 10));
+    assertNotSame(cipher, FF3CipherCache.get(KEY, TWEAK, 26));
+    assertNotSame(cipher, FF3CipherCache.get(KEY, "aaaabbbbccccddde", 10));
+    assertNotSame(cipher, FF3CipherCache.get("11111111222222223333333344444445", TWEAK, 10));
+
+    // the cached engine produces the same result as a new one
+    assertEquals(new FF3Cipher(KEY, TWEAK, 10).encrypt("897435847"),
+        cipher.encrypt("897435847"));
+
+    // each thread has its own engines
+    AtomicReference<FF3Cipher> other = new AtomicReference<>();
+    Thread thread = new Thread(() -> other.set(FF3CipherCache.get(KEY, TWEAK, 10)));
+    thread.start();
+    thread.join();
+    assertNotSame(cipher, other.get());
+    assertSame(cipher, FF3CipherCache.get(KEY, TWEAK, 10));
+  }
+
+  @Test
+  public void testMaximumSize() throws Exception {
+    FF3Cipher first = FF3CipherCache.get(KEY, TWEAK, 10);
+    for (int i = 0; i < FF3CipherCache.MAXIMUM_SIZE; i++) {
+      FF3CipherCache.get(KEY, String.format("%016x", i), 10);
+    }
+    assertEquals(FF3CipherCache.MAXIMUM_SIZE, FF3CipherCache.size());
+    // the least recently used engine was discarded
+    assertNotSame(first, FF3CipherCache.get(KEY, TWEAK, 10));
+  }
+}
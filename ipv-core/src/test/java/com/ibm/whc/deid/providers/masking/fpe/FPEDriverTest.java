@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.providers.masking.fpe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Ignore;
+import org.junit.Test;
+import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.Pad;
+import com.ibm.whc.deid.shared.pojo.config.masking.FPEMaskingProviderConfig.UsageType;
+import com.privacylogistics.FF3Cipher;
+
+public class FPEDriverTest {
+
+  private static final String KEY = "11111111222222223333333344444444";
+  private static final String TWEAK = "aaaabbbbccccdddd";
+
+  @Test
+  public void testEncryptBatch() throws Exception {
+    FPEDriver driver = FPEDriver.getFPEDriver(UsageType.DIGITS);
+    List<String> input = Arrays.asList("897435847", null, "123", "555-12-3456");
+    List<UnsupportedLengthException> failures = new ArrayList<>();
+    List<String> output = driver.encrypt(input, KEY, TWEAK, Pad.NONE, (value, e) -> {
+      failures.add(e);
+      return "bad " + value;
+    });
+    assertEquals(4, output.size());
+    assertEquals(driver.encrypt("897435847", KEY, TWEAK, Pad.NONE), output.get(0));
+    assertEquals("897435847",
+        new FF3Cipher(KEY, TWEAK, 10).decrypt(output.get(0)));
+    assertNull(output.get(1));
+    assertEquals("bad 123", output.get(2));
+    assertEquals(1, failures.size());
+    assertEquals(3, failures.get(0).getLength());
+    assertEquals(driver.encrypt("555-12-3456", KEY, TWEAK, Pad.NONE), output.get(3));
+    assertTrue(output.get(3).matches("[0-9]{3}-[0-9]{2}-[0-9]{4}"));
+  }
+
+  @Test
+  @Ignore
+  public void testPerformance() throws Exception {
+    UsageType[] types = new UsageType[] {UsageType.DIGITS, UsageType.LETTERS_LOWER,
+        UsageType.LETTERS_INSENSITIVE_AS_ORIGINAL, UsageType.LETTERS_SENSITIVE};
+    String[] originals = new String[] {"8974358471", "abcdefghij", "AbcDefGhij", "AbcDefGhij"};
+
+    int N = 100000;
+    for (int t = 0; t < types.length; t++) {
+      FPEDriver driver = FPEDriver.getFPEDriver(types[t]);
+      List<String> batch = new ArrayList<>(N);
+      for (int i = 0; i < N; i++) {
+        batch.add(originals[t]);
+      }
+
+      long startMillis = System.currentTimeMillis();
+      for (int i = 0; i < N; i++) {
+        driver.encrypt(originals[t], KEY, TWEAK, Pad.NONE);
+      }
+      long diff = System.currentTimeMillis() - startMillis;
+      System.out.println(String.format("%s: %d single operations took %d milliseconds (%f per op)",
+          types[t], N, diff, (double) diff / N));
+
+      startMillis = System.currentTimeMillis();
+      driver.encrypt(batch, KEY, TWEAK, Pad.NONE, (value, e) -> null);
+      diff = System.currentTimeMillis() - startMillis;
+      System.out.println(String.format("%s: %d batch operations took %d milliseconds (%f per op)",
+          types[t], N, diff, (double) diff / N));
+    }
+
+    // for comparison, creating an encryption engine for every value
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      new FF3Cipher(KEY, TWEAK, 10).encrypt(originals[0]);
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("%d operations with new engines took %d milliseconds (%f per op)",
+        N, diff, (double) diff / N));
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -8,9 +8,12 @@ package com.ibm.whc.deid.providers.masking.util;
 import static org.junit.Assert.assertEquals;
 import java.util.ArrayList;
 import java.util.List;
+import org.junit.Ignore;
 import org.junit.Test;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.ibm.whc.deid.ObjectMapperFactory;
 import com.ibm.whc.deid.providers.masking.NullMaskingProvider;
@@ -92,4 +95,87 @@ public class NoRuleManagerTest {
     mgr.applyToRemainingNodes();
     assertEquals("\"lion\"", om.writeValueAsString(valueRoot));
   }
+
+  @Test
+  public void testNestedArrays() throws Exception {
+    NullMaskingProvider provider = new NullMaskingProvider();
+    ObjectMapper om = ObjectMapperFactory.getObjectMapper();
+    JsonNode root = om.readTree("{\"x\":[[\"a\",\"b\"],[\"c\",{\"y\":\"d\"}]],\"z\":\"e\"}");
+    NoRuleManager mgr = new NoRuleManager(
+        new MaskingProviderBuilder.MaskingResource("id", root, null), "r1", provider);
+
+    JsonNode inner = root.get("x").get(1);
+    List<MaskingActionInputIdentifier> list = new ArrayList<>();
+    list.add(new MaskingActionInputIdentifier(null, inner.get(0), inner, "x[1][0]", "", "r1",
+        root));
+    // not the path of the node in its parent
+    list.add(new MaskingActionInputIdentifier(null, root.get("x").get(0).get(1),
+        root.get("x").get(0), "x[1]", "", "r1", root));
+    list.add(new MaskingActionInputIdentifier(null, root.get("x").get(0).get(0),
+        root.get("x").get(0), "x[0][00]", "", "r1", root));
+    list.add(new MaskingActionInputIdentifier(null, root.get("z"), root, "z", "", "r1", root));
+    mgr.removeNodesAlreadyMasked(list);
+    mgr.applyToRemainingNodes();
+    assertEquals("{\"x\":[[null,null],[\"c\",{\"y\":null}]],\"z\":\"e\"}",
+        om.writeValueAsString(root));
+  }
+
+  @Test
+  @Ignore
+  public void testPerformance() throws Exception {
+    NullMaskingProvider provider = new NullMaskingProvider();
+    ObjectMapper om = ObjectMapperFactory.getObjectMapper();
+
+    // a bundle of about 5 MB
+    ObjectNode bundle = om.createObjectNode();
+    bundle.put("resourceType", "Bundle");
+    ArrayNode entries = bundle.putArray("entry");
+    for (int i = 0; i < 6000; i++) {
+      ObjectNode patient = entries.addObject().putObject("resource");
+      patient.put("resourceType", "Patient");
+      patient.put("id", "patient-" + i);
+      ObjectNode name = patient.putArray("name").addObject();
+      name.put("family", "Family" + i);
+      name.putArray("given").add("Given" + i).add("Middle" + i);
+      for (int j = 0; j < 5; j++) {
+        ObjectNode address = patient.putArray("address").addObject();
+        address.putArray("line").add(i + " Main Street").add("Apartment " + j);
+        address.put("city", "City" + j);
+        address.put("postalCode", "0000" + j);
+        address.put("country", "US");
+      }
+      ArrayNode telecom = patient.putArray("telecom");
+      for (int j = 0; j < 10; j++) {
+        ObjectNode contact = telecom.addObject();
+        contact.put("system", "phone");
+        contact.put("value", "555-01" + j + i);
+        contact.put("use", j % 2 == 0 ? "home" : "work");
+      }
+    }
+    String doc = om.writeValueAsString(bundle);
+    System.out.println(String.format("bundle of %d bytes", doc.length()));
+
+    int N = 20;
+    long startMillis = System.currentTimeMillis();
+    for (int n = 0; n < N; n++) {
+      JsonNode root = om.readTree(doc);
+      List<MaskingActionInputIdentifier> list = new ArrayList<>();
+      for (JsonNode entry : root.get("entry")) {
+        JsonNode name = entry.get("resource").get("name").get(0);
+        list.add(new MaskingActionInputIdentifier(null, name.get("family"), name, "family", "",
+            "", root));
+        JsonNode given = name.get("given");
+        list.add(new MaskingActionInputIdentifier(null, given.get(0), given, "given[0]", "", "",
+            root));
+      }
+      NoRuleManager mgr = new NoRuleManager(
+          new MaskingProviderBuilder.MaskingResource("id", root, null), "r1", provider);
+      mgr.removeNodesAlreadyMasked(list);
+      mgr.applyToRemainingNodes();
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format(
+        "%d bundles parsed and masked in %d milliseconds (%f per bundle)", N, diff,
+        (double) diff / N));
+  }
 }
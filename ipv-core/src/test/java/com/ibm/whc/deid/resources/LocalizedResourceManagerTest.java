@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -57,6 +57,10 @@ public class LocalizedResourceManagerTest {
     public TestLocalizedResourceManager() {      
       // nothing required here
     }
+
+    public TestLocalizedResourceManager(ResourceStorage storage) {
+      super(-1, -1, storage);
+    }
   }
   
   @Test
@@ -111,6 +115,15 @@ public class LocalizedResourceManagerTest {
 
   @Test
   public void testWithCodesLoaded() {
+    checkWithCodesLoaded(ResourceStorage.HASHED);
+  }
+
+  @Test
+  public void testWithCodesLoadedPacked() {
+    checkWithCodesLoaded(ResourceStorage.PACKED);
+  }
+
+  private void checkWithCodesLoaded(ResourceStorage storage) {
     List<TestResource> EN_REPLACEMENTS_LIST = Arrays.asList(new TestResource("first"), new TestResource("second"), new TestResource("third"), new TestResource("lASt"));
     List<String> EN_REPLACEMENTS_KEYS = Arrays.asList("FIRST", "SECOND", "THIRD", "LAST");
     List<String> EN_REPLACEMENTS_VALUES = Arrays.asList("first", "second", "third", "lASt");
@@ -118,7 +131,7 @@ public class LocalizedResourceManagerTest {
     List<String> FR_REPLACEMENTS_KEYS = Arrays.asList("FRFIRST", "FRSECOND", "FRTHIRD", "LAST");
     List<String> FR_REPLACEMENTS_VALUES = Arrays.asList("FRfirst", "FRsecond", "FRthird", "last");    
 
-    TestLocalizedResourceManager mgr = new TestLocalizedResourceManager();
+    TestLocalizedResourceManager mgr = new TestLocalizedResourceManager(storage);
     for (TestResource r : EN_REPLACEMENTS_LIST) {
       mgr.add(r);
       mgr.add("en", r);
@@ -127,6 +140,7 @@ public class LocalizedResourceManagerTest {
       mgr.add(r);
       mgr.add("fr", r);
     }
+    mgr.finishLoading();
     
     assertNull(mgr.getValue("ABCDEFGH"));
     TestResource code = mgr.getValue("second");
@@ -336,4 +350,23 @@ public class LocalizedResourceManagerTest {
     assertEquals(2, mgr.getValues("en").size());
     assertEquals(1, mgr.getKeys("en").size());    
   }
+
+  @Test
+  public void testDuplicateResourceKeyPacked() {
+    TestLocalizedResourceManager mgr = new TestLocalizedResourceManager(ResourceStorage.PACKED);
+    mgr.add("en", new TestResource("Value"));
+    mgr.add("en", new TestResource("VALUE"));
+    mgr.add(new TestResource("other"));
+    mgr.finishLoading();
+    assertEquals(2, mgr.getValues("en").size());
+    assertEquals(1, mgr.getKeys("en").size());
+    assertTrue(mgr.getKeys("en").contains("VALUE"));
+    assertEquals("VALUE", mgr.getValue("en", "value").getCode());
+    // keys loaded only for a locale are not keys of the manager as a whole
+    assertEquals(1, mgr.getKeys().size());
+    assertTrue(mgr.getKeys().contains("OTHER"));
+    assertFalse(mgr.getKeys().contains("VALUE"));
+    assertFalse(mgr.isValidKey("value"));
+    assertNull(mgr.getValue("en", "other"));
+  }
 }
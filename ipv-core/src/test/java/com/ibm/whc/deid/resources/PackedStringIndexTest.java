@@ -0,0 +1,52 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class PackedStringIndexTest {
+
+  @Test
+  public void testIndex() {
+    PackedStringIndex index = new PackedStringIndex(
+        Arrays.asList("ZOE", "ANNE", "ÉMILE", "", "ANNE", "ANN", "ZOË", "BO"));
+    assertEquals(7, index.size());
+    // unsigned UTF-8 byte order
+    assertEquals(Arrays.asList("", "ANN", "ANNE", "BO", "ZOE", "ZOË", "ÉMILE"),
+        new ArrayList<>(index.subset(null)));
+    for (int id = 0; id < index.size(); id++) {
+      assertEquals(id, index.indexOf(index.get(id)));
+    }
+    assertTrue(index.indexOf("AN") < 0);
+    assertTrue(index.indexOf("ANNES") < 0);
+    assertTrue(index.indexOf("anne") < 0);
+    assertTrue(index.indexOf("ZZZ") < 0);
+
+    Set<String> subset = index.subset(new int[] {index.indexOf("ANN"), index.indexOf("ZOË")});
+    assertEquals(2, subset.size());
+    assertEquals(new HashSet<>(Arrays.asList("ANN", "ZOË")), subset);
+    assertTrue(subset.contains("ZOË"));
+    assertFalse(subset.contains("ANNE"));
+    assertFalse(subset.contains("X"));
+    assertFalse(subset.contains(null));
+  }
+
+  @Test
+  public void testEmpty() {
+    PackedStringIndex index = new PackedStringIndex(Collections.emptyList());
+    assertEquals(0, index.size());
+    assertTrue(index.indexOf("A") < 0);
+    assertTrue(index.subset(null).isEmpty());
+  }
+}
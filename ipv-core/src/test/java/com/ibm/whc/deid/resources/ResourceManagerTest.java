@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -190,4 +190,33 @@ public class ResourceManagerTest {
     assertEquals(2, mgr.getValues().size());
     assertEquals(1, mgr.getKeys().size());
   }
+
+  @Test
+  public void testGetRandomValues() {
+    TestResourceManager mgr = new TestResourceManager();
+    List<TestResource> values = mgr.getRandomValues(3);
+    assertEquals(Arrays.asList(null, null, null), values);
+
+    TestResource one = new TestResource("One");
+    mgr.add(one);
+    assertEquals(Arrays.asList(one, one), mgr.getRandomValues(2));
+    assertEquals(0, mgr.getRandomValues(0).size());
+
+    List<TestResource> list = Arrays.asList(one, new TestResource("two"),
+        new TestResource("three"), new TestResource("four"), new TestResource("five"));
+    mgr = new TestResourceManager();
+    for (TestResource r : list) {
+      mgr.add(r);
+    }
+    int[] counts = new int[list.size()];
+    values = mgr.getRandomValues(5000);
+    assertEquals(5000, values.size());
+    for (TestResource value : values) {
+      counts[list.indexOf(value)]++;
+    }
+    for (int count : counts) {
+      // expected 1000 each
+      assertTrue(String.valueOf(count), count > 800 && count < 1200);
+    }
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class HashUtilsTest {
+
+  @Test
+  public void testLongFromHash() {
+    String[] values = {"", "a", "John", "10 Main Street", "été 中文", "12345"};
+    for (String value : values) {
+      assertEquals(value,
+          UUID.nameUUIDFromBytes(value.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits(),
+          HashUtils.longFromHash(value));
+    }
+    assertEquals(HashUtils.longFromHash(""), HashUtils.longFromHash(null));
+  }
+
+  @Test
+  public void testFastLongFromHash() {
+    assertEquals(HashUtils.fastLongFromHash("John"), HashUtils.fastLongFromHash("John"));
+    assertEquals(HashUtils.fastLongFromHash(""), HashUtils.fastLongFromHash(null));
+    assertNotEquals(HashUtils.fastLongFromHash("John"), HashUtils.fastLongFromHash("Joan"));
+
+    // consecutive keys are spread over the buckets of a small resource list
+    int[] buckets = new int[10];
+    for (int i = 0; i < 10000; i++) {
+      buckets[(int) ((HashUtils.fastLongFromHash("key" + i) & Long.MAX_VALUE) % 10)]++;
+    }
+    for (int count : buckets) {
+      assertTrue(String.valueOf(count), count > 800 && count < 1200);
+    }
+  }
+
+  @Test
+  public void testGetMessageDigest() throws Exception {
+    MessageDigest md = HashUtils.getMessageDigest("SHA-256");
+    md.update("partial".getBytes(StandardCharsets.UTF_8));
+    // the digest is reused by the same thread and is reset when it is obtained again
+    assertSame(md, HashUtils.getMessageDigest("SHA-256"));
+    assertEquals(
+        HashUtils.toHex(MessageDigest.getInstance("SHA-256")
+            .digest("value".getBytes(StandardCharsets.UTF_8))),
+        HashUtils.toHex(HashUtils.getMessageDigest("SHA-256")
+            .digest("value".getBytes(StandardCharsets.UTF_8))));
+    assertNotSame(md, HashUtils.getMessageDigest("SHA-512"));
+
+    AtomicReference<MessageDigest> other = new AtomicReference<>();
+    Thread thread = new Thread(() -> {
+      try {
+        other.set(HashUtils.getMessageDigest("SHA-256"));
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    thread.start();
+    thread.join();
+    assertNotSame(md, other.get());
+    assertEquals("SHA-256", other.get().getAlgorithm());
+  }
+
+  @Test
+  public void testToHex() {
+    assertEquals("", HashUtils.toHex(new byte[0]));
+    assertEquals("00017F80FF", HashUtils.toHex(new byte[] {0, 1, 127, -128, -1}));
+  }
+
+  @Test
+  @Ignore
+  public void testPerformance() {
+    int N = 1000000;
+    Set<Long> sink = new HashSet<>();
+
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      sink.add(UUID.nameUUIDFromBytes(("value" + i).getBytes(StandardCharsets.UTF_8))
+          .getMostSignificantBits());
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("UUID: %d operations took %d milliseconds (%f per op)", N,
+        diff, (double) diff / N));
+
+    startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      sink.add(HashUtils.longFromHash("value" + i));
+    }
+    diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("longFromHash: %d operations took %d milliseconds (%f per op)",
+        N, diff, (double) diff / N));
+
+    startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      sink.add(HashUtils.fastLongFromHash("value" + i));
+    }
+    diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format(
+        "fastLongFromHash: %d operations took %d milliseconds (%f per op)", N, diff,
+        (double) diff / N));
+    assertTrue(sink.size() > N);
+  }
+}
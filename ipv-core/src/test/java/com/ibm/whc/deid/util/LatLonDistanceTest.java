@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import org.junit.Ignore;
 import org.junit.Test;
 import com.ibm.whc.deid.models.City;
 import com.ibm.whc.deid.models.LatitudeLongitude;
@@ -74,4 +76,78 @@ public class LatLonDistanceTest {
     List<City> neighbors = tree.findNearestK(new LatitudeLongitude(41.6686, -6.416673), 55);
     assertEquals(0, neighbors.size());
   }
+
+  /**
+   * Reference implementation - sorts all the locations by distance.
+   */
+  private static List<City> bruteForce(List<City> cities, LatitudeLongitude current, int k) {
+    List<City> sorted = new ArrayList<>(cities);
+    sorted.removeIf(c -> distance(c, current) == 0.0);
+    sorted.sort(Comparator.comparingDouble(c -> distance(c, current)));
+    return sorted.subList(0, Math.max(0, Math.min(k, sorted.size())));
+  }
+
+  private static double distance(City city, LatitudeLongitude current) {
+    double dlat = city.getLocation().getLatitude() - current.getLatitude();
+    double dlon = city.getLocation().getLongitude() - current.getLongitude();
+    return Math.sqrt(dlat * dlat + dlon * dlon);
+  }
+
+  private static List<City> randomCities(Random random, int count) {
+    List<City> cities = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      // coarse coordinates so that some locations coincide or are equally distant
+      cities.add(new City("city" + i, random.nextInt(400) / 10.0 + 20.0,
+          random.nextInt(600) / 10.0 - 120.0, "en"));
+    }
+    return cities;
+  }
+
+  @Test
+  public void testFindNearestKMatchesFullSort() throws Exception {
+    Random random = new Random(8675309L);
+    List<City> cities = randomCities(random, 2000);
+    LatLonDistance<City> calculator = new LatLonDistance<>(cities);
+
+    for (int i = 0; i < 300; i++) {
+      City start = cities.get(random.nextInt(cities.size()));
+      int k = random.nextInt(30) - 2;
+      assertEquals(bruteForce(cities, start.getLocation(), k), calculator.findNearestK(start, k));
+    }
+    LatitudeLongitude faraway = new LatitudeLongitude(-80.0, 170.0);
+    assertEquals(bruteForce(cities, faraway, 5), calculator.findNearestK(faraway, 5));
+    assertEquals(bruteForce(cities, faraway, 5000), calculator.findNearestK(faraway, 5000));
+    assertEquals(0, new LatLonDistance<City>(new ArrayList<>()).findNearestK(faraway, 5).size());
+  }
+
+  @Test
+  @Ignore
+  public void testPerformance() throws Exception {
+    Random random = new Random();
+    List<City> cities = randomCities(random, 40000);
+    int N = 2000;
+
+    long startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      City start = cities.get(random.nextInt(cities.size()));
+      bruteForce(cities, start.getLocation(), 10);
+    }
+    long diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("full sort: %d operations took %d milliseconds (%f per op)",
+        N, diff, (double) diff / N));
+
+    startMillis = System.currentTimeMillis();
+    LatLonDistance<City> calculator = new LatLonDistance<>(cities);
+    diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("index built in %d milliseconds", diff));
+
+    startMillis = System.currentTimeMillis();
+    for (int i = 0; i < N; i++) {
+      City start = cities.get(random.nextInt(cities.size()));
+      calculator.findNearestK(start, 10);
+    }
+    diff = System.currentTimeMillis() - startMillis;
+    System.out.println(String.format("index: %d operations took %d milliseconds (%f per op)", N,
+        diff, (double) diff / N));
+  }
 }
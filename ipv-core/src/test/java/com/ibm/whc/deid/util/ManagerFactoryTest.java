@@ -1,14 +1,20 @@
 /*
- * (C) Copyright IBM Corp. 2021
+ * (C) Copyright IBM Corp. 2021,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import com.ibm.whc.deid.shared.localization.Resource;
 import com.ibm.whc.deid.util.localization.LocalizationManager;
@@ -60,4 +66,36 @@ public class ManagerFactoryTest {
     assertTrue(mgrSwiftDflt == factory.getManager(null, Resource.SWIFT, null,
         LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES));
   }
+
+  @Test
+  public void testConcurrentLoad() throws Exception {
+    String TEST_LOCALIZATION_PROPERTIES = "/localization/test.localization.properties";
+    ManagerFactory factory = ManagerFactory.getInstance();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<Manager>> tasks = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        tasks.add(() -> factory.getManager(null, Resource.RELIGION, null,
+            TEST_LOCALIZATION_PROPERTIES));
+      }
+      List<Future<Manager>> results = executor.invokeAll(tasks);
+      Manager manager = results.get(0).get();
+      assertNotNull(manager);
+      for (Future<Manager> result : results) {
+        assertTrue(manager == result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    int count = 0;
+    for (ManagerLoadStatistics statistics : factory.getLoadStatistics()) {
+      if (statistics.getResourceType().equals(Resource.RELIGION.toString())
+          && statistics.getLocalizationProperty().equals(TEST_LOCALIZATION_PROPERTIES)) {
+        assertTrue(statistics.getLoadTimeMillis() >= 0);
+        count++;
+      }
+    }
+    assertEquals(1, count);
+  }
 }
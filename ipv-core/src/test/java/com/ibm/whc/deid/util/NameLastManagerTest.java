@@ -1,18 +1,22 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import org.junit.Ignore;
 import org.junit.Test;
 import com.ibm.whc.deid.models.LastName;
 import com.ibm.whc.deid.providers.masking.MaskingProviderTest;
+import com.ibm.whc.deid.resources.ResourceStorage;
 
 public class NameLastManagerTest implements MaskingProviderTest {
 
@@ -65,4 +69,67 @@ public class NameLastManagerTest implements MaskingProviderTest {
     }
     locale = temp;
   }
+
+  private NameLastManager buildNameLastManager(ResourceStorage storage) {
+    String previous = System.getProperty(ResourceStorage.PACKED_RESOURCES_PROPERTY);
+    try {
+      if (storage == ResourceStorage.PACKED) {
+        System.setProperty(ResourceStorage.PACKED_RESOURCES_PROPERTY, "CITY, LAST_NAME");
+      } else {
+        System.clearProperty(ResourceStorage.PACKED_RESOURCES_PROPERTY);
+      }
+      return NameLastManager.buildNameLastManager(localizationProperty);
+    } finally {
+      if (previous == null) {
+        System.clearProperty(ResourceStorage.PACKED_RESOURCES_PROPERTY);
+      } else {
+        System.setProperty(ResourceStorage.PACKED_RESOURCES_PROPERTY, previous);
+      }
+    }
+  }
+
+  @Test
+  public void testPackedStorage() {
+    NameLastManager hashed = buildNameLastManager(ResourceStorage.HASHED);
+    NameLastManager packed = buildNameLastManager(ResourceStorage.PACKED);
+
+    assertEquals(hashed.getValues().size(), packed.getValues().size());
+    assertEquals(hashed.getKeys(), packed.getKeys());
+    assertEquals(hashed.getKeys("us"), packed.getKeys("us"));
+    for (int i = 0; i < 1000; i++) {
+      String name = hashed.getRandomKey();
+      assertTrue(packed.isValidKey(name.toLowerCase()));
+      assertTrue(packed.isValidKey("US", name));
+      assertEquals(hashed.getValue(name).getName(), packed.getValue(name).getName());
+      assertEquals(hashed.getPseudorandom(name), packed.getPseudorandom(name));
+    }
+    assertFalse(packed.isValidKey("NOT A NAME"));
+    assertNull(packed.getValue("us", "NOT A NAME"));
+    assertNull(packed.getValue("xx", hashed.getRandomKey()));
+  }
+
+  @Test
+  @Ignore
+  public void testPerformance() {
+    for (ResourceStorage storage : ResourceStorage.values()) {
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      long before = runtime.totalMemory() - runtime.freeMemory();
+      NameLastManager manager = buildNameLastManager(storage);
+      System.gc();
+      long after = runtime.totalMemory() - runtime.freeMemory();
+      System.out.println(String.format("%s storage of %d last names uses %d KB of heap", storage,
+          manager.getValues().size(), (after - before) / 1024));
+
+      String[] names = manager.getKeys().toArray(new String[0]);
+      int N = 1000000;
+      long startMillis = System.currentTimeMillis();
+      for (int i = 0; i < N; i++) {
+        assertTrue(manager.isValidKey("us", names[i % names.length]));
+      }
+      long diff = System.currentTimeMillis() - startMillis;
+      System.out.println(String.format("%d lookups took %d milliseconds (%f per op)", N, diff,
+          (double) diff / N));
+    }
+  }
 }
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -36,6 +36,24 @@ public class PostalCodeManagerTest implements MaskingProviderTest {
     }
   }
 
+  @Test
+  public void testLoadSnapshotRecord() {
+    PostalCodeManager manager = new PostalCodeManager();
+    PostalCodeManager.loadSnapshotRecord("test.bin", manager,
+        new String[] {"US", "55901", "23.3", "-78.3"});
+    assertNotNull(manager.getValue("55901"));
+    try {
+      PostalCodeManager.loadSnapshotRecord("test.bin", manager,
+          new String[] {"US", "99583", "54.841", "-183.4368"});
+      fail("expected exception");
+    } catch (KeyedRuntimeException e) {
+      assertEquals(LogCodes.WPH1023E, e.getMessageKey());
+      assertEquals(
+          "Invalid values were encountered while reading record [US, 99583, 54.841, -183.4368] from test.bin: The value \"-183.4368\" for \"longitude\" is invalid",
+          e.getMessage());
+    }
+  }
+
   @Test
   public void testLoadRecord() {
     PostalCodeManager manager = new PostalCodeManager();
@@ -0,0 +1,118 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.security.SecureRandom;
+import java.util.Random;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.pojo.config.RandomSourceType;
+
+public class RandomSourceTest {
+
+  @After
+  public void clearProperties() {
+    System.clearProperty(RandomSource.RANDOM_SOURCE_PROPERTY);
+    System.clearProperty(RandomSource.RANDOM_SEED_PROPERTY);
+  }
+
+  @Test
+  public void testCreate() {
+    assertTrue(RandomSource.create() instanceof SecureRandom);
+    assertTrue(RandomSource.create((DeidMaskingConfig) null) instanceof SecureRandom);
+    assertTrue(RandomSource.create(new DeidMaskingConfig()) instanceof SecureRandom);
+    assertTrue(RandomSource.create(RandomSourceType.SECURE, null) instanceof SecureRandom);
+    assertSame(RandomSource.fast(), RandomSource.create(RandomSourceType.FAST, null));
+
+    DeidMaskingConfig config = new DeidMaskingConfig();
+    config.setRandomSource(RandomSourceType.SEEDED);
+    config.setRandomSeed(Long.valueOf(7L));
+    Random expected = new Random(7L);
+    Random random = RandomSource.create(config);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(expected.nextInt(1000), random.nextInt(1000));
+    }
+    assertTrue(RandomSource.isSeeded(random));
+    assertTrue(RandomSource.isSeeded(config));
+    assertFalse(RandomSource.isSeeded(RandomSource.fast()));
+    assertFalse(RandomSource.isSeeded((Random) null));
+    assertFalse(RandomSource.isSeeded(new DeidMaskingConfig()));
+  }
+
+  @Test
+  public void testSystemProperties() {
+    System.setProperty(RandomSource.RANDOM_SOURCE_PROPERTY, "fast");
+    assertSame(RandomSource.fast(), RandomSource.create());
+    // a masking configuration without a source uses the default source
+    assertSame(RandomSource.fast(), RandomSource.create(new DeidMaskingConfig()));
+
+    System.setProperty(RandomSource.RANDOM_SOURCE_PROPERTY, "SEEDED");
+    System.setProperty(RandomSource.RANDOM_SEED_PROPERTY, "12");
+    Random first = RandomSource.create();
+    Random second = RandomSource.create();
+    assertTrue(RandomSource.isSeeded(new DeidMaskingConfig()));
+    for (int i = 0; i < 100; i++) {
+      assertEquals(first.nextLong(), second.nextLong());
+    }
+
+    System.setProperty(RandomSource.RANDOM_SOURCE_PROPERTY, "none");
+    try {
+      RandomSource.create();
+      fail("expected exception");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testFast() {
+    Random random = RandomSource.fast();
+    assertSame(random, SerializationUtils.clone(random));
+    for (int i = 0; i < 1000; i++) {
+      int value = random.nextInt(10);
+      assertTrue(value >= 0 && value < 10);
+      double d = random.nextDouble();
+      assertTrue(d >= 0.0 && d < 1.0);
+    }
+    byte[] bytes = new byte[64];
+    random.nextBytes(bytes);
+  }
+
+  @Ignore
+  @Test
+  public void testPerformance() throws Exception {
+    int threads = 8;
+    int count = 2_000_000;
+    for (Random random : new Random[] {RandomSource.secure(), RandomSource.fast()}) {
+      Thread[] workers = new Thread[threads];
+      for (int i = 0; i < threads; i++) {
+        workers[i] = new Thread(() -> {
+          for (int j = 0; j < count; j++) {
+            random.nextInt(1000);
+          }
+        });
+      }
+      long startMillis = System.currentTimeMillis();
+      for (Thread worker : workers) {
+        worker.start();
+      }
+      for (Thread worker : workers) {
+        worker.join();
+      }
+      long diff = System.currentTimeMillis() - startMillis;
+      System.out.println(random.getClass().getSimpleName() + ": " + threads + " threads x " + count
+          + " draws in " + diff + " milliseconds");
+    }
+  }
+}
@@ -1,10 +1,12 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.ibm.whc.deid.models.ReversePatternGenerator;
@@ -38,4 +40,45 @@ public class ReversePatternManagerTest {
     ReversePatternGenerator wrongPattern = p.getPatternByResource("!!!!!!!", "us");
     assertTrue(wrongPattern == null);
   }
+
+  @Test
+  public void testCacheBounded() {
+    ReversePatternGenerator first = p.getPatternByPattern("[abc]{1}", "bounded");
+    assertSame(first, p.getPatternByPattern("[abc]{1}", "BOUNDED"));
+    for (int i = 2; i <= ReversePatternManager.MAXIMUM_CACHED_PATTERNS + 10; i++) {
+      p.getPatternByPattern("[abc]{" + i + "}", "bounded");
+    }
+    int entries = p.getItemList().size();
+    ReversePatternGenerator uncached = p.getPatternByPattern("[xyz]{5}", "bounded");
+    assertTrue(uncached.getRandomToken(random).matches("^[xyz]{5}$"));
+    assertEquals(entries, p.getItemList().size());
+    assertSame(first, p.getPatternByPattern("[abc]{1}", "bounded"));
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    Thread[] threads = new Thread[8];
+    ReversePatternGenerator[][] found = new ReversePatternGenerator[threads.length][];
+    for (int t = 0; t < threads.length; t++) {
+      int index = t;
+      threads[t] = new Thread(() -> {
+        found[index] = new ReversePatternGenerator[100];
+        for (int i = 0; i < 100; i++) {
+          found[index][i] = p.getPatternByPattern("[def]{" + i + "}", "concurrent");
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // every thread gets the same cached instance
+    for (int t = 1; t < threads.length; t++) {
+      for (int i = 0; i < 100; i++) {
+        assertSame(found[0][i], found[t][i]);
+      }
+    }
+  }
 }
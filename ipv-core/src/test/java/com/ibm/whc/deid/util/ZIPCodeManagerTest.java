@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -84,6 +84,32 @@ public class ZIPCodeManagerTest implements MaskingProviderTest {
     }
   }
 
+  @Test
+  public void testPrefixQueries() {
+    ZIPCodeManager manager = new ZIPCodeManager();
+    ZIPCodeManager.loadRecord("us", manager, "12345", "10");
+    ZIPCodeManager.loadRecord("US", manager, "12300", "20");
+    ZIPCodeManager.loadRecord("us", manager, "99999", "40");
+    ZIPCodeManager.loadRecord("ca", manager, "12399", "80");
+
+    assertEquals(Integer.valueOf(30), manager.getPopulationByPrefix("us", "123"));
+    assertEquals(Integer.valueOf(30), manager.getPopulationByPrefix("uS", "1"));
+    assertEquals(Integer.valueOf(70), manager.getPopulationByPrefix("us", ""));
+    assertEquals(Integer.valueOf(0), manager.getPopulationByPrefix("us", "1234567"));
+    assertEquals(Integer.valueOf(80), manager.getPopulationByPrefix("ca", "123"));
+    assertEquals("12300", manager.getRandomZipCodeByPrefix("US", "1230"));
+    assertNull(manager.getRandomZipCodeByPrefix("us", "2"));
+
+    // codes added after a query are included in later queries
+    ZIPCodeManager.loadRecord("us", manager, "12346", "100");
+    assertEquals(Integer.valueOf(130), manager.getPopulationByPrefix("us", "123"));
+    HashSet<String> found = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      found.add(manager.getRandomZipCodeByPrefix("us", "1234"));
+    }
+    assertEquals(new HashSet<>(Arrays.asList("12345", "12346")), found);
+  }
+
   @Test
   public void testLoadRecord() {
     ZIPCodeManager manager = new ZIPCodeManager();
@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Test;
+import com.ibm.whc.deid.shared.pojo.masking.MaskingProviderType;
+
+public class BoundedDeidCacheTest {
+
+  @After
+  public void clearProperties() {
+    System.clearProperty(BoundedDeidCache.PROVIDER_TYPES_PROPERTY);
+    System.clearProperty(BoundedDeidCache.MAXIMUM_SIZE_PROPERTY);
+    System.clearProperty(BoundedDeidCache.MAXIMUM_WEIGHT_PROPERTY);
+    System.clearProperty(BoundedDeidCache.OFF_HEAP_PROPERTY);
+  }
+
+  @Test
+  public void testGetAndPut() {
+    for (boolean offHeap : new boolean[] {false, true}) {
+      BoundedDeidCache cache = new BoundedDeidCache(100, 0, offHeap);
+      assertNull(cache.getCachedValue("key"));
+      assertNull(cache.getCachedValue(null));
+      cache.putCachedValue("key", "välue");
+      cache.putCachedValue("other", null);
+      cache.putCachedValue(null, "value");
+      assertEquals("välue", cache.getCachedValue("key"));
+      assertNull(cache.getCachedValue("other"));
+      assertEquals(1, cache.size());
+      assertEquals(3 + 6, cache.getWeight());
+      assertEquals(1, cache.getHitCount());
+      assertEquals(2, cache.getMissCount());
+
+      cache.putCachedValue("key", "new");
+      assertEquals("new", cache.getCachedValue("key"));
+      assertEquals(1, cache.size());
+      assertEquals(3 + 3, cache.getWeight());
+    }
+  }
+
+  @Test
+  public void testMaximumSize() {
+    BoundedDeidCache cache = new BoundedDeidCache(10, 0, false);
+    for (int i = 0; i < 10; i++) {
+      cache.putCachedValue("key" + i, "value" + i);
+    }
+    // the least recently used entry is evicted
+    assertEquals("value0", cache.getCachedValue("key0"));
+    cache.putCachedValue("key10", "value10");
+    assertEquals(10, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNull(cache.getCachedValue("key1"));
+    assertEquals("value0", cache.getCachedValue("key0"));
+    assertEquals("value10", cache.getCachedValue("key10"));
+
+    cache = new BoundedDeidCache(5000, 0, true);
+    for (int i = 0; i < 20000; i++) {
+      cache.putCachedValue("key" + i, "value" + i);
+    }
+    assertTrue(cache.size() <= 5000);
+    assertEquals(20000 - cache.size(), cache.getEvictionCount());
+  }
+
+  @Test
+  public void testMaximumWeight() {
+    BoundedDeidCache cache = new BoundedDeidCache(100, 20, false);
+    cache.putCachedValue("key1", "value1");
+    cache.putCachedValue("key2", "value2");
+    assertEquals(20, cache.getWeight());
+    cache.putCachedValue("key3", "value3");
+    assertEquals(2, cache.size());
+    assertEquals(20, cache.getWeight());
+    assertNull(cache.getCachedValue("key1"));
+
+    // an entry heavier than the maximum is not retained
+    cache.putCachedValue("key4", "a value longer than the maximum");
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getWeight());
+    assertEquals(4, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testDropCache() {
+    BoundedDeidCache cache = new BoundedDeidCache(1000, 0, true);
+    for (int i = 0; i < 500; i++) {
+      cache.putCachedValue("key" + i, "value" + i);
+    }
+    cache.dropCache();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getWeight());
+    assertNull(cache.getCachedValue("key1"));
+    cache.putCachedValue("key1", "value1");
+    assertEquals("value1", cache.getCachedValue("key1"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaximumSize() {
+    new BoundedDeidCache(0, 0, false);
+  }
+
+  @Test
+  public void testForProviderType() {
+    assertNull(BoundedDeidCache.forProviderType(MaskingProviderType.HASH));
+
+    System.setProperty(BoundedDeidCache.PROVIDER_TYPES_PROPERTY, "FPE, hash");
+    BoundedDeidCache cache =
+        (BoundedDeidCache) BoundedDeidCache.forProviderType(MaskingProviderType.HASH);
+    assertEquals(BoundedDeidCache.DEFAULT_MAXIMUM_SIZE, cache.getMaximumSize());
+    assertEquals(0, cache.getMaximumWeight());
+    assertEquals(false, cache.isOffHeap());
+    assertNull(BoundedDeidCache.forProviderType(MaskingProviderType.CITY));
+
+    System.setProperty(BoundedDeidCache.MAXIMUM_SIZE_PROPERTY, "50");
+    System.setProperty(BoundedDeidCache.MAXIMUM_WEIGHT_PROPERTY, "4096");
+    System.setProperty(BoundedDeidCache.OFF_HEAP_PROPERTY, "true");
+    cache = (BoundedDeidCache) BoundedDeidCache.forProviderType(MaskingProviderType.FPE);
+    assertEquals(50, cache.getMaximumSize());
+    assertEquals(4096, cache.getMaximumWeight());
+    assertEquals(true, cache.isOffHeap());
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    BoundedDeidCache cache = new BoundedDeidCache(1000, 0, false);
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          String key = "key" + (i % 2000);
+          String value = cache.getCachedValue(key);
+          if (value == null) {
+            cache.putCachedValue(key, "value" + (i % 2000));
+          } else {
+            assertEquals("value" + (i % 2000), value);
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(cache.size() <= 1000);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.util.localization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.ibm.whc.deid.util.Readers;
+
+public class ResourceSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ResourceSnapshot compile() throws Exception {
+    Path path = folder.newFile("resources.snapshot").toPath();
+    try (OutputStream output = Files.newOutputStream(path)) {
+      assertTrue(ResourceSnapshot.compile(LocalizationManager.DEFAULT_LOCALIZATION_PROPERTIES,
+          output) > 20);
+    }
+    return ResourceSnapshot.open(path);
+  }
+
+  private void assertSameRecords(ResourceSnapshot snapshot, String fileName, CSVParser parser)
+      throws Exception {
+    Iterator<String[]> records = snapshot.getRecords(fileName).iterator();
+    int count = 0;
+    for (CSVRecord record : parser) {
+      assertTrue(records.hasNext());
+      String[] values = records.next();
+      assertEquals(record.size(), values.length);
+      for (int i = 0; i < values.length; i++) {
+        assertEquals(record.get(i), values[i]);
+      }
+      count++;
+    }
+    assertFalse(records.hasNext());
+    assertTrue(count > 0);
+  }
+
+  @Test
+  public void testCompile() throws Exception {
+    ResourceSnapshot snapshot = compile();
+
+    String fileName = "/identifier/us/last_names.csv";
+    try (InputStream input = getClass().getResourceAsStream(fileName);
+        CSVParser parser = Readers.createCSVReaderFromStream(input)) {
+      assertSameRecords(snapshot, fileName, parser);
+    }
+
+    // resources read with their own CSV format
+    fileName = "/identifier/en/icd_list.csv";
+    try (InputStream input = getClass().getResourceAsStream(fileName);
+        CSVParser parser = Readers.createCSVReaderFromStream(input, ';', '"')) {
+      assertSameRecords(snapshot, fileName, parser);
+    }
+    fileName = "/identifier/en/races.csv";
+    try (InputStream input = getClass().getResourceAsStream(fileName);
+        CSVParser parser = Readers.createCSVReaderFromStream(input, ',', '"', '#')) {
+      assertSameRecords(snapshot, fileName, parser);
+    }
+
+    // each iteration starts from the first record
+    Iterable<String[]> records = snapshot.getRecords(fileName);
+    assertArrayEquals(records.iterator().next(), records.iterator().next());
+
+    assertNull(snapshot.getRecords("/identifier/us/none.csv"));
+  }
+
+  @Test
+  public void testExternalEntry() throws Exception {
+    ResourceEntry entry = new ResourceEntry("/identifier/us/last_names.csv", "us",
+        ResourceEntryType.EXTERNAL_FILENAME);
+    assertNull(entry.getSnapshotRecords());
+  }
+
+  @Test
+  public void testInvalidFile() throws Exception {
+    Path path = folder.newFile("invalid.snapshot").toPath();
+    Files.write(path, "Name,Value\nA,1\n".getBytes());
+    try {
+      ResourceSnapshot.open(path);
+      fail("expected exception");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -17,6 +17,12 @@ import java.util.Arrays;
 import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * A JSON pointer that is parsed once and applied to many documents.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
 public final class JSONPath implements Serializable {
 
   /**
@@ -24,8 +30,17 @@ public final class JSONPath implements Serializable {
    */
   private static final long serialVersionUID = -1092223094403555377L;
   private final String pattern;
+  // the pattern of the node that holds the target of the pattern and the name or index of the
+  // target in that node
+  private final String parentPattern;
+  private final String lastSegment;
   private static LogManager log = LogManager.getInstance();
 
+  // JsonPointer is not Serializable, so the pointers are parsed again when needed after
+  // deserialization
+  private transient volatile JsonPointer pointer;
+  private transient volatile JsonPointer parentPointer;
+
   private JSONPath(final String pattern) {
     if (null == pattern) {
       log.logError(LogCodes.WPH1010E, "null", "jsonPath pattern");
@@ -33,6 +48,15 @@ public final class JSONPath implements Serializable {
     }
 
     this.pattern = pattern;
+    List<String> list = Arrays.asList(pattern.split("/"));
+    if (list.size() > 2) { // because of "" before the first / and the
+      // second one will be the field we want to
+      // modify
+      this.parentPattern = StringUtils.join(list.subList(0, list.size() - 1), "/");
+    } else {
+      this.parentPattern = "";
+    }
+    this.lastSegment = list.isEmpty() ? "" : list.get(list.size() - 1);
   }
 
   /** Checks if input string has correct json format */
@@ -51,28 +75,48 @@ public final class JSONPath implements Serializable {
     return new JSONPath(pattern);
   }
 
+  /**
+   * @return the pattern from which this path was compiled
+   */
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+   * @return the parsed pattern
+   *
+   * @throws IllegalArgumentException if the pattern is not a valid JSON pointer
+   */
+  public JsonPointer getPointer() {
+    JsonPointer compiled = pointer;
+    if (compiled == null) {
+      compiled = JsonPointer.compile(pattern);
+      pointer = compiled;
+    }
+    return compiled;
+  }
+
+  private JsonPointer getParentPointer() {
+    JsonPointer compiled = parentPointer;
+    if (compiled == null) {
+      compiled = JsonPointer.compile(parentPattern);
+      parentPointer = compiled;
+    }
+    return compiled;
+  }
+
   public JsonNode apply(JsonNode obj) {
-    return obj.at(pattern);
+    return obj.at(getPointer());
   }
 
   /** Updates Json Node given a node value */
   public JsonNode update(JsonNode obj, ValueNode value) throws JSONPathException {
-    List<String> list = Arrays.asList(pattern.split("/"));
-    JsonNode node;
-    if (list.size() > 2) { // because of "" before the first / and the
-      // second one will be the field we want to
-      // modify
-      String newPattern = StringUtils.join(list.subList(0, list.size() - 1), "/");
-
-      node = obj.at(newPattern);
-    } else {
-      node = obj.at("");
-    }
+    JsonNode node = obj.at(getParentPointer());
 
     if (node.isArray()) {
-      ((ArrayNode) node).set(Integer.parseInt(list.get(list.size() - 1), 10), value);
+      ((ArrayNode) node).set(Integer.parseInt(lastSegment, 10), value);
     } else if (node.isObject()) {
-      ((ObjectNode) node).set(list.get(list.size() - 1), value);
+      ((ObjectNode) node).set(lastSegment, value);
     }
 
     return obj;
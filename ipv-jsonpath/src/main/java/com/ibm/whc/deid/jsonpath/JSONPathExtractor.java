@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -94,8 +94,11 @@ public final class JSONPathExtractor {
     return update(mapper.readTree(objString), JSONPath.compile(pattern), createNodeValue(node));
   }
 
-  /** Given a string node, a string pattern to a json path, and json node, update the value node */
-  private static JsonNode update(JsonNode obj, JSONPath pattern, ValueNode value)
+  /**
+   * Given a json node, a compiled json path, and a value node, update the node in place without
+   * parsing the document or the path again
+   */
+  public static JsonNode update(JsonNode obj, JSONPath pattern, ValueNode value)
       throws JSONPathException {
     return pattern.update(obj, value);
   }
@@ -0,0 +1,178 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.jsonpath;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * A set of JSON pointers that are resolved together against a document.
+ *
+ * <p>
+ * The pointers are arranged in a tree by their segments, so the nodes on a prefix that several
+ * pointers share are looked up only once for each document. Each pointer resolves to the same node
+ * as {@link JSONPath#apply(JsonNode)}.
+ *
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class JSONPathSet implements Serializable {
+
+  private static final long serialVersionUID = 6208394178436018835L;
+
+  /**
+   * A node of the tree of pointer segments.
+   */
+  private static final class Segment {
+
+    // the property name of this segment, null for the root
+    final String property;
+    // the array index of this segment, negative if the segment is not a valid index
+    final int index;
+    // the positions in the set of the paths that end at this segment
+    final List<Integer> ends = new ArrayList<>();
+    final Map<String, Segment> children = new LinkedHashMap<>();
+
+    Segment(String property, int index) {
+      this.property = property;
+      this.index = index;
+    }
+  }
+
+  private final List<JSONPath> paths;
+
+  // built again when needed after deserialization
+  private transient volatile Segment root;
+
+  private JSONPathSet(List<JSONPath> paths) {
+    this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+    this.root = buildTree();
+  }
+
+  /**
+   * @param patterns the JSON pointers, which can include duplicates
+   *
+   * @return the set of the given pointers, in the given order
+   *
+   * @throws IllegalArgumentException if a pattern is not a valid JSON pointer
+   * @throws NullPointerException if a pattern is <i>null</i>
+   */
+  public static JSONPathSet compile(Collection<String> patterns) {
+    List<JSONPath> list = new ArrayList<>(patterns.size());
+    for (String pattern : patterns) {
+      list.add(JSONPath.compile(pattern));
+    }
+    return of(list);
+  }
+
+  /**
+   * @param patterns the JSON pointers, which can include duplicates
+   *
+   * @return the set of the given pointers, in the given order
+   *
+   * @throws IllegalArgumentException if a pattern is not a valid JSON pointer
+   * @throws NullPointerException if a pattern is <i>null</i>
+   */
+  public static JSONPathSet compile(String... patterns) {
+    return compile(Arrays.asList(patterns));
+  }
+
+  /**
+   * @param paths the compiled paths, which can include duplicates
+   *
+   * @return the set of the given paths, in the given order
+   *
+   * @throws IllegalArgumentException if a path is not a valid JSON pointer
+   */
+  public static JSONPathSet of(Collection<JSONPath> paths) {
+    return new JSONPathSet(new ArrayList<>(paths));
+  }
+
+  private Segment buildTree() {
+    Segment tree = new Segment(null, -1);
+    for (int i = 0; i < paths.size(); i++) {
+      Segment segment = tree;
+      JsonPointer pointer = paths.get(i).getPointer();
+      while (!pointer.matches()) {
+        String property = pointer.getMatchingProperty();
+        Segment child = segment.children.get(property);
+        if (child == null) {
+          child = new Segment(property, pointer.getMatchingIndex());
+          segment.children.put(property, child);
+        }
+        segment = child;
+        pointer = pointer.tail();
+      }
+      segment.ends.add(Integer.valueOf(i));
+    }
+    return tree;
+  }
+
+  private Segment getTree() {
+    Segment tree = root;
+    if (tree == null) {
+      tree = buildTree();
+      root = tree;
+    }
+    return tree;
+  }
+
+  /**
+   * @return the paths in the set, in the order in which they were given
+   */
+  public List<JSONPath> getPaths() {
+    return paths;
+  }
+
+  /**
+   * @return the number of paths in the set
+   */
+  public int size() {
+    return paths.size();
+  }
+
+  /**
+   * Resolves all the paths in the set against the given document.
+   *
+   * @param obj the document
+   *
+   * @return the node at each path, in the order of the paths in the set, with a missing node for
+   *         each path that is not found in the document
+   */
+  public List<JsonNode> apply(JsonNode obj) {
+    JsonNode[] values = new JsonNode[paths.size()];
+    Arrays.fill(values, MissingNode.getInstance());
+    resolve(getTree(), obj, values);
+    return Arrays.asList(values);
+  }
+
+  private static void resolve(Segment segment, JsonNode node, JsonNode[] values) {
+    for (Integer end : segment.ends) {
+      values[end.intValue()] = node;
+    }
+    for (Segment child : segment.children.values()) {
+      // as JsonNode.at() does, members of objects are found by name and members of arrays by index
+      JsonNode next = null;
+      if (node.isObject()) {
+        next = node.get(child.property);
+      } else if (node.isArray()) {
+        next = node.get(child.index);
+      }
+      if (next != null) {
+        resolve(child, next, values);
+      }
+    }
+  }
+}
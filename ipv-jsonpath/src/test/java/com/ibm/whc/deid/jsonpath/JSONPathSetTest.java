@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.jsonpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ibm.whc.deid.ObjectMapperFactory;
+
+public class JSONPathSetTest {
+
+  private static final String JSON =
+      "{\"a\": {\"b\": [1, {\"c\": \"x\"}], \"d\": \"y\", \"e/f\": 2, \"0\": 3}, \"g\": null}";
+
+  @Test
+  public void testApply() throws Exception {
+    JsonNode document = ObjectMapperFactory.getObjectMapper().readTree(JSON);
+    List<String> patterns = Arrays.asList("/a/b/1/c", "/a/d", "/a/b/0", "", "/a/e~1f", "/a/0",
+        "/g", "/a/b/5", "/a/d/z", "/h", "/a/d");
+    JSONPathSet set = JSONPathSet.compile(patterns);
+    assertEquals(patterns.size(), set.size());
+
+    List<JsonNode> values = set.apply(document);
+    assertEquals(patterns.size(), values.size());
+    for (int i = 0; i < patterns.size(); i++) {
+      // the same nodes are found as by a single path
+      assertEquals(patterns.get(i), JSONPath.compile(patterns.get(i)).apply(document),
+          values.get(i));
+      assertEquals(patterns.get(i), set.getPaths().get(i).getPattern());
+    }
+    assertEquals("x", values.get(0).asText());
+    assertSame(document, values.get(3));
+    assertEquals(2, values.get(4).asInt());
+    assertEquals(3, values.get(5).asInt());
+    assertTrue(values.get(6).isNull());
+    assertTrue(values.get(7).isMissingNode());
+    assertTrue(values.get(8).isMissingNode());
+    assertTrue(values.get(9).isMissingNode());
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    JsonNode document = ObjectMapperFactory.getObjectMapper().readTree(JSON);
+    JSONPathSet set = SerializationUtils.clone(JSONPathSet.compile("/a/d", "/a/b/1/c"));
+    List<JsonNode> values = set.apply(document);
+    assertEquals("y", values.get(0).asText());
+    assertEquals("x", values.get(1).asText());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPattern() {
+    JSONPathSet.compile("/a", "invalid");
+  }
+}
@@ -1,15 +1,21 @@
 /*
- * (C) Copyright IBM Corp. 2016,2020
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
 package com.ibm.whc.deid.jsonpath;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.ibm.whc.deid.ObjectMapperFactory;
+
 public class JSONPathTest {
 
   private final String validPattern = "/store/book/0/price";
@@ -30,4 +36,21 @@ public class JSONPathTest {
   public void testJSONPathExpressionByInvalidPattern() throws Exception {
     assertFalse(JSONPath.isValid(invalidPattern));
   }
+
+  @Test
+  public void testApplyAndUpdate() throws Exception {
+    JsonNode document = ObjectMapperFactory.getObjectMapper()
+        .readTree("{\"store\": {\"book\": [{\"price\": 1}], \"name\": \"x\"}}");
+    // the parsed pointers are not serialized
+    JSONPath path = SerializationUtils.clone(JSONPath.compile(validPattern));
+    assertEquals(validPattern, path.getPattern());
+    assertEquals(1, path.apply(document).asInt());
+    path.update(document, new TextNode("2"));
+    assertEquals("2", path.apply(document).asText());
+
+    JSONPath name = JSONPath.compile("/store/name");
+    name.update(document, new TextNode("y"));
+    assertEquals("y", name.apply(document).asText());
+    assertTrue(JSONPath.compile("/store/none").apply(document).isMissingNode());
+  }
 }
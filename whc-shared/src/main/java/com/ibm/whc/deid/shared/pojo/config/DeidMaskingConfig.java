@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -26,6 +26,7 @@ public class DeidMaskingConfig implements Serializable {
 
   public static final String JSON_CONFIGURATION_PROPERTY_NAME = "json";
   public static final String RULES_CONFIGURATION_PROPERTY_NAME = "rules";
+  public static final String RANDOM_SEED_PROPERTY_NAME = "randomSeed";
   
   @JsonProperty(RULES_CONFIGURATION_PROPERTY_NAME)
   private List<Rule> rules;
@@ -38,6 +39,11 @@ public class DeidMaskingConfig implements Serializable {
 
   private boolean defaultNoRuleResolution = true;
 
+  private RandomSourceType randomSource;
+
+  @JsonProperty(RANDOM_SEED_PROPERTY_NAME)
+  private Long randomSeed;
+
   public DeidMaskingConfig() {
     // nothing required here
   }
@@ -87,4 +93,27 @@ public class DeidMaskingConfig implements Serializable {
   public void setCertificateId(String certificateId) {
     this.certificateId = certificateId;
   }
+
+  /**
+   * @return the source of random numbers used by the masking providers built from this
+   *         configuration or <i>null</i> for the default source
+   */
+  public RandomSourceType getRandomSource() {
+    return randomSource;
+  }
+
+  public void setRandomSource(RandomSourceType randomSource) {
+    this.randomSource = randomSource;
+  }
+
+  /**
+   * @return the seed of the {@link RandomSourceType#SEEDED} random source
+   */
+  public Long getRandomSeed() {
+    return randomSeed;
+  }
+
+  public void setRandomSeed(Long randomSeed) {
+    this.randomSeed = randomSeed;
+  }
 }
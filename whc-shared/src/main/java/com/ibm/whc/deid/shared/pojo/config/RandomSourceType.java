@@ -0,0 +1,29 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.shared.pojo.config;
+
+/*
+ * The sources of random numbers the masking providers can use for random replacement values
+ */
+public enum RandomSourceType {
+
+  /**
+   * A cryptographically strong random number generator, the default.
+   */
+  SECURE,
+
+  /**
+   * A fast random number generator that is not cryptographically strong and keeps its state per
+   * thread, so concurrent masking threads do not contend for it.
+   */
+  FAST,
+
+  /**
+   * A random number generator started from a fixed seed so that masking the same input in the same
+   * order produces the same output, intended for reproducible test runs.
+   */
+  SEEDED
+}
@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright IBM Corp. 2022
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.ibm.whc.deid.shared.pojo.masking;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ibm.whc.deid.shared.pojo.config.ConfigSchemaTypes;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * The model class which represents the post data for De-Identification REST API requests that
+ * refer to a previously registered masking configuration rather than including the configuration.
+ */
+@Schema(name = "dataMaskingByReferenceModel",
+    description = "De-identification input object referring to a registered configuration")
+public class DataMaskingByReferenceModel {
+
+  @Schema(description = "Name of the registered masking configuration")
+  protected final String configName;
+
+  @Schema(description = "Version of the registered masking configuration")
+  protected final String configVersion;
+
+  @Schema(description = "A list of data to be masked")
+  protected final List<String> data;
+
+  @Schema(description = "The format of the data to be masked", implementation = String.class)
+  protected final ConfigSchemaTypes schemaType;
+
+  @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
+  public DataMaskingByReferenceModel(@JsonProperty("configName") String configName,
+      @JsonProperty("configVersion") String configVersion,
+      @JsonProperty("data") List<String> data,
+      @JsonProperty("schemaType") ConfigSchemaTypes schemaType) {
+    this.configName = configName;
+    this.configVersion = configVersion;
+    this.data = data;
+    this.schemaType = schemaType;
+  }
+
+  public String getConfigName() {
+    return configName;
+  }
+
+  public String getConfigVersion() {
+    return configVersion;
+  }
+
+  public List<String> getData() {
+    return data;
+  }
+
+  public ConfigSchemaTypes getSchemaType() {
+    return schemaType;
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * (C) Copyright IBM Corp. 2016,2021
+ * (C) Copyright IBM Corp. 2016,2022
  *
  * SPDX-License-Identifier: Apache-2.0
  */
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import com.ibm.whc.deid.ObjectMapperFactory;
 import com.ibm.whc.deid.shared.pojo.config.DeidMaskingConfig;
+import com.ibm.whc.deid.shared.pojo.config.RandomSourceType;
 import com.ibm.whc.deid.shared.pojo.config.Rule;
 import com.ibm.whc.deid.shared.pojo.config.json.JsonConfig;
 import com.ibm.whc.deid.shared.pojo.config.json.JsonMaskingRule;
@@ -71,10 +72,30 @@ public class MaskingConfigUtils {
 
     validateRules(deidMaskingConfig);
     validateJsonConfig(deidMaskingConfig, false);
+    validateRandomSource(deidMaskingConfig);
 
     return deidMaskingConfig;
   }
 
+  /**
+   * Validates that a seed is given if the masking configuration requests a seeded random source.
+   *
+   * @param deidMaskingConfig the masking configuration being validated
+   *
+   * @throws InvalidMaskingConfigurationException if the masking configuration is not valid.
+   */
+  protected void validateRandomSource(DeidMaskingConfig deidMaskingConfig)
+      throws InvalidMaskingConfigurationException {
+    if (deidMaskingConfig.getRandomSource() == RandomSourceType.SEEDED
+        && deidMaskingConfig.getRandomSeed() == null) {
+      InvalidMaskingConfigurationException e = new InvalidMaskingConfigurationException(
+          Messages.getMessage(LogCodes.WPH8000E, DeidMaskingConfig.RANDOM_SEED_PROPERTY_NAME),
+          DeidMaskingConfig.RANDOM_SEED_PROPERTY_NAME);
+      e.setMessageKey(LogCodes.WPH8000E);
+      throw e;
+    }
+  }
+
   /**
    * Validates the content of the "json" property in a masking configuration.
    *